@@ -3,15 +3,28 @@ extends Node
 ## GameState — autoload singleton
 ## Single source of truth for client-side game state.
 ## Scenes read from this node; they do NOT store duplicate state.
+##
+## Lobby changes and game start/end emit state_updated. In-game state frames only
+## emit the signals for the fields that actually changed, so scenes can update
+## just the affected nodes instead of rebuilding from the whole snapshot.
 
 signal state_updated
 signal player_id_assigned(player_id: String)
 signal rooms_updated(rooms: Array)
+signal round_phase_changed
+signal turn_changed
+## The seat list itself changed (players joined, left or were reordered).
+signal players_reset
+## One seated player's fields changed.
+signal player_changed(player_id: String)
 
 # ─── Identity ────────────────────────────────────────────────────────────────
 
 var local_player_id: String = ""
 var local_player_name: String = ""
+var local_rating_id: String = ""  # Leaderboard id of this install's account, from WELCOME
+
+const PLAYER_KEY_PATH := "user://player_key"
 
 # ─── Lobby ───────────────────────────────────────────────────────────────────
 
@@ -23,10 +36,14 @@ var room_players: Array = []  # Array[Dictionary]
 # ─── In-game ─────────────────────────────────────────────────────────────────
 
 var game_active: bool = false
+var game_map: String = ""  # Board name, e.g. "usa"
+var game_regions: Array = []  # Array[String] — region names in play on that board
 var round: int = 0
 var phase: String = ""
 var current_player_id: String = ""
+var turn_deadline_ms: int = 0  # Server wall-clock deadline of the current turn; 0 if none
 var players: Array = []  # Array[Dictionary]
+var state_version: int = 0  # Server state version the fields above reflect
 
 
 func _ready() -> void:
@@ -37,17 +54,44 @@ func _exit_tree() -> void:
 	NetworkManager.message_received.disconnect(_on_message)
 
 
+## Secret sent as "playerKey" in HELLO so ratings follow this install across connections.
+## Generated once and kept in user://.
+func player_key() -> String:
+	if FileAccess.file_exists(PLAYER_KEY_PATH):
+		var key: String = FileAccess.get_file_as_string(PLAYER_KEY_PATH).strip_edges()
+		if not key.is_empty():
+			return key
+	var key: String = Crypto.new().generate_random_bytes(24).hex_encode()
+	var file := FileAccess.open(PLAYER_KEY_PATH, FileAccess.WRITE)
+	if file != null:
+		file.store_string(key)
+	return key
+
+
 func reset() -> void:
 	local_player_id = ""
+	local_rating_id = ""
 	current_room_id = ""
 	current_room_name = ""
 	lobby_rooms = []
 	room_players = []
 	game_active = false
+	game_map = ""
+	game_regions = []
 	round = 0
 	phase = ""
 	current_player_id = ""
+	turn_deadline_ms = 0
 	players = []
+	state_version = 0
+
+
+## Whole seconds until the current turn times out, or -1 if no deadline is known.
+func seconds_left_in_turn() -> int:
+	if turn_deadline_ms <= 0:
+		return -1
+	var now_ms: int = int(Time.get_unix_time_from_system() * 1000.0)
+	return maxi(0, ceili((turn_deadline_ms - now_ms) / 1000.0))
 
 
 # ─── Message handling ─────────────────────────────────────────────────────────
@@ -59,6 +103,7 @@ func _on_message(msg: Dictionary) -> void:
 	match type:
 		"WELCOME":
 			local_player_id = payload.get("playerId", "")
+			local_rating_id = payload.get("ratingId", local_player_id)
 			player_id_assigned.emit(local_player_id)
 
 		"ROOM_LIST":
@@ -76,15 +121,131 @@ func _on_message(msg: Dictionary) -> void:
 
 		"GAME_STARTING":
 			game_active = true
+			game_map = payload.get("map", "")
+			game_regions = payload.get("regions", [])
 			state_updated.emit()
 
 		"GAME_STATE_UPDATE":
-			round = payload.get("round", round)
-			phase = payload.get("phase", phase)
-			current_player_id = payload.get("currentPlayerId", current_player_id)
-			players = payload.get("players", players)
-			state_updated.emit()
+			_apply_state_fields(payload)
+			state_version = int(payload.get("version", 0))
+
+		"GAME_STATE_DELTA":
+			var version: int = int(payload.get("version", 0))
+			if version <= state_version:
+				return  # duplicate of a version we already hold
+			if version != state_version + 1:
+				_report_mismatch(version)
+				return
+			_apply_state_fields(payload)
+			state_version = version
+			if _compute_checksum() != int(payload.get("checksum", -1)):
+				_report_mismatch(version)
 
 		"GAME_OVER":
 			game_active = false
+			turn_deadline_ms = 0
 			state_updated.emit()
+
+		"ERROR":
+			# Our seat was released while we were away — start over as a new player.
+			if payload.get("code", "") == "RESUME_EXPIRED":
+				reset()
+				NetworkManager.send({"type": "HELLO", "payload": {"playerName": local_player_name, "playerKey": player_key(), "batch": true, "compression": "deflate"}})
+
+
+## Applies the fields present in a snapshot or delta and signals only what changed.
+func _apply_state_fields(payload: Dictionary) -> void:
+	var round_phase_moved: bool = false
+	var turn_moved: bool = false
+	if payload.has("round") and int(payload["round"]) != round:
+		round = int(payload["round"])
+		round_phase_moved = true
+	if payload.has("phase") and payload["phase"] != phase:
+		phase = payload["phase"]
+		round_phase_moved = true
+	if payload.has("currentPlayerId"):
+		var pid: String = payload["currentPlayerId"] if payload["currentPlayerId"] != null else ""
+		if pid != current_player_id:
+			current_player_id = pid
+			turn_moved = true
+	if payload.has("turnDeadline") and int(payload["turnDeadline"]) != turn_deadline_ms:
+		turn_deadline_ms = int(payload["turnDeadline"])
+		turn_moved = true
+	if payload.has("players"):
+		_apply_players(payload["players"])
+	if round_phase_moved:
+		round_phase_changed.emit()
+	if turn_moved:
+		turn_changed.emit()
+
+
+func _apply_players(next: Array) -> void:
+	var same_seats: bool = next.size() == players.size()
+	if same_seats:
+		for i: int in next.size():
+			if (next[i] as Dictionary).get("id", "") != (players[i] as Dictionary).get("id", ""):
+				same_seats = false
+				break
+	var previous: Array = players
+	players = next
+	if not same_seats:
+		players_reset.emit()
+		return
+	for i: int in next.size():
+		if next[i] != previous[i]:
+			player_changed.emit((next[i] as Dictionary).get("id", ""))
+
+
+## Our copy disagrees with the server (or we missed a version); ask for a full snapshot.
+func _report_mismatch(version: int) -> void:
+	NetworkManager.send({"type": "STATE_MISMATCH", "payload": {"version": version}})
+
+
+# ─── State checksum (mirrors server StateChecksum) ──────────────────────────
+
+const _PHASES: Array[String] = ["AUCTION", "RESOURCES", "BUILDING", "BUREAUCRACY"]
+const _ID_DIGITS: String = "0123456789abcdefghijklmnopqrstuvwxyz"
+const _MASK32: int = 0xFFFFFFFF
+
+
+## XOR of one key per visible feature; "money" only counts where the server sent it.
+func _compute_checksum() -> int:
+	var h: int = _key(1, 0, round) ^ _key(2, 0, _PHASES.find(phase) + 1) \
+			^ _key(3, 0, _parse_id(current_player_id)) ^ _key(4, 0, turn_deadline_ms)
+	for i: int in players.size():
+		var p: Dictionary = players[i]
+		h ^= _key(5, i, _parse_id(p.get("id", "")))
+		if p.has("money") and p["money"] != null:
+			h ^= _key(6, i, int(p["money"]))
+	return h
+
+
+func _key(field: int, slot: int, value: int) -> int:
+	var h: int = _fmix(field * 16 + slot)
+	h = _fmix(h ^ (value & _MASK32))
+	return _fmix(h ^ ((value >> 32) & _MASK32))
+
+
+func _fmix(h: int) -> int:
+	h ^= h >> 16
+	h = _mul32(h, 0x85ebca6b)
+	h ^= h >> 13
+	h = _mul32(h, 0xc2b2ae35)
+	h ^= h >> 16
+	return h
+
+
+## 32-bit wrapping multiply that never overflows GDScript's signed 64-bit ints.
+func _mul32(a: int, b: int) -> int:
+	return (a * (b & 0xFFFF) + (((a * (b >> 16)) & 0xFFFF) << 16)) & _MASK32
+
+
+## Server ids are base-36 strings of a positive 64-bit number.
+func _parse_id(id: String) -> int:
+	var n: int = 0
+	for c: String in id:
+		var digit: int = _ID_DIGITS.find(c)
+		if digit < 0:
+			return 0
+		n = n * 36 + digit
+	return n
@@ -6,14 +6,39 @@ extends Node
 
 signal connected_to_server
 signal disconnected_from_server
+signal reconnecting(attempt: int)
 signal message_received(msg: Dictionary)
 
 const RECONNECT_DELAY_SEC: float = 3.0
+## Server holds a dropped player's seat for 30s; stop retrying shortly before that.
+const MAX_RECONNECT_ATTEMPTS: int = 8
 
 var _socket: WebSocketPeer = WebSocketPeer.new()
 var _state: WebSocketPeer.State = WebSocketPeer.STATE_CLOSED
 var _url: String = ""
 
+# ─── Resume ──────────────────────────────────────────────────────────────────
+# The server stamps every replayable frame with "seq". On an unexpected drop we
+# reconnect with the resume token from WELCOME and the last seq we saw, and the
+# server replays only what we missed.
+
+var _resume_token: String = ""
+var _last_seq: int = 0
+var _reconnect_attempts: int = 0
+var _closing: bool = false
+
+# ─── Frame budget ────────────────────────────────────────────────────────────
+# Frames are read off the socket every frame, but parsing and delivery stop once
+# FRAME_BUDGET_USEC is spent; the rest waits for the next frame. Before delivery,
+# a queued GAME_STATE_UPDATE makes every earlier queued GAME_STATE_UPDATE/DELTA
+# redundant, so those are dropped and a burst applies only the newest snapshot.
+
+## Time per frame spent parsing and delivering messages (at least one is always delivered).
+const FRAME_BUDGET_USEC: int = 4000
+
+var _pending_text: Array[String] = []  # received, not yet parsed
+var _inbox: Array[Dictionary] = []  # parsed envelopes, not yet delivered
+
 
 func _process(_delta: float) -> void:
 	_socket.poll()
@@ -27,19 +52,25 @@ func _process(_delta: float) -> void:
 	if _state == WebSocketPeer.STATE_OPEN:
 		while _socket.get_available_packet_count() > 0:
 			var raw: PackedByteArray = _socket.get_packet()
-			var text: String = raw.get_string_from_utf8()
-			_on_text_received(text)
+			if not _socket.was_string_packet():
+				# Binary frames are zlib-deflated JSON (negotiated with "compression" in HELLO).
+				raw = raw.decompress_dynamic(-1, FileAccess.COMPRESSION_DEFLATE)
+			_pending_text.append(raw.get_string_from_utf8())
+
+	_drain_inbox(Time.get_ticks_usec() + FRAME_BUDGET_USEC)
 
 
 func connect_to_server(url: String) -> void:
 	_url = url
-	_socket = WebSocketPeer.new()
-	var err: Error = _socket.connect_to_url(url)
-	if err != OK:
-		push_error("NetworkManager: Failed to initiate connection to %s (error %d)" % [url, err])
+	_resume_token = ""
+	_last_seq = 0
+	_reconnect_attempts = 0
+	_open_socket(url)
 
 
 func disconnect_from_server() -> void:
+	_closing = true
+	_resume_token = ""
 	_socket.close(1000, "Client disconnected")
 
 
@@ -53,25 +84,112 @@ func send(msg: Dictionary) -> void:
 
 # ─── Private ────────────────────────────────────────────────────────────────
 
+func _open_socket(url: String) -> void:
+	_closing = false
+	# Undelivered frames are dropped; _last_seq only covers delivered ones, so a resume replays them.
+	_pending_text.clear()
+	_inbox.clear()
+	_socket = WebSocketPeer.new()
+	var err: Error = _socket.connect_to_url(url)
+	if err != OK:
+		push_error("NetworkManager: Failed to initiate connection to %s (error %d)" % [url, err])
+
+
+func _try_reconnect() -> void:
+	if _resume_token.is_empty() or _closing or _reconnect_attempts >= MAX_RECONNECT_ATTEMPTS:
+		_resume_token = ""
+		disconnected_from_server.emit()
+		return
+	_reconnect_attempts += 1
+	reconnecting.emit(_reconnect_attempts)
+	# Jittered so a server restart is not met by every client in the same instant;
+	# upgrades the server turns away (503) simply count as another failed attempt.
+	await get_tree().create_timer(RECONNECT_DELAY_SEC * randf_range(0.5, 1.5)).timeout
+	if _closing:
+		return
+	_open_socket("%s?resume=%s&lastSeq=%d" % [_url, _resume_token, _last_seq])
+
+
 func _on_state_changed(old: WebSocketPeer.State, new_s: WebSocketPeer.State) -> void:
 	match new_s:
 		WebSocketPeer.STATE_OPEN:
 			print("NetworkManager: Connected to ", _url)
-			connected_to_server.emit()
+			if _reconnect_attempts == 0:
+				connected_to_server.emit()
 		WebSocketPeer.STATE_CLOSED:
 			var code: int = _socket.get_close_code()
 			var reason: String = _socket.get_close_reason()
 			print("NetworkManager: Disconnected (code=%d reason=%s)" % [code, reason])
-			disconnected_from_server.emit()
+			_try_reconnect()
 		WebSocketPeer.STATE_CONNECTING:
 			print("NetworkManager: Connecting to ", _url)
 		WebSocketPeer.STATE_CLOSING:
 			print("NetworkManager: Closing connection")
 
 
+func _drain_inbox(deadline_usec: int) -> void:
+	while not _pending_text.is_empty() and Time.get_ticks_usec() < deadline_usec:
+		_on_text_received(_pending_text.pop_front())
+	if _inbox.is_empty():
+		return
+	_coalesce_snapshots()
+	var delivered: int = 0
+	while not _inbox.is_empty() and (delivered == 0 or Time.get_ticks_usec() < deadline_usec):
+		_deliver(_inbox.pop_front())
+		delivered += 1
+
+
+## Drops queued state frames that the newest queued full snapshot supersedes.
+func _coalesce_snapshots() -> void:
+	var newest: int = -1
+	for i: int in range(_inbox.size() - 1, -1, -1):
+		if _inbox[i].get("type", "") == "GAME_STATE_UPDATE":
+			newest = i
+			break
+	if newest <= 0:
+		return
+	var kept: Array[Dictionary] = []
+	for i: int in _inbox.size():
+		var type: String = _inbox[i].get("type", "")
+		if i < newest and (type == "GAME_STATE_UPDATE" or type == "GAME_STATE_DELTA"):
+			continue
+		kept.append(_inbox[i])
+	_inbox = kept
+
+
 func _on_text_received(text: String) -> void:
 	var parsed: Variant = JSON.parse_string(text)
 	if parsed == null or not parsed is Dictionary:
 		push_warning("NetworkManager: Received non-JSON or non-object text: " + text)
 		return
-	message_received.emit(parsed as Dictionary)
+	var msg: Dictionary = parsed as Dictionary
+	if msg.get("type", "") == "BATCH":
+		# One frame carrying several envelopes (negotiated with "batch": true in HELLO).
+		for entry: Variant in msg.get("payload", []):
+			if entry is Dictionary:
+				_inbox.append(entry as Dictionary)
+		return
+	_inbox.append(msg)
+
+
+func _deliver(msg: Dictionary) -> void:
+	if msg.has("seq"):
+		_last_seq = int(msg["seq"])
+	_track_resume(msg)
+	message_received.emit(msg)
+
+
+func _track_resume(msg: Dictionary) -> void:
+	var payload: Dictionary = msg.get("payload", {})
+	match msg.get("type", ""):
+		"WELCOME":
+			_resume_token = payload.get("resumeToken", "")
+		"RESUMED":
+			_resume_token = payload.get("resumeToken", _resume_token)
+			_reconnect_attempts = 0
+			print("NetworkManager: Session resumed (complete=%s)" % payload.get("complete", false))
+		"ERROR":
+			if payload.get("code", "") == "RESUME_EXPIRED":
+				_resume_token = ""
+				_last_seq = 0
+				_reconnect_attempts = 0
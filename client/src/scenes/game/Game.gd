@@ -9,14 +9,16 @@ extends Control
 
 func _ready() -> void:
 	NetworkManager.message_received.connect(_on_message)
-	GameState.state_updated.connect(_on_state_updated)
+	GameState.round_phase_changed.connect(_refresh_ui)
+	GameState.turn_changed.connect(_refresh_ui)
 
 	_refresh_ui()
 
 
 func _exit_tree() -> void:
 	NetworkManager.message_received.disconnect(_on_message)
-	GameState.state_updated.disconnect(_on_state_updated)
+	GameState.round_phase_changed.disconnect(_refresh_ui)
+	GameState.turn_changed.disconnect(_refresh_ui)
 
 
 # ─── Signal handlers ──────────────────────────────────────────────────────────
@@ -45,10 +47,6 @@ func _on_message(msg: Dictionary) -> void:
 			push_warning("Game error: %s" % payload.get("message", "Unknown"))
 
 
-func _on_state_updated() -> void:
-	_refresh_ui()
-
-
 # ─── Actions (called by UI buttons) ──────────────────────────────────────────
 
 func action_end_turn() -> void:
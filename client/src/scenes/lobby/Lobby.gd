@@ -11,8 +11,11 @@ extends Control
 @onready var _start_button: Button = $HSplitContainer/RightPanel/StartButton
 @onready var _leave_button: Button = $HSplitContainer/RightPanel/LeaveButton
 @onready var _room_name_input: LineEdit = $HSplitContainer/LeftPanel/RoomNameInput
+@onready var _match_size_input: SpinBox = $HSplitContainer/LeftPanel/MatchRow/MatchSizeInput
+@onready var _quick_match_button: Button = $HSplitContainer/LeftPanel/MatchRow/QuickMatchButton
 
 var _selected_room_id: String = ""
+var _match_queued: bool = false
 
 
 func _ready() -> void:
@@ -26,6 +29,7 @@ func _ready() -> void:
 	_start_button.pressed.connect(_on_start_pressed)
 	_leave_button.pressed.connect(_on_leave_pressed)
 	_room_list.item_selected.connect(_on_room_selected)
+	_quick_match_button.pressed.connect(_on_quick_match_pressed)
 
 	_start_button.disabled = true
 	_leave_button.disabled = true
@@ -69,6 +73,13 @@ func _on_leave_pressed() -> void:
 	_leave_button.disabled = true
 
 
+func _on_quick_match_pressed() -> void:
+	if _match_queued:
+		NetworkManager.send({"type": "CANCEL_MATCH", "payload": {}})
+	else:
+		NetworkManager.send({"type": "QUICK_MATCH", "payload": {"players": int(_match_size_input.value)}})
+
+
 func _on_room_selected(index: int) -> void:
 	var meta: Variant = _room_list.get_item_metadata(index)
 	if meta is String:
@@ -98,6 +109,13 @@ func _on_state_updated() -> void:
 func _on_message(msg: Dictionary) -> void:
 	var type: String = msg.get("type", "")
 	match type:
+		"MATCH_QUEUED":
+			_set_match_queued(true)
+		"MATCH_CANCELLED":
+			_set_match_queued(false)
+		"ROOM_JOINED":
+			# Creating or joining a room takes the player out of the queue server-side.
+			_set_match_queued(false)
 		"ERROR":
 			var payload: Dictionary = msg.get("payload", {})
 			push_warning("Lobby error: %s — %s" % [payload.get("code", ""), payload.get("message", "")])
@@ -114,6 +132,12 @@ func _refresh_player_list() -> void:
 		_player_list.add_item(label)
 
 
+func _set_match_queued(queued: bool) -> void:
+	_match_queued = queued
+	_match_size_input.editable = not queued
+	_quick_match_button.text = "Cancel Match" if queued else "Quick Match"
+
+
 func _get_host_id() -> String:
 	if GameState.room_players.is_empty():
 		return ""
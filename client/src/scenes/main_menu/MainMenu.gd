@@ -48,7 +48,12 @@ func _on_connected() -> void:
 	_status_label.text = "Connected — sending HELLO..."
 	NetworkManager.send({
 		"type": "HELLO",
-		"payload": {"playerName": GameState.local_player_name}
+		"payload": {
+			"playerName": GameState.local_player_name,
+			"playerKey": GameState.player_key(),
+			"batch": true,
+			"compression": "deflate"
+		}
 	})
 
 
@@ -0,0 +1,62 @@
+extends VBoxContainer
+
+## ChatPanel — reusable room/game chat: shows CHAT_MESSAGE lines and sends CHAT_SEND.
+## The server replays recent lines after ROOM_JOINED, so the log starts fresh on each join.
+
+## Lines kept on screen; older ones are dropped.
+const MAX_LINES: int = 100
+## Mirrors ChatChannel.MAX_TEXT_LENGTH on the server.
+const MAX_TEXT_LENGTH: int = 200
+
+@onready var _log: ItemList = $Log
+@onready var _input: LineEdit = $InputRow/MessageInput
+@onready var _send_button: Button = $InputRow/SendButton
+
+
+func _ready() -> void:
+	NetworkManager.message_received.connect(_on_message)
+	_input.max_length = MAX_TEXT_LENGTH
+	_input.text_submitted.connect(_on_text_submitted)
+	_send_button.pressed.connect(_on_send_pressed)
+
+
+func _exit_tree() -> void:
+	NetworkManager.message_received.disconnect(_on_message)
+
+
+func clear() -> void:
+	_log.clear()
+
+
+func _on_message(msg: Dictionary) -> void:
+	var payload: Dictionary = msg.get("payload", {})
+	match msg.get("type", ""):
+		"ROOM_JOINED":
+			clear()
+		"CHAT_MESSAGE":
+			var pid: String = payload.get("playerId", "")
+			var who: String = "You" if pid == GameState.local_player_id else payload.get("playerName", "?")
+			_add_line("%s: %s" % [who, payload.get("text", "")])
+		"ERROR":
+			match payload.get("code", ""):
+				"CHAT_RATE_LIMITED", "CHAT_TOO_LONG":
+					_add_line("(%s)" % payload.get("message", ""))
+
+
+func _on_text_submitted(_text: String) -> void:
+	_on_send_pressed()
+
+
+func _on_send_pressed() -> void:
+	var text: String = _input.text.strip_edges()
+	if text.is_empty():
+		return
+	NetworkManager.send({"type": "CHAT_SEND", "payload": {"text": text}})
+	_input.clear()
+
+
+func _add_line(line: String) -> void:
+	_log.add_item(line, null, false)
+	while _log.item_count > MAX_LINES:
+		_log.remove_item(0)
+	_log.get_v_scroll_bar().value = _log.get_v_scroll_bar().max_value
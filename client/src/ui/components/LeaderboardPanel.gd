@@ -0,0 +1,41 @@
+extends VBoxContainer
+
+## LeaderboardPanel — shows the server's LEADERBOARD (top players) and the local player's MY_RANK.
+## Both are requested when the panel appears and whenever Refresh is pressed.
+
+@onready var _list: ItemList = $List
+@onready var _my_rank: Label = $MyRank
+@onready var _refresh_button: Button = $RefreshButton
+
+
+func _ready() -> void:
+	NetworkManager.message_received.connect(_on_message)
+	_refresh_button.pressed.connect(refresh)
+	refresh()
+
+
+func _exit_tree() -> void:
+	NetworkManager.message_received.disconnect(_on_message)
+
+
+func refresh() -> void:
+	NetworkManager.send({"type": "GET_LEADERBOARD", "payload": {}})
+	NetworkManager.send({"type": "GET_RANK", "payload": {}})
+
+
+func _on_message(msg: Dictionary) -> void:
+	var payload: Dictionary = msg.get("payload", {})
+	match msg.get("type", ""):
+		"LEADERBOARD":
+			_list.clear()
+			for entry in payload.get("players", []):
+				var line: String = "%d. %s  %d" % [int(entry.get("rank", 0)), entry.get("name", "?"), int(entry.get("rating", 0))]
+				var index: int = _list.add_item(line, null, false)
+				if entry.get("playerId", "") == GameState.local_rating_id:
+					_list.set_item_custom_fg_color(index, Color.GOLD)
+		"MY_RANK":
+			var rank: int = int(payload.get("rank", 0))
+			if rank == 0:
+				_my_rank.text = "Unrated — finish a game to get a rank"
+			else:
+				_my_rank.text = "You: #%d of %d  (%d)" % [rank, int(payload.get("total", 0)), int(payload.get("rating", 0))]
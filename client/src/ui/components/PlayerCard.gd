@@ -1,3 +1,4 @@
+class_name PlayerCard
 extends PanelContainer
 
 ## PlayerCard — reusable UI component showing a single player's status.
@@ -9,4 +10,5 @@ extends PanelContainer
 func setup(player: Dictionary, is_local: bool) -> void:
 	var player_name: String = player.get("name", "Unknown")
 	_name_label.text = player_name + (" (you)" if is_local else "")
-	_status_label.text = ""
+	# "money" is omitted for other players when the room hides it.
+	_status_label.text = "%d Elektro" % int(player["money"]) if player.has("money") else ""
@@ -1,7 +1,9 @@
 extends Control
 
 ## HUD — in-game heads-up display overlay.
-## Displays round, phase, current player, and per-player status cards.
+## Displays round, phase, current player, turn countdown, and per-player status cards.
+## Listens to GameState's per-field signals: a changed player updates only its own
+## card, and cards are rebuilt only when the seats themselves change.
 
 @onready var _round_label: Label = $TopBar/RoundLabel
 @onready var _phase_label: Label = $TopBar/PhaseLabel
@@ -10,34 +12,65 @@ extends Control
 
 const PlayerCardScene: PackedScene = preload("res://src/ui/components/PlayerCard.tscn")
 
+var _cards: Dictionary = {}  # player id → PlayerCard
+
 
 func _ready() -> void:
-	GameState.state_updated.connect(_on_state_updated)
+	GameState.round_phase_changed.connect(_update_round_phase)
+	GameState.players_reset.connect(_rebuild_cards)
+	GameState.player_changed.connect(_on_player_changed)
 	_refresh()
 
 
 func _exit_tree() -> void:
-	GameState.state_updated.disconnect(_on_state_updated)
+	GameState.round_phase_changed.disconnect(_update_round_phase)
+	GameState.players_reset.disconnect(_rebuild_cards)
+	GameState.player_changed.disconnect(_on_player_changed)
 
 
-func _on_state_updated() -> void:
-	_refresh()
+func _process(_delta: float) -> void:
+	# The countdown is derived from GameState.turn_deadline_ms — no server ticks needed.
+	_update_turn_label()
+
+
+func _on_player_changed(player_id: String) -> void:
+	var card: PlayerCard = _cards.get(player_id) as PlayerCard
+	if card == null:
+		_rebuild_cards()
+		return
+	for p: Dictionary in GameState.players:
+		if p.get("id", "") == player_id:
+			card.setup(p, player_id == GameState.local_player_id)
+			return
 
 
 func _refresh() -> void:
+	_update_round_phase()
+	_update_turn_label()
+	_rebuild_cards()
+
+
+func _update_round_phase() -> void:
 	_round_label.text = "Round %d" % GameState.round
 	_phase_label.text = GameState.phase
 
-	if GameState.current_player_id == GameState.local_player_id:
-		_turn_label.text = "Your turn"
-	else:
-		_turn_label.text = "Waiting..."
 
-	# Rebuild player cards
+func _rebuild_cards() -> void:
 	for child: Node in _player_cards.get_children():
 		child.queue_free()
+	_cards.clear()
 
 	for p: Dictionary in GameState.players:
-		var card: PanelContainer = PlayerCardScene.instantiate() as PanelContainer
+		var card: PlayerCard = PlayerCardScene.instantiate() as PlayerCard
 		_player_cards.add_child(card)
-		(card as PlayerCard).setup(p, p.get("id", "") == GameState.local_player_id)
+		card.setup(p, p.get("id", "") == GameState.local_player_id)
+		_cards[p.get("id", "")] = card
+
+
+func _update_turn_label() -> void:
+	var text: String = "Your turn" if GameState.current_player_id == GameState.local_player_id else "Waiting..."
+	var seconds_left: int = GameState.seconds_left_in_turn()
+	if seconds_left >= 0:
+		text += " (%ds)" % seconds_left
+	if _turn_label.text != text:
+		_turn_label.text = text
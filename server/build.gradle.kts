@@ -2,6 +2,7 @@ plugins {
     java
     application
     id("com.gradleup.shadow") version "9.3.1"
+    id("org.graalvm.buildtools.native") version "0.10.6"
 }
 
 group = "org.powergrid"
@@ -34,6 +35,8 @@ dependencies {
     implementation("org.apache.pekko:pekko-http_3:$pekkoHttpVersion")
     implementation("org.apache.pekko:pekko-http-spray-json_3:$pekkoHttpVersion")
     implementation("org.apache.pekko:pekko-slf4j_3:$pekkoVersion")
+    implementation("org.apache.pekko:pekko-cluster-sharding-typed_3:$pekkoVersion")
+    implementation("org.apache.pekko:pekko-serialization-jackson_3:$pekkoVersion")
 
     // Jackson
     implementation("com.fasterxml.jackson.core:jackson-databind:$jacksonVersion")
@@ -51,8 +54,93 @@ dependencies {
     testImplementation("org.apache.pekko:pekko-stream-testkit_3:$pekkoVersion")
 }
 
+// ─── Map data ────────────────────────────────────────────────────────────────
+// compileMaps turns the board definitions in src/main/maps into the binary maps/*.pgmap that
+// MapLibrary maps at runtime; they are added to the main output, so jars and tests pick them up.
+
+val mapSources = layout.projectDirectory.dir("src/main/maps")
+val compiledMaps = layout.buildDirectory.dir("generated/maps")
+
+val compileMaps = tasks.register<JavaExec>("compileMaps") {
+    description = "Compiles the board definitions in src/main/maps to binary map data."
+    group = "build"
+    dependsOn(tasks.compileJava)
+    inputs.dir(mapSources)
+    outputs.dir(compiledMaps)
+    classpath = files(sourceSets.main.get().java.classesDirectory)
+    mainClass.set("org.powergrid.map.MapCompiler")
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf(compiledMaps.get().dir("maps").asFile.absolutePath) +
+                mapSources.asFileTree.matching { include("*.map") }.files.map { it.absolutePath }.sorted()
+    })
+}
+
+sourceSets.main {
+    output.dir(mapOf("builtBy" to compileMaps), compiledMaps)
+}
+
 tasks.test {
-    useJUnitPlatform()
+    useJUnitPlatform {
+        excludeTags("benchmark", "cluster", "native", "soak")
+    }
+}
+
+tasks.register<Test>("benchmark") {
+    description = "Runs the @Tag(\"benchmark\") tests."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    // Lets ConnectionFootprintBenchmark report native memory alongside heap
+    jvmArgs("-XX:NativeMemoryTracking=summary")
+    testLogging.showStandardStreams = true
+}
+
+tasks.register<Test>("soak") {
+    description = "Runs the @Tag(\"soak\") leak checks; -Dpowergrid.soak.duration=PT4H for a long run."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("soak")
+    }
+    // Forward -Dpowergrid.soak.* from the Gradle command line to the test JVM
+    System.getProperties().stringPropertyNames()
+        .filter { it.startsWith("powergrid.soak.") }
+        .forEach { systemProperty(it, System.getProperty(it)) }
+    maxHeapSize = "1g"
+    timeout.set(java.time.Duration.ofHours(24))
+    outputs.upToDateWhen { false }
+    testLogging.showStandardStreams = true
+}
+
+tasks.register<Test>("clusterTest") {
+    description = "Runs the @Tag(\"cluster\") tests, which start server JVMs as a cluster on loopback."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("cluster")
+    }
+    // The nodes run the server's own runtime classpath, not the test worker's
+    systemProperty("powergrid.cluster.classpath", sourceSets.main.get().runtimeClasspath.asPath)
+    outputs.upToDateWhen { false }
+    testLogging.showStandardStreams = true
+}
+
+tasks.register<JavaExec>("replay") {
+    description = "Replays a command recording into a fresh server: -Precording=<file> [-PrealTime]."
+    group = "verification"
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.powergrid.replay.CommandReplay")
+    val recording = providers.gradleProperty("recording")
+    val realTime = providers.gradleProperty("realTime")
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf(file(recording.get()).absolutePath) + (if (realTime.isPresent) listOf("--real-time") else emptyList())
+    })
+    maxHeapSize = "1g"
 }
 
 tasks.shadowJar {
@@ -60,4 +148,79 @@ tasks.shadowJar {
     archiveClassifier.set("")
     archiveVersion.set("")
     mergeServiceFiles()
+    // Every Pekko module ships its own reference.conf; the fat jar needs them concatenated.
+    append("reference.conf")
+}
+
+// ─── Class-data sharing ──────────────────────────────────────────────────────
+// cdsArchive trains the shadow jar (see CdsTraining) and dumps every class it loaded into
+// powergrid-server.jsa; runCds starts the server with that archive mapped in.
+
+val serverJar = tasks.shadowJar.flatMap { it.archiveFile }
+val cdsArchiveFile = layout.buildDirectory.file("libs/powergrid-server.jsa")
+
+tasks.register<JavaExec>("cdsArchive") {
+    description = "Writes a CDS archive for the shadow jar from a scripted training run."
+    group = "distribution"
+    inputs.file(serverJar)
+    outputs.file(cdsArchiveFile)
+    classpath = files(serverJar)
+    mainClass.set("org.powergrid.Main")
+    args("--cds-training")
+    jvmArgumentProviders.add(CommandLineArgumentProvider {
+        listOf("-XX:ArchiveClassesAtExit=${cdsArchiveFile.get().asFile.absolutePath}")
+    })
+}
+
+tasks.register<JavaExec>("runCds") {
+    description = "Runs the shadow jar with the CDS archive (falls back to a normal start if it is stale)."
+    group = "application"
+    dependsOn("cdsArchive")
+    classpath = files(serverJar)
+    mainClass.set("org.powergrid.Main")
+    jvmArgumentProviders.add(CommandLineArgumentProvider {
+        listOf("-XX:SharedArchiveFile=${cdsArchiveFile.get().asFile.absolutePath}", "-Xshare:auto")
+    })
+}
+
+// ─── Native image ────────────────────────────────────────────────────────────
+// Needs GraalVM for JDK 21 (GRAALVM_HOME or JAVA_HOME). nativeCompile writes
+// build/native/nativeCompile/powergrid-server; reflection/resource metadata lives in
+// src/main/resources/META-INF/native-image. nativeTrace refreshes it from a training run on the
+// JVM, and nativeSmokeTest plays a lobby session against the binary.
+
+graalvmNative {
+    binaries {
+        named("main") {
+            imageName.set("powergrid-server")
+            mainClass.set("org.powergrid.Main")
+        }
+    }
+    // Community metadata for Jackson, Logback and the JDK bits we use
+    metadataRepository {
+        enabled.set(true)
+    }
+}
+
+tasks.register<JavaExec>("nativeTrace") {
+    description = "Merges the reflection/resources a training run uses into the native-image metadata."
+    group = "build"
+    classpath = files(serverJar)
+    mainClass.set("org.powergrid.Main")
+    args("--cds-training")
+    jvmArgs("-agentlib:native-image-agent=config-merge-dir=" +
+            file("src/main/resources/META-INF/native-image/org.powergrid/powergrid-server").absolutePath)
+}
+
+tasks.register<Test>("nativeSmokeTest") {
+    description = "Runs the @Tag(\"native\") tests against the native executable."
+    group = "verification"
+    dependsOn("nativeCompile")
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("native")
+    }
+    systemProperty("powergrid.native.binary",
+            layout.buildDirectory.file("native/nativeCompile/powergrid-server").get().asFile.absolutePath)
 }
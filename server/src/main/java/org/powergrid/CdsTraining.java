@@ -0,0 +1,60 @@
+package org.powergrid;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Training run for the class-data-sharing archive ({@code ./gradlew cdsArchive}).
+ *
+ * Starts the server on a free port, plays one scripted client session over a real WebSocket so
+ * the classes used by the handshake, lobby and JSON paths get loaded, then exits. The JVM is
+ * launched with {@code -XX:ArchiveClassesAtExit}, so everything loaded up to that point ends up
+ * in the archive.
+ */
+final class CdsTraining {
+
+    static final String FLAG = "--cds-training";
+
+    private static final Logger log = LoggerFactory.getLogger(CdsTraining.class);
+    private static final Duration REPLY_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final List<String> SCRIPT = List.of(
+            "{\"type\":\"HELLO\",\"payload\":{\"playerName\":\"cds\",\"batch\":true,\"compression\":\"deflate\"}}",
+            "{\"type\":\"LIST_ROOMS\",\"payload\":{}}",
+            "{\"type\":\"CREATE_ROOM\",\"payload\":{\"roomName\":\"cds\"}}",
+            "{\"type\":\"LEAVE_ROOM\",\"payload\":{}}",
+            "{\"type\":\"PING\",\"payload\":{}}"
+    );
+
+    private CdsTraining() {}
+
+    static void run() {
+        int status = 0;
+        try {
+            int port = ServerApp.start(0).toCompletableFuture()
+                    .get(REPLY_TIMEOUT.toSeconds(), TimeUnit.SECONDS)
+                    .localAddress().getPort();
+            playSession(port);
+            log.info("CDS training run complete");
+        } catch (Exception e) {
+            log.error("CDS training run failed", e);
+            status = 1;
+        }
+        // The shutdown hook stops the actor system; the archive is written as the JVM exits.
+        System.exit(status);
+    }
+
+    private static void playSession(int port) throws Exception {
+        WsClient client = WsClient.connect(port, REPLY_TIMEOUT);
+        for (String frame : SCRIPT) {
+            client.sendText(frame);
+        }
+        // Replies arrive in order and PING's PONG is last; not every step answers.
+        client.await("PONG");
+        client.close();
+    }
+}
@@ -1,8 +1,15 @@
 package org.powergrid;
 
+import org.powergrid.util.StartupClock;
+
 public class Main {
 
     public static void main(String[] args) {
+        StartupClock.mainStarted();
+        if (args.length > 0 && args[0].equals(CdsTraining.FLAG)) {
+            CdsTraining.run();
+            return;
+        }
         ServerApp.start();
     }
 }
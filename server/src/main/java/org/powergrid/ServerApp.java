@@ -4,38 +4,133 @@ import org.apache.pekko.NotUsed;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.ActorSystem;
 import org.apache.pekko.actor.typed.Props;
+import org.apache.pekko.cluster.typed.Cluster;
 import org.apache.pekko.http.javadsl.Http;
 import org.apache.pekko.http.javadsl.ServerBinding;
 import org.apache.pekko.http.javadsl.model.ws.Message;
+import org.apache.pekko.http.javadsl.model.ContentTypes;
+import org.apache.pekko.http.javadsl.model.HttpEntities;
+import org.apache.pekko.http.javadsl.model.HttpResponse;
+import org.apache.pekko.http.javadsl.model.StatusCodes;
+import org.apache.pekko.http.javadsl.model.headers.RetryAfter;
 import org.apache.pekko.http.javadsl.model.ws.TextMessage;
 import org.apache.pekko.http.javadsl.server.AllDirectives;
+import org.apache.pekko.http.javadsl.server.PathMatchers;
 import org.apache.pekko.http.javadsl.server.Route;
+import org.apache.pekko.stream.ActorAttributes;
 import org.apache.pekko.stream.Materializer;
 import org.apache.pekko.stream.OverflowStrategy;
-import org.apache.pekko.stream.SystemMaterializer;
 import org.apache.pekko.stream.javadsl.Flow;
+import org.apache.pekko.stream.javadsl.Keep;
 import org.apache.pekko.stream.javadsl.Sink;
 import org.apache.pekko.stream.javadsl.Source;
 import org.apache.pekko.stream.javadsl.SourceQueueWithComplete;
 import org.powergrid.actor.LobbyActor;
+import org.powergrid.actor.NodeIdGuardActor;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.powergrid.admin.AdminDirectory;
+import org.powergrid.archive.GameArchive;
+import org.powergrid.chat.ChatDirectory;
+import org.powergrid.rating.RatingService;
+import org.powergrid.replay.CommandRecorder;
+import org.powergrid.settings.LiveSettings;
 import org.powergrid.actor.PlayerConnectionActor;
+import org.powergrid.actor.ResumeRegistry;
+import org.powergrid.spectator.SpectatorDirectory;
+import org.powergrid.spectator.SpectatorFeed;
+import org.powergrid.trace.FrameReceivedEvent;
+import org.powergrid.trace.MessageTrace;
+import org.powergrid.util.ConnectionAdmission;
+import org.powergrid.util.Ids;
+import org.powergrid.util.JsonMapper;
+import org.powergrid.util.Metrics;
+import org.powergrid.util.StartupClock;
+import org.powergrid.util.TimerWheel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.UUID;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
 
 public class ServerApp extends AllDirectives {
 
     private static final Logger log = LoggerFactory.getLogger(ServerApp.class);
 
+    /**
+     * Pekko allocates stream buffers up to this size in full and grows larger ones on demand;
+     * keeping it below the outbound queue size ({@code powergrid.limits.out-queue-size}) stops
+     * every idle socket holding a full-size array.
+     */
+    private static final int MAX_PREALLOCATED_BUFFER = 16;
+    /** Games per page of {@code /admin/archive/players/{id}}. */
+    private static final int ARCHIVE_PAGE_DEFAULT = 50;
+    private static final int ARCHIVE_PAGE_MAX = 500;
+
+    private final ResumeRegistry resumeRegistry = new ResumeRegistry();
+    private final SpectatorDirectory spectators;
+    private final ChatDirectory chat;
+    private final ConnectionAdmission admission;
+    private final AdminDirectory admin;
+    private final GameArchive archive;
+    private final RatingService ratings;
+    private final LiveSettings settings;
+    private final CommandRecorder recorder;
+    private final byte[] adminToken; // empty: /admin is disabled
+
+    private ServerApp(SpectatorDirectory spectators, ChatDirectory chat, ConnectionAdmission admission,
+                      AdminDirectory admin, GameArchive archive, RatingService ratings, LiveSettings settings,
+                      CommandRecorder recorder, String adminToken) {
+        this.spectators = spectators;
+        this.chat = chat;
+        this.admission = admission;
+        this.admin = admin;
+        this.archive = archive;
+        this.ratings = ratings;
+        this.settings = settings;
+        this.recorder = recorder;
+        this.adminToken = adminToken.getBytes(StandardCharsets.UTF_8);
+    }
+
     public static void start() {
-        int port = Integer.parseInt(System.getenv().getOrDefault("PORT", "8080"));
+        start(Integer.parseInt(System.getenv().getOrDefault("PORT", "8080")));
+    }
 
-        ActorSystem<LobbyActor.Command> system =
-                ActorSystem.create(LobbyActor.create(), "powergrid");
+    /**
+     * Starts the server on {@code port} (0 picks a free one). Only what the first bind needs is
+     * built here; the JSON mapper and the resume-token RNG are initialized off the critical path.
+     */
+    public static CompletionStage<ServerBinding> start(int port) {
+        SpectatorDirectory spectators = new SpectatorDirectory();
+        AdminDirectory admin = new AdminDirectory();
+        ChatDirectory chat = new ChatDirectory();
+        var appConfig = withClusterProvider(ConfigFactory.load());
+        GameArchive archive = GameArchive.fromConfig(appConfig).registerMetrics();
+        RatingService ratings = RatingService.fromConfig(appConfig).registerMetrics();
+        LiveSettings settings = LiveSettings.fromConfig(appConfig);
+        CommandRecorder recorder = CommandRecorder.fromConfig(appConfig);
+        ActorSystem<LobbyActor.Command> system = ActorSystem.create(
+                LobbyActor.create(spectators, admin, chat, archive, ratings, TimerWheel.getInstance(),
+                        () -> recorder.roomCreated(Ids.next())),
+                "powergrid",
+                appConfig);
+        if (appConfig.getBoolean("powergrid.cluster.enabled")) {
+            Ids.useNode(NodeIdGuardActor.nodeIdOf(Cluster.get(system).selfMember()));
+        }
+        settings.subscribe(limits -> system.tell(new LobbyActor.SettingsChanged(limits)));
 
-        Route route = new ServerApp().buildRoute(system);
+        var config = system.settings().config();
+        ConnectionAdmission admission = ConnectionAdmission.fromConfig(config).registerMetrics();
+        String adminToken = config.hasPath("powergrid.admin.token") ? config.getString("powergrid.admin.token") : "";
+        Route route = new ServerApp(spectators, chat, admission, admin, archive, ratings, settings, recorder,
+                adminToken).buildRoute(system);
 
         CompletionStage<ServerBinding> binding =
                 Http.get(system)
@@ -44,8 +139,14 @@ public class ServerApp extends AllDirectives {
 
         binding.whenComplete((b, ex) -> {
             if (ex == null) {
-                log.info("PowerGrid server online at ws://0.0.0.0:{}/ws", port);
+                log.info("PowerGrid server online at ws://0.0.0.0:{}/ws ({} ms after start)",
+                        b.localAddress().getPort(), StartupClock.bound());
                 log.info("Press CTRL+C to stop");
+                // Warm up what the first HELLO needs while no one is waiting on it yet.
+                CompletableFuture.runAsync(() -> {
+                    JsonMapper.getInstance();
+                    ResumeRegistry.warmUp();
+                });
             } else {
                 log.error("Failed to bind to port {}", port, ex);
                 system.terminate();
@@ -55,60 +156,295 @@ public class ServerApp extends AllDirectives {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             log.info("Shutting down...");
             system.terminate();
+            archive.close();
+            ratings.close();
+            recorder.close();
         }));
+        return binding;
+    }
+
+    /**
+     * With {@code powergrid.cluster.enabled}, switches the actor provider to {@code cluster}, so this
+     * node joins the seed nodes under {@code pekko.cluster}, and advertises a configured
+     * {@code powergrid.cluster.node-id} as a role (see NodeIdGuardActor); otherwise returns
+     * {@code config} as is.
+     */
+    static Config withClusterProvider(Config config) {
+        if (!config.getBoolean("powergrid.cluster.enabled")) return config;
+        Config clustered = ConfigFactory.parseString("pekko.actor.provider = cluster").withFallback(config);
+        long nodeId = config.getLong("powergrid.cluster.node-id");
+        if (nodeId < 0) return clustered;
+        if (nodeId > Ids.MAX_NODE) {
+            throw new IllegalArgumentException("powergrid.cluster.node-id must be at most " + Ids.MAX_NODE);
+        }
+        List<String> roles = new ArrayList<>(config.hasPath("pekko.cluster.roles")
+                ? config.getStringList("pekko.cluster.roles") : List.of());
+        roles.add(NodeIdGuardActor.ROLE_PREFIX + nodeId);
+        return ConfigFactory.parseMap(Map.of("pekko.cluster.roles", roles)).withFallback(clustered);
     }
 
     private Route buildRoute(ActorSystem<LobbyActor.Command> system) {
-        return path("ws", () ->
-                get(() ->
-                        handleWebSocketMessages(buildWsFlow(system))
+        return concat(
+                path("ws", () ->
+                        get(() ->
+                                // Only genuine upgrade requests reach admission and take a slot
+                                extractWebSocketUpgrade(upgrade ->
+                                        admitted(() ->
+                                                parameterOptional("resume", resume ->
+                                                        parameterOptional("lastSeq", lastSeq ->
+                                                                handleWebSocketMessages(buildWsFlow(system, resume, parseSeq(lastSeq)))
+                                                        )
+                                                )
+                                        )
+                                )
+                        )
+                ),
+                path(PathMatchers.segment("spectate").slash(PathMatchers.segment()), roomId ->
+                        get(() ->
+                                parameterOptional("delayed", delayed ->
+                                        buildSpectatorRoute(roomId, delayed.map(Boolean::parseBoolean).orElse(false))
+                                )
+                        )
+                ),
+                path("metrics", () ->
+                        get(() ->
+                                complete(HttpEntities.create(ContentTypes.TEXT_PLAIN_UTF8, Metrics.getInstance().render()))
+                        )
+                ),
+                pathPrefix("admin", () ->
+                        authorizedAdmin(() -> concat(
+                                get(this::buildAdminRoute),
+                                post(this::buildAdminActions)
+                        ))
                 )
         );
     }
 
     /**
-     * Creates a WebSocket Flow for one connection. Pattern:
-     * 1. Pre-materialize an outbound queue (actor → WS client).
-     * 2. Spawn PlayerConnectionActor with a reference to that queue.
-     * 3. Wire inbound WS text → IncomingText commands → actor.
-     * 4. Watch for stream termination → send ConnectionClosed to actor.
+     * Read-only introspection, answered entirely from {@link AdminDirectory} snapshots — a poll
+     * never reaches an actor mailbox. Lobby data is at most {@link AdminDirectory#LOBBY_PUBLISH_INTERVAL} old.
      */
-    private Flow<Message, Message, NotUsed> buildWsFlow(ActorSystem<LobbyActor.Command> system) {
-        String playerId = UUID.randomUUID().toString();
-
-        // Step 1: Pre-materialize outbound queue
-        var preMat = Source.<Message>queue(256, OverflowStrategy.dropHead())
-                .preMaterialize(system);
-        SourceQueueWithComplete<Message> outQueue = preMat.first();
-        Source<Message, NotUsed> outSource = preMat.second();
-
-        // Step 2: Spawn connection actor with the queue
-        ActorRef<PlayerConnectionActor.Command> connectionActor =
-                system.systemActorOf(
-                        PlayerConnectionActor.create(playerId, system, outQueue),
-                        "player-" + playerId,
-                        Props.empty()
-                );
+    private Route buildAdminRoute() {
+        return concat(
+                path("rooms", () -> completeJson(admin.roomsJson())),
+                path("players", () -> completeJson(admin.playersJson())),
+                path(PathMatchers.segment("sessions").slash(PathMatchers.segment()), roomId -> {
+                    String json = admin.sessionJson(Ids.parse(roomId));
+                    return json != null
+                            ? completeJson(json)
+                            : complete(StatusCodes.NOT_FOUND, "No game in progress for room " + roomId);
+                }),
+                path("settings", () -> completeJson(settings.get().toJson().toString())),
+                pathPrefix("archive", this::buildArchiveRoute)
+        );
+    }
+
+    /**
+     * {@code POST /admin/settings/reload} re-reads the configuration into {@link LiveSettings}; the
+     * lobby and running games pick the new limits up by message, new sockets and frames right away.
+     */
+    private Route buildAdminActions() {
+        return path(PathMatchers.segment("settings").slash("reload"), () -> {
+            try {
+                return completeJson(settings.reload().toJson().toString());
+            } catch (RuntimeException e) {
+                log.warn("Settings reload rejected", e);
+                return complete(StatusCodes.BAD_REQUEST, "Settings not reloaded: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Finished games from the {@link GameArchive}; these read memory-mapped segment files on the HTTP thread. */
+    private Route buildArchiveRoute() {
+        return concat(
+                path(PathMatchers.segment("games").slash(PathMatchers.segment()), roomId -> {
+                    String json = archive.gameJson(Ids.parse(roomId));
+                    return json != null
+                            ? completeJson(json)
+                            : complete(StatusCodes.NOT_FOUND, "No archived game for room " + roomId);
+                }),
+                path(PathMatchers.segment("players").slash(PathMatchers.segment()), playerId ->
+                        parameterOptional("limit", limit ->
+                                completeJson(archive.playerJson(Ids.parse(playerId),
+                                        (int) Math.min(ARCHIVE_PAGE_MAX, Math.max(1, parseLong(limit, ARCHIVE_PAGE_DEFAULT)))))
+                        )
+                ),
+                path("stats", () ->
+                        parameterOptional("from", from ->
+                                parameterOptional("to", to ->
+                                        completeJson(archive.statsJson(parseLong(from, 0L), parseLong(to, Long.MAX_VALUE)))
+                                )
+                        )
+                )
+        );
+    }
+
+    /** Requires {@code Authorization: Bearer <powergrid.admin.token>}; with no token configured, /admin does not exist. */
+    private Route authorizedAdmin(Supplier<Route> inner) {
+        if (adminToken.length == 0) {
+            return reject();
+        }
+        return optionalHeaderValueByName("Authorization", header -> {
+            byte[] presented = header.filter(h -> h.startsWith("Bearer "))
+                    .map(h -> h.substring("Bearer ".length()).getBytes(StandardCharsets.UTF_8))
+                    .orElse(new byte[0]);
+            return MessageDigest.isEqual(presented, adminToken)
+                    ? inner.get()
+                    : complete(StatusCodes.FORBIDDEN, "Admin token required");
+        });
+    }
+
+    private Route completeJson(String json) {
+        return complete(HttpEntities.create(ContentTypes.APPLICATION_JSON, json));
+    }
+
+    /**
+     * Runs {@code inner} only if {@link ConnectionAdmission} has room for another player socket;
+     * otherwise answers 503 with Retry-After before anything is allocated. The slot itself is taken
+     * when the socket's flow starts and released when it terminates (see {@link #buildWsFlow}).
+     */
+    private Route admitted(Supplier<Route> inner) {
+        ConnectionAdmission.Decision decision = admission.tryAdmit();
+        if (decision == ConnectionAdmission.Decision.ADMITTED) {
+            long startup = StartupClock.webSocketAccepted();
+            if (startup >= 0) {
+                log.info("First WebSocket accepted {} ms after start", startup);
+            }
+            return inner.get();
+        }
+        long retryAfter = admission.retryAfterSeconds(decision);
+        log.debug("Rejected WebSocket upgrade ({}); retry after {}s", decision, retryAfter);
+        return complete(HttpResponse.create()
+                .withStatus(StatusCodes.SERVICE_UNAVAILABLE)
+                .addHeader(RetryAfter.create(retryAfter))
+                .withEntity(decision == ConnectionAdmission.Decision.AT_CAPACITY
+                        ? "Server is full"
+                        : "Too many connection attempts"));
+    }
+
+    /**
+     * Attaches a spectator socket straight to the game's broadcast hub. No actor is involved:
+     * inbound frames are ignored, and closing the socket detaches it from the hub.
+     */
+    private Route buildSpectatorRoute(String roomId, boolean delayed) {
+        SpectatorFeed feed = spectators.find(Ids.parse(roomId));
+        if (feed == null) {
+            return complete(StatusCodes.NOT_FOUND, "No game in progress for room " + roomId);
+        }
+        Source<Message, NotUsed> outSource = feed.subscribe(delayed);
+        if (outSource == null) {
+            return complete(StatusCodes.NOT_FOUND, "Room " + roomId + " has no delayed feed");
+        }
+        return handleWebSocketMessages(Flow.fromSinkAndSourceCoupled(Sink.<Message>ignore(), outSource));
+    }
+
+    /**
+     * Creates a WebSocket Flow for one connection. The admission slot, the resume token and the
+     * connection actor are all taken when the flow materializes, next to the termination hook that
+     * gives them back, so an upgrade that is aborted before its stream starts claims none of them.
+     * If the last slot went to another socket since {@link #admitted} screened this one, the socket
+     * is closed at once.
+     */
+    private Flow<Message, Message, NotUsed> buildWsFlow(
+            ActorSystem<LobbyActor.Command> system,
+            Optional<String> resumeToken,
+            long lastSeq
+    ) {
+        return Flow.<Message, Message, NotUsed>fromMaterializer((mat, attributes) -> {
+            if (!admission.acquire()) {
+                log.debug("Connection limit reached while upgrading; closing socket");
+                return Flow.fromSinkAndSource(Sink.<Message>cancelled(), Source.<Message>empty());
+            }
+            try {
+                return connectionFlow(system, resumeToken, lastSeq, mat);
+            } catch (RuntimeException e) {
+                admission.release();
+                throw e;
+            }
+        }).mapMaterializedValue(started -> NotUsed.getInstance());
+    }
+
+    /**
+     * The flow of one admitted connection, built as its stream materializes. Pattern:
+     * 1. Spawn PlayerConnectionActor (or claim the one a resume token points to).
+     * 2. Build the outbound queue (actor → WS client) as part of the socket's own stream; when it
+     *    materializes, hand it to the actor with {@code Attach} (or {@code Reattach} on resume).
+     * 3. Wire inbound WS text → IncomingText commands → actor, stamped with a correlation id
+     *    while message tracing is recorded (see {@link MessageTrace}).
+     * 4. Watch for stream termination → send ConnectionClosed to actor and free the admission slot.
+     *
+     * Nothing runs outside the socket's single fused stream, and the queue's buffer starts small
+     * and only grows if the client falls behind, so an idle socket costs little more than its actor.
+     */
+    private Flow<Message, Message, NotUsed> connectionFlow(
+            ActorSystem<LobbyActor.Command> system,
+            Optional<String> resumeToken,
+            long lastSeq,
+            Materializer mat
+    ) {
+        // Step 1: Claim a resumed connection actor, or spawn a new one (still detached)
+        ActorRef<PlayerConnectionActor.Command> resumed = resumeToken.map(resumeRegistry::claim).orElse(null);
+        ActorRef<PlayerConnectionActor.Command> target;
+        if (resumed != null) {
+            target = resumed;
+        } else {
+            long playerId = Ids.next();
+            target = system.systemActorOf(
+                    PlayerConnectionActor.create(playerId, system, resumeRegistry, chat, ratings, recorder),
+                    "player-" + Ids.format(playerId),
+                    Props.empty()
+            );
+        }
+        boolean resumeFailed = resumed == null && resumeToken.isPresent();
+
+        // Step 2: Outbound queue, attached to the actor when the socket's stream starts
+        Source<Message, SourceQueueWithComplete<Message>> outSource = Source.<Message>queue(settings.get().outQueueSize(), OverflowStrategy.dropHead())
+                .addAttributes(ActorAttributes.maxFixedBufferSize(MAX_PREALLOCATED_BUFFER))
+                .mapMaterializedValue(outQueue -> {
+                    target.tell(resumed != null
+                            ? new PlayerConnectionActor.Reattach(outQueue, lastSeq)
+                            : new PlayerConnectionActor.Attach(outQueue));
+                    if (resumeFailed) {
+                        target.tell(new PlayerConnectionActor.ResumeFailed());
+                    }
+                    return outQueue;
+                });
 
         // Step 3: Inbound sink — WS text messages → actor
-        Materializer mat = SystemMaterializer.get(system).materializer();
         Sink<Message, NotUsed> inSink = Flow.<Message>create()
                 .filter(Message::isText)
                 .map(m -> m.asTextMessage())
-                .mapAsync(1, (TextMessage tm) -> tm.toStrict(5000, mat))
-                .map(strict -> strict.getStrictText())
-                .to(Sink.foreach(text ->
-                        connectionActor.tell(new PlayerConnectionActor.IncomingText(text))
-                ))
+                .mapAsync(1, (TextMessage tm) -> {
+                    FrameReceivedEvent received = new FrameReceivedEvent();
+                    received.begin();
+                    return tm.toStrict(settings.get().frameReadTimeout().toMillis(), mat).thenApply(strict -> {
+                        String text = strict.getStrictText();
+                        return new PlayerConnectionActor.IncomingText(text, received.finish(text.length()));
+                    });
+                })
+                .to(Sink.foreach(incoming -> target.tell(incoming)))
                 .mapMaterializedValue(x -> NotUsed.getInstance());
 
         // Step 4: Compose and watch for termination
-        return Flow.fromSinkAndSource(inSink, outSource)
-                .watchTermination((nu, done) -> {
-                    done.whenComplete((d, ex) ->
-                            connectionActor.tell(new PlayerConnectionActor.ConnectionClosed())
-                    );
-                    return nu;
+        return Flow.fromSinkAndSourceMat(inSink, outSource, Keep.right())
+                .watchTermination((outQueue, done) -> {
+                    done.whenComplete((d, ex) -> {
+                        admission.release();
+                        target.tell(new PlayerConnectionActor.ConnectionClosed(outQueue));
+                    });
+                    return NotUsed.getInstance();
                 });
     }
+
+    private static long parseSeq(Optional<String> value) {
+        return parseLong(value, 0L);
+    }
+
+    private static long parseLong(Optional<String> value, long fallback) {
+        try {
+            return value.map(Long::parseLong).orElse(fallback);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
 }
@@ -0,0 +1,140 @@
+package org.powergrid;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A scripted player on {@code /ws} over the JDK's WebSocket client, for the CDS training run and
+ * the smoke tests that drive a real server process. Every server frame, reassembled and (if HELLO
+ * negotiated {@code deflate}) inflated, lands in {@link #frames} as JSON text.
+ */
+final class WsClient {
+
+    final LinkedBlockingQueue<String> frames = new LinkedBlockingQueue<>();
+    private final Duration timeout;
+    private WebSocket ws;
+
+    private WsClient(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /** Connects to a server already listening on {@code port}. */
+    static WsClient connect(int port, Duration timeout) throws Exception {
+        return connect(port, timeout, Duration.ZERO, () -> false);
+    }
+
+    /**
+     * Retries for up to {@code bindWait} while {@code serverAlive}, for a server process that may
+     * not have bound {@code port} yet. {@code timeout} bounds every send and {@link #await}.
+     */
+    static WsClient connect(int port, Duration timeout, Duration bindWait, BooleanSupplier serverAlive)
+            throws Exception {
+        WsClient client = new WsClient(timeout);
+        HttpClient http = HttpClient.newHttpClient();
+        long deadline = System.nanoTime() + bindWait.toNanos();
+        while (true) {
+            try {
+                client.ws = http.newWebSocketBuilder()
+                        .buildAsync(URI.create("ws://127.0.0.1:" + port + "/ws"), client.new Listener())
+                        .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                return client;
+            } catch (Exception e) {
+                if (!serverAlive.getAsBoolean() || System.nanoTime() > deadline) throw e;
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    /** Sends {@code {"type": type, "payload": payload}}; {@code payload} is JSON. */
+    void send(String type, String payload) throws Exception {
+        sendText("{\"type\":\"" + type + "\",\"payload\":" + payload + "}");
+    }
+
+    void sendText(String json) throws Exception {
+        ws.sendText(json, true).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /** Skips frames until one of {@code type} arrives. */
+    String await(String type) throws InterruptedException {
+        return await(type, timeout);
+    }
+
+    String await(String type, Duration within) throws InterruptedException {
+        return awaitAny(within, "\"type\":\"" + type + "\"");
+    }
+
+    /** Skips frames until one containing any of {@code tags} arrives. */
+    String awaitAny(Duration within, String... tags) throws InterruptedException {
+        long deadline = System.nanoTime() + within.toNanos();
+        while (true) {
+            String frame = frames.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (frame == null) {
+                throw new IllegalStateException("Timed out waiting for " + String.join(" or ", tags));
+            }
+            for (String tag : tags) {
+                if (frame.contains(tag)) return frame;
+            }
+        }
+    }
+
+    void close() throws Exception {
+        ws.sendClose(WebSocket.NORMAL_CLOSURE, "done").get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private final class Listener implements WebSocket.Listener {
+        private final StringBuilder text = new StringBuilder();
+        private final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+            text.append(data);
+            if (last) {
+                frames.add(text.toString());
+                text.setLength(0);
+            }
+            return WebSocket.Listener.super.onText(socket, data, last);
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket socket, ByteBuffer data, boolean last) {
+            byte[] chunk = new byte[data.remaining()];
+            data.get(chunk);
+            binary.writeBytes(chunk);
+            if (last) {
+                frames.add(inflate(binary.toByteArray()));
+                binary.reset();
+            }
+            return WebSocket.Listener.super.onBinary(socket, data, last);
+        }
+    }
+
+    private static String inflate(byte[] deflated) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(deflated.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && inflater.needsInput()) break;
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Binary frame is not zlib data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
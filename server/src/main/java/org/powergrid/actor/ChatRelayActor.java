@@ -0,0 +1,65 @@
+package org.powergrid.actor;
+
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
+import org.apache.pekko.actor.typed.javadsl.ActorContext;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.apache.pekko.actor.typed.javadsl.Receive;
+import org.powergrid.chat.ChatChannel;
+import org.powergrid.chat.ChatDirectory;
+import org.powergrid.cluster.ClusterMessage;
+
+/**
+ * Posts chat on behalf of players connected to other cluster nodes. A {@link ChatChannel} lives on
+ * the node of the lobby or game session that owns it, and a connection actor can only post to
+ * channels in its own JVM; a remote member is sent this node's relay when it joins, and its
+ * CHAT_SEND arrives here instead. One per node, spawned by LobbyActor when clustered.
+ */
+public class ChatRelayActor extends AbstractBehavior<ChatRelayActor.Command> {
+
+    // ─── Command protocol ────────────────────────────────────────────────────
+
+    public sealed interface Command extends ClusterMessage permits
+            Post {
+    }
+
+    /** Rate-limited and length-checked by the sender's connection; {@code replyTo} hears if it went nowhere. */
+    public record Post(long playerId, String text, ActorRef<PlayerConnectionActor.Command> replyTo) implements Command {}
+
+    // ─── Factory ─────────────────────────────────────────────────────────────
+
+    public static Behavior<Command> create(ChatDirectory chat) {
+        return Behaviors.setup(ctx -> new ChatRelayActor(ctx, chat));
+    }
+
+    // ─── State ───────────────────────────────────────────────────────────────
+
+    private final ChatDirectory chat;
+
+    // ─── Constructor ─────────────────────────────────────────────────────────
+
+    private ChatRelayActor(ActorContext<Command> context, ChatDirectory chat) {
+        super(context);
+        this.chat = chat;
+    }
+
+    // ─── Message dispatch ────────────────────────────────────────────────────
+
+    @Override
+    public Receive<Command> createReceive() {
+        return newReceiveBuilder()
+                .onMessage(Post.class, this::onPost)
+                .build();
+    }
+
+    // ─── Handlers ────────────────────────────────────────────────────────────
+
+    private Behavior<Command> onPost(Post cmd) {
+        ChatChannel channel = chat.find(cmd.playerId());
+        if (channel == null || !channel.post(cmd.playerId(), cmd.text())) {
+            cmd.replyTo().tell(new PlayerConnectionActor.ChatNotDelivered());
+        }
+        return Behaviors.same();
+    }
+}
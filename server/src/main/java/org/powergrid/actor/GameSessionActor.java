@@ -1,97 +1,389 @@
 package org.powergrid.actor;
 
+import org.apache.pekko.Done;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.PostStop;
 import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
 import org.apache.pekko.actor.typed.javadsl.ActorContext;
 import org.apache.pekko.actor.typed.javadsl.Behaviors;
 import org.apache.pekko.actor.typed.javadsl.Receive;
-import org.apache.pekko.actor.typed.javadsl.TimerScheduler;
+import org.apache.pekko.cluster.ddata.LWWMap;
+import org.apache.pekko.cluster.ddata.LWWMapKey;
+import org.apache.pekko.cluster.ddata.SelfUniqueAddress;
+import org.apache.pekko.cluster.ddata.typed.javadsl.DistributedData;
+import org.apache.pekko.cluster.ddata.typed.javadsl.Replicator;
+import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
+import org.apache.pekko.cluster.sharding.typed.javadsl.EntityTypeKey;
+import org.apache.pekko.stream.SystemMaterializer;
+import org.powergrid.admin.AdminDirectory;
+import org.powergrid.admin.SessionSnapshot;
+import org.powergrid.archive.ArchivedGame;
+import org.powergrid.archive.GameArchive;
+import org.powergrid.chat.ChatChannel;
+import org.powergrid.chat.ChatDirectory;
+import org.powergrid.cluster.ClusterMessage;
+import org.powergrid.map.GameMap;
+import org.powergrid.map.MapLibrary;
+import org.powergrid.map.RegionSelection;
 import org.powergrid.model.GameState;
-import org.powergrid.model.Player;
+import org.powergrid.model.PhaseTimeouts;
+import org.powergrid.model.RoomSettings;
+import org.powergrid.model.Seat;
 import org.powergrid.protocol.MessageType;
 import org.powergrid.protocol.OutboundMessage;
+import org.powergrid.rating.RatingService;
+import org.powergrid.spectator.SpectatorDirectory;
+import org.powergrid.spectator.SpectatorFeed;
+import org.powergrid.trace.FrameSerializedEvent;
+import org.powergrid.trace.MessageHandledEvent;
+import org.powergrid.trace.MessageTrace;
+import org.powergrid.util.Ids;
 import org.powergrid.util.JsonMapper;
+import org.powergrid.util.LongLongMap;
+import org.powergrid.util.LongObjectMap;
+import org.powergrid.util.Metrics;
+import org.powergrid.util.TimerWheel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
 
 /**
  * Manages a single active game session. Lifecycle: WAITING → STARTING → IN_PROGRESS → ENDED.
  * One instance per room, spawned by LobbyActor when a game starts.
+ *
+ * Turn deadlines run on the shared {@link TimerWheel} rather than a per-actor Pekko timer, and
+ * their duration depends on the current phase (see {@link PhaseTimeouts}). New server-wide
+ * timeouts arrive as {@code TimeoutsChanged} and apply from the next turn; the host's per-room
+ * overrides still take precedence.
+ *
+ * Every change to {@code gameState} bumps {@code stateVersion}; state broadcasts go through
+ * {@link GameStateViews} so each audience's redacted frame is serialized at most once per version.
+ *
+ * The board is a {@link GameMap} shared with every other game on it; all this session keeps of it
+ * is its {@link RegionSelection}.
+ *
+ * Accepted actions are logged as they arrive; when the game ends, the log and the final state go
+ * to the {@link GameArchive} and the standings to the {@link RatingService}, and the actor stops;
+ * the lobby, which watches it, then forgets the game.
+ *
+ * In a cluster, sessions are instead {@link #sharded} entities keyed by room id, started with
+ * {@link Start} on whichever node sharding picks. Their seats may be connected to any node; each
+ * connection is watched, so a seat whose node goes away leaves the game. After every change the
+ * session saves a {@link Checkpoint} to Distributed Data; if its node fails or its shard is moved,
+ * sharding restarts it elsewhere (remember-entities), and it resumes from the checkpoint with a
+ * fresh turn and a full state broadcast. The checkpoint holds only what resuming needs, not the
+ * action log, so it stays the same size however long the game runs; a resumed game's archive
+ * entry lists only the actions accepted after it resumed. A finished game deletes its checkpoint,
+ * tells the lobby and its seats itself, and passivates.
  */
 public class GameSessionActor extends AbstractBehavior<GameSessionActor.Command> {
 
     private static final Logger log = LoggerFactory.getLogger(GameSessionActor.class);
 
+    private static final LongAdder RESYNCS = Metrics.getInstance().counter(
+            "powergrid_state_resyncs_total", "Full state snapshots sent after a client checksum mismatch");
+    private static final LongAdder STASH_DROPPED = Metrics.getInstance().counter(
+            "powergrid_game_stash_dropped_total", "Messages dropped while a sharded game was loading with a full stash");
+
+    private static final LongAdder LIVE = new LongAdder();
+
+    static {
+        Metrics.getInstance().gauge("powergrid_game_sessions", "Game session actors alive", LIVE::sum);
+    }
+
     // ─── State machine ───────────────────────────────────────────────────────
 
     public enum Phase { WAITING, STARTING, IN_PROGRESS, ENDED }
 
     // ─── Command protocol ────────────────────────────────────────────────────
 
-    public sealed interface Command permits
+    public sealed interface Command extends ClusterMessage permits
             PlayerAction,
             PhaseTimeout,
-            PlayerLeft {
+            PlayerLeft,
+            ResyncState,
+            TimeoutsChanged,
+            Traced,
+            Start,
+            Stop,
+            Sync,
+            CheckpointLoaded {
     }
 
     public record PlayerAction(
-            String playerId,
+            long playerId,
             MessageType actionType,
             com.fasterxml.jackson.databind.JsonNode payload
     ) implements Command {}
 
-    public record PhaseTimeout(String phase) implements Command {}
-
-    public record PlayerLeft(String playerId) implements Command {}
-
-    // Timer key
-    private record PhaseTimerKey(String phase) {}
+    /** Fired by the timer wheel; ignored unless {@code turn} is still the current turn. */
+    public record PhaseTimeout(String phase, int turn) implements Command {}
+
+    public record PlayerLeft(long playerId) implements Command {}
+
+    /** The player's view of the state is stale or corrupt; send it a full snapshot. */
+    public record ResyncState(long playerId) implements Command {}
+
+    /** The server-wide turn timeouts changed; rebuilt under this room's own overrides. */
+    public record TimeoutsChanged(PhaseTimeouts serverTimeouts) implements Command {}
+
+    /** {@code command} on behalf of a message being traced with JFR; see {@link MessageTrace}. */
+    public record Traced(MessageTrace trace, Command command) implements Command {}
+
+    /** Answered on {@code replyTo} once every command before it has been handled. */
+    public record Sync(ActorRef<Done> replyTo) implements Command {}
+
+    /** Starts a sharded game; the first message its entity receives. */
+    public record Start(Setup setup) implements Command {}
+
+    /** Sharding's stop message, sent when the entity passivates or its shard moves to another node. */
+    public record Stop() implements Command {}
+
+    private record CheckpointLoaded(Replicator.GetResponse<LWWMap<String, Checkpoint>> response) implements Command {}
+
+    // ─── Cluster sharding ────────────────────────────────────────────────────
+
+    public static final EntityTypeKey<Command> TYPE_KEY = EntityTypeKey.create(Command.class, "GameSession");
+
+    /** Checkpoints are spread over this many Distributed Data keys, by room id. */
+    static final int CHECKPOINT_BUCKETS = 64;
+    static final Duration CHECKPOINT_TIMEOUT = Duration.ofSeconds(3);
+    static final int STASH_CAPACITY = 1_000;
+
+    /** The node's shared services, which every sharded session it hosts uses. */
+    public record Services(
+            SpectatorDirectory spectators,
+            AdminDirectory admin,
+            ChatDirectory chat,
+            GameArchive archive,
+            RatingService ratings,
+            TimerWheel timerWheel
+    ) {}
+
+    /**
+     * A seat, the rating account it plays for and the connection actor (on any node) playing it;
+     * {@code connection} is {@code null} if it is gone.
+     */
+    public record Member(long playerId, String name, long account, ActorRef<PlayerConnectionActor.Command> connection)
+            implements ClusterMessage {}
+
+    /** What a sharded session gets from the lobby that started it; {@code regions} is the {@link RegionSelection} bit set. */
+    public record Setup(
+            List<Member> members,
+            ActorRef<LobbyActor.Command> lobby,
+            RoomSettings settings,
+            long regions
+    ) implements ClusterMessage {}
+
+    /**
+     * A running sharded game as last saved; {@code state} is its current {@link GameState} and
+     * start time in {@link ArchivedGame#toBytes()} form, without actions.
+     */
+    public record Checkpoint(
+            Setup setup,
+            byte[] state,
+            long[] playerIds,
+            long[] departed,
+            int currentPlayerIndex,
+            int turn,
+            int stateVersion
+    ) implements ClusterMessage {}
+
+    private record Sharded(
+            ActorRef<ClusterSharding.ShardCommand> shard,
+            ActorRef<Replicator.Command> replicator,
+            SelfUniqueAddress node,
+            Setup setup
+    ) {}
 
     // ─── Factory ─────────────────────────────────────────────────────────────
 
     public static Behavior<Command> create(
-            String roomId,
-            List<String> playerIds,
+            long roomId,
+            long[] playerIds,
             ActorRef<LobbyActor.Command> lobby
     ) {
-        return Behaviors.withTimers(timers ->
-                Behaviors.setup(ctx -> new GameSessionActor(ctx, timers, roomId, playerIds, lobby))
-        );
+        return create(roomId, playerIds, new LongObjectMap<>(), lobby, new SpectatorDirectory(),
+                new AdminDirectory(), new ChatDirectory().open(roomId), GameArchive.disabled(), new RatingService(),
+                RoomSettings.DEFAULT, RegionSelection.all(MapLibrary.getInstance().get(RoomSettings.DEFAULT.map())),
+                TimerWheel.getInstance());
+    }
+
+    /** {@code connections} (playerId → connection) and {@code chat} are owned by the session from here on. */
+    public static Behavior<Command> create(
+            long roomId,
+            long[] playerIds,
+            LongObjectMap<ActorRef<PlayerConnectionActor.Command>> connections,
+            ActorRef<LobbyActor.Command> lobby,
+            SpectatorDirectory spectators,
+            AdminDirectory admin,
+            ChatChannel chat,
+            GameArchive archive,
+            RatingService ratings,
+            RoomSettings settings,
+            RegionSelection regions,
+            TimerWheel timerWheel
+    ) {
+        return Behaviors.setup(ctx ->
+                new GameSessionActor(ctx, roomId, playerIds, connections, lobby, spectators, admin, chat, archive,
+                        ratings, settings, regions, timerWheel, null, null));
+    }
+
+    /**
+     * The sharded entity for {@code roomId}. It waits for {@link Start}, or for the checkpoint of a
+     * game that was running elsewhere, stashing everything else meanwhile; with neither, it
+     * passivates. Past {@link #STASH_CAPACITY} waiting messages, further ones are logged, counted
+     * and dropped.
+     */
+    public static Behavior<Command> sharded(long roomId, Services services, ActorRef<ClusterSharding.ShardCommand> shard) {
+        return Behaviors.setup(ctx -> Behaviors.withStash(STASH_CAPACITY, stash ->
+                DistributedData.<Command, LWWMap<String, Checkpoint>>withReplicatorMessageAdapter(checkpoints -> {
+                    checkpoints.askGet(
+                            replyTo -> new Replicator.Get<>(checkpointKey(roomId),
+                                    new Replicator.ReadMajority(CHECKPOINT_TIMEOUT), replyTo),
+                            CheckpointLoaded::new);
+                    return Behaviors.receive(Command.class)
+                            .onMessage(Start.class, start -> stash.unstashAll(
+                                    new GameSessionActor(ctx, roomId, services, shard, start.setup(), null)))
+                            .onMessage(CheckpointLoaded.class, loaded -> {
+                                Checkpoint checkpoint = checkpointIn(loaded.response(), roomId);
+                                if (checkpoint == null) {
+                                    log.info("No game to resume in room {}, passivating", Ids.format(roomId));
+                                    shard.tell(new ClusterSharding.Passivate<>(ctx.getSelf()));
+                                    return Behaviors.receive(Command.class)
+                                            .onMessage(Stop.class, stop -> Behaviors.stopped())
+                                            .build();
+                                }
+                                return stash.unstashAll(
+                                        new GameSessionActor(ctx, roomId, services, shard, checkpoint.setup(), checkpoint));
+                            })
+                            .onMessage(Stop.class, stop -> Behaviors.stopped())
+                            .onAnyMessage(msg -> {
+                                if (stash.isFull()) {
+                                    STASH_DROPPED.increment();
+                                    log.warn("Dropped {} for room {}: {} messages already wait for its game to load",
+                                            msg.getClass().getSimpleName(), Ids.format(roomId), STASH_CAPACITY);
+                                } else {
+                                    stash.stash(msg);
+                                }
+                                return Behaviors.same();
+                            })
+                            .build();
+                })));
     }
 
     // ─── State ───────────────────────────────────────────────────────────────
 
-    private final String roomId;
-    private final List<String> playerIds;
+    private final long roomId;
+    private long[] playerIds;
+    private long[] departed = new long[0]; // players who left, in leaving order
+    private final LongLongMap accounts; // seat → rating account, fixed when the game starts
+    private final LongObjectMap<ActorRef<PlayerConnectionActor.Command>> connections;
     private final ActorRef<LobbyActor.Command> lobby;
-    private final TimerScheduler<Command> timers;
+    private final SpectatorDirectory spectators;
+    private final SpectatorFeed spectatorFeed;
+    private final AdminDirectory admin;
+    private final ChatChannel chat;
+    private final GameArchive archive;
+    private final RatingService ratings;
+    private long startedAt = System.currentTimeMillis(); // restored when resuming a checkpoint
+    private final RoomSettings settings;
+    private PhaseTimeouts timeouts;
+    private final RegionSelection regions;
+    private final TimerWheel timerWheel;
+    private final Sharded sharded; // null unless a sharded entity
 
     private Phase phase = Phase.WAITING;
     private GameState gameState;
+    private int stateVersion = 0;
+    private final GameStateViews views = new GameStateViews();
     private int currentPlayerIndex = 0;
+    private int turn = 0;
+    private TimerWheel.Timeout turnTimeout;
+    private final List<ArchivedGame.Action> actions = new ArrayList<>();
+    private MessageTrace trace = MessageTrace.NONE; // message being handled, for JFR events
 
     // ─── Constructor ─────────────────────────────────────────────────────────
 
     private GameSessionActor(
             ActorContext<Command> context,
-            TimerScheduler<Command> timers,
-            String roomId,
-            List<String> playerIds,
-            ActorRef<LobbyActor.Command> lobby
+            long roomId,
+            long[] playerIds,
+            LongObjectMap<ActorRef<PlayerConnectionActor.Command>> connections,
+            ActorRef<LobbyActor.Command> lobby,
+            SpectatorDirectory spectators,
+            AdminDirectory admin,
+            ChatChannel chat,
+            GameArchive archive,
+            RatingService ratings,
+            RoomSettings settings,
+            RegionSelection regions,
+            TimerWheel timerWheel,
+            Sharded sharded,
+            Checkpoint resume
     ) {
         super(context);
-        this.timers = timers;
+        this.admin = admin;
+        this.chat = chat;
+        this.archive = archive;
+        this.ratings = ratings;
         this.roomId = roomId;
-        this.playerIds = new ArrayList<>(playerIds);
+        this.playerIds = playerIds.clone();
+        this.accounts = accountsOf(playerIds, sharded, ratings);
+        this.connections = connections;
         this.lobby = lobby;
-        this.gameState = GameState.initial(roomId, playerIds);
-
+        this.gameState = GameState.initial(roomId, playerIds, settings.hiddenMoney());
+        this.settings = settings;
+        this.timeouts = settings.timeouts();
+        this.regions = regions;
+        this.timerWheel = timerWheel;
+        this.sharded = sharded;
+
+        this.spectators = spectators;
+        this.spectatorFeed = new SpectatorFeed(
+                SystemMaterializer.get(context.getSystem()).materializer(),
+                spectatorDelay(context));
+        spectators.register(roomId, spectatorFeed);
+        LIVE.increment();
+
+        if (resume != null) {
+            restore(resume);
+        }
+        if (sharded != null) {
+            for (Member member : sharded.setup().members()) {
+                if (member.connection() != null && connections.containsKey(member.playerId())) {
+                    chat.join(member.playerId(), member.name(), member.connection());
+                    context.watchWith(member.connection(), new PlayerLeft(member.playerId()));
+                }
+            }
+        }
         startGame();
+        checkpoint();
+    }
+
+    /** A sharded session on this node's {@code services}, started from {@code setup} or resumed from a checkpoint. */
+    private GameSessionActor(
+            ActorContext<Command> context,
+            long roomId,
+            Services services,
+            ActorRef<ClusterSharding.ShardCommand> shard,
+            Setup setup,
+            Checkpoint resume
+    ) {
+        this(context, roomId, seatsOf(setup), connectionsOf(setup), setup.lobby(), services.spectators(),
+                services.admin(), services.chat().open(roomId), services.archive(), services.ratings(),
+                setup.settings(), new RegionSelection(MapLibrary.getInstance().get(setup.settings().map()), setup.regions()),
+                services.timerWheel(),
+                new Sharded(shard, DistributedData.get(context.getSystem()).replicator(),
+                        DistributedData.get(context.getSystem()).selfUniqueAddress(), setup),
+                resume);
     }
 
     // ─── Message dispatch ────────────────────────────────────────────────────
@@ -102,6 +394,17 @@ public class GameSessionActor extends AbstractBehavior<GameSessionActor.Command>
                 .onMessage(PlayerAction.class, this::onPlayerAction)
                 .onMessage(PhaseTimeout.class, this::onPhaseTimeout)
                 .onMessage(PlayerLeft.class, this::onPlayerLeft)
+                .onMessage(ResyncState.class, this::onResyncState)
+                .onMessage(TimeoutsChanged.class, this::onTimeoutsChanged)
+                .onMessage(Traced.class, this::onTraced)
+                .onMessage(Start.class, cmd -> Behaviors.same()) // already started
+                .onMessage(Stop.class, cmd -> Behaviors.stopped()) // checkpoint kept, unless the game is over
+                .onMessage(CheckpointLoaded.class, cmd -> Behaviors.same()) // Start came first
+                .onMessage(Sync.class, cmd -> {
+                    cmd.replyTo().tell(Done.getInstance());
+                    return Behaviors.same();
+                })
+                .onSignal(PostStop.class, signal -> onPostStop())
                 .build();
     }
 
@@ -109,36 +412,109 @@ public class GameSessionActor extends AbstractBehavior<GameSessionActor.Command>
 
     private Behavior<Command> onPlayerAction(PlayerAction cmd) {
         if (phase != Phase.IN_PROGRESS) {
-            log.warn("Ignoring action {} from {} — game phase is {}", cmd.actionType(), cmd.playerId(), phase);
+            log.warn("Ignoring action {} from {} — game phase is {}", cmd.actionType(), Ids.format(cmd.playerId()), phase);
             return Behaviors.same();
         }
 
-        log.debug("Player action: {} from {}", cmd.actionType(), cmd.playerId());
+        log.debug("Player action: {} from {}", cmd.actionType(), Ids.format(cmd.playerId()));
+        int at = (int) (System.currentTimeMillis() - startedAt);
 
-        switch (cmd.actionType()) {
+        boolean accepted = switch (cmd.actionType()) {
             case BID_PLANT -> handleBidPlant(cmd);
             case PASS_BID -> handlePassBid(cmd);
             case BUY_RESOURCE -> handleBuyResource(cmd);
             case BUILD_CITY -> handleBuildCity(cmd);
             case END_TURN -> handleEndTurn(cmd);
-            default -> log.warn("Unhandled action type: {}", cmd.actionType());
+            default -> {
+                log.warn("Unhandled action type: {}", cmd.actionType());
+                yield false;
+            }
+        };
+        if (accepted) {
+            // Only accepted actions are archived, so replaying the log reproduces the game
+            actions.add(new ArchivedGame.Action(at, cmd.playerId(), cmd.actionType(),
+                    cmd.payload() != null ? cmd.payload().toString() : null));
+            checkpoint();
         }
-
         return Behaviors.same();
     }
 
     private Behavior<Command> onPhaseTimeout(PhaseTimeout cmd) {
-        log.info("Phase timeout: {} in room {}", cmd.phase(), roomId);
+        if (phase != Phase.IN_PROGRESS || cmd.turn() != turn) {
+            return Behaviors.same(); // fired just as the turn ended another way
+        }
+        log.info("Phase timeout: {} in room {}", cmd.phase(), Ids.format(roomId));
         advanceTurn();
+        checkpoint();
         return Behaviors.same();
     }
 
     private Behavior<Command> onPlayerLeft(PlayerLeft cmd) {
-        log.info("Player {} left game {}", cmd.playerId(), roomId);
-        playerIds.remove(cmd.playerId());
-        if (playerIds.size() < 2) {
+        if (phase == Phase.ENDED || !contains(playerIds, cmd.playerId())) {
+            return Behaviors.same(); // told twice, e.g. by the connection and by the watch on it
+        }
+        log.info("Player {} left game {}", Ids.format(cmd.playerId()), Ids.format(roomId));
+        long currentPlayer = playerIds.length > 0 ? playerIds[currentPlayerIndex] : Ids.NONE;
+        departed = Arrays.copyOf(departed, departed.length + 1);
+        departed[departed.length - 1] = cmd.playerId();
+        playerIds = without(playerIds, cmd.playerId());
+        connections.remove(cmd.playerId());
+        chat.leave(cmd.playerId());
+        if (currentPlayerIndex >= playerIds.length) {
+            currentPlayerIndex = 0;
+        }
+        if (playerIds.length < 2) {
             endGame("Player disconnected — not enough players.");
+            return finish();
+        } else if (phase == Phase.IN_PROGRESS && currentPlayer == cmd.playerId()) {
+            startTurn(); // the seat that was on the clock is gone; the next player inherits the turn
+        } else {
+            currentPlayerIndex = indexOf(playerIds, currentPlayer);
         }
+        checkpoint();
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onResyncState(ResyncState cmd) {
+        ActorRef<PlayerConnectionActor.Command> conn = connections.get(cmd.playerId());
+        if (conn == null || phase != Phase.IN_PROGRESS) {
+            return Behaviors.same();
+        }
+        log.debug("Full state resync for {} in room {}", Ids.format(cmd.playerId()), Ids.format(roomId));
+        RESYNCS.increment();
+        try {
+            views.update(gameState, stateVersion);
+            conn.tell(new PlayerConnectionActor.SendText(views.forSeat(cmd.playerId()), trace));
+        } catch (Exception e) {
+            log.error("Failed to serialize game state", e);
+        }
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onTimeoutsChanged(TimeoutsChanged cmd) {
+        timeouts = settings.withServerTimeouts(cmd.serverTimeouts()).timeouts();
+        return Behaviors.same();
+    }
+
+    /** Runs the wrapped command's handler as usual, recording it and the frames it sends. */
+    private Behavior<Command> onTraced(Traced cmd) throws Exception {
+        MessageHandledEvent handled = new MessageHandledEvent();
+        handled.start(cmd.trace());
+        trace = cmd.trace();
+        try {
+            return receive(getContext(), cmd.command());
+        } finally {
+            trace = MessageTrace.NONE;
+            handled.finish(cmd.trace(), "game");
+        }
+    }
+
+    private Behavior<Command> onPostStop() {
+        LIVE.decrement();
+        cancelTurnTimeout();
+        closeSpectatorFeed();
+        chat.close();
+        admin.removeSession(roomId);
         return Behaviors.same();
     }
 
@@ -146,77 +522,319 @@ public class GameSessionActor extends AbstractBehavior<GameSessionActor.Command>
 
     private void startGame() {
         phase = Phase.IN_PROGRESS;
-        log.info("Game started in room {} with players {}", roomId, playerIds);
-        broadcastGameState();
-        schedulePhaseTimeout("TURN", Duration.ofSeconds(120));
+        var assigned = new PlayerConnectionActor.GameAssigned(getContext().getSelf());
+        connections.forEachValue(conn -> conn.tell(assigned));
+        log.info("Game started in room {} with {} players", Ids.format(roomId), playerIds.length);
+        startTurn();
     }
 
-    private void handleBidPlant(PlayerAction cmd) {
+    // Each handler returns whether it accepted the action; rejected ones leave no trace in the game
+
+    private boolean handleBidPlant(PlayerAction cmd) {
         // TODO: implement auction logic
         broadcastGameState();
+        return true;
     }
 
-    private void handlePassBid(PlayerAction cmd) {
+    private boolean handlePassBid(PlayerAction cmd) {
         // TODO: implement pass bid logic
         broadcastGameState();
+        return true;
     }
 
-    private void handleBuyResource(PlayerAction cmd) {
+    private boolean handleBuyResource(PlayerAction cmd) {
         // TODO: implement resource buying logic
         broadcastGameState();
+        return true;
     }
 
-    private void handleBuildCity(PlayerAction cmd) {
-        // TODO: implement city building logic
+    private boolean handleBuildCity(PlayerAction cmd) {
+        GameMap map = regions.map();
+        String cityId = cmd.payload() == null ? "" : cmd.payload().path("cityId").asText("");
+        int city = map.city(cityId);
+        if (city < 0 || !regions.inPlay(city)) {
+            log.warn("BUILD_CITY from {} for {} — not in play on {}", Ids.format(cmd.playerId()), cityId, map.name());
+            return false;
+        }
+        // TODO: implement city building logic (connection cost: map.connectionCost(regions, network, city))
         broadcastGameState();
+        return true;
     }
 
-    private void handleEndTurn(PlayerAction cmd) {
-        String currentPlayer = playerIds.get(currentPlayerIndex);
-        if (!currentPlayer.equals(cmd.playerId())) {
-            log.warn("Out-of-turn END_TURN from {}", cmd.playerId());
-            return;
+    private boolean handleEndTurn(PlayerAction cmd) {
+        long currentPlayer = playerIds[currentPlayerIndex];
+        if (currentPlayer != cmd.playerId()) {
+            log.warn("Out-of-turn END_TURN from {}", Ids.format(cmd.playerId()));
+            return false;
         }
         advanceTurn();
+        return true;
     }
 
     private void advanceTurn() {
-        timers.cancel(new PhaseTimerKey("TURN"));
-        currentPlayerIndex = (currentPlayerIndex + 1) % playerIds.size();
+        currentPlayerIndex = (currentPlayerIndex + 1) % playerIds.length;
+        startTurn();
+    }
+
+    /** Re-arms the turn deadline for the current phase and broadcasts it with the new state. */
+    private void startTurn() {
+        cancelTurnTimeout();
+        int thisTurn = ++turn;
+        String gamePhase = gameState.phase();
+        Duration limit = timeouts.forPhase(gamePhase);
+        ActorRef<Command> self = getContext().getSelf();
+        turnTimeout = timerWheel.schedule(limit, () -> self.tell(new PhaseTimeout(gamePhase, thisTurn)));
+
+        setState(gameState.withTurn(playerIds[currentPlayerIndex], System.currentTimeMillis() + limit.toMillis()));
         broadcastGameState();
-        schedulePhaseTimeout("TURN", Duration.ofSeconds(120));
     }
 
+    private void cancelTurnTimeout() {
+        if (turnTimeout != null) {
+            turnTimeout.cancel();
+            turnTimeout = null;
+        }
+    }
+
+    /** Announces the result and hands the game off; the caller then stops, and PostStop cleans up. */
     private void endGame(String reason) {
         phase = Phase.ENDED;
-        timers.cancelAll();
-        log.info("Game over in room {}: {}", roomId, reason);
+        log.info("Game over in room {}: {}", Ids.format(roomId), reason);
 
         var payload = JsonMapper.getInstance().createObjectNode()
-                .put("roomId", roomId)
+                .put("roomId", Ids.format(roomId))
                 .put("reason", reason);
         broadcast(MessageType.GAME_OVER, payload);
+        archive.submit(new ArchivedGame(roomId, startedAt, System.currentTimeMillis(), reason, gameState, List.copyOf(actions)));
+        List<Seat> standings = standings();
+        List<Seat> byAccount = new ArrayList<>(standings.size());
+        LongLongMap rated = new LongLongMap(standings.size());
+        for (Seat seat : standings) {
+            long account = accounts.get(seat.id());
+            if (rated.put(account, seat.id()) == Ids.NONE) { // an account seated twice counts its best seat
+                byAccount.add(new Seat(account, seat.name(), seat.money()));
+            }
+        }
+        ratings.recordGame(byAccount);
+    }
+
+    /**
+     * Stops a local session. A sharded one deletes its checkpoint, tells the lobby and its seats
+     * that the game is over (nothing watches it for them) and asks its shard to passivate it; its
+     * {@link Stop} then arrives.
+     */
+    private Behavior<Command> finish() {
+        if (sharded == null) {
+            return Behaviors.stopped();
+        }
+        cancelTurnTimeout();
+        String key = Ids.format(roomId);
+        updateCheckpoints(map -> map.remove(sharded.node(), key));
+        ActorRef<Command> self = getContext().getSelf();
+        var finished = new PlayerConnectionActor.GameFinished(self);
+        connections.forEachValue(conn -> conn.tell(finished));
+        lobby.tell(new LobbyActor.GameEnded(roomId, self));
+        sharded.shard().tell(new ClusterSharding.Passivate<>(self));
+        return Behaviors.same();
+    }
+
+    // ─── Checkpoints ─────────────────────────────────────────────────────────
+
+    /** Saves the game so far, if sharded; a majority of nodes holds it before the write counts. */
+    private void checkpoint() {
+        if (sharded == null || phase != Phase.IN_PROGRESS) return;
+        byte[] state = new ArchivedGame(roomId, startedAt, System.currentTimeMillis(), null, gameState, List.of()).toBytes();
+        var checkpoint = new Checkpoint(sharded.setup(), state, playerIds.clone(), departed.clone(),
+                currentPlayerIndex, turn, stateVersion);
+        String key = Ids.format(roomId);
+        updateCheckpoints(map -> map.put(sharded.node(), key, checkpoint));
+    }
+
+    private void updateCheckpoints(UnaryOperator<LWWMap<String, Checkpoint>> modify) {
+        sharded.replicator().tell(new Replicator.Update<>(checkpointKey(roomId), LWWMap.create(),
+                new Replicator.WriteMajority(CHECKPOINT_TIMEOUT), getContext().getSystem().ignoreRef(), modify::apply));
+    }
+
+    private void restore(Checkpoint checkpoint) {
+        ArchivedGame saved = ArchivedGame.fromBytes(checkpoint.state());
+        startedAt = saved.startedAt();
+        gameState = saved.finalState();
+        playerIds = checkpoint.playerIds().clone();
+        departed = checkpoint.departed().clone();
+        for (long pid : departed) {
+            connections.remove(pid);
+        }
+        currentPlayerIndex = checkpoint.currentPlayerIndex();
+        turn = checkpoint.turn();
+        stateVersion = checkpoint.stateVersion();
+        log.info("Resuming game in room {} at turn {} on this node", Ids.format(roomId), turn);
+    }
+
+    private static LWWMapKey<String, Checkpoint> checkpointKey(long roomId) {
+        return LWWMapKey.create("game-checkpoints-" + Math.floorMod(roomId, CHECKPOINT_BUCKETS));
+    }
+
+    private static Checkpoint checkpointIn(Replicator.GetResponse<LWWMap<String, Checkpoint>> response, long roomId) {
+        if (response instanceof Replicator.GetSuccess<LWWMap<String, Checkpoint>> success) {
+            return success.get(checkpointKey(roomId)).getEntries().get(Ids.format(roomId));
+        }
+        if (response instanceof Replicator.GetFailure<?>) {
+            log.warn("Could not read the checkpoint of room {} from a majority of nodes", Ids.format(roomId));
+        }
+        return null; // NotFound: no game has been checkpointed in this bucket
+    }
+
+    private static long[] seatsOf(Setup setup) {
+        long[] ids = new long[setup.members().size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = setup.members().get(i).playerId();
+        }
+        return ids;
+    }
+
+    /**
+     * Each seat's rating account: as the starting lobby linked it if sharded, else as linked on this
+     * node now. Fixed here so a seat that disconnects before the game ends is still rated.
+     */
+    private static LongLongMap accountsOf(long[] playerIds, Sharded sharded, RatingService ratings) {
+        LongLongMap accounts = new LongLongMap(playerIds.length);
+        if (sharded != null) {
+            for (Member member : sharded.setup().members()) {
+                accounts.put(member.playerId(), member.account());
+            }
+        } else {
+            for (long pid : playerIds) {
+                accounts.put(pid, ratings.account(pid));
+            }
+        }
+        return accounts;
+    }
+
+    private static LongObjectMap<ActorRef<PlayerConnectionActor.Command>> connectionsOf(Setup setup) {
+        LongObjectMap<ActorRef<PlayerConnectionActor.Command>> connections = new LongObjectMap<>(setup.members().size());
+        for (Member member : setup.members()) {
+            if (member.connection() != null) {
+                connections.put(member.playerId(), member.connection());
+            }
+        }
+        return connections;
     }
 
     // ─── Broadcast helpers ───────────────────────────────────────────────────
 
+    private void setState(GameState next) {
+        gameState = next;
+        stateVersion++;
+        admin.publishSession(new SessionSnapshot(roomId, startedAt, stateVersion, gameState));
+    }
+
+    /**
+     * Sends each seat a delta (or a full snapshot if none applies) of its own view, and spectators
+     * the shared snapshot. Unchanged versions reuse the cached frames.
+     */
     private void broadcastGameState() {
+        FrameSerializedEvent serialized = new FrameSerializedEvent();
+        serialized.begin();
+        views.update(gameState, stateVersion);
         try {
-            var payload = JsonMapper.getInstance().valueToTree(gameState);
-            broadcast(MessageType.GAME_STATE_UPDATE, payload);
+            int bytes = 0;
+            MessageType sent = MessageType.GAME_STATE_UPDATE;
+            for (long pid : playerIds) {
+                ActorRef<PlayerConnectionActor.Command> conn = connections.get(pid);
+                if (conn != null) {
+                    String delta = views.deltaForSeat(pid);
+                    String frame = delta != null ? delta : views.forSeat(pid);
+                    conn.tell(new PlayerConnectionActor.SendText(frame, trace));
+                    bytes += frame.length();
+                    if (delta != null) sent = MessageType.GAME_STATE_DELTA;
+                }
+            }
+            spectatorFeed.publish(views.forSpectators(), true);
+            serialized.finish(trace, sent.name(), bytes, playerIds.length);
         } catch (Exception e) {
             log.error("Failed to serialize game state", e);
         }
     }
 
+    /** Serializes an event once, then delivers the same frame to every seated player and the spectator hub. */
     private void broadcast(MessageType type, com.fasterxml.jackson.databind.JsonNode payload) {
-        // GameSessionActor doesn't hold connection refs directly;
-        // it sends through PlayerConnectionActor refs stored in the context children.
-        // For now, this is a placeholder — real delivery goes through LobbyActor routing.
-        log.debug("Broadcast {} to room {}", type, roomId);
+        FrameSerializedEvent serialized = new FrameSerializedEvent();
+        serialized.begin();
+        String json;
+        try {
+            json = JsonMapper.getInstance().writeValueAsString(new OutboundMessage(type, payload));
+        } catch (Exception e) {
+            log.error("Failed to serialize {} for room {}", type, Ids.format(roomId), e);
+            return;
+        }
+        log.debug("Broadcast {} to room {}", type, Ids.format(roomId));
+
+        var frame = new PlayerConnectionActor.SendText(json, trace);
+        for (long pid : playerIds) {
+            ActorRef<PlayerConnectionActor.Command> conn = connections.get(pid);
+            if (conn != null) {
+                conn.tell(frame);
+            }
+        }
+        spectatorFeed.publish(json, false);
+        serialized.finish(trace, type.name(), json.length(), playerIds.length);
+    }
+
+    /** Players still seated, richest first, then those who left, the last to leave first. */
+    private List<Seat> standings() {
+        List<Seat> remaining = new ArrayList<>(playerIds.length);
+        List<Seat> left = new ArrayList<>(departed.length);
+        for (Seat seat : gameState.players()) {
+            if (!contains(departed, seat.id())) {
+                remaining.add(seat);
+            }
+        }
+        remaining.sort((a, b) -> Integer.compare(moneyOf(b), moneyOf(a)));
+        for (int i = departed.length - 1; i >= 0; i--) {
+            for (Seat seat : gameState.players()) {
+                if (seat.id() == departed[i]) left.add(seat);
+            }
+        }
+        remaining.addAll(left);
+        return remaining;
     }
 
-    private void schedulePhaseTimeout(String phase, Duration delay) {
-        timers.startSingleTimer(new PhaseTimerKey(phase), new PhaseTimeout(phase), delay);
+    private static int moneyOf(Seat seat) {
+        return seat.money() != null ? seat.money() : 0;
+    }
+
+    private void closeSpectatorFeed() {
+        spectators.remove(roomId, spectatorFeed);
+        spectatorFeed.complete();
+    }
+
+    private static Duration spectatorDelay(ActorContext<Command> context) {
+        var config = context.getSystem().settings().config();
+        return config.hasPath("powergrid.spectator.delay")
+                ? config.getDuration("powergrid.spectator.delay")
+                : Duration.ZERO;
+    }
+
+    private static int indexOf(long[] ids, long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) return i;
+        }
+        return 0;
+    }
+
+    private static boolean contains(long[] ids, long id) {
+        for (long x : ids) {
+            if (x == id) return true;
+        }
+        return false;
+    }
+
+    private static long[] without(long[] ids, long id) {
+        long[] result = new long[ids.length];
+        int n = 0;
+        for (long x : ids) {
+            if (x != id) result[n++] = x;
+        }
+        return Arrays.copyOf(result, n);
     }
 }
@@ -0,0 +1,97 @@
+package org.powergrid.actor;
+
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.RecipientRef;
+import org.apache.pekko.actor.typed.javadsl.ActorContext;
+import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
+import org.apache.pekko.cluster.sharding.typed.javadsl.Entity;
+import org.powergrid.chat.ChatChannel;
+import org.powergrid.map.RegionSelection;
+import org.powergrid.model.RoomSettings;
+import org.powergrid.util.Ids;
+import org.powergrid.util.LongObjectMap;
+
+import java.util.List;
+
+/**
+ * Where the lobby's games run: as its own watched children ({@link #local}), or as
+ * cluster-sharded entities on whichever node sharding picks ({@link #sharded}).
+ */
+abstract class GameSessions {
+
+    /**
+     * Starts a game of {@code members}, in seat order, and returns where its session is reached.
+     * The session takes over {@code chat}; a sharded one opens the game's channel on its own node.
+     */
+    abstract RecipientRef<GameSessionActor.Command> start(long roomId, List<GameSessionActor.Member> members,
+                                                          RoomSettings settings, RegionSelection regions,
+                                                          ChatChannel chat);
+
+    /** Sessions spawned by {@code context}'s lobby, which hears {@code GameEnded} when one stops. */
+    static GameSessions local(ActorContext<LobbyActor.Command> context, GameSessionActor.Services services) {
+        return new Local(context, services);
+    }
+
+    /** Sessions sharded by room id; initializes sharding for them on this node, with {@code services}. */
+    static GameSessions sharded(ActorContext<LobbyActor.Command> context, GameSessionActor.Services services) {
+        return new Sharded(context, services);
+    }
+
+    // ─── Implementations ─────────────────────────────────────────────────────
+
+    private static final class Local extends GameSessions {
+        private final ActorContext<LobbyActor.Command> context;
+        private final GameSessionActor.Services services;
+
+        Local(ActorContext<LobbyActor.Command> context, GameSessionActor.Services services) {
+            this.context = context;
+            this.services = services;
+        }
+
+        @Override
+        RecipientRef<GameSessionActor.Command> start(long roomId, List<GameSessionActor.Member> members,
+                                                     RoomSettings settings, RegionSelection regions, ChatChannel chat) {
+            long[] playerIds = new long[members.size()];
+            LongObjectMap<ActorRef<PlayerConnectionActor.Command>> connections = new LongObjectMap<>(members.size());
+            for (int i = 0; i < playerIds.length; i++) {
+                GameSessionActor.Member member = members.get(i);
+                playerIds[i] = member.playerId();
+                if (member.connection() != null) {
+                    connections.put(member.playerId(), member.connection());
+                }
+            }
+            ActorRef<GameSessionActor.Command> session = context.spawn(
+                    GameSessionActor.create(roomId, playerIds, connections, context.getSelf(), services.spectators(),
+                            services.admin(), chat, services.archive(), services.ratings(), settings, regions,
+                            services.timerWheel()),
+                    "room-" + Ids.format(roomId)
+            );
+            context.watchWith(session, new LobbyActor.GameEnded(roomId, session));
+            return session;
+        }
+    }
+
+    private static final class Sharded extends GameSessions {
+        private final ActorContext<LobbyActor.Command> context;
+        private final ClusterSharding sharding;
+
+        Sharded(ActorContext<LobbyActor.Command> context, GameSessionActor.Services services) {
+            this.context = context;
+            this.sharding = ClusterSharding.get(context.getSystem());
+            sharding.init(Entity.of(GameSessionActor.TYPE_KEY, entity ->
+                            GameSessionActor.sharded(Ids.parse(entity.getEntityId()), services, entity.getShard()))
+                    .withStopMessage(new GameSessionActor.Stop()));
+        }
+
+        @Override
+        RecipientRef<GameSessionActor.Command> start(long roomId, List<GameSessionActor.Member> members,
+                                                     RoomSettings settings, RegionSelection regions, ChatChannel chat) {
+            chat.close(); // its members join the session's own channel
+            RecipientRef<GameSessionActor.Command> session =
+                    sharding.entityRefFor(GameSessionActor.TYPE_KEY, Ids.format(roomId));
+            session.tell(new GameSessionActor.Start(
+                    new GameSessionActor.Setup(List.copyOf(members), context.getSelf(), settings, regions.regions())));
+            return session;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.powergrid.actor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.powergrid.model.GameState;
+import org.powergrid.model.StateChecksum;
+import org.powergrid.protocol.MessageType;
+import org.powergrid.protocol.OutboundMessage;
+import org.powergrid.util.Ids;
+import org.powergrid.util.JsonMapper;
+import org.powergrid.util.LongObjectMap;
+import org.powergrid.util.Metrics;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pre-serialized state frames for each audience of one game, cached per state version.
+ *
+ * Every seat gets its own redacted view and spectators share one. When the room hides nothing,
+ * every audience shares the single spectator frame. Frames are built lazily on first request and
+ * dropped only when {@link #update} sees a new version, so re-broadcasting an unchanged state
+ * costs no serialization. Owned by {@link GameSessionActor}; not thread-safe.
+ *
+ * Each frame carries the state {@code version} and the viewer's {@link StateChecksum}. Seats
+ * normally get a GAME_STATE_DELTA holding only the top-level fields that changed since the
+ * previous version; a full GAME_STATE_UPDATE is sent when no delta applies or the client reports
+ * a checksum mismatch.
+ */
+final class GameStateViews {
+
+    private static final LongAdder SERIALIZED = Metrics.getInstance().counter(
+            "powergrid_state_views_serialized_total", "GAME_STATE_UPDATE/DELTA views serialized");
+    private static final LongAdder REUSED = Metrics.getInstance().counter(
+            "powergrid_state_views_reused_total", "State frames served from the view cache");
+
+    private final LongObjectMap<String> seatFrames = new LongObjectMap<>();
+    private final LongObjectMap<String> seatDeltas = new LongObjectMap<>();
+    private GameState state;
+    private StateChecksum checksum;
+    private int version = -1;
+    private List<String> changed; // fields changed since version - 1, or null if no delta applies
+    private String sharedFrame;
+    private String sharedDelta;
+    private int serializations;
+
+    /** Points the cache at {@code state}; cached frames survive unless {@code version} moved. */
+    void update(GameState state, int version) {
+        if (version == this.version) return;
+        if (this.state == null) {
+            checksum = StateChecksum.of(state);
+            changed = null;
+        } else {
+            checksum.apply(this.state, state);
+            changed = version == this.version + 1 ? changedFields(this.state, state) : null;
+        }
+        this.state = state;
+        this.version = version;
+        this.sharedFrame = null;
+        this.sharedDelta = null;
+        seatFrames.clear();
+        seatDeltas.clear();
+    }
+
+    /** Full snapshot frame for the player in seat {@code playerId}. */
+    String forSeat(long playerId) {
+        if (!state.hiddenMoney()) {
+            return forSpectators();
+        }
+        String frame = seatFrames.get(playerId);
+        if (frame == null) {
+            frame = serialize(MessageType.GAME_STATE_UPDATE, playerId, null);
+            seatFrames.put(playerId, frame);
+        } else {
+            REUSED.increment();
+        }
+        return frame;
+    }
+
+    /**
+     * Delta frame taking seat {@code playerId} from the previous version to this one, or
+     * {@code null} if the client needs a full snapshot instead.
+     */
+    String deltaForSeat(long playerId) {
+        if (changed == null) return null;
+        if (!state.hiddenMoney()) {
+            if (sharedDelta == null) {
+                sharedDelta = serialize(MessageType.GAME_STATE_DELTA, Ids.NONE, changed);
+            } else {
+                REUSED.increment();
+            }
+            return sharedDelta;
+        }
+        String frame = seatDeltas.get(playerId);
+        if (frame == null) {
+            frame = serialize(MessageType.GAME_STATE_DELTA, playerId, changed);
+            seatDeltas.put(playerId, frame);
+        } else {
+            REUSED.increment();
+        }
+        return frame;
+    }
+
+    /** Full snapshot frame shared by all spectators (and by all seats when nothing is hidden). */
+    String forSpectators() {
+        if (sharedFrame == null) {
+            sharedFrame = serialize(MessageType.GAME_STATE_UPDATE, Ids.NONE, null);
+        } else {
+            REUSED.increment();
+        }
+        return sharedFrame;
+    }
+
+    /** Number of views this cache has serialized so far. */
+    int serializations() {
+        return serializations;
+    }
+
+    private String serialize(MessageType type, long viewerId, List<String> fields) {
+        try {
+            ObjectNode payload = JsonMapper.getInstance().valueToTree(state.redactedFor(viewerId));
+            if (fields != null) {
+                payload.retain(fields);
+            }
+            payload.put("version", version)
+                    .put("checksum", checksum.forViewer(viewerId, state.hiddenMoney()));
+            String json = JsonMapper.getInstance().writeValueAsString(new OutboundMessage(type, payload));
+            serializations++;
+            SERIALIZED.increment();
+            return json;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> changedFields(GameState prev, GameState next) {
+        List<String> fields = new ArrayList<>(4);
+        if (prev.round() != next.round()) fields.add("round");
+        if (!prev.phase().equals(next.phase())) fields.add("phase");
+        if (prev.currentPlayerId() != next.currentPlayerId()) fields.add("currentPlayerId");
+        if (prev.turnDeadline() != next.turnDeadline()) fields.add("turnDeadline");
+        if (!prev.players().equals(next.players())) fields.add("players");
+        return fields;
+    }
+}
@@ -1,28 +1,70 @@
 package org.powergrid.actor;
 
+import org.apache.pekko.Done;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.RecipientRef;
 import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
 import org.apache.pekko.actor.typed.javadsl.ActorContext;
 import org.apache.pekko.actor.typed.javadsl.Behaviors;
 import org.apache.pekko.actor.typed.javadsl.Receive;
+import org.apache.pekko.actor.typed.javadsl.TimerScheduler;
+import org.powergrid.admin.AdminDirectory;
+import org.powergrid.admin.LobbySnapshot;
+import org.powergrid.archive.GameArchive;
+import org.powergrid.chat.ChatChannel;
+import org.powergrid.chat.ChatDirectory;
+import org.powergrid.cluster.ClusterMessage;
+import org.powergrid.map.MapLibrary;
+import org.powergrid.map.RegionSelection;
 import org.powergrid.model.LobbyRoom;
+import org.powergrid.model.RoomSettings;
 import org.powergrid.model.Player;
+import org.powergrid.model.RoomState;
+import org.powergrid.matchmaking.MatchQueue;
 import org.powergrid.protocol.MessageType;
 import org.powergrid.protocol.OutboundMessage;
+import org.powergrid.rating.RatingService;
+import org.powergrid.settings.Limits;
+import org.powergrid.spectator.SpectatorDirectory;
+import org.powergrid.trace.FrameSerializedEvent;
+import org.powergrid.trace.MessageHandledEvent;
+import org.powergrid.trace.MessageTrace;
+import org.powergrid.util.Ids;
 import org.powergrid.util.JsonMapper;
+import org.powergrid.util.LongLongMap;
+import org.powergrid.util.LongObjectMap;
+import org.powergrid.util.TimerWheel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
 
 /**
  * Root guardian actor. Manages connected players and game rooms in the lobby.
+ *
+ * Player and room ids are compact {@code long}s (see {@link Ids}); their string form only
+ * appears in outbound payloads. Rooms are mutable {@link RoomState}s owned by this actor;
+ * anything that leaves the actor works from an immutable {@link LobbyRoom} snapshot.
+ *
+ * Every registered connection and every game session it spawns is watched: a player is dropped
+ * when its connection actor stops, and a game is forgotten (and its seats told so) when its
+ * session stops. Nothing this actor keeps outlives the player or game it belongs to.
+ *
+ * Room size and the server-wide turn timeouts come from {@link Limits}; a {@code SettingsChanged}
+ * applies to rooms joined or started from then on and is passed on to every running game.
+ *
+ * When the actor system runs as a cluster ({@code pekko.actor.provider = cluster}), every node has
+ * its own lobby. Games run as sharded {@link GameSessionActor}s (see {@link GameSessions}); each
+ * lobby publishes its open rooms to the cluster-wide {@link RoomDirectoryActor} and lists the
+ * other lobbies' rooms with its own. A player joining a room held elsewhere visits that room's
+ * lobby: the owning lobby seats the player's connection (wherever it is) as one of its own, and
+ * the home lobby forwards the player's room commands there until the visit ends. Quick-match
+ * queues stay per node.
  */
 public class LobbyActor extends AbstractBehavior<LobbyActor.Command> {
 
@@ -30,57 +72,229 @@ public class LobbyActor extends AbstractBehavior<LobbyActor.Command> {
 
     // ─── Command protocol ────────────────────────────────────────────────────
 
-    public sealed interface Command permits
+    public sealed interface Command extends ClusterMessage permits
             PlayerConnected,
             PlayerDisconnected,
             CreateRoom,
             JoinRoom,
             LeaveRoom,
             ListRooms,
-            StartGame {
+            StartGame,
+            ResyncPlayer,
+            QuickMatch,
+            CancelMatch,
+            MatchFound,
+            GameEnded,
+            GetFootprint,
+            SettingsChanged,
+            PublishSnapshot,
+            VisitRoom,
+            VisitEnded,
+            RoomsElsewhere,
+            Sync,
+            Traced {
     }
 
     public record PlayerConnected(
-            String playerId,
+            long playerId,
             String playerName,
-            ActorRef<PlayerConnectionActor.Command> connection
-    ) implements Command {}
+            ActorRef<PlayerConnectionActor.Command> connection,
+            String resumeToken
+    ) implements Command {
+
+        public PlayerConnected(long playerId, String playerName, ActorRef<PlayerConnectionActor.Command> connection) {
+            this(playerId, playerName, connection, null);
+        }
+    }
 
-    public record PlayerDisconnected(String playerId) implements Command {}
+    public record PlayerDisconnected(long playerId) implements Command {}
 
+    /** {@code options} is the CREATE_ROOM payload, read for {@link RoomSettings} overrides; may be {@code null}. */
     public record CreateRoom(
-            String playerId,
-            String roomName
-    ) implements Command {}
+            long playerId,
+            String roomName,
+            com.fasterxml.jackson.databind.JsonNode options
+    ) implements Command {
+
+        public CreateRoom(long playerId, String roomName) {
+            this(playerId, roomName, null);
+        }
+    }
 
     public record JoinRoom(
-            String playerId,
-            String roomId
+            long playerId,
+            long roomId
     ) implements Command {}
 
-    public record LeaveRoom(String playerId) implements Command {}
+    public record LeaveRoom(long playerId) implements Command {}
+
+    public record ListRooms(long playerId) implements Command {}
+
+    public record StartGame(long playerId) implements Command {}
+
+    /** A resumed connection missed more frames than its replay buffer held; resend lobby state. */
+    public record ResyncPlayer(long playerId) implements Command {}
 
-    public record ListRooms(String playerId) implements Command {}
+    /** Queue for a quick-match game of {@code players} seats (2–6). */
+    public record QuickMatch(long playerId, int players) implements Command {}
+
+    public record CancelMatch(long playerId) implements Command {}
+
+    /** Sent by the matchmaker: these queued players should be put in a game together. */
+    public record MatchFound(long[] playerIds) implements Command {}
+
+    /** The session running the game in {@code roomId} has stopped, or (sharded) finished. */
+    record GameEnded(long roomId, ActorRef<GameSessionActor.Command> session) implements Command {}
+
+    /** Replies with the size of every map this actor keeps, for leak checks. */
+    public record GetFootprint(ActorRef<Footprint> replyTo) implements Command {}
+
+    /**
+     * Answered on {@code replyTo} once handled, or passed on to the session of {@code playerId}'s
+     * game if it has started, so that session has also caught up.
+     */
+    public record Sync(long playerId, ActorRef<Done> replyTo) implements Command {}
+
+    public record Footprint(
+            int players,
+            int connections,
+            int rooms,
+            int playerRooms,
+            int matchQueued,
+            int roomChats,
+            int games,
+            int playerGames,
+            int children
+    ) {}
+
+    /** New runtime limits, broadcast by ServerApp when {@link org.powergrid.settings.LiveSettings} reloads. */
+    public record SettingsChanged(Limits limits) implements Command {}
+
+    private record PublishSnapshot() implements Command {}
+
+    /**
+     * From another node's lobby: seat its player in {@code roomId}, held here, on its behalf.
+     * {@code account} is the rating account the player is linked to on its own node.
+     */
+    public record VisitRoom(
+            long playerId,
+            String playerName,
+            long account,
+            ActorRef<PlayerConnectionActor.Command> connection,
+            long roomId,
+            ActorRef<Command> home
+    ) implements Command {}
 
-    public record StartGame(String playerId) implements Command {}
+    /** From the lobby holding {@code roomId}: the player left it there, or its game started. */
+    public record VisitEnded(long playerId, long roomId) implements Command {}
+
+    /** Sent by the room directory: the open rooms of every other lobby in the cluster. */
+    public record RoomsElsewhere(List<RoomDirectoryActor.Listing> rooms) implements Command {}
+
+    /** {@code command} on behalf of a message being traced with JFR; see {@link MessageTrace}. */
+    public record Traced(MessageTrace trace, Command command) implements Command {}
+
+    // Timer key
+    private record PublishTimerKey() {}
+
+    private record RunningGame(RecipientRef<GameSessionActor.Command> session, long[] playerIds) {}
+
+    /** A player of this lobby seated in {@code roomId} by the lobby of another node. */
+    private record Visit(long roomId, ActorRef<Command> lobby) {}
 
     // ─── Factory ─────────────────────────────────────────────────────────────
 
     public static Behavior<Command> create() {
-        return Behaviors.setup(LobbyActor::new);
+        return create(new SpectatorDirectory());
+    }
+
+    public static Behavior<Command> create(SpectatorDirectory spectators) {
+        return create(spectators, new AdminDirectory());
+    }
+
+    public static Behavior<Command> create(SpectatorDirectory spectators, AdminDirectory admin) {
+        return create(spectators, admin, new ChatDirectory());
+    }
+
+    public static Behavior<Command> create(SpectatorDirectory spectators, AdminDirectory admin, ChatDirectory chat) {
+        return create(spectators, admin, chat, GameArchive.disabled());
+    }
+
+    public static Behavior<Command> create(SpectatorDirectory spectators, AdminDirectory admin, ChatDirectory chat,
+                                           GameArchive archive) {
+        return create(spectators, admin, chat, archive, new RatingService());
+    }
+
+    public static Behavior<Command> create(SpectatorDirectory spectators, AdminDirectory admin, ChatDirectory chat,
+                                           GameArchive archive, RatingService ratings) {
+        return create(spectators, admin, chat, archive, ratings, TimerWheel.getInstance());
+    }
+
+    public static Behavior<Command> create(SpectatorDirectory spectators, AdminDirectory admin, ChatDirectory chat,
+                                           GameArchive archive, RatingService ratings, TimerWheel timerWheel) {
+        return create(spectators, admin, chat, archive, ratings, timerWheel, Ids::next);
+    }
+
+    /** {@code roomIds} hands out new room ids; the server records them, and a replay reuses the recorded ones. */
+    public static Behavior<Command> create(SpectatorDirectory spectators, AdminDirectory admin, ChatDirectory chat,
+                                           GameArchive archive, RatingService ratings, TimerWheel timerWheel,
+                                           LongSupplier roomIds) {
+        return Behaviors.withTimers(timers ->
+                Behaviors.setup(ctx -> new LobbyActor(ctx, timers, spectators, admin, chat, archive, ratings, timerWheel,
+                        roomIds))
+        );
     }
 
     // ─── State ───────────────────────────────────────────────────────────────
 
-    private final Map<String, Player> players = new HashMap<>();
-    private final Map<String, ActorRef<PlayerConnectionActor.Command>> connections = new HashMap<>();
-    private final Map<String, LobbyRoom> rooms = new HashMap<>();
-    private final Map<String, String> playerRooms = new HashMap<>(); // playerId → roomId
+    private final LongObjectMap<Player> players = new LongObjectMap<>();
+    private final LongObjectMap<ActorRef<PlayerConnectionActor.Command>> connections = new LongObjectMap<>();
+    private final LongObjectMap<RoomState> rooms = new LongObjectMap<>();
+    private final LongLongMap playerRooms = new LongLongMap(); // playerId → roomId
+    private final LongLongMap matchQueued = new LongLongMap(); // playerId → requested game size
+    private final LongObjectMap<ChatChannel> roomChats = new LongObjectMap<>(); // roomId → chat, until the game starts
+    private final LongObjectMap<RunningGame> games = new LongObjectMap<>(); // roomId → session, while it runs
+    private final LongLongMap playerGames = new LongLongMap(); // playerId → roomId of its running game
+    private final LongObjectMap<Visit> visiting = new LongObjectMap<>(); // playerId → room elsewhere it is in
+    private final LongObjectMap<ActorRef<Command>> visitors = new LongObjectMap<>(); // playerId → its home lobby
+    private List<RoomDirectoryActor.Listing> remoteRooms = List.of();
+    private final AdminDirectory admin;
+    private final ChatDirectory chat;
+    private final RatingService ratings;
+    private final LongSupplier roomIds;
+    private final GameSessions sessions;
+    private final ActorRef<RoomDirectoryActor.Command> directory; // null unless clustered
+    private Limits limits;
+    private RoomSettings defaultSettings; // for new rooms and quick matches; follows limits.timeouts()
+    private final ActorRef<MatchmakerActor.Command> matchmaker;
+    private boolean dirty = true; // lobby changed since the last admin snapshot
+    private MessageTrace trace = MessageTrace.NONE; // message being handled, for JFR events
 
     // ─── Constructor ─────────────────────────────────────────────────────────
 
-    private LobbyActor(ActorContext<Command> context) {
+    private LobbyActor(ActorContext<Command> context, TimerScheduler<Command> timers,
+                       SpectatorDirectory spectators, AdminDirectory admin, ChatDirectory chat, GameArchive archive,
+                       RatingService ratings, TimerWheel timerWheel, LongSupplier roomIds) {
         super(context);
+        this.admin = admin;
+        this.chat = chat;
+        this.ratings = ratings;
+        this.roomIds = roomIds;
+        var config = context.getSystem().settings().config();
+        this.limits = Limits.fromConfig(config);
+        this.defaultSettings = new RoomSettings(limits.timeouts(), false);
+        this.matchmaker = context.spawn(MatchmakerActor.create(context.getSelf()), "matchmaker");
+        var services = new GameSessionActor.Services(spectators, admin, chat, archive, ratings, timerWheel);
+        if ("cluster".equals(config.getString("pekko.actor.provider"))) {
+            this.sessions = GameSessions.sharded(context, services);
+            this.directory = context.spawn(RoomDirectoryActor.create(context.getSelf()), "room-directory");
+            chat.relay(context.spawn(ChatRelayActor.create(chat), "chat-relay"));
+            context.spawn(NodeIdGuardActor.create(), "node-id-guard");
+        } else {
+            this.sessions = GameSessions.local(context, services);
+            this.directory = null;
+        }
+        timers.startTimerAtFixedRate(new PublishTimerKey(), new PublishSnapshot(), AdminDirectory.LOBBY_PUBLISH_INTERVAL);
     }
 
     // ─── Message dispatch ────────────────────────────────────────────────────
@@ -95,98 +309,153 @@ public class LobbyActor extends AbstractBehavior<LobbyActor.Command> {
                 .onMessage(LeaveRoom.class, this::onLeaveRoom)
                 .onMessage(ListRooms.class, this::onListRooms)
                 .onMessage(StartGame.class, this::onStartGame)
+                .onMessage(ResyncPlayer.class, this::onResyncPlayer)
+                .onMessage(QuickMatch.class, this::onQuickMatch)
+                .onMessage(CancelMatch.class, this::onCancelMatch)
+                .onMessage(MatchFound.class, this::onMatchFound)
+                .onMessage(GameEnded.class, this::onGameEnded)
+                .onMessage(GetFootprint.class, this::onGetFootprint)
+                .onMessage(SettingsChanged.class, this::onSettingsChanged)
+                .onMessage(PublishSnapshot.class, this::onPublishSnapshot)
+                .onMessage(VisitRoom.class, this::onVisitRoom)
+                .onMessage(VisitEnded.class, this::onVisitEnded)
+                .onMessage(RoomsElsewhere.class, this::onRoomsElsewhere)
+                .onMessage(Sync.class, this::onSync)
+                .onMessage(Traced.class, this::onTraced)
                 .build();
     }
 
     // ─── Handlers ────────────────────────────────────────────────────────────
 
     private Behavior<Command> onPlayerConnected(PlayerConnected cmd) {
-        log.info("Player connected: {} ({})", cmd.playerName(), cmd.playerId());
+        dirty = true;
+        log.debug("Player connected: {} ({})", cmd.playerName(), Ids.format(cmd.playerId()));
         players.put(cmd.playerId(), new Player(cmd.playerId(), cmd.playerName()));
         connections.put(cmd.playerId(), cmd.connection());
+        getContext().watchWith(cmd.connection(), new PlayerDisconnected(cmd.playerId()));
 
         var payload = JsonMapper.getInstance().createObjectNode()
-                .put("playerId", cmd.playerId());
+                .put("playerId", Ids.format(cmd.playerId()))
+                .put("ratingId", Ids.format(ratings.account(cmd.playerId())));
+        if (cmd.resumeToken() != null) {
+            payload.put("resumeToken", cmd.resumeToken());
+        }
         send(cmd.playerId(), MessageType.WELCOME, payload);
         return Behaviors.same();
     }
 
     private Behavior<Command> onPlayerDisconnected(PlayerDisconnected cmd) {
-        log.info("Player disconnected: {}", cmd.playerId());
+        dirty = true;
+        log.debug("Player disconnected: {}", Ids.format(cmd.playerId()));
+        leaveMatchQueue(cmd.playerId());
         leaveCurrentRoom(cmd.playerId());
         players.remove(cmd.playerId());
         connections.remove(cmd.playerId());
+        if (visitors.remove(cmd.playerId()) != null) {
+            ratings.unlink(cmd.playerId());
+        }
         return Behaviors.same();
     }
 
     private Behavior<Command> onCreateRoom(CreateRoom cmd) {
-        String roomId = UUID.randomUUID().toString();
-        String playerId = cmd.playerId();
+        dirty = true;
+        long roomId = roomIds.getAsLong();
+        long playerId = cmd.playerId();
         Player player = players.get(playerId);
         if (player == null) {
             sendError(playerId, "NOT_CONNECTED", "Player not registered.");
             return Behaviors.same();
         }
 
+        RoomSettings settings = defaultSettings.withOverrides(cmd.options());
+        if (!MapLibrary.getInstance().has(settings.map())) {
+            sendError(playerId, "UNKNOWN_MAP", "No such map: " + settings.map());
+            return Behaviors.same();
+        }
+
+        leaveMatchQueue(playerId);
         leaveCurrentRoom(playerId);
 
-        LobbyRoom room = new LobbyRoom(roomId, cmd.roomName(), playerId, new ArrayList<>(List.of(playerId)));
+        RoomState room = new RoomState(roomId, cmd.roomName(), playerId, settings);
         rooms.put(roomId, room);
         playerRooms.put(playerId, roomId);
+        ChatChannel roomChat = chat.open(roomId);
+        roomChats.put(roomId, roomChat);
+        joinChat(roomChat, playerId);
 
-        log.info("Room created: {} by {}", roomId, playerId);
+        log.info("Room created: {} by {}", Ids.format(roomId), Ids.format(playerId));
 
         var payload = JsonMapper.getInstance().createObjectNode()
-                .put("roomId", roomId)
+                .put("roomId", Ids.format(roomId))
                 .put("roomName", room.name());
         send(playerId, MessageType.ROOM_JOINED, payload);
         return Behaviors.same();
     }
 
     private Behavior<Command> onJoinRoom(JoinRoom cmd) {
-        String playerId = cmd.playerId();
-        LobbyRoom room = rooms.get(cmd.roomId());
+        dirty = true;
+        RoomDirectoryActor.Listing elsewhere = rooms.containsKey(cmd.roomId()) ? null : remoteRoom(cmd.roomId());
+        if (elsewhere != null) {
+            visit(cmd.playerId(), elsewhere);
+        } else {
+            joinRoom(cmd.playerId(), cmd.roomId());
+        }
+        return Behaviors.same();
+    }
+
+    /** Seats the player in a room held here; returns {@code false}, having told the player why, if it cannot. */
+    private boolean joinRoom(long playerId, long roomId) {
+        RoomState room = rooms.get(roomId);
         if (room == null) {
             sendError(playerId, "ROOM_NOT_FOUND", "Room does not exist.");
-            return Behaviors.same();
+            return false;
         }
-        if (room.playerIds().size() >= 6) {
+        if (room.size() >= limits.maxRoomPlayers()) {
             sendError(playerId, "ROOM_FULL", "Room is full.");
-            return Behaviors.same();
+            return false;
         }
 
+        leaveMatchQueue(playerId);
         leaveCurrentRoom(playerId);
 
-        List<String> updated = new ArrayList<>(room.playerIds());
-        updated.add(playerId);
-        LobbyRoom updatedRoom = new LobbyRoom(room.id(), room.name(), room.hostId(), updated);
-        rooms.put(room.id(), updatedRoom);
+        room.add(playerId);
         playerRooms.put(playerId, room.id());
 
-        log.info("Player {} joined room {}", playerId, room.id());
+        log.info("Player {} joined room {}", Ids.format(playerId), Ids.format(room.id()));
 
         var joinPayload = JsonMapper.getInstance().createObjectNode()
-                .put("roomId", room.id())
+                .put("roomId", Ids.format(room.id()))
                 .put("roomName", room.name());
         send(playerId, MessageType.ROOM_JOINED, joinPayload);
+        joinChat(roomChats.get(room.id()), playerId); // recent chat follows ROOM_JOINED
 
-        broadcastRoomUpdate(updatedRoom);
-        return Behaviors.same();
+        broadcastRoomUpdate(room);
+        return true;
     }
 
     private Behavior<Command> onLeaveRoom(LeaveRoom cmd) {
+        dirty = true;
         leaveCurrentRoom(cmd.playerId());
+        forgetVisitor(cmd.playerId()); // its home lobby sent this and already knows
         return Behaviors.same();
     }
 
     private Behavior<Command> onListRooms(ListRooms cmd) {
         var array = JsonMapper.getInstance().createArrayNode();
-        for (LobbyRoom r : rooms.values()) {
+        rooms.forEachValue(r -> {
+            LobbyRoom room = r.snapshot();
             array.addObject()
-                    .put("roomId", r.id())
-                    .put("roomName", r.name())
-                    .put("playerCount", r.playerIds().size())
-                    .put("hostId", r.hostId());
+                    .put("roomId", Ids.format(room.id()))
+                    .put("roomName", room.name())
+                    .put("playerCount", room.playerIds().length)
+                    .put("hostId", Ids.format(room.hostId()));
+        });
+        for (RoomDirectoryActor.Listing room : remoteRooms) {
+            array.addObject()
+                    .put("roomId", Ids.format(room.roomId()))
+                    .put("roomName", room.roomName())
+                    .put("playerCount", room.playerCount())
+                    .put("hostId", Ids.format(room.hostId()));
         }
         var payload = JsonMapper.getInstance().createObjectNode().set("rooms", array);
         send(cmd.playerId(), MessageType.ROOM_LIST, payload);
@@ -194,103 +463,381 @@ public class LobbyActor extends AbstractBehavior<LobbyActor.Command> {
     }
 
     private Behavior<Command> onStartGame(StartGame cmd) {
-        String playerId = cmd.playerId();
-        String roomId = playerRooms.get(playerId);
-        if (roomId == null) {
+        dirty = true;
+        long playerId = cmd.playerId();
+        Visit visit = visiting.get(playerId);
+        if (visit != null) {
+            visit.lobby().tell(cmd);
+            return Behaviors.same();
+        }
+        long roomId = playerRooms.get(playerId);
+        if (roomId == Ids.NONE) {
             sendError(playerId, "NOT_IN_ROOM", "You are not in a room.");
             return Behaviors.same();
         }
-        LobbyRoom room = rooms.get(roomId);
-        if (room == null || !room.hostId().equals(playerId)) {
+        RoomState state = rooms.get(roomId);
+        if (state == null || state.hostId() != playerId) {
             sendError(playerId, "NOT_HOST", "Only the host can start the game.");
             return Behaviors.same();
         }
-        if (room.playerIds().size() < 2) {
+        LobbyRoom room = state.snapshot();
+        if (room.playerIds().length < 2) {
             sendError(playerId, "NOT_ENOUGH_PLAYERS", "Need at least 2 players to start.");
             return Behaviors.same();
         }
 
-        log.info("Starting game in room {}", roomId);
+        log.info("Starting game in room {}", Ids.format(roomId));
 
-        // Spawn game session actor
-        ActorRef<GameSessionActor.Command> session = getContext().spawn(
-                GameSessionActor.create(roomId, room.playerIds(), getContext().getSelf()),
-                "room-" + roomId
-        );
+        // Remove room from lobby (game is now active); its chat carries on into the game
+        rooms.remove(roomId);
+        for (long pid : room.playerIds()) {
+            playerRooms.remove(pid);
+        }
+
+        // Timeouts are rebuilt in case the server-wide ones changed while the room waited
+        startSession(roomId, room.playerIds(), state.settings().withServerTimeouts(limits.timeouts()),
+                roomChats.remove(roomId));
+        for (long pid : room.playerIds()) {
+            ActorRef<Command> home = forgetVisitor(pid); // seated in the game now; nothing left to forward
+            if (home != null) {
+                home.tell(new VisitEnded(pid, roomId));
+            }
+        }
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onQuickMatch(QuickMatch cmd) {
+        dirty = true;
+        long playerId = cmd.playerId();
+        if (!players.containsKey(playerId)) {
+            sendError(playerId, "NOT_CONNECTED", "Player not registered.");
+            return Behaviors.same();
+        }
+        if (!MatchQueue.isValidSize(cmd.players()) || cmd.players() > limits.maxRoomPlayers()) {
+            sendError(playerId, "INVALID_MATCH_SIZE", "Quick match needs " + MatchQueue.MIN_PLAYERS + " to "
+                    + Math.min(MatchQueue.MAX_PLAYERS, limits.maxRoomPlayers()) + " players.");
+            return Behaviors.same();
+        }
+
+        leaveCurrentRoom(playerId);
+        matchQueued.put(playerId, cmd.players());
+        matchmaker.tell(new MatchmakerActor.Enqueue(playerId, cmd.players(), ratings.rating(playerId)));
 
-        // Notify all players
         var payload = JsonMapper.getInstance().createObjectNode()
-                .put("roomId", roomId);
-        for (String pid : room.playerIds()) {
-            send(pid, MessageType.GAME_STARTING, payload);
+                .put("players", cmd.players());
+        send(playerId, MessageType.MATCH_QUEUED, payload);
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onCancelMatch(CancelMatch cmd) {
+        dirty = true;
+        if (leaveMatchQueue(cmd.playerId())) {
+            send(cmd.playerId(), MessageType.MATCH_CANCELLED, JsonMapper.getInstance().createObjectNode());
         }
+        return Behaviors.same();
+    }
 
-        // Remove room from lobby (game is now active)
-        rooms.remove(roomId);
-        for (String pid : room.playerIds()) {
-            playerRooms.remove(pid);
+    private Behavior<Command> onMatchFound(MatchFound cmd) {
+        dirty = true;
+        // Anyone who cancelled, disconnected or joined a room since the tick has already left the
+        // queue here; the rest go back in line if the game can no longer be formed.
+        long[] ready = new long[cmd.playerIds().length];
+        int n = 0;
+        for (long pid : cmd.playerIds()) {
+            if (matchQueued.get(pid) == cmd.playerIds().length) {
+                ready[n++] = pid;
+            }
         }
+        if (n < cmd.playerIds().length) {
+            for (int i = 0; i < n; i++) {
+                matchmaker.tell(new MatchmakerActor.Enqueue(ready[i], cmd.playerIds().length, ratings.rating(ready[i])));
+            }
+            return Behaviors.same();
+        }
+
+        for (long pid : ready) {
+            matchQueued.remove(pid);
+        }
+        long roomId = roomIds.getAsLong();
+        log.info("Quick match formed room {} with {} players", Ids.format(roomId), ready.length);
+        ChatChannel gameChat = chat.open(roomId);
+        for (long pid : ready) {
+            joinChat(gameChat, pid);
+        }
+        startSession(roomId, ready, defaultSettings, gameChat);
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onGameEnded(GameEnded cmd) {
+        dirty = true;
+        RunningGame game = games.remove(cmd.roomId());
+        log.info("Game in room {} finished", Ids.format(cmd.roomId()));
+        if (game == null) return Behaviors.same();
+        for (long pid : game.playerIds()) {
+            playerGames.remove(pid);
+            ActorRef<PlayerConnectionActor.Command> conn = connections.get(pid);
+            if (conn != null) {
+                conn.tell(new PlayerConnectionActor.GameFinished(cmd.session()));
+            }
+        }
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onGetFootprint(GetFootprint cmd) {
+        cmd.replyTo().tell(new Footprint(players.size(), connections.size(), rooms.size(), playerRooms.size(),
+                matchQueued.size(), roomChats.size(), games.size(), playerGames.size(), getContext().getChildren().size()));
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onSync(Sync cmd) {
+        RunningGame game = games.get(playerGames.get(cmd.playerId()));
+        if (game != null) {
+            game.session().tell(new GameSessionActor.Sync(cmd.replyTo()));
+        } else {
+            cmd.replyTo().tell(Done.getInstance());
+        }
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onSettingsChanged(SettingsChanged cmd) {
+        limits = cmd.limits();
+        defaultSettings = defaultSettings.withServerTimeouts(limits.timeouts());
+        var changed = new GameSessionActor.TimeoutsChanged(limits.timeouts());
+        games.forEachValue(game -> game.session().tell(changed));
+        log.info("Limits changed: max {} players per room; passed on to {} running games",
+                limits.maxRoomPlayers(), games.size());
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onResyncPlayer(ResyncPlayer cmd) {
+        Visit visit = visiting.get(cmd.playerId());
+        if (visit != null) {
+            visit.lobby().tell(cmd);
+            return Behaviors.same();
+        }
+        RoomState room = rooms.get(playerRooms.get(cmd.playerId()));
+        if (room == null) {
+            return onListRooms(new ListRooms(cmd.playerId()));
+        }
+        var joinPayload = JsonMapper.getInstance().createObjectNode()
+                .put("roomId", Ids.format(room.id()))
+                .put("roomName", room.name());
+        send(cmd.playerId(), MessageType.ROOM_JOINED, joinPayload);
+        send(cmd.playerId(), MessageType.ROOM_UPDATED, roomUpdatePayload(room));
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onPublishSnapshot(PublishSnapshot cmd) {
+        if (!dirty) return Behaviors.same();
+        dirty = false;
+
+        List<LobbyRoom> roomList = new ArrayList<>(rooms.size());
+        rooms.forEachValue(room -> roomList.add(room.snapshot()));
+        List<LobbySnapshot.PlayerEntry> playerList = new ArrayList<>(players.size());
+        players.forEachValue(p -> playerList.add(new LobbySnapshot.PlayerEntry(
+                p.id(), p.name(), playerRooms.get(p.id()), matchQueued.get(p.id()) != Ids.NONE)));
+        admin.publishLobby(new LobbySnapshot(System.currentTimeMillis(),
+                Collections.unmodifiableList(roomList), Collections.unmodifiableList(playerList)));
+        if (directory != null) {
+            List<RoomDirectoryActor.Listing> listings = new ArrayList<>(roomList.size());
+            for (LobbyRoom room : roomList) {
+                listings.add(new RoomDirectoryActor.Listing(room.id(), room.name(), room.playerIds().length,
+                        room.hostId(), getContext().getSelf()));
+            }
+            directory.tell(new RoomDirectoryActor.Publish(listings));
+        }
+        return Behaviors.same();
+    }
+
+    /** A player of another node's lobby joins a room held here; it is served as one of this lobby's own. */
+    private Behavior<Command> onVisitRoom(VisitRoom cmd) {
+        dirty = true;
+        long playerId = cmd.playerId();
+        players.put(playerId, new Player(playerId, cmd.playerName()));
+        connections.put(playerId, cmd.connection());
+        visitors.put(playerId, cmd.home());
+        ratings.link(playerId, cmd.account());
+        getContext().watchWith(cmd.connection(), new PlayerDisconnected(playerId));
+        if (!joinRoom(playerId, cmd.roomId())) {
+            forgetVisitor(playerId).tell(new VisitEnded(playerId, cmd.roomId()));
+        }
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onVisitEnded(VisitEnded cmd) {
+        Visit visit = visiting.get(cmd.playerId());
+        if (visit != null && visit.roomId() == cmd.roomId()) {
+            visiting.remove(cmd.playerId());
+        }
+        return Behaviors.same();
+    }
 
+    private Behavior<Command> onRoomsElsewhere(RoomsElsewhere cmd) {
+        remoteRooms = List.copyOf(cmd.rooms());
         return Behaviors.same();
     }
 
+    /** Runs the wrapped command's handler as usual, recording it and the replies it sends. */
+    private Behavior<Command> onTraced(Traced cmd) throws Exception {
+        MessageHandledEvent handled = new MessageHandledEvent();
+        handled.start(cmd.trace());
+        trace = cmd.trace();
+        try {
+            return receive(getContext(), cmd.command());
+        } finally {
+            trace = MessageTrace.NONE;
+            handled.finish(cmd.trace(), "lobby");
+        }
+    }
+
     // ─── Helpers ─────────────────────────────────────────────────────────────
 
-    private void leaveCurrentRoom(String playerId) {
-        String roomId = playerRooms.remove(playerId);
-        if (roomId == null) return;
+    /**
+     * Picks the game's regions on its (shared) board and notifies all players, then starts a
+     * session that takes over their connections and chat; the lobby hears {@code GameEnded} when it
+     * is over.
+     */
+    private void startSession(long roomId, long[] playerIds, RoomSettings settings, ChatChannel gameChat) {
+        RegionSelection regions = RegionSelection.random(
+                MapLibrary.getInstance().get(settings.map()), playerIds.length, ThreadLocalRandom.current());
+
+        // Notify all players before the session starts broadcasting
+        var payload = JsonMapper.getInstance().createObjectNode()
+                .put("roomId", Ids.format(roomId))
+                .put("map", settings.map());
+        var regionNames = payload.putArray("regions");
+        regions.regionNames().forEach(regionNames::add);
+        for (long pid : playerIds) {
+            send(pid, MessageType.GAME_STARTING, payload);
+        }
+
+        List<GameSessionActor.Member> members = new ArrayList<>(playerIds.length);
+        for (long pid : playerIds) {
+            Player player = players.get(pid);
+            members.add(new GameSessionActor.Member(pid, player != null ? player.name() : null, ratings.account(pid),
+                    connections.get(pid)));
+        }
+        games.put(roomId, new RunningGame(sessions.start(roomId, members, settings, regions, gameChat), playerIds));
+        for (long pid : playerIds) {
+            playerGames.put(pid, roomId);
+        }
+    }
 
-        LobbyRoom room = rooms.get(roomId);
+    private RoomDirectoryActor.Listing remoteRoom(long roomId) {
+        for (RoomDirectoryActor.Listing room : remoteRooms) {
+            if (room.roomId() == roomId) return room;
+        }
+        return null;
+    }
+
+    /** Hands the player to the lobby holding a room on another node; that lobby answers it directly. */
+    private void visit(long playerId, RoomDirectoryActor.Listing room) {
+        Player player = players.get(playerId);
+        ActorRef<PlayerConnectionActor.Command> conn = connections.get(playerId);
+        if (player == null || conn == null) return;
+        leaveMatchQueue(playerId);
+        leaveCurrentRoom(playerId);
+        visiting.put(playerId, new Visit(room.roomId(), room.lobby()));
+        room.lobby().tell(new VisitRoom(playerId, player.name(), ratings.account(playerId), conn, room.roomId(),
+                getContext().getSelf()));
+    }
+
+    /** Drops a visitor from another node's lobby, once out of its room; returns its home lobby, or {@code null}. */
+    private ActorRef<Command> forgetVisitor(long playerId) {
+        ActorRef<Command> home = visitors.remove(playerId);
+        if (home == null) return null;
+        ratings.unlink(playerId);
+        players.remove(playerId);
+        ActorRef<PlayerConnectionActor.Command> conn = connections.remove(playerId);
+        if (conn != null) {
+            getContext().unwatch(conn);
+        }
+        return home;
+    }
+
+    private void joinChat(ChatChannel channel, long playerId) {
+        Player player = players.get(playerId);
+        ActorRef<PlayerConnectionActor.Command> conn = connections.get(playerId);
+        if (player != null && conn != null) {
+            channel.join(playerId, player.name(), conn);
+        }
+    }
+
+    /** Returns {@code true} if the player was waiting for a quick match. */
+    private boolean leaveMatchQueue(long playerId) {
+        if (matchQueued.remove(playerId) == Ids.NONE) return false;
+        matchmaker.tell(new MatchmakerActor.Cancel(playerId));
+        return true;
+    }
+
+    private void leaveCurrentRoom(long playerId) {
+        Visit visit = visiting.remove(playerId);
+        if (visit != null) {
+            visit.lobby().tell(new LeaveRoom(playerId));
+            return;
+        }
+        long roomId = playerRooms.remove(playerId);
+        if (roomId == Ids.NONE) return;
+
+        RoomState room = rooms.get(roomId);
         if (room == null) return;
 
-        List<String> remaining = new ArrayList<>(room.playerIds());
-        remaining.remove(playerId);
+        room.remove(playerId);
+        ChatChannel roomChat = roomChats.get(roomId);
+        roomChat.leave(playerId);
 
-        if (remaining.isEmpty()) {
+        if (room.isEmpty()) {
             rooms.remove(roomId);
-            log.info("Room {} removed (empty)", roomId);
+            roomChats.remove(roomId);
+            roomChat.close();
+            log.info("Room {} removed (empty)", Ids.format(roomId));
         } else {
-            String newHost = room.hostId().equals(playerId) ? remaining.get(0) : room.hostId();
-            LobbyRoom updated = new LobbyRoom(roomId, room.name(), newHost, remaining);
-            rooms.put(roomId, updated);
-            broadcastRoomUpdate(updated);
+            broadcastRoomUpdate(room);
+        }
+    }
+
+    private void broadcastRoomUpdate(RoomState state) {
+        LobbyRoom room = state.snapshot();
+        var payload = roomUpdatePayload(state);
+        for (long pid : room.playerIds()) {
+            send(pid, MessageType.ROOM_UPDATED, payload);
         }
     }
 
-    private void broadcastRoomUpdate(LobbyRoom room) {
+    private com.fasterxml.jackson.databind.JsonNode roomUpdatePayload(RoomState state) {
+        LobbyRoom room = state.snapshot();
         var array = JsonMapper.getInstance().createArrayNode();
-        for (String pid : room.playerIds()) {
+        for (long pid : room.playerIds()) {
             Player p = players.get(pid);
             if (p != null) {
                 array.addObject()
-                        .put("playerId", pid)
+                        .put("playerId", Ids.format(pid))
                         .put("playerName", p.name());
             }
         }
-        var payload = JsonMapper.getInstance().createObjectNode()
-                .put("roomId", room.id())
+        return JsonMapper.getInstance().createObjectNode()
+                .put("roomId", Ids.format(room.id()))
                 .put("roomName", room.name())
-                .put("hostId", room.hostId())
+                .put("hostId", Ids.format(room.hostId()))
                 .set("players", array);
-
-        for (String pid : room.playerIds()) {
-            send(pid, MessageType.ROOM_UPDATED, payload);
-        }
     }
 
-    private void send(String playerId, MessageType type, com.fasterxml.jackson.databind.JsonNode payload) {
+    private void send(long playerId, MessageType type, com.fasterxml.jackson.databind.JsonNode payload) {
         ActorRef<PlayerConnectionActor.Command> conn = connections.get(playerId);
         if (conn == null) return;
+        FrameSerializedEvent serialized = new FrameSerializedEvent();
+        serialized.begin();
         try {
             OutboundMessage msg = new OutboundMessage(type, payload);
             String json = JsonMapper.getInstance().writeValueAsString(msg);
-            conn.tell(new PlayerConnectionActor.SendText(json));
+            conn.tell(new PlayerConnectionActor.SendText(json, trace));
+            serialized.finish(trace, type.name(), json.length(), 1);
         } catch (Exception e) {
-            log.error("Failed to serialize message {} for player {}", type, playerId, e);
+            log.error("Failed to serialize message {} for player {}", type, Ids.format(playerId), e);
         }
     }
 
-    private void sendError(String playerId, String code, String message) {
+    private void sendError(long playerId, String code, String message) {
         var payload = JsonMapper.getInstance().createObjectNode()
                 .put("code", code)
                 .put("message", message);
@@ -0,0 +1,113 @@
+package org.powergrid.actor;
+
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
+import org.apache.pekko.actor.typed.javadsl.ActorContext;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.apache.pekko.actor.typed.javadsl.Receive;
+import org.apache.pekko.actor.typed.javadsl.TimerScheduler;
+import org.powergrid.matchmaking.MatchQueue;
+import org.powergrid.util.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Quick-match service. Holds the {@link MatchQueue} and, once per {@link #TICK}, forms every game
+ * it can and hands each one to the lobby as {@link LobbyActor.MatchFound}.
+ * Spawned by LobbyActor as its child; players reach it through the lobby.
+ */
+public class MatchmakerActor extends AbstractBehavior<MatchmakerActor.Command> {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchmakerActor.class);
+
+    static final Duration TICK = Duration.ofMillis(250);
+
+    private static final LongAdder MATCHES = Metrics.getInstance().counter(
+            "powergrid_matchmaking_matches_total", "Games formed by quick match");
+
+    // ─── Command protocol ────────────────────────────────────────────────────
+
+    public sealed interface Command permits
+            Enqueue,
+            Cancel,
+            Tick {
+    }
+
+    public record Enqueue(long playerId, int players, int rating) implements Command {}
+
+    public record Cancel(long playerId) implements Command {}
+
+    private record Tick() implements Command {}
+
+    // Timer key
+    private record TickTimerKey() {}
+
+    // ─── Factory ─────────────────────────────────────────────────────────────
+
+    public static Behavior<Command> create(ActorRef<LobbyActor.Command> lobby) {
+        return Behaviors.withTimers(timers ->
+                Behaviors.setup(ctx -> new MatchmakerActor(ctx, timers, lobby))
+        );
+    }
+
+    // ─── State ───────────────────────────────────────────────────────────────
+
+    private final ActorRef<LobbyActor.Command> lobby;
+    private final MatchQueue queue = new MatchQueue();
+    private volatile int queued;          // read by the metrics endpoint
+    private volatile long lastTickMicros; // read by the metrics endpoint
+
+    // ─── Constructor ─────────────────────────────────────────────────────────
+
+    private MatchmakerActor(ActorContext<Command> context, TimerScheduler<Command> timers, ActorRef<LobbyActor.Command> lobby) {
+        super(context);
+        this.lobby = lobby;
+        timers.startTimerWithFixedDelay(new TickTimerKey(), new Tick(), TICK);
+
+        Metrics metrics = Metrics.getInstance();
+        metrics.gauge("powergrid_matchmaking_queued", "Players waiting for a quick match", () -> queued);
+        metrics.gauge("powergrid_matchmaking_tick_micros", "Duration of the last matchmaking tick", () -> lastTickMicros);
+    }
+
+    // ─── Message dispatch ────────────────────────────────────────────────────
+
+    @Override
+    public Receive<Command> createReceive() {
+        return newReceiveBuilder()
+                .onMessage(Enqueue.class, this::onEnqueue)
+                .onMessage(Cancel.class, this::onCancel)
+                .onMessage(Tick.class, this::onTick)
+                .build();
+    }
+
+    // ─── Handlers ────────────────────────────────────────────────────────────
+
+    private Behavior<Command> onEnqueue(Enqueue cmd) {
+        queue.enqueue(cmd.playerId(), cmd.players(), cmd.rating(), System.currentTimeMillis());
+        queued = queue.size();
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onCancel(Cancel cmd) {
+        queue.cancel(cmd.playerId());
+        queued = queue.size();
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onTick(Tick cmd) {
+        long start = System.nanoTime();
+        int made = queue.match(System.currentTimeMillis(), players -> lobby.tell(new LobbyActor.MatchFound(players)));
+        lastTickMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        queued = queue.size();
+        if (made > 0) {
+            MATCHES.add(made);
+            log.info("Matchmaking formed {} games in {}µs ({} still queued)", made, lastTickMicros, queued);
+        }
+        return Behaviors.same();
+    }
+}
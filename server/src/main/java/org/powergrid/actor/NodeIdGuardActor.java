@@ -0,0 +1,98 @@
+package org.powergrid.actor;
+
+import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
+import org.apache.pekko.actor.typed.javadsl.ActorContext;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.apache.pekko.actor.typed.javadsl.Receive;
+import org.apache.pekko.cluster.ClusterEvent;
+import org.apache.pekko.cluster.Member;
+import org.apache.pekko.cluster.typed.Cluster;
+import org.apache.pekko.cluster.typed.Subscribe;
+import org.powergrid.util.Ids;
+
+import java.util.Set;
+
+/**
+ * Keeps node ids unique across the cluster, since the node id is what keeps room and player ids
+ * from colliding ({@link Ids}). A node advertises a configured {@code powergrid.cluster.node-id} as
+ * the role {@code ids-<n>}; one without it uses the low bits of its incarnation uid, which another
+ * node shares once in 65536 pairs. When two members come up with the same node id the younger one
+ * logs the clash and terminates its actor system, so at most one of them ever serves players.
+ * One per node, spawned by LobbyActor when clustered.
+ */
+public class NodeIdGuardActor extends AbstractBehavior<NodeIdGuardActor.Command> {
+
+    /** Role prefix carrying a configured node id, e.g. {@code ids-3}. */
+    public static final String ROLE_PREFIX = "ids-";
+
+    // ─── Command protocol ────────────────────────────────────────────────────
+
+    public sealed interface Command permits
+            NodeUp {
+    }
+
+    private record NodeUp(Member member) implements Command {
+        NodeUp(ClusterEvent.MemberUp event) {
+            this(event.member());
+        }
+    }
+
+    // ─── Factory ─────────────────────────────────────────────────────────────
+
+    public static Behavior<Command> create() {
+        return Behaviors.setup(NodeIdGuardActor::new);
+    }
+
+    /** The node id {@code member} stamps into its ids. */
+    public static long nodeIdOf(Member member) {
+        return nodeId(member.getRoles(), member.uniqueAddress().longUid());
+    }
+
+    /** The node id named by an {@code ids-<n>} role, else the low bits of {@code uid}. */
+    static long nodeId(Set<String> roles, long uid) {
+        for (String role : roles) {
+            if (role.startsWith(ROLE_PREFIX)) return Long.parseLong(role.substring(ROLE_PREFIX.length()));
+        }
+        return uid & Ids.MAX_NODE;
+    }
+
+    // ─── State ───────────────────────────────────────────────────────────────
+
+    private final Cluster cluster;
+
+    // ─── Constructor ─────────────────────────────────────────────────────────
+
+    private NodeIdGuardActor(ActorContext<Command> context) {
+        super(context);
+        this.cluster = Cluster.get(context.getSystem());
+        // Members already up arrive as events too, so a joining node checks all of them.
+        cluster.subscriptions().tell(Subscribe.create(
+                context.messageAdapter(ClusterEvent.MemberUp.class, NodeUp::new), ClusterEvent.MemberUp.class));
+    }
+
+    // ─── Message dispatch ────────────────────────────────────────────────────
+
+    @Override
+    public Receive<Command> createReceive() {
+        return newReceiveBuilder()
+                .onMessage(NodeUp.class, this::onNodeUp)
+                .build();
+    }
+
+    // ─── Handlers ────────────────────────────────────────────────────────────
+
+    private Behavior<Command> onNodeUp(NodeUp msg) {
+        Member self = cluster.selfMember();
+        Member other = msg.member();
+        long nodeId = nodeIdOf(self);
+        if (other.uniqueAddress().equals(self.uniqueAddress()) || nodeIdOf(other) != nodeId
+                || self.isOlderThan(other)) {
+            return Behaviors.same();
+        }
+        getContext().getLog().error("Node id {} is already used by {}; set a unique powergrid.cluster.node-id. "
+                + "Shutting down", nodeId, other.address());
+        getContext().getSystem().terminate();
+        return Behaviors.stopped();
+    }
+}
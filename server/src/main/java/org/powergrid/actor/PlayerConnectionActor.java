@@ -1,79 +1,256 @@
 package org.powergrid.actor;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.pekko.Done;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.Behavior;
 import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.PostStop;
 import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
 import org.apache.pekko.actor.typed.javadsl.ActorContext;
 import org.apache.pekko.actor.typed.javadsl.Behaviors;
 import org.apache.pekko.actor.typed.javadsl.Receive;
+import org.apache.pekko.actor.typed.javadsl.TimerScheduler;
+import org.apache.pekko.http.javadsl.model.ws.BinaryMessage;
 import org.apache.pekko.http.javadsl.model.ws.Message;
 import org.apache.pekko.http.javadsl.model.ws.TextMessage;
 import org.apache.pekko.stream.javadsl.SourceQueueWithComplete;
+import org.apache.pekko.util.ByteString;
+import org.powergrid.chat.ChatChannel;
+import org.powergrid.chat.ChatDirectory;
+import org.powergrid.chat.ChatRateLimiter;
+import org.powergrid.cluster.ClusterMessage;
+import org.powergrid.protocol.FrameCompressor;
 import org.powergrid.protocol.InboundMessage;
 import org.powergrid.protocol.MessageType;
 import org.powergrid.protocol.OutboundMessage;
+import org.powergrid.rating.RatingService;
+import org.powergrid.replay.CommandRecorder;
+import org.powergrid.trace.FrameOfferedEvent;
+import org.powergrid.trace.MessageParsedEvent;
+import org.powergrid.trace.MessageTrace;
+import org.powergrid.util.Ids;
 import org.powergrid.util.JsonMapper;
+import org.powergrid.util.Metrics;
+import org.powergrid.util.ReplayBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Bridges a single WebSocket connection into the actor hierarchy.
  *
  * Lifecycle (managed by ServerApp):
- * 1. ServerApp pre-materializes a {@code SourceQueueWithComplete<Message>} for outbound messages.
- * 2. ServerApp spawns a {@code PlayerConnectionActor} with that queue.
+ * 1. ServerApp spawns a {@code PlayerConnectionActor}, initially without an outbound queue.
+ * 2. When the socket's stream materializes, its {@code SourceQueueWithComplete<Message>} arrives
+ *    in {@code Attach}; frames produced before that wait in the replay buffer.
  * 3. ServerApp wires inbound WS text → {@code IncomingText} commands → this actor.
  * 4. On WS termination, ServerApp sends {@code ConnectionClosed}.
- * 5. Outbound responses are sent via {@link #send} which offers to the queue.
+ * 5. Outbound responses are sent via {@link #offer} which offers to the queue.
+ *
+ * Most sockets sit idle in the lobby, so per-connection state is kept lean: the replay buffer and
+ * batch list are only allocated once used, and routine lifecycle logging is at DEBUG.
+ *
+ * Cleanup: a socket that has not sent HELLO within {@link #HELLO_TIMEOUT} is closed and its actor
+ * stopped. Once registered, the lobby watches this actor, so however it stops the player drops
+ * out of the lobby; a session it was seated in hears {@code PlayerLeft} from here.
+ *
+ * Resume: every {@code SendText} is stamped with a sequence number and kept in a bounded
+ * {@link ReplayBuffer}. When the socket drops, a registered player's actor stays alive for
+ * {@link #RESUME_GRACE} with its seat intact. A new socket presenting the resume token from
+ * WELCOME is re-bound via {@code Reattach} and replayed only the frames it missed.
+ *
+ * Batching: a client that sends {@code "batch": true} in HELLO gets frames produced within
+ * {@link #BATCH_WINDOW} of each other coalesced into one {@code BATCH} frame, e.g. the
+ * ROOM_JOINED + ROOM_UPDATED pair the lobby emits for one join.
+ *
+ * Compression: HELLO {@code "compression": "deflate"} makes frames of
+ * {@link FrameCompressor#MIN_BYTES} or more go out as zlib-deflated binary frames. The deflaters
+ * are shared by all connections, so negotiating compression costs an idle socket nothing.
+ *
+ * Chat: CHAT_SEND is rate-limited here and posted straight to the player's {@link ChatChannel},
+ * bypassing the lobby and session mailboxes. GET_LEADERBOARD and GET_RANK are likewise answered
+ * here from the shared {@link RatingService}, to which HELLO's {@code playerKey} links the player's
+ * rating account for as long as this actor lives. When the channel is on another cluster node, the
+ * post goes through that node's {@link ChatRelayActor}, named in {@code ChatRelayed}.
+ *
+ * Recording: with a {@link CommandRecorder} enabled, every decoded command is logged before it
+ * is dispatched, along with the socket attaching, closing and resuming.
+ *
+ * Tracing: while JFR records the {@code org.powergrid} message events, commands forwarded for a
+ * traced frame are wrapped in the target's {@code Traced} command and its replies come back
+ * carrying the same {@link MessageTrace}. Frames coalesced into a BATCH are not attributed, and
+ * neither are commands for a game session running on another cluster node.
  */
 public class PlayerConnectionActor extends AbstractBehavior<PlayerConnectionActor.Command> {
 
     private static final Logger log = LoggerFactory.getLogger(PlayerConnectionActor.class);
 
+    static final int REPLAY_BUFFER_SIZE = 128;
+    static final Duration RESUME_GRACE = Duration.ofSeconds(30);
+    static final Duration BATCH_WINDOW = Duration.ofMillis(10);
+    static final int MAX_BATCH_FRAMES = 32;
+    static final Duration HELLO_TIMEOUT = Duration.ofSeconds(30);
+    /** Longest HELLO {@code playerKey} accepted; longer ones are ignored. */
+    static final int MAX_PLAYER_KEY = 128;
+
+    private static final LongAdder LIVE = new LongAdder();
+
+    static {
+        Metrics.getInstance().gauge("powergrid_connection_actors",
+                "Connection actors alive, including those holding a seat for a dropped socket", LIVE::sum);
+    }
+
     // ─── Command protocol ────────────────────────────────────────────────────
 
-    public sealed interface Command permits
+    public sealed interface Command extends ClusterMessage permits
             IncomingText,
             SendText,
-            ConnectionClosed {
+            ConnectionClosed,
+            Attach,
+            Reattach,
+            ResumeFailed,
+            GameAssigned,
+            GameFinished,
+            ChatRelayed,
+            ChatNotDelivered,
+            HelloTimeout,
+            GraceExpired,
+            FlushBatch,
+            Sync {
     }
 
-    public record IncomingText(String json) implements Command {}
-    public record SendText(String json) implements Command {}
-    public record ConnectionClosed() implements Command {}
+    /** {@code traceId} is the frame's correlation id while message tracing is recorded, else {@link MessageTrace#NONE_ID}. */
+    public record IncomingText(String json, long traceId) implements Command {
+
+        public IncomingText(String json) {
+            this(json, MessageTrace.NONE_ID);
+        }
+    }
+
+    /** {@code trace} is the inbound message this frame answers, if it was traced. */
+    public record SendText(String json, MessageTrace trace) implements Command {
+
+        public SendText(String json) {
+            this(json, MessageTrace.NONE);
+        }
+    }
+
+    /** The socket backed by {@code outQueue} terminated. Ignored if a newer socket has taken over. */
+    public record ConnectionClosed(SourceQueueWithComplete<Message> outQueue) implements Command {}
+
+    /** The socket this actor was spawned for is up; frames go to {@code outQueue} from now on. */
+    public record Attach(SourceQueueWithComplete<Message> outQueue) implements Command {}
+
+    /** A new socket claimed this actor's resume token. {@code lastSeq} is the last frame the client saw. */
+    public record Reattach(SourceQueueWithComplete<Message> outQueue, long lastSeq) implements Command {}
+
+    /** The socket asked to resume, but its token was unknown or expired. */
+    public record ResumeFailed() implements Command {}
+
+    /**
+     * Answered on {@code replyTo} once the lobby or game session has handled every command this
+     * actor forwarded before it. Lets a replay deliver one command at a time.
+     */
+    public record Sync(ActorRef<Done> replyTo) implements Command {}
+
+    /** This player's game has started; in-game messages go to {@code session} from now on. */
+    public record GameAssigned(ActorRef<GameSessionActor.Command> session) implements Command {}
+
+    /** The game behind {@code session} is over; cleared only if it is still this player's game. */
+    public record GameFinished(ActorRef<GameSessionActor.Command> session) implements Command {}
+
+    /** This player's chat channel is on another node; CHAT_SEND goes to {@code relay} there. */
+    public record ChatRelayed(ActorRef<ChatRelayActor.Command> relay) implements Command {}
+
+    /** A relayed chat message found no channel with this player in it. */
+    public record ChatNotDelivered() implements Command {}
+
+    private record HelloTimeout() implements Command {}
+
+    private record GraceExpired() implements Command {}
+
+    private record FlushBatch() implements Command {}
+
+    // Timer keys
+    private record GraceTimerKey() {}
+    private record HelloTimerKey() {}
+    private record BatchTimerKey() {}
 
     // ─── Factory ─────────────────────────────────────────────────────────────
 
     public static Behavior<Command> create(
-            String playerId,
+            long playerId,
+            ActorSystem<LobbyActor.Command> system,
+            ResumeRegistry resumeRegistry,
+            ChatDirectory chat,
+            RatingService ratings
+    ) {
+        return create(playerId, system, resumeRegistry, chat, ratings, CommandRecorder.disabled());
+    }
+
+    public static Behavior<Command> create(
+            long playerId,
             ActorSystem<LobbyActor.Command> system,
-            SourceQueueWithComplete<Message> outQueue
+            ResumeRegistry resumeRegistry,
+            ChatDirectory chat,
+            RatingService ratings,
+            CommandRecorder recorder
     ) {
-        return Behaviors.setup(ctx -> new PlayerConnectionActor(ctx, playerId, system, outQueue));
+        return Behaviors.withTimers(timers ->
+                Behaviors.setup(ctx ->
+                        new PlayerConnectionActor(ctx, timers, playerId, system, resumeRegistry, chat, ratings, recorder))
+        );
     }
 
     // ─── State ───────────────────────────────────────────────────────────────
 
-    private final String playerId;
+    private final long playerId;
     private final ActorSystem<LobbyActor.Command> system;
-    private final SourceQueueWithComplete<Message> outQueue;
+    private final TimerScheduler<Command> timers;
+    private final ResumeRegistry resumeRegistry;
+    private final ChatDirectory chat;
+    private final RatingService ratings;
+    private final CommandRecorder recorder;
+    private final ReplayBuffer replay = new ReplayBuffer(REPLAY_BUFFER_SIZE);
+    private SourceQueueWithComplete<Message> outQueue; // null until attached and while detached
+    private String resumeToken;
     private boolean registered = false;
+    private boolean batching = false;
+    private List<String> pendingBatch; // allocated when HELLO enables batching
+    private FrameCompressor compressor; // null unless negotiated in HELLO
+    private ActorRef<GameSessionActor.Command> session; // null until a game starts
+    private ChatRateLimiter chatLimit; // allocated on the first CHAT_SEND
+    private ActorRef<ChatRelayActor.Command> chatRelay; // set when a channel on another node takes this player
+    private MessageTrace trace = MessageTrace.NONE; // message being handled, for JFR events
 
     // ─── Constructor ─────────────────────────────────────────────────────────
 
     private PlayerConnectionActor(
             ActorContext<Command> context,
-            String playerId,
+            TimerScheduler<Command> timers,
+            long playerId,
             ActorSystem<LobbyActor.Command> system,
-            SourceQueueWithComplete<Message> outQueue
+            ResumeRegistry resumeRegistry,
+            ChatDirectory chat,
+            RatingService ratings,
+            CommandRecorder recorder
     ) {
         super(context);
+        this.timers = timers;
         this.playerId = playerId;
         this.system = system;
-        this.outQueue = outQueue;
-        log.info("PlayerConnectionActor created for {}", playerId);
+        this.resumeRegistry = resumeRegistry;
+        this.chat = chat;
+        this.ratings = ratings;
+        this.recorder = recorder;
+        LIVE.increment();
+        timers.startSingleTimer(new HelloTimerKey(), new HelloTimeout(), HELLO_TIMEOUT);
+        log.debug("PlayerConnectionActor created for {}", Ids.format(playerId));
     }
 
     // ─── Message dispatch ────────────────────────────────────────────────────
@@ -84,40 +261,269 @@ public class PlayerConnectionActor extends AbstractBehavior<PlayerConnectionActo
                 .onMessage(IncomingText.class, this::onIncomingText)
                 .onMessage(SendText.class, this::onSendText)
                 .onMessage(ConnectionClosed.class, this::onConnectionClosed)
+                .onMessage(Attach.class, this::onAttach)
+                .onMessage(Reattach.class, this::onReattach)
+                .onMessage(ResumeFailed.class, this::onResumeFailed)
+                .onMessage(GameAssigned.class, this::onGameAssigned)
+                .onMessage(GameFinished.class, this::onGameFinished)
+                .onMessage(ChatRelayed.class, this::onChatRelayed)
+                .onMessage(ChatNotDelivered.class, this::onChatNotDelivered)
+                .onMessage(HelloTimeout.class, this::onHelloTimeout)
+                .onMessage(GraceExpired.class, this::onGraceExpired)
+                .onMessage(FlushBatch.class, this::onFlushBatch)
+                .onMessage(Sync.class, this::onSync)
+                .onSignal(PostStop.class, signal -> onPostStop())
                 .build();
     }
 
     // ─── Handlers ────────────────────────────────────────────────────────────
 
     private Behavior<Command> onIncomingText(IncomingText cmd) {
+        MessageParsedEvent parsed = new MessageParsedEvent();
+        parsed.begin();
         try {
             InboundMessage msg = JsonMapper.getInstance().readValue(cmd.json(), InboundMessage.class);
+            trace = MessageTrace.of(cmd.traceId(), msg.type());
+            recorder.received(playerId, msg.type(), msg.payload());
             dispatch(msg);
         } catch (Exception e) {
-            log.warn("Failed to parse message from {}: {}", playerId, cmd.json(), e);
+            log.warn("Failed to parse message from {}: {}", Ids.format(playerId), cmd.json(), e);
+        } finally {
+            parsed.finish(trace, playerId);
+            trace = MessageTrace.NONE;
         }
         return Behaviors.same();
     }
 
     private Behavior<Command> onSendText(SendText cmd) {
-        outQueue.offer(TextMessage.create(cmd.json()))
-                .whenComplete((result, ex) -> {
-                    if (ex != null) {
-                        log.error("Failed to offer outbound message for {}", playerId, ex);
-                    }
-                });
+        String frame = withSeq(replay.lastSeq() + 1, cmd.json());
+        replay.append(frame);
+        if (outQueue == null) {
+            return Behaviors.same();
+        }
+        if (!batching) {
+            trace = cmd.trace();
+            offer(frame);
+            trace = MessageTrace.NONE;
+            return Behaviors.same();
+        }
+        pendingBatch.add(frame);
+        if (pendingBatch.size() >= MAX_BATCH_FRAMES) {
+            flushBatch();
+        } else if (pendingBatch.size() == 1) {
+            timers.startSingleTimer(new BatchTimerKey(), new FlushBatch(), BATCH_WINDOW);
+        }
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onFlushBatch(FlushBatch cmd) {
+        flushBatch();
         return Behaviors.same();
     }
 
     private Behavior<Command> onConnectionClosed(ConnectionClosed cmd) {
-        log.info("Connection closed for player {}", playerId);
-        if (registered) {
-            system.tell(new LobbyActor.PlayerDisconnected(playerId));
+        if (cmd.outQueue() != outQueue) {
+            // An older socket finished after a newer one took over — nothing to do.
+            return Behaviors.same();
         }
         outQueue.complete();
+        outQueue = null;
+        recorder.closed(playerId);
+        // Pending frames are already in the replay buffer; a resumed client gets them from there.
+        clearBatch();
+        if (!registered) {
+            log.debug("Connection closed for player {}", Ids.format(playerId));
+            return Behaviors.stopped();
+        }
+        log.debug("Connection lost for player {}, holding seat for {}s", Ids.format(playerId), RESUME_GRACE.toSeconds());
+        timers.startSingleTimer(new GraceTimerKey(), new GraceExpired(), RESUME_GRACE);
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onAttach(Attach cmd) {
+        outQueue = cmd.outQueue();
+        recorder.opened(playerId);
+        // Anything the lobby sent before the stream was up (e.g. WELCOME) is only in the replay buffer.
+        List<String> early = replay.since(0);
+        if (early != null) {
+            for (String frame : early) {
+                offer(frame);
+            }
+        }
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onReattach(Reattach cmd) {
+        timers.cancel(new GraceTimerKey());
+        if (outQueue != null) {
+            // Takeover: the client reconnected before we noticed the old socket was gone.
+            outQueue.complete();
+            clearBatch();
+        }
+        outQueue = cmd.outQueue();
+        recorder.resumed(playerId);
+        resumeRegistry.register(resumeToken, getContext().getSelf());
+
+        List<String> missed = replay.since(cmd.lastSeq());
+        boolean complete = missed != null;
+        log.debug("Player {} resumed (lastSeq={}, replaying {})",
+                Ids.format(playerId), cmd.lastSeq(), complete ? missed.size() : "none — resync");
+
+        var payload = JsonMapper.getInstance().createObjectNode()
+                .put("playerId", Ids.format(playerId))
+                .put("resumeToken", resumeToken)
+                .put("lastSeq", replay.lastSeq())
+                .put("complete", complete);
+        offerUnsequenced(MessageType.RESUMED, payload);
+
+        if (complete) {
+            if (batching && missed.size() > 1) {
+                offer(batchFrame(missed));
+            } else {
+                for (String frame : missed) {
+                    offer(frame);
+                }
+            }
+        } else if (session != null) {
+            session.tell(new GameSessionActor.ResyncState(playerId));
+        } else {
+            system.tell(new LobbyActor.ResyncPlayer(playerId));
+        }
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onResumeFailed(ResumeFailed cmd) {
+        offerError("RESUME_EXPIRED", "Session could not be resumed. Send HELLO to start a new one.");
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onGameAssigned(GameAssigned cmd) {
+        session = cmd.session();
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onSync(Sync cmd) {
+        if (session != null) {
+            session.tell(new GameSessionActor.Sync(cmd.replyTo()));
+        } else {
+            system.tell(new LobbyActor.Sync(playerId, cmd.replyTo()));
+        }
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onGameFinished(GameFinished cmd) {
+        if (session != null && session.equals(cmd.session())) {
+            session = null;
+        }
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onChatRelayed(ChatRelayed cmd) {
+        chatRelay = cmd.relay();
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onChatNotDelivered(ChatNotDelivered cmd) {
+        offerError("NOT_IN_ROOM", "You are not in a room.");
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onHelloTimeout(HelloTimeout cmd) {
+        if (registered) {
+            return Behaviors.same();
+        }
+        log.debug("No HELLO from player {} within {}s, closing", Ids.format(playerId), HELLO_TIMEOUT.toSeconds());
+        if (outQueue != null) {
+            outQueue.complete(); // the socket's ConnectionClosed then finds this actor gone
+            outQueue = null;
+        }
         return Behaviors.stopped();
     }
 
+    private Behavior<Command> onGraceExpired(GraceExpired cmd) {
+        if (!resumeRegistry.release(resumeToken, getContext().getSelf())) {
+            // Token was claimed just now — a Reattach is already in flight.
+            return Behaviors.same();
+        }
+        log.debug("Resume grace expired for player {}", Ids.format(playerId));
+        // The lobby sees this actor stop and drops the player itself
+        if (session != null) {
+            session.tell(new GameSessionActor.PlayerLeft(playerId));
+        }
+        return Behaviors.stopped();
+    }
+
+    private Behavior<Command> onPostStop() {
+        LIVE.decrement();
+        ratings.unlink(playerId);
+        return Behaviors.same();
+    }
+
+    // ─── Outbound helpers ────────────────────────────────────────────────────
+
+    private void offer(String frame) {
+        if (outQueue == null) return; // not attached yet; only unsequenced frames are lost
+        FrameOfferedEvent offered = new FrameOfferedEvent();
+        offered.begin();
+        byte[] deflated = compressor != null ? compressor.compress(frame) : null;
+        Message message = deflated != null
+                ? BinaryMessage.create(ByteString.fromArrayUnsafe(deflated))
+                : TextMessage.create(frame);
+        outQueue.offer(message)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to offer outbound message for {}", Ids.format(playerId), ex);
+                    }
+                });
+        offered.finish(trace, playerId, deflated != null ? deflated.length : frame.length(), deflated != null);
+    }
+
+    private void flushBatch() {
+        timers.cancel(new BatchTimerKey());
+        if (pendingBatch == null || pendingBatch.isEmpty() || outQueue == null) return;
+        offer(pendingBatch.size() == 1 ? pendingBatch.get(0) : batchFrame(pendingBatch));
+        pendingBatch.clear();
+    }
+
+    private void clearBatch() {
+        timers.cancel(new BatchTimerKey());
+        if (pendingBatch != null) {
+            pendingBatch.clear();
+        }
+    }
+
+    /** Wraps already-serialized envelopes as {@code {"type":"BATCH","payload":[...]}} without re-parsing them. */
+    private static String batchFrame(List<String> frames) {
+        StringBuilder sb = new StringBuilder(32 + frames.size() * 128);
+        sb.append("{\"type\":\"BATCH\",\"payload\":[");
+        for (int i = 0; i < frames.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(frames.get(i));
+        }
+        return sb.append("]}").toString();
+    }
+
+    /** Sends a connection-level message that is not part of the replayable stream. */
+    private void offerUnsequenced(MessageType type, JsonNode payload) {
+        try {
+            offer(JsonMapper.getInstance().writeValueAsString(new OutboundMessage(type, payload)));
+        } catch (Exception e) {
+            log.error("Failed to send {} to {}", type, Ids.format(playerId), e);
+        }
+    }
+
+    private void offerError(String code, String message) {
+        var payload = JsonMapper.getInstance().createObjectNode()
+                .put("code", code)
+                .put("message", message);
+        offerUnsequenced(MessageType.ERROR, payload);
+    }
+
+    /** Splices a {@code "seq"} field into an already-serialized envelope. */
+    private static String withSeq(long seq, String json) {
+        return "{\"seq\":" + seq + "," + json.substring(1);
+    }
+
     // ─── Dispatch ────────────────────────────────────────────────────────────
 
     private void dispatch(InboundMessage msg) {
@@ -127,36 +533,101 @@ public class PlayerConnectionActor extends AbstractBehavior<PlayerConnectionActo
                 String name = payload != null && payload.has("playerName")
                         ? payload.get("playerName").asText("Unknown")
                         : "Unknown";
-                system.tell(new LobbyActor.PlayerConnected(playerId, name, getContext().getSelf()));
+                batching = payload != null && payload.path("batch").asBoolean(false);
+                if (batching && pendingBatch == null) {
+                    pendingBatch = new ArrayList<>(MAX_BATCH_FRAMES);
+                }
+                compressor = FrameCompressor.forMode(payload != null ? payload.path("compression").asText(null) : null);
+                String playerKey = payload != null ? payload.path("playerKey").asText("") : "";
+                if (!playerKey.isBlank() && playerKey.length() <= MAX_PLAYER_KEY) {
+                    ratings.link(playerId, RatingService.accountId(playerKey));
+                } else {
+                    ratings.unlink(playerId);
+                }
+                if (resumeToken == null) {
+                    resumeToken = resumeRegistry.newToken();
+                    resumeRegistry.register(resumeToken, getContext().getSelf());
+                }
+                system.tell(traced(new LobbyActor.PlayerConnected(playerId, name, getContext().getSelf(), resumeToken)));
                 registered = true;
+                timers.cancel(new HelloTimerKey());
             }
-            case LIST_ROOMS -> system.tell(new LobbyActor.ListRooms(playerId));
+            case LIST_ROOMS -> system.tell(traced(new LobbyActor.ListRooms(playerId)));
             case CREATE_ROOM -> {
                 String roomName = payload != null && payload.has("roomName")
                         ? payload.get("roomName").asText("New Room")
                         : "New Room";
-                system.tell(new LobbyActor.CreateRoom(playerId, roomName));
+                system.tell(traced(new LobbyActor.CreateRoom(playerId, roomName, payload)));
             }
             case JOIN_ROOM -> {
                 String roomId = payload != null && payload.has("roomId")
                         ? payload.get("roomId").asText()
                         : null;
                 if (roomId != null) {
-                    system.tell(new LobbyActor.JoinRoom(playerId, roomId));
+                    // An unparseable id becomes Ids.NONE, which the lobby reports as ROOM_NOT_FOUND.
+                    system.tell(traced(new LobbyActor.JoinRoom(playerId, Ids.parse(roomId))));
                 }
             }
-            case LEAVE_ROOM -> system.tell(new LobbyActor.LeaveRoom(playerId));
-            case START_GAME -> system.tell(new LobbyActor.StartGame(playerId));
-            case PING -> {
-                try {
-                    var pongPayload = JsonMapper.getInstance().createObjectNode();
-                    var pong = new OutboundMessage(MessageType.PONG, pongPayload);
-                    getContext().getSelf().tell(new SendText(JsonMapper.getInstance().writeValueAsString(pong)));
-                } catch (Exception e) {
-                    log.error("Failed to send PONG", e);
+            case LEAVE_ROOM -> system.tell(traced(new LobbyActor.LeaveRoom(playerId)));
+            case START_GAME -> system.tell(traced(new LobbyActor.StartGame(playerId)));
+            case QUICK_MATCH -> {
+                int players = payload != null ? payload.path("players").asInt(4) : 4;
+                system.tell(traced(new LobbyActor.QuickMatch(playerId, players)));
+            }
+            case CANCEL_MATCH -> system.tell(traced(new LobbyActor.CancelMatch(playerId)));
+            case BID_PLANT, PASS_BID, BUY_RESOURCE, BUILD_CITY, END_TURN -> {
+                if (session != null) {
+                    session.tell(traced(new GameSessionActor.PlayerAction(playerId, msg.type(), payload)));
                 }
             }
-            default -> log.warn("Unhandled message type from {}: {}", playerId, msg.type());
+            case STATE_MISMATCH -> {
+                if (session != null) {
+                    session.tell(traced(new GameSessionActor.ResyncState(playerId)));
+                }
+            }
+            case CHAT_SEND -> sendChat(payload != null ? payload.path("text").asText("").strip() : "");
+            case GET_LEADERBOARD -> onSendText(new SendText(ratings.leaderboardFrame(), trace));
+            case GET_RANK -> onSendText(new SendText(ratings.rankFrame(playerId), trace));
+            case PING -> offerUnsequenced(MessageType.PONG, JsonMapper.getInstance().createObjectNode());
+            default -> log.warn("Unhandled message type from {}: {}", Ids.format(playerId), msg.type());
+        }
+    }
+
+    /**
+     * Posts straight to the player's room channel, or through the relay of the node it is on;
+     * chat never goes through the lobby or session.
+     */
+    private void sendChat(String text) {
+        if (text.isEmpty()) return;
+        if (text.length() > ChatChannel.MAX_TEXT_LENGTH) {
+            offerError("CHAT_TOO_LONG", "Chat messages are limited to " + ChatChannel.MAX_TEXT_LENGTH + " characters.");
+            return;
         }
+        if (chatLimit == null) {
+            chatLimit = new ChatRateLimiter();
+        }
+        if (!chatLimit.tryAcquire(System.nanoTime())) {
+            offerError("CHAT_RATE_LIMITED", "You are sending messages too quickly.");
+            return;
+        }
+        ChatChannel channel = chat.find(playerId);
+        if (channel != null) {
+            if (!channel.post(playerId, text)) {
+                offerError("NOT_IN_ROOM", "You are not in a room.");
+            }
+        } else if (chatRelay != null) {
+            chatRelay.tell(new ChatRelayActor.Post(playerId, text, getContext().getSelf()));
+        } else {
+            offerError("NOT_IN_ROOM", "You are not in a room.");
+        }
+    }
+
+    private LobbyActor.Command traced(LobbyActor.Command cmd) {
+        return trace.traced() ? new LobbyActor.Traced(trace, cmd) : cmd;
+    }
+
+    /** Only local sessions are traced: the trace's timestamps mean nothing in another JVM. */
+    private GameSessionActor.Command traced(GameSessionActor.Command cmd) {
+        return trace.traced() && session.path().address().hasLocalScope() ? new GameSessionActor.Traced(trace, cmd) : cmd;
     }
 }
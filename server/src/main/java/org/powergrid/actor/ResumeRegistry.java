@@ -0,0 +1,64 @@
+package org.powergrid.actor;
+
+import org.apache.pekko.actor.typed.ActorRef;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps resume tokens to the {@link PlayerConnectionActor} that owns them.
+ *
+ * Shared between ServerApp, which claims a token when a socket upgrades with {@code ?resume=},
+ * and the connection actors, which register a token on HELLO and release it when their grace
+ * period runs out. Claim and release are both atomic removals, so exactly one of them wins.
+ */
+public final class ResumeRegistry {
+
+    private static final int TOKEN_BYTES = 18;
+
+    /** Seeding a SecureRandom can take a while; it happens on first use, not at startup. */
+    private static final class Rng {
+        static final SecureRandom INSTANCE = new SecureRandom();
+    }
+
+    private final ConcurrentHashMap<String, ActorRef<PlayerConnectionActor.Command>> byToken =
+            new ConcurrentHashMap<>();
+
+    /** Initializes the token RNG ahead of the first HELLO. */
+    public static void warmUp() {
+        Rng.INSTANCE.nextInt();
+    }
+
+    /** Generates a new unguessable, URL-safe token. */
+    public String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        Rng.INSTANCE.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public void register(String token, ActorRef<PlayerConnectionActor.Command> connection) {
+        byToken.put(token, connection);
+    }
+
+    /** Tokens that can still be resumed. */
+    public int size() {
+        return byToken.size();
+    }
+
+    /**
+     * Removes and returns the connection owning {@code token}, or {@code null} if the token
+     * is unknown or has expired. The caller must send the claimed actor a {@code Reattach}.
+     */
+    public ActorRef<PlayerConnectionActor.Command> claim(String token) {
+        return byToken.remove(token);
+    }
+
+    /**
+     * Removes {@code token} if it still belongs to {@code connection}.
+     * Returns {@code false} if it was claimed first, i.e. a {@code Reattach} is on its way.
+     */
+    public boolean release(String token, ActorRef<PlayerConnectionActor.Command> connection) {
+        return byToken.remove(token, connection);
+    }
+}
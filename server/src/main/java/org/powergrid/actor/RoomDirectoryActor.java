@@ -0,0 +1,170 @@
+package org.powergrid.actor;
+
+import org.apache.pekko.actor.Address;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
+import org.apache.pekko.actor.typed.javadsl.ActorContext;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.apache.pekko.actor.typed.javadsl.Receive;
+import org.apache.pekko.cluster.ClusterEvent;
+import org.apache.pekko.cluster.ddata.LWWMap;
+import org.apache.pekko.cluster.ddata.LWWMapKey;
+import org.apache.pekko.cluster.ddata.SelfUniqueAddress;
+import org.apache.pekko.cluster.ddata.typed.javadsl.DistributedData;
+import org.apache.pekko.cluster.ddata.typed.javadsl.Replicator;
+import org.apache.pekko.cluster.ddata.typed.javadsl.ReplicatorMessageAdapter;
+import org.apache.pekko.cluster.typed.Cluster;
+import org.apache.pekko.cluster.typed.Subscribe;
+import org.powergrid.cluster.ClusterMessage;
+import org.powergrid.util.Ids;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cluster-wide list of open lobby rooms, kept in Distributed Data so every node's lobby can list
+ * and join rooms another node's lobby holds. Spawned by LobbyActor as its child when the server
+ * runs as a cluster.
+ *
+ * Each lobby publishes its own rooms on its snapshot tick; only what changed since the last
+ * publish is written, and replicas converge by gossip. Changes made by other nodes reach the lobby
+ * as {@link LobbyActor.RoomsElsewhere}. When a node leaves the cluster, the rooms it listed are
+ * removed on its behalf.
+ */
+public class RoomDirectoryActor extends AbstractBehavior<RoomDirectoryActor.Command> {
+
+    static final LWWMapKey<String, Listing> KEY = LWWMapKey.create("lobby-rooms");
+
+    // ─── Command protocol ────────────────────────────────────────────────────
+
+    public sealed interface Command permits
+            Publish,
+            DirectoryChanged,
+            NodeRemoved {
+    }
+
+    /** The lobby's open rooms as of now, replacing what it published before. */
+    public record Publish(List<Listing> rooms) implements Command {}
+
+    private record DirectoryChanged(Replicator.SubscribeResponse<LWWMap<String, Listing>> response) implements Command {}
+
+    private record NodeRemoved(ClusterEvent.MemberRemoved event) implements Command {}
+
+    /** One open room and the lobby that holds it; what LIST_ROOMS shows and JOIN_ROOM needs. */
+    public record Listing(
+            long roomId,
+            String roomName,
+            int playerCount,
+            long hostId,
+            ActorRef<LobbyActor.Command> lobby
+    ) implements ClusterMessage {}
+
+    // ─── Factory ─────────────────────────────────────────────────────────────
+
+    public static Behavior<Command> create(ActorRef<LobbyActor.Command> lobby) {
+        return Behaviors.setup(ctx ->
+                DistributedData.<Command, LWWMap<String, Listing>>withReplicatorMessageAdapter(replicator ->
+                        new RoomDirectoryActor(ctx, replicator, lobby)));
+    }
+
+    // ─── State ───────────────────────────────────────────────────────────────
+
+    private final ActorRef<LobbyActor.Command> lobby;
+    private final ActorRef<Replicator.Command> replicator;
+    private final SelfUniqueAddress node;
+    private Map<String, Listing> published = Map.of(); // room id (base-36) → this lobby's last published listing
+
+    // ─── Constructor ─────────────────────────────────────────────────────────
+
+    private RoomDirectoryActor(ActorContext<Command> context,
+                               ReplicatorMessageAdapter<Command, LWWMap<String, Listing>> adapter,
+                               ActorRef<LobbyActor.Command> lobby) {
+        super(context);
+        this.lobby = lobby;
+        DistributedData ddata = DistributedData.get(context.getSystem());
+        this.replicator = ddata.replicator();
+        this.node = ddata.selfUniqueAddress();
+        adapter.subscribe(KEY, DirectoryChanged::new);
+        Cluster.get(context.getSystem()).subscriptions().tell(Subscribe.create(
+                context.messageAdapter(ClusterEvent.MemberRemoved.class, NodeRemoved::new),
+                ClusterEvent.MemberRemoved.class));
+    }
+
+    // ─── Message dispatch ────────────────────────────────────────────────────
+
+    @Override
+    public Receive<Command> createReceive() {
+        return newReceiveBuilder()
+                .onMessage(Publish.class, this::onPublish)
+                .onMessage(DirectoryChanged.class, this::onDirectoryChanged)
+                .onMessage(NodeRemoved.class, this::onNodeRemoved)
+                .build();
+    }
+
+    // ─── Handlers ────────────────────────────────────────────────────────────
+
+    private Behavior<Command> onPublish(Publish cmd) {
+        Map<String, Listing> next = new HashMap<>(cmd.rooms().size());
+        for (Listing listing : cmd.rooms()) {
+            next.put(Ids.format(listing.roomId()), listing);
+        }
+        List<String> removed = new ArrayList<>();
+        for (String roomId : published.keySet()) {
+            if (!next.containsKey(roomId)) removed.add(roomId);
+        }
+        Map<String, Listing> changed = new HashMap<>();
+        next.forEach((roomId, listing) -> {
+            if (!listing.equals(published.get(roomId))) changed.put(roomId, listing);
+        });
+        published = next;
+        if (removed.isEmpty() && changed.isEmpty()) return Behaviors.same();
+
+        update(map -> {
+            for (String roomId : removed) {
+                map = map.remove(node, roomId);
+            }
+            for (var entry : changed.entrySet()) {
+                map = map.put(node, entry.getKey(), entry.getValue());
+            }
+            return map;
+        });
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onDirectoryChanged(DirectoryChanged cmd) {
+        if (!(cmd.response() instanceof Replicator.Changed<?> changed)) return Behaviors.same();
+        LWWMap<String, Listing> map = changed.get(KEY);
+        List<Listing> elsewhere = new ArrayList<>();
+        for (Listing listing : map.getEntries().values()) {
+            if (!listing.lobby().equals(lobby)) elsewhere.add(listing);
+        }
+        lobby.tell(new LobbyActor.RoomsElsewhere(elsewhere));
+        return Behaviors.same();
+    }
+
+    private Behavior<Command> onNodeRemoved(NodeRemoved cmd) {
+        Address gone = cmd.event().member().address();
+        // Every surviving node does this; removing an absent entry is harmless
+        update(map -> {
+            LWWMap<String, Listing> result = map;
+            for (var entry : map.getEntries().entrySet()) {
+                if (entry.getValue().lobby().path().address().equals(gone)) {
+                    result = result.remove(node, entry.getKey());
+                }
+            }
+            return result;
+        });
+        return Behaviors.same();
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private void update(UnaryOperator<LWWMap<String, Listing>> modify) {
+        replicator.tell(new Replicator.Update<>(KEY, LWWMap.create(), Replicator.writeLocal(),
+                getContext().getSystem().ignoreRef(), modify::apply));
+    }
+}
@@ -0,0 +1,139 @@
+package org.powergrid.admin;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.powergrid.model.Seat;
+import org.powergrid.util.Ids;
+import org.powergrid.util.JsonMapper;
+import org.powergrid.util.LongObjectMap;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snapshots behind the read-only {@code /admin} routes.
+ *
+ * The lobby and the game sessions push immutable snapshots here; ServerApp renders them on HTTP
+ * threads. Dashboard polling therefore never sends a message to an actor. Rendered JSON is cached
+ * until a newer snapshot is published, so repeated polls between changes cost a volatile read.
+ */
+public final class AdminDirectory {
+
+    /** Upper bound on how often the lobby republishes; sessions publish on every state change. */
+    public static final Duration LOBBY_PUBLISH_INTERVAL = Duration.ofSeconds(1);
+
+    private record Rendered(LobbySnapshot lobby, long sessionsStamp, String json) {}
+
+    private volatile LobbySnapshot lobby = LobbySnapshot.EMPTY;
+    private final ConcurrentHashMap<Long, SessionSnapshot> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong sessionsStamp = new AtomicLong();
+    private volatile Rendered rooms;
+    private volatile Rendered players;
+
+    // ─── Publishing (actors) ─────────────────────────────────────────────────
+
+    public void publishLobby(LobbySnapshot snapshot) {
+        lobby = snapshot;
+    }
+
+    public void publishSession(SessionSnapshot snapshot) {
+        sessions.put(snapshot.roomId(), snapshot);
+        sessionsStamp.incrementAndGet();
+    }
+
+    public void removeSession(long roomId) {
+        if (sessions.remove(roomId) != null) {
+            sessionsStamp.incrementAndGet();
+        }
+    }
+
+    // ─── Reading (HTTP threads) ──────────────────────────────────────────────
+
+    public LobbySnapshot lobby() {
+        return lobby;
+    }
+
+    /** Games currently publishing snapshots. */
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    /** Returns the latest snapshot of the game in {@code roomId}, or {@code null} if none is running. */
+    public SessionSnapshot session(long roomId) {
+        return sessions.get(roomId);
+    }
+
+    /** {@code {"publishedAt", "rooms": [waiting rooms], "games": [running games]}} */
+    public String roomsJson() {
+        Rendered cached = rooms;
+        LobbySnapshot lobby = this.lobby;
+        long stamp = sessionsStamp.get();
+        if (cached != null && cached.lobby() == lobby && cached.sessionsStamp() == stamp) {
+            return cached.json();
+        }
+        ObjectNode root = JsonMapper.getInstance().createObjectNode();
+        root.put("publishedAt", lobby.publishedAt());
+        root.set("rooms", JsonMapper.getInstance().valueToTree(lobby.rooms()));
+        ArrayNode games = root.putArray("games");
+        for (SessionSnapshot s : sessions.values()) {
+            games.addObject()
+                    .put("roomId", Ids.format(s.roomId()))
+                    .put("startedAt", s.startedAt())
+                    .put("round", s.state().round())
+                    .put("phase", s.state().phase())
+                    .put("currentPlayerId", Ids.format(s.state().currentPlayerId()))
+                    .put("turnDeadline", s.state().turnDeadline())
+                    .put("players", s.state().players().size());
+        }
+        String json = write(root);
+        rooms = new Rendered(lobby, stamp, json);
+        return json;
+    }
+
+    /** {@code {"publishedAt", "players": [{id, name, roomId, queued, gameId}]}} */
+    public String playersJson() {
+        Rendered cached = players;
+        LobbySnapshot lobby = this.lobby;
+        long stamp = sessionsStamp.get();
+        if (cached != null && cached.lobby() == lobby && cached.sessionsStamp() == stamp) {
+            return cached.json();
+        }
+        LongObjectMap<SessionSnapshot> gameOf = new LongObjectMap<>();
+        for (SessionSnapshot s : sessions.values()) {
+            for (Seat seat : s.state().players()) {
+                gameOf.put(seat.id(), s);
+            }
+        }
+        ObjectNode root = JsonMapper.getInstance().createObjectNode();
+        root.put("publishedAt", lobby.publishedAt());
+        ArrayNode array = root.putArray("players");
+        for (LobbySnapshot.PlayerEntry p : lobby.players()) {
+            ObjectNode node = JsonMapper.getInstance().valueToTree(p);
+            SessionSnapshot game = gameOf.get(p.id());
+            if (game != null) {
+                node.put("gameId", Ids.format(game.roomId()));
+            }
+            array.add(node);
+        }
+        String json = write(root);
+        players = new Rendered(lobby, stamp, json);
+        return json;
+    }
+
+    /** The game's snapshot as JSON, or {@code null} if no game is running in {@code roomId}. */
+    public String sessionJson(long roomId) {
+        SessionSnapshot snapshot = sessions.get(roomId);
+        return snapshot != null ? write(snapshot) : null;
+    }
+
+    private static String write(Object value) {
+        try {
+            return JsonMapper.getInstance().writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
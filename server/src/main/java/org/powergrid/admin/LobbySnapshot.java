@@ -0,0 +1,29 @@
+package org.powergrid.admin;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.powergrid.model.LobbyRoom;
+import org.powergrid.util.IdSerializer;
+
+import java.util.List;
+
+/**
+ * Immutable view of the lobby, published by {@code LobbyActor} at most once per
+ * {@link AdminDirectory#LOBBY_PUBLISH_INTERVAL} and only when something changed.
+ */
+public record LobbySnapshot(
+        @JsonProperty("publishedAt") long publishedAt,
+        @JsonProperty("rooms") List<LobbyRoom> rooms,
+        @JsonProperty("players") List<PlayerEntry> players
+) {
+
+    public static final LobbySnapshot EMPTY = new LobbySnapshot(0, List.of(), List.of());
+
+    /** A connected player; {@code roomId} is the waiting room they sit in, if any. */
+    public record PlayerEntry(
+            @JsonProperty("id") @JsonSerialize(using = IdSerializer.class) long id,
+            @JsonProperty("name") String name,
+            @JsonProperty("roomId") @JsonSerialize(using = IdSerializer.class) long roomId,
+            @JsonProperty("queued") boolean queued
+    ) {}
+}
@@ -0,0 +1,18 @@
+package org.powergrid.admin;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.powergrid.model.GameState;
+import org.powergrid.util.IdSerializer;
+
+/**
+ * Immutable view of one running game, published by its {@code GameSessionActor} on every state
+ * change. {@code state} is the unredacted state the session already holds, so publishing costs a
+ * single allocation.
+ */
+public record SessionSnapshot(
+        @JsonProperty("roomId") @JsonSerialize(using = IdSerializer.class) long roomId,
+        @JsonProperty("startedAt") long startedAt,
+        @JsonProperty("version") int version,
+        @JsonProperty("state") GameState state
+) {}
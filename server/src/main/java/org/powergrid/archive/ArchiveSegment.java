@@ -0,0 +1,260 @@
+package org.powergrid.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * One numbered segment of the {@link GameArchive}: a data file of {@link GameCodec} records and an
+ * index file of fixed-width entries, both memory-mapped.
+ *
+ * The active segment maps both files at their full capacity up front (the files are sparse until
+ * written) and the single writer appends through those mappings. An entry is written field by
+ * field with its room id last, then published by bumping {@code count}; readers only look at
+ * entries below {@code count}, so they never see a half-written game. After a crash the index is
+ * recovered by scanning for the first entry without a room id.
+ *
+ * Index entry layout ({@value #ENTRY_BYTES} bytes, little-endian):
+ * <pre>
+ *  0 roomId   8 startedAt  16 endedAt   24 data offset  32 data length
+ * 36 CRC-32  40 actions    44 seats     48 up to {@value #MAX_SEATS} player ids
+ * </pre>
+ * {@code endedAt} in the index never decreases within an archive, so date ranges are a binary
+ * search; the record holds the exact time.
+ */
+final class ArchiveSegment {
+
+    static final int ENTRY_BYTES = 96;
+    static final int MAX_SEATS = 6;
+    static final int HEADER_BYTES = 8;
+    private static final int MAGIC = 0x50474131; // "PGA1"
+    private static final int VERSION = 1;
+
+    private static final int ROOM = 0, STARTED = 8, ENDED = 16, OFFSET = 24, LENGTH = 32,
+            CRC = 36, ACTIONS = 40, SEATS = 44, PLAYERS = 48;
+
+    final int number;
+    private final Path dataPath;
+    private final Path indexPath;
+    private final MappedByteBuffer data;
+    private final MappedByteBuffer index;
+    private final int capacity;     // entries
+    private final long dataLimit;   // bytes
+    private volatile int count;
+    private int dataEnd;            // writer only
+    private boolean sealed;         // writer only
+
+    private ArchiveSegment(int number, Path dataPath, Path indexPath, MappedByteBuffer data, MappedByteBuffer index,
+                           int capacity, long dataLimit) {
+        this.number = number;
+        this.dataPath = dataPath;
+        this.indexPath = indexPath;
+        this.data = data;
+        this.index = index;
+        this.capacity = capacity;
+        this.dataLimit = dataLimit;
+    }
+
+    static Path dataFile(Path dir, int number) {
+        return dir.resolve(String.format("%08d.games", number));
+    }
+
+    static Path indexFile(Path dir, int number) {
+        return dir.resolve(String.format("%08d.index", number));
+    }
+
+    /** Opens (creating if needed) segment {@code number} for appending. */
+    static ArchiveSegment openActive(Path dir, int number, int maxGames, int maxBytes) throws IOException {
+        Path dataPath = dataFile(dir, number);
+        Path indexPath = indexFile(dir, number);
+        boolean fresh = !Files.exists(dataPath) || Files.size(dataPath) == 0;
+        MappedByteBuffer data = map(dataPath, FileChannel.MapMode.READ_WRITE, maxBytes);
+        MappedByteBuffer index = map(indexPath, FileChannel.MapMode.READ_WRITE, (long) maxGames * ENTRY_BYTES);
+        if (fresh) {
+            data.putInt(0, MAGIC).putInt(4, VERSION);
+        }
+        ArchiveSegment segment = new ArchiveSegment(number, dataPath, indexPath, data, index, maxGames, maxBytes);
+        segment.recover();
+        return segment;
+    }
+
+    /** Maps a segment that is no longer written to, read-only and at its current size. */
+    static ArchiveSegment openSealed(Path dir, int number) throws IOException {
+        Path dataPath = dataFile(dir, number);
+        Path indexPath = indexFile(dir, number);
+        long indexBytes = Files.size(indexPath) / ENTRY_BYTES * ENTRY_BYTES;
+        MappedByteBuffer data = map(dataPath, FileChannel.MapMode.READ_ONLY, Files.size(dataPath));
+        MappedByteBuffer index = map(indexPath, FileChannel.MapMode.READ_ONLY, indexBytes);
+        ArchiveSegment segment = new ArchiveSegment(number, dataPath, indexPath, data, index,
+                (int) (indexBytes / ENTRY_BYTES), data.capacity());
+        segment.recover();
+        segment.sealed = true;
+        return segment;
+    }
+
+    private static MappedByteBuffer map(Path path, FileChannel.MapMode mode, long size) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[] {StandardOpenOption.READ}
+                : new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            MappedByteBuffer buffer = channel.map(mode, 0, size);
+            buffer.order(java.nio.ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    private void recover() throws IOException {
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IOException("Not an archive segment: " + dataPath);
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Unsupported archive segment version " + data.getInt(4) + ": " + dataPath);
+        }
+        int n = 0;
+        while (n < capacity && index.getLong(n * ENTRY_BYTES + ROOM) != 0) {
+            n++;
+        }
+        count = n;
+        dataEnd = n == 0 ? HEADER_BYTES : offset(n - 1) + length(n - 1);
+    }
+
+    // ─── Writing (archive writer only) ───────────────────────────────────────
+
+    /**
+     * Appends one encoded game, returning {@code false} if this segment has no room for it.
+     * {@code endedAt} is the index key, already clamped by the caller to be non-decreasing.
+     */
+    boolean append(long roomId, long startedAt, long endedAt, int actions, long[] playerIds,
+                   byte[] record, int length) {
+        if (sealed || count == capacity || dataEnd + (long) length > dataLimit) {
+            return false;
+        }
+        data.put(dataEnd, record, 0, length);
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, length);
+
+        int at = count * ENTRY_BYTES;
+        index.putLong(at + STARTED, startedAt)
+                .putLong(at + ENDED, endedAt)
+                .putLong(at + OFFSET, dataEnd)
+                .putInt(at + LENGTH, length)
+                .putInt(at + CRC, (int) crc.getValue())
+                .putInt(at + ACTIONS, actions)
+                .putInt(at + SEATS, playerIds.length);
+        for (int i = 0; i < Math.min(playerIds.length, MAX_SEATS); i++) {
+            index.putLong(at + PLAYERS + i * 8, playerIds[i]);
+        }
+        index.putLong(at + ROOM, roomId); // last: an entry without a room id does not exist
+        dataEnd += length;
+        count = count + 1;
+        return true;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    /** Flushes the mapped pages to disk. */
+    void force() {
+        data.force();
+        index.force();
+    }
+
+    /** Flushes and trims the sparse tail off both files; no further appends are accepted. */
+    void seal() throws IOException {
+        if (sealed) return;
+        force();
+        sealed = true;
+        try (FileChannel channel = FileChannel.open(dataPath, StandardOpenOption.WRITE)) {
+            channel.truncate(dataEnd);
+        }
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+            channel.truncate((long) count * ENTRY_BYTES);
+        }
+    }
+
+    // ─── Reading (any thread) ────────────────────────────────────────────────
+
+    /** Number of games readable right now. */
+    int count() {
+        return count;
+    }
+
+    long roomId(int i) {
+        return index.getLong(i * ENTRY_BYTES + ROOM);
+    }
+
+    long startedAt(int i) {
+        return index.getLong(i * ENTRY_BYTES + STARTED);
+    }
+
+    long endedAt(int i) {
+        return index.getLong(i * ENTRY_BYTES + ENDED);
+    }
+
+    int actions(int i) {
+        return index.getInt(i * ENTRY_BYTES + ACTIONS);
+    }
+
+    int seats(int i) {
+        return index.getInt(i * ENTRY_BYTES + SEATS);
+    }
+
+    long[] playerIds(int i) {
+        long[] ids = new long[Math.min(seats(i), MAX_SEATS)];
+        for (int s = 0; s < ids.length; s++) {
+            ids[s] = index.getLong(i * ENTRY_BYTES + PLAYERS + s * 8);
+        }
+        return ids;
+    }
+
+    boolean hasPlayer(int i, long playerId) {
+        int base = i * ENTRY_BYTES + PLAYERS;
+        for (int s = Math.min(seats(i), MAX_SEATS) - 1; s >= 0; s--) {
+            if (index.getLong(base + s * 8) == playerId) return true;
+        }
+        return false;
+    }
+
+    /** Newest entry for {@code roomId} below {@code limit}, or -1. */
+    int findRoom(long roomId, int limit) {
+        for (int i = limit - 1; i >= 0; i--) {
+            if (index.getLong(i * ENTRY_BYTES + ROOM) == roomId) return i;
+        }
+        return -1;
+    }
+
+    /** First entry below {@code limit} whose indexed {@code endedAt} is at least {@code millis}. */
+    int firstEndedAtOrAfter(long millis, int limit) {
+        int lo = 0, hi = limit;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (endedAt(mid) < millis) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Decodes entry {@code i} straight from the mapped data file, verifying its checksum. */
+    ArchivedGame read(int i) {
+        ByteBuffer record = data.slice(offset(i), length(i));
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        if ((int) crc.getValue() != index.getInt(i * ENTRY_BYTES + CRC)) {
+            throw new IllegalStateException("Corrupt archive record " + i + " in segment " + number);
+        }
+        return GameCodec.decode(record.rewind());
+    }
+
+    private int offset(int i) {
+        return (int) index.getLong(i * ENTRY_BYTES + OFFSET);
+    }
+
+    private int length(int i) {
+        return index.getInt(i * ENTRY_BYTES + LENGTH);
+    }
+}
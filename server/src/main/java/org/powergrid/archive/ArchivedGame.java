@@ -0,0 +1,50 @@
+package org.powergrid.archive;
+
+import org.powergrid.model.GameState;
+import org.powergrid.model.Seat;
+import org.powergrid.protocol.MessageType;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A finished game as it is stored in the {@link GameArchive}: the final {@link GameState} plus
+ * every player action the session accepted, in order. Replaying {@code actions} against
+ * {@code GameState.initial} with the same seats reproduces the game.
+ */
+public record ArchivedGame(
+        long roomId,
+        long startedAt,
+        long endedAt,
+        String endReason,
+        GameState finalState,
+        List<Action> actions
+) {
+
+    /**
+     * One accepted {@code PlayerAction}. {@code atMillis} is measured from {@code startedAt};
+     * {@code payload} is the action's JSON payload as received, or {@code null} if it had none.
+     */
+    public record Action(int atMillis, long playerId, MessageType type, String payload) {}
+
+    /** This game in the archive's {@link GameCodec} form, e.g. to checkpoint a game still running. */
+    public byte[] toBytes() {
+        GameCodec codec = new GameCodec();
+        return Arrays.copyOf(codec.encode(this), codec.length());
+    }
+
+    public static ArchivedGame fromBytes(byte[] bytes) {
+        return GameCodec.decode(ByteBuffer.wrap(bytes));
+    }
+
+    /** Everyone who held a seat, including players who left before the end. */
+    public long[] playerIds() {
+        List<Seat> seats = finalState.players();
+        long[] ids = new long[seats.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = seats.get(i).id();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,397 @@
+package org.powergrid.archive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.typesafe.config.Config;
+import org.powergrid.util.Ids;
+import org.powergrid.util.JsonMapper;
+import org.powergrid.util.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only local store of finished games, so a game's history outlives its session.
+ *
+ * Games are written to numbered {@link ArchiveSegment}s in one directory; a segment is sealed
+ * once it holds {@link #SEGMENT_GAMES} games or {@link #SEGMENT_BYTES} of records. Sessions hand
+ * their game to {@link #submit}, which returns at once; a single writer thread encodes it with
+ * {@link GameCodec} and appends it through the memory-mapped segment files, so no actor ever
+ * blocks on disk. Writes reach the page cache immediately and the disk on {@link #flush},
+ * segment roll-over and {@link #close}.
+ *
+ * Reads run on the caller's thread directly against the mappings, never through the writer.
+ * {@link #find} (by room id) and {@link #byPlayer} scan the fixed-width index newest-first,
+ * {@link #between} and {@link #stats} binary-search it by end time, and only {@link #find} and
+ * {@link #scan} decode records. The index costs {@value ArchiveSegment#ENTRY_BYTES} bytes per
+ * game of page cache, not heap.
+ */
+public final class GameArchive implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(GameArchive.class);
+
+    public static final int SEGMENT_GAMES = 65_536;
+    public static final int SEGMENT_BYTES = 64 << 20;
+
+    private static final LongAdder GAMES = Metrics.getInstance().counter(
+            "powergrid_archive_games_total", "Finished games written to the archive");
+    private static final LongAdder BYTES = Metrics.getInstance().counter(
+            "powergrid_archive_bytes_total", "Bytes of game records written to the archive");
+    private static final LongAdder FAILURES = Metrics.getInstance().counter(
+            "powergrid_archive_failures_total", "Finished games that could not be archived");
+
+    /** Index-only summary of an archived game. */
+    public record Entry(long roomId, long startedAt, long endedAt, int actions, long[] playerIds) {}
+
+    /** Aggregates over the games that ended in [{@code from}, {@code to}). */
+    public record Stats(long from, long to, long games, long actions, long seats, long durationMillis) {}
+
+    private final Path dir;           // null: archiving is disabled
+    private final int segmentGames;
+    private final int segmentBytes;
+    private final ExecutorService writer;
+    private final GameCodec codec = new GameCodec();   // guarded by this
+    private volatile ArchiveSegment[] segments;        // oldest first; the last one is active
+    private long lastEndedAt;                          // guarded by this
+
+    private GameArchive(Path dir, int segmentGames, int segmentBytes, ArchiveSegment[] segments) {
+        this.dir = dir;
+        this.segmentGames = segmentGames;
+        this.segmentBytes = segmentBytes;
+        this.segments = segments;
+        this.writer = dir == null ? null : Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "game-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (segments.length > 0) {
+            ArchiveSegment last = segments[segments.length - 1];
+            for (int s = segments.length - 1; s >= 0 && lastEndedAt == 0; s--) {
+                if (!segments[s].isEmpty()) lastEndedAt = segments[s].endedAt(segments[s].count() - 1);
+            }
+            log.info("Game archive at {}: {} games in {} segments (segment {} active)",
+                    dir, size(), segments.length, last.number);
+        }
+    }
+
+    /** Opens the archive in {@code dir}, creating it if needed, and resumes appending to its last segment. */
+    public static GameArchive open(Path dir) throws IOException {
+        return open(dir, SEGMENT_GAMES, SEGMENT_BYTES);
+    }
+
+    static GameArchive open(Path dir, int segmentGames, int segmentBytes) throws IOException {
+        Files.createDirectories(dir);
+        int[] numbers;
+        try (Stream<Path> files = Files.list(dir)) {
+            numbers = files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.matches("\\d{8}\\.games"))
+                    .mapToInt(name -> Integer.parseInt(name.substring(0, 8)))
+                    .sorted()
+                    .toArray();
+        }
+        ArchiveSegment[] segments = new ArchiveSegment[Math.max(1, numbers.length)];
+        for (int i = 0; i < numbers.length - 1; i++) {
+            segments[i] = ArchiveSegment.openSealed(dir, numbers[i]);
+        }
+        int active = numbers.length == 0 ? 1 : numbers[numbers.length - 1];
+        segments[segments.length - 1] = ArchiveSegment.openActive(dir, active, segmentGames, segmentBytes);
+        return new GameArchive(dir, segmentGames, segmentBytes, segments);
+    }
+
+    /** An archive that drops every game; used by tests and when {@code powergrid.archive.dir} is empty. */
+    public static GameArchive disabled() {
+        return new GameArchive(null, 0, 0, new ArchiveSegment[0]);
+    }
+
+    /** Reads {@code powergrid.archive.dir}; an empty or missing path disables archiving. */
+    public static GameArchive fromConfig(Config config) {
+        String path = config.hasPath("powergrid.archive.dir") ? config.getString("powergrid.archive.dir") : "";
+        if (path.isBlank()) {
+            log.info("Game archive disabled (powergrid.archive.dir is empty)");
+            return disabled();
+        }
+        try {
+            return open(Path.of(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open game archive at " + path, e);
+        }
+    }
+
+    /** Registers the archive gauges on {@code /metrics}. */
+    public GameArchive registerMetrics() {
+        Metrics metrics = Metrics.getInstance();
+        metrics.gauge("powergrid_archive_stored_games", "Games held by the archive", this::size);
+        metrics.gauge("powergrid_archive_segments", "Segment files in the archive", this::segmentCount);
+        return this;
+    }
+
+    // ─── Writing ─────────────────────────────────────────────────────────────
+
+    /** Queues {@code game} for the writer thread and returns immediately. Safe from any thread. */
+    public void submit(ArchivedGame game) {
+        if (writer == null) return;
+        try {
+            writer.execute(() -> {
+                try {
+                    append(game);
+                } catch (IOException | RuntimeException e) {
+                    FAILURES.increment();
+                    log.error("Failed to archive game {}", Ids.format(game.roomId()), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            FAILURES.increment();
+            log.warn("Archive closed; dropping game {}", Ids.format(game.roomId()));
+        }
+    }
+
+    /** Encodes and appends {@code game} on the calling thread, rolling to a new segment when full. */
+    public synchronized void append(ArchivedGame game) throws IOException {
+        if (dir == null) return;
+        if (game.roomId() == Ids.NONE) {
+            throw new IllegalArgumentException("Archived games need a room id");
+        }
+        byte[] record = codec.encode(game);
+        int length = codec.length();
+        if (length > segmentBytes - ArchiveSegment.HEADER_BYTES) {
+            throw new IllegalArgumentException("Game " + Ids.format(game.roomId()) + " is too large to archive: " + length + " bytes");
+        }
+        long endedAt = Math.max(game.endedAt(), lastEndedAt);
+        long[] playerIds = game.playerIds();
+        ArchiveSegment active = segments[segments.length - 1];
+        if (!active.append(game.roomId(), game.startedAt(), endedAt, game.actions().size(), playerIds, record, length)) {
+            active = roll(active);
+            active.append(game.roomId(), game.startedAt(), endedAt, game.actions().size(), playerIds, record, length);
+        }
+        lastEndedAt = endedAt;
+        GAMES.increment();
+        BYTES.add(length);
+    }
+
+    private ArchiveSegment roll(ArchiveSegment full) throws IOException {
+        full.seal();
+        ArchiveSegment next = ArchiveSegment.openActive(dir, full.number + 1, segmentGames, segmentBytes);
+        ArchiveSegment[] grown = Arrays.copyOf(segments, segments.length + 1);
+        grown[grown.length - 1] = next;
+        segments = grown;
+        log.info("Game archive sealed segment {} ({} games)", full.number, full.count());
+        return next;
+    }
+
+    /** Waits until every game submitted so far is appended, then forces the active segment to disk. */
+    public void flush() {
+        if (writer == null) return;
+        try {
+            writer.submit(() -> {}).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            log.warn("Archive flush failed", e);
+        }
+        synchronized (this) {
+            segments[segments.length - 1].force();
+        }
+    }
+
+    /** Drains the queue and seals the active segment. Later {@link #submit}s are dropped. */
+    @Override
+    public void close() {
+        if (writer == null) return;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Archive writer did not drain within 10s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                segments[segments.length - 1].seal();
+            } catch (IOException e) {
+                log.error("Failed to seal archive segment", e);
+            }
+        }
+    }
+
+    // ─── Reading ─────────────────────────────────────────────────────────────
+
+    /** Number of archived games. */
+    public long size() {
+        long n = 0;
+        for (ArchiveSegment segment : segments) {
+            n += segment.count();
+        }
+        return n;
+    }
+
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    /** The archived game played in {@code roomId}, or {@code null} if there is none. */
+    public ArchivedGame find(long roomId) {
+        ArchiveSegment[] segments = this.segments;
+        for (int s = segments.length - 1; s >= 0; s--) {
+            int i = segments[s].findRoom(roomId, segments[s].count());
+            if (i >= 0) return segments[s].read(i);
+        }
+        return null;
+    }
+
+    /** Up to {@code limit} of {@code playerId}'s games, most recent first. */
+    public List<Entry> byPlayer(long playerId, int limit) {
+        List<Entry> result = new ArrayList<>();
+        ArchiveSegment[] segments = this.segments;
+        for (int s = segments.length - 1; s >= 0 && result.size() < limit; s--) {
+            ArchiveSegment segment = segments[s];
+            for (int i = segment.count() - 1; i >= 0 && result.size() < limit; i--) {
+                if (segment.hasPlayer(i, playerId)) result.add(entry(segment, i));
+            }
+        }
+        return result;
+    }
+
+    /** Up to {@code limit} games that ended in [{@code from}, {@code to}), oldest first. */
+    public List<Entry> between(long from, long to, int limit) {
+        List<Entry> result = new ArrayList<>();
+        forEachBetween(from, to, (segment, i) -> {
+            if (result.size() >= limit) return false;
+            result.add(entry(segment, i));
+            return true;
+        });
+        return result;
+    }
+
+    /** Totals over the games that ended in [{@code from}, {@code to}), read from the index alone. */
+    public Stats stats(long from, long to) {
+        long[] totals = new long[4];
+        forEachBetween(from, to, (segment, i) -> {
+            totals[0]++;
+            totals[1] += segment.actions(i);
+            totals[2] += segment.seats(i);
+            totals[3] += segment.endedAt(i) - segment.startedAt(i);
+            return true;
+        });
+        return new Stats(from, to, totals[0], totals[1], totals[2], totals[3]);
+    }
+
+    /**
+     * Decodes every game that ended in [{@code from}, {@code to}), oldest first, for queries the
+     * index cannot answer. Returns the number of games visited.
+     */
+    public long scan(long from, long to, Consumer<ArchivedGame> visitor) {
+        long[] visited = new long[1];
+        forEachBetween(from, to, (segment, i) -> {
+            visitor.accept(segment.read(i));
+            visited[0]++;
+            return true;
+        });
+        return visited[0];
+    }
+
+    @FunctionalInterface
+    private interface EntryVisitor {
+        /** Returns {@code false} to stop. */
+        boolean visit(ArchiveSegment segment, int i);
+    }
+
+    private void forEachBetween(long from, long to, EntryVisitor visitor) {
+        for (ArchiveSegment segment : segments) {
+            int n = segment.count();
+            if (n == 0 || segment.endedAt(n - 1) < from) continue;
+            if (segment.endedAt(0) >= to) return;
+            for (int i = segment.firstEndedAtOrAfter(from, n); i < n && segment.endedAt(i) < to; i++) {
+                if (!visitor.visit(segment, i)) return;
+            }
+        }
+    }
+
+    private static Entry entry(ArchiveSegment segment, int i) {
+        return new Entry(segment.roomId(i), segment.startedAt(i), segment.endedAt(i),
+                segment.actions(i), segment.playerIds(i));
+    }
+
+    // ─── JSON (admin routes) ─────────────────────────────────────────────────
+
+    /** The full game with its action log, or {@code null} if {@code roomId} was never archived. */
+    public String gameJson(long roomId) {
+        ArchivedGame game = find(roomId);
+        if (game == null) return null;
+        ObjectNode root = JsonMapper.getInstance().createObjectNode()
+                .put("roomId", Ids.format(game.roomId()))
+                .put("startedAt", game.startedAt())
+                .put("endedAt", game.endedAt())
+                .put("endReason", game.endReason());
+        root.set("finalState", JsonMapper.getInstance().valueToTree(game.finalState()));
+        ArrayNode actions = root.putArray("actions");
+        for (ArchivedGame.Action action : game.actions()) {
+            ObjectNode node = actions.addObject()
+                    .put("at", action.atMillis())
+                    .put("playerId", Ids.format(action.playerId()))
+                    .put("type", action.type().name());
+            if (action.payload() != null) {
+                node.putRawValue("payload", new RawValue(action.payload()));
+            }
+        }
+        return write(root);
+    }
+
+    /** {@code {"games": [{roomId, startedAt, endedAt, actions, players}]}}, most recent first. */
+    public String playerJson(long playerId, int limit) {
+        ObjectNode root = JsonMapper.getInstance().createObjectNode();
+        ArrayNode games = root.putArray("games");
+        for (Entry entry : byPlayer(playerId, limit)) {
+            ObjectNode node = games.addObject()
+                    .put("roomId", Ids.format(entry.roomId()))
+                    .put("startedAt", entry.startedAt())
+                    .put("endedAt", entry.endedAt())
+                    .put("actions", entry.actions());
+            ArrayNode players = node.putArray("players");
+            for (long id : entry.playerIds()) {
+                players.add(Ids.format(id));
+            }
+        }
+        return write(root);
+    }
+
+    /** {@code {from, to, games, actions, averageActions, averagePlayers, averageDurationMillis}} */
+    public String statsJson(long from, long to) {
+        Stats stats = stats(from, to);
+        long games = Math.max(1, stats.games());
+        ObjectNode root = JsonMapper.getInstance().createObjectNode()
+                .put("from", stats.from())
+                .put("to", stats.to())
+                .put("games", stats.games())
+                .put("actions", stats.actions())
+                .put("averageActions", (double) stats.actions() / games)
+                .put("averagePlayers", (double) stats.seats() / games)
+                .put("averageDurationMillis", stats.durationMillis() / games);
+        return write(root);
+    }
+
+    private static String write(Object value) {
+        try {
+            return JsonMapper.getInstance().writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.powergrid.archive;
+
+import org.powergrid.model.GameState;
+import org.powergrid.model.Seat;
+import org.powergrid.protocol.MessageType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary form of an {@link ArchivedGame}. Integers are LEB128 varints, strings are UTF-8 with a
+ * varint length, and the commonest values are stored relative to something already written:
+ * {@code endedAt} after {@code startedAt}, each action's time after the previous action's, and
+ * the acting player as a seat number. A typical action costs 4–6 bytes plus its payload.
+ *
+ * <pre>
+ * roomId startedAt (endedAt-startedAt) endReason
+ * round phase currentPlayerId turnDeadline hiddenMoney seats{id name money}
+ * actions{Δmillis seat [playerId] type payload}
+ * </pre>
+ *
+ * Action types are stored by name so that reordering {@link MessageType} does not corrupt old
+ * segments. Nullable strings and money use 0 for {@code null}. Not thread-safe; the archive
+ * writer owns one instance and decoding is static.
+ */
+final class GameCodec {
+
+    private byte[] buf = new byte[4096];
+    private int len;
+
+    /** Encodes {@code game}; the bytes stay valid until the next call. */
+    byte[] encode(ArchivedGame game) {
+        len = 0;
+        writeVarLong(game.roomId());
+        writeVarLong(game.startedAt());
+        writeVarLong(Math.max(0, game.endedAt() - game.startedAt()));
+        writeString(game.endReason());
+
+        GameState state = game.finalState();
+        writeVarLong(state.round());
+        writeString(state.phase());
+        writeVarLong(state.currentPlayerId());
+        writeVarLong(state.turnDeadline());
+        writeByte(state.hiddenMoney() ? 1 : 0);
+        List<Seat> seats = state.players();
+        writeVarLong(seats.size());
+        for (Seat seat : seats) {
+            writeVarLong(seat.id());
+            writeString(seat.name());
+            writeVarLong(seat.money() == null ? 0 : (zigZag(seat.money()) + 1));
+        }
+
+        List<ArchivedGame.Action> actions = game.actions();
+        writeVarLong(actions.size());
+        int previousAt = 0;
+        for (ArchivedGame.Action action : actions) {
+            writeVarLong(Math.max(0, action.atMillis() - previousAt));
+            previousAt = Math.max(previousAt, action.atMillis());
+            int seat = seatOf(seats, action.playerId());
+            writeVarLong(seat + 1);
+            if (seat < 0) {
+                writeVarLong(action.playerId());
+            }
+            writeString(action.type().name());
+            writeString(action.payload());
+        }
+        return buf;
+    }
+
+    /** Length of the last {@link #encode}d game. */
+    int length() {
+        return len;
+    }
+
+    /** Decodes one game from {@code in}'s position to its limit. */
+    static ArchivedGame decode(ByteBuffer in) {
+        long roomId = readVarLong(in);
+        long startedAt = readVarLong(in);
+        long endedAt = startedAt + readVarLong(in);
+        String reason = readString(in);
+
+        int round = (int) readVarLong(in);
+        String phase = readString(in);
+        long currentPlayerId = readVarLong(in);
+        long turnDeadline = readVarLong(in);
+        boolean hiddenMoney = in.get() != 0;
+        int seatCount = (int) readVarLong(in);
+        List<Seat> seats = new ArrayList<>(seatCount);
+        for (int i = 0; i < seatCount; i++) {
+            long id = readVarLong(in);
+            String name = readString(in);
+            long money = readVarLong(in);
+            seats.add(new Seat(id, name, money == 0 ? null : unZigZag(money - 1)));
+        }
+        GameState state = new GameState(roomId, round, phase, currentPlayerId, seats, turnDeadline, hiddenMoney);
+
+        int actionCount = (int) readVarLong(in);
+        ArchivedGame.Action[] actions = new ArchivedGame.Action[actionCount];
+        int at = 0;
+        for (int i = 0; i < actionCount; i++) {
+            at += (int) readVarLong(in);
+            int seat = (int) readVarLong(in) - 1;
+            long playerId = seat >= 0 ? seats.get(seat).id() : readVarLong(in);
+            MessageType type = MessageType.valueOf(readString(in));
+            actions[i] = new ArchivedGame.Action(at, playerId, type, readString(in));
+        }
+        return new ArchivedGame(roomId, startedAt, endedAt, reason, state, Arrays.asList(actions));
+    }
+
+    // ─── Primitives ──────────────────────────────────────────────────────────
+
+    private void writeByte(int b) {
+        ensure(1);
+        buf[len++] = (byte) b;
+    }
+
+    private void writeVarLong(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buf[len++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[len++] = (byte) v;
+    }
+
+    private void writeString(String s) {
+        if (s == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, len, bytes.length);
+        len += bytes.length;
+    }
+
+    private void ensure(int more) {
+        if (len + more > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + more));
+        }
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+        throw new IllegalStateException("Malformed varint in archive record");
+    }
+
+    private static String readString(ByteBuffer in) {
+        int n = (int) readVarLong(in) - 1;
+        if (n < 0) return null;
+        byte[] bytes = new byte[n];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long zigZag(int v) {
+        return ((v << 1) ^ (v >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private static int unZigZag(long v) {
+        int n = (int) v;
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private static int seatOf(List<Seat> seats, long playerId) {
+        for (int i = 0; i < seats.size(); i++) {
+            if (seats.get(i).id() == playerId) return i;
+        }
+        return -1;
+    }
+}
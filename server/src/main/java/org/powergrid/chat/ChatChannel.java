@@ -0,0 +1,145 @@
+package org.powergrid.chat;
+
+import org.apache.pekko.actor.typed.ActorRef;
+import org.powergrid.actor.PlayerConnectionActor;
+import org.powergrid.protocol.MessageType;
+import org.powergrid.protocol.OutboundMessage;
+import org.powergrid.util.Ids;
+import org.powergrid.util.JsonMapper;
+import org.powergrid.util.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chat of one room, and later of the game started from it.
+ *
+ * Membership is changed by the actor that owns the room (the lobby, then the game session);
+ * messages are posted directly from the sender's connection actor. Each message is serialized
+ * once, kept in a bounded {@link ChatHistory} and the same frame is sent to every member.
+ * A member connected to another cluster node is told to post through this node's chat relay.
+ *
+ * Thread-safe. Membership is a copy-on-write array, so checking the sender costs no lock; appending
+ * to the history and fanning out happen under the channel's lock so every member sees messages in
+ * history order.
+ */
+public final class ChatChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatChannel.class);
+
+    /** Longest message accepted, in characters. */
+    public static final int MAX_TEXT_LENGTH = 200;
+
+    private static final LongAdder MESSAGES = Metrics.getInstance().counter(
+            "powergrid_chat_messages_total", "Chat messages delivered to a room");
+
+    private record Member(long playerId, String name, ActorRef<PlayerConnectionActor.Command> connection) {}
+
+    private static final Member[] NO_MEMBERS = new Member[0];
+
+    private final long roomId;
+    private final ChatDirectory directory;
+    private final ChatHistory history = new ChatHistory(); // guarded by this
+    private volatile Member[] members = NO_MEMBERS;        // written under this
+    private boolean closed;                                // guarded by this
+
+    ChatChannel(long roomId, ChatDirectory directory) {
+        this.roomId = roomId;
+        this.directory = directory;
+    }
+
+    public long roomId() {
+        return roomId;
+    }
+
+    public int size() {
+        return members.length;
+    }
+
+    /** Adds (or re-binds) a member and sends it the recent history. */
+    public synchronized void join(long playerId, String name, ActorRef<PlayerConnectionActor.Command> connection) {
+        if (closed) return;
+        Member[] current = members;
+        int index = indexOf(current, playerId);
+        Member[] next = index >= 0 ? current.clone() : Arrays.copyOf(current, current.length + 1);
+        next[index >= 0 ? index : current.length] = new Member(playerId, name, connection);
+        members = next;
+        directory.bind(playerId, this);
+        for (String frame : history.recent()) {
+            connection.tell(new PlayerConnectionActor.SendText(frame));
+        }
+        var relay = directory.relay();
+        if (relay != null && !connection.path().address().hasLocalScope()) {
+            connection.tell(new PlayerConnectionActor.ChatRelayed(relay));
+        }
+    }
+
+    public synchronized void leave(long playerId) {
+        Member[] current = members;
+        int index = indexOf(current, playerId);
+        if (index < 0) return;
+        Member[] next = new Member[current.length - 1];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+        members = next;
+        directory.unbind(playerId, this);
+    }
+
+    /**
+     * Delivers {@code text} from {@code playerId} to every member, itself included.
+     * Returns {@code false} if the sender is not (or no longer) a member.
+     */
+    public boolean post(long playerId, String text) {
+        Member[] current = members;
+        int index = indexOf(current, playerId);
+        if (index < 0) return false;
+        String json = frame(current[index], text);
+        if (json == null) return false;
+
+        synchronized (this) {
+            current = members;
+            if (closed || indexOf(current, playerId) < 0) return false;
+            history.append(json);
+            var frame = new PlayerConnectionActor.SendText(json);
+            for (Member m : current) {
+                m.connection().tell(frame);
+            }
+        }
+        MESSAGES.increment();
+        return true;
+    }
+
+    /** Removes every member and drops the history; later joins and posts are ignored. */
+    public synchronized void close() {
+        closed = true;
+        for (Member m : members) {
+            directory.unbind(m.playerId(), this);
+        }
+        members = NO_MEMBERS;
+        history.clear();
+    }
+
+    private String frame(Member sender, String text) {
+        var payload = JsonMapper.getInstance().createObjectNode()
+                .put("roomId", Ids.format(roomId))
+                .put("playerId", Ids.format(sender.playerId()))
+                .put("playerName", sender.name())
+                .put("text", text)
+                .put("sentAt", System.currentTimeMillis());
+        try {
+            return JsonMapper.getInstance().writeValueAsString(new OutboundMessage(MessageType.CHAT_MESSAGE, payload));
+        } catch (Exception e) {
+            log.error("Failed to serialize chat message for room {}", Ids.format(roomId), e);
+            return null;
+        }
+    }
+
+    private static int indexOf(Member[] members, long playerId) {
+        for (int i = 0; i < members.length; i++) {
+            if (members[i].playerId() == playerId) return i;
+        }
+        return -1;
+    }
+}
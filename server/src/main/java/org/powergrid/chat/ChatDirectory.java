@@ -0,0 +1,55 @@
+package org.powergrid.chat;
+
+import org.apache.pekko.actor.typed.ActorRef;
+import org.powergrid.actor.ChatRelayActor;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The chat channel each player is currently in, keyed by player id.
+ *
+ * The lobby and game sessions move players between channels; a connection actor looks its
+ * player's channel up here and posts to it directly, so chat traffic never touches the lobby or
+ * session mailbox.
+ *
+ * In a cluster, a channel can have members connected to other nodes; they post through this
+ * node's {@link ChatRelayActor}, set with {@link #relay}.
+ */
+public final class ChatDirectory {
+
+    private final ConcurrentHashMap<Long, ChatChannel> byPlayer = new ConcurrentHashMap<>();
+    private volatile ActorRef<ChatRelayActor.Command> relay; // null unless clustered
+
+    /** A new, empty channel for {@code roomId}. */
+    public ChatChannel open(long roomId) {
+        return new ChatChannel(roomId, this);
+    }
+
+    /** Players currently in a channel. */
+    public int size() {
+        return byPlayer.size();
+    }
+
+    /** Returns the channel {@code playerId} is in, or {@code null} if it is in none. */
+    public ChatChannel find(long playerId) {
+        return byPlayer.get(playerId);
+    }
+
+    /** Posts from members connected to other nodes arrive through {@code relay}. */
+    public void relay(ActorRef<ChatRelayActor.Command> relay) {
+        this.relay = relay;
+    }
+
+    /** This node's chat relay, or {@code null} when not clustered. */
+    public ActorRef<ChatRelayActor.Command> relay() {
+        return relay;
+    }
+
+    void bind(long playerId, ChatChannel channel) {
+        byPlayer.put(playerId, channel);
+    }
+
+    void unbind(long playerId, ChatChannel channel) {
+        byPlayer.remove(playerId, channel);
+    }
+}
@@ -0,0 +1,79 @@
+package org.powergrid.chat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Recent CHAT_MESSAGE frames of one room, replayed to players who join late.
+ *
+ * Frames are kept as UTF-8 in one fixed {@code byte[]} of {@code slots × slotBytes}, allocated on
+ * the first message and overwritten oldest-first after that, so a room holds at most
+ * {@value #SLOTS} × {@value #SLOT_BYTES} bytes of history however much is said in it. A frame
+ * larger than a slot is delivered live but not kept.
+ *
+ * Not thread-safe: guarded by its {@link ChatChannel}.
+ */
+final class ChatHistory {
+
+    static final int SLOTS = 32;
+    static final int SLOT_BYTES = 1024;
+
+    private final int slots;
+    private final int slotBytes;
+    private byte[] arena;   // null until the first message
+    private int[] lengths;
+    private long appended;
+
+    ChatHistory() {
+        this(SLOTS, SLOT_BYTES);
+    }
+
+    ChatHistory(int slots, int slotBytes) {
+        this.slots = slots;
+        this.slotBytes = slotBytes;
+    }
+
+    /** Stores {@code frame}, overwriting the oldest once full; returns {@code false} if it does not fit a slot. */
+    boolean append(String frame) {
+        byte[] utf8 = frame.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > slotBytes) return false;
+        if (arena == null) {
+            arena = new byte[slots * slotBytes];
+            lengths = new int[slots];
+        }
+        int slot = (int) (appended % slots);
+        System.arraycopy(utf8, 0, arena, slot * slotBytes, utf8.length);
+        lengths[slot] = utf8.length;
+        appended++;
+        return true;
+    }
+
+    /** Held frames, oldest first. */
+    List<String> recent() {
+        int held = size();
+        if (held == 0) return Collections.emptyList();
+        List<String> frames = new ArrayList<>(held);
+        for (long i = appended - held; i < appended; i++) {
+            int slot = (int) (i % slots);
+            frames.add(new String(arena, slot * slotBytes, lengths[slot], StandardCharsets.UTF_8));
+        }
+        return frames;
+    }
+
+    int size() {
+        return (int) Math.min(appended, slots);
+    }
+
+    /** Bytes allocated for history (0 until the first message). */
+    int allocated() {
+        return arena != null ? arena.length : 0;
+    }
+
+    void clear() {
+        arena = null;
+        lengths = null;
+        appended = 0;
+    }
+}
@@ -0,0 +1,35 @@
+package org.powergrid.chat;
+
+import org.powergrid.util.Metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-player chat allowance: bursts of up to {@link #BURST} messages, refilling one every
+ * {@link #INTERVAL_NANOS}. Kept as a single "next allowed" timestamp (GCRA) rather than a token
+ * count, so it costs one {@code long} per chatting connection.
+ *
+ * Not thread-safe: owned by a {@code PlayerConnectionActor}.
+ */
+public final class ChatRateLimiter {
+
+    public static final int BURST = 5;
+    public static final long INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final LongAdder REJECTED = Metrics.getInstance().counter(
+            "powergrid_chat_rate_limited_total", "Chat messages refused by the per-player rate limit");
+
+    private long allowedAt = Long.MIN_VALUE;
+
+    /** Takes one message's allowance at {@code nowNanos}; returns {@code false} if the player is over the limit. */
+    public boolean tryAcquire(long nowNanos) {
+        long base = allowedAt == Long.MIN_VALUE ? nowNanos : Math.max(allowedAt, nowNanos);
+        if (base - nowNanos > (BURST - 1) * INTERVAL_NANOS) {
+            REJECTED.increment();
+            return false;
+        }
+        allowedAt = base + INTERVAL_NANOS;
+        return true;
+    }
+}
@@ -0,0 +1,11 @@
+package org.powergrid.cluster;
+
+/**
+ * Marks messages and replicated values that may cross nodes when the server runs as a cluster;
+ * {@code application.conf} binds it to Pekko's {@code jackson-cbor} serializer.
+ *
+ * The actor protocols implement it as a whole, but only the commands actually sent between nodes
+ * need to serialize: those carrying socket queues or JFR traces never leave their JVM.
+ */
+public interface ClusterMessage {
+}
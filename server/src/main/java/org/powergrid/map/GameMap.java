@@ -0,0 +1,194 @@
+package org.powergrid.map;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only view of one compiled board: its regions, cities and the connections between them.
+ *
+ * The view sits directly on the bytes {@link MapCompiler} wrote — usually a mapped file shared by
+ * every game on that board (see {@link MapLibrary}) — and only keeps a city-id lookup table on the
+ * heap. It is immutable and safe to use from any thread; a game's own play area is a
+ * {@link RegionSelection}.
+ *
+ * Layout (little-endian; string fields are absolute offsets of a u16 length plus UTF-8 bytes):
+ * <pre>
+ * header  0 magic  4 version  8 regions  12 cities  16 links  20 board name
+ * region  0 name   4 first city   8 bitmask of the regions it borders            ({@value #REGION_BYTES} bytes)
+ * city    0 id     4 display name 8 region  12 first link                         ({@value #CITY_BYTES} bytes)
+ * link    0 target city (u16)  2 cost (u16)                                     ({@value #LINK_BYTES} bytes)
+ * </pre>
+ * Cities are numbered region by region, so a region's cities are a contiguous range, and each
+ * city's links (one per direction) are sorted by target.
+ */
+public final class GameMap {
+
+    static final int MAGIC = 0x50474d31; // "PGM1"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int REGION_BYTES = 16;
+    static final int CITY_BYTES = 16;
+    static final int LINK_BYTES = 4;
+    static final int MAX_REGIONS = Long.SIZE;
+
+    private final String name;
+    private final ByteBuffer data;
+    private final int regions;
+    private final int cities;
+    private final int links;
+    private final int cityTable;
+    private final int linkTable;
+    private final Map<String, Integer> cityIndex;
+
+    /** Wraps compiled map bytes; throws IllegalArgumentException if they are not a map. */
+    GameMap(ByteBuffer bytes) {
+        this.data = bytes.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a compiled map");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported map version " + data.getInt(4));
+        }
+        this.regions = data.getInt(8);
+        this.cities = data.getInt(12);
+        this.links = data.getInt(16);
+        this.cityTable = HEADER_BYTES + regions * REGION_BYTES;
+        this.linkTable = cityTable + cities * CITY_BYTES;
+        if (regions <= 0 || regions > MAX_REGIONS || cities <= 0 || links < 0
+                || (long) linkTable + (long) links * LINK_BYTES > data.capacity()) {
+            throw new IllegalArgumentException("Corrupt map header");
+        }
+        this.name = string(data.getInt(20));
+        this.cityIndex = new HashMap<>(cities * 2);
+        for (int c = 0; c < cities; c++) {
+            cityIndex.put(cityId(c), c);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** Size of the compiled map, which is what every game on this board shares. */
+    public int bytes() {
+        return data.capacity();
+    }
+
+    public int regionCount() {
+        return regions;
+    }
+
+    public int cityCount() {
+        return cities;
+    }
+
+    public String regionName(int region) {
+        return string(data.getInt(region(region)));
+    }
+
+    /** Bitmask of the regions that share a connection with {@code region}. */
+    public long regionNeighbours(int region) {
+        return data.getLong(region(region) + 8);
+    }
+
+    /** The city with this id (as sent in BUILD_CITY), or -1. */
+    public int city(String id) {
+        Integer c = cityIndex.get(id);
+        return c == null ? -1 : c;
+    }
+
+    public String cityId(int city) {
+        return string(data.getInt(city(city)));
+    }
+
+    public String cityName(int city) {
+        return string(data.getInt(city(city) + 4));
+    }
+
+    public int cityRegion(int city) {
+        return data.getInt(city(city) + 8);
+    }
+
+    /** Index of the city's first link; its links run up to {@code firstLink(city + 1)}. */
+    public int firstLink(int city) {
+        return city == cities ? links : data.getInt(city(city) + 12);
+    }
+
+    public int linkTarget(int link) {
+        return Short.toUnsignedInt(data.getShort(linkTable + link * LINK_BYTES));
+    }
+
+    public int linkCost(int link) {
+        return Short.toUnsignedInt(data.getShort(linkTable + link * LINK_BYTES + 2));
+    }
+
+    /**
+     * Cheapest total connection cost from any city in {@code network} to {@code target}, going
+     * only through cities in {@code area}; 0 if {@code network} is empty or already has the
+     * target (a player's first city is free to connect), -1 if the target cannot be reached.
+     *
+     * Dijkstra without a heap — boards have a few dozen cities, so picking the nearest unsettled
+     * city by scan is O(cities²) and allocates two small arrays.
+     */
+    public int connectionCost(RegionSelection area, BitSet network, int target) {
+        if (!area.inPlay(target)) return -1;
+        if (network.isEmpty() || network.get(target)) return 0;
+        int[] dist = new int[cities];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        boolean[] settled = new boolean[cities];
+        for (int c = network.nextSetBit(0); c >= 0 && c < cities; c = network.nextSetBit(c + 1)) {
+            if (area.inPlay(c)) dist[c] = 0;
+        }
+        while (true) {
+            int next = -1;
+            for (int c = 0; c < cities; c++) {
+                if (!settled[c] && dist[c] != Integer.MAX_VALUE && (next < 0 || dist[c] < dist[next])) {
+                    next = c;
+                }
+            }
+            if (next < 0) return -1;
+            if (next == target) return dist[next];
+            settled[next] = true;
+            for (int l = firstLink(next), end = firstLink(next + 1); l < end; l++) {
+                int to = linkTarget(l);
+                int cost = dist[next] + linkCost(l);
+                if (!settled[to] && cost < dist[to] && area.inPlay(to)) {
+                    dist[to] = cost;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GameMap[" + name + ", " + regions + " regions, " + cities + " cities]";
+    }
+
+    // ─── Internals ───────────────────────────────────────────────────────────
+
+    private int region(int region) {
+        if (region < 0 || region >= regions) {
+            throw new IndexOutOfBoundsException("region " + region + " of " + regions);
+        }
+        return HEADER_BYTES + region * REGION_BYTES;
+    }
+
+    private int city(int city) {
+        if (city < 0 || city >= cities) {
+            throw new IndexOutOfBoundsException("city " + city + " of " + cities);
+        }
+        return cityTable + city * CITY_BYTES;
+    }
+
+    private String string(int offset) {
+        int length = Short.toUnsignedInt(data.getShort(offset));
+        byte[] utf8 = new byte[length];
+        data.get(offset + 2, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
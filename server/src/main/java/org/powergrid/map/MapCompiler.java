@@ -0,0 +1,248 @@
+package org.powergrid.map;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a board definition ({@code src/main/maps/*.map}) into the binary layout described on
+ * {@link GameMap}. Runs at build time ({@code ./gradlew compileMaps}), so a malformed board fails
+ * the build instead of the first game on it.
+ *
+ * The source is line-based: {@code region <id>}, {@code city <id> <region> <display name>} and
+ * {@code link <city> <city> <cost>}, with {@code #} comments. Cities and regions must be declared
+ * before use, links are undirected and must not repeat, and every city must be reachable.
+ */
+public final class MapCompiler {
+
+    private MapCompiler() {}
+
+    /** {@code MapCompiler <output dir> <source.map>...}: writes {@code <name>.pgmap} for each source. */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: MapCompiler <output dir> <source.map>...");
+            System.exit(2);
+        }
+        Path out = Path.of(args[0]);
+        Files.createDirectories(out);
+        for (int i = 1; i < args.length; i++) {
+            Path source = Path.of(args[i]);
+            String file = source.getFileName().toString();
+            String name = file.endsWith(".map") ? file.substring(0, file.length() - 4) : file;
+            byte[] compiled;
+            try (Reader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+                compiled = compile(name, reader);
+            } catch (IllegalArgumentException e) {
+                System.err.println(file + ":" + e.getMessage());
+                System.exit(1);
+                return;
+            }
+            Files.write(out.resolve(name + MapLibrary.EXTENSION), compiled);
+        }
+    }
+
+    private record City(String id, String name, int region, int line) {}
+
+    private record Link(int from, int to, int cost) {}
+
+    /**
+     * Compiles one board. Throws IllegalArgumentException with a {@code "<line>: <problem>"}
+     * message on the first error.
+     */
+    public static byte[] compile(String boardName, Reader source) throws IOException {
+        Map<String, Integer> regions = new LinkedHashMap<>();
+        Map<String, City> cities = new LinkedHashMap<>();
+        List<String[]> links = new ArrayList<>();
+        List<Integer> linkLines = new ArrayList<>();
+
+        BufferedReader reader = new BufferedReader(source);
+        String raw;
+        int lineNo = 0;
+        while ((raw = reader.readLine()) != null) {
+            lineNo++;
+            int hash = raw.indexOf('#');
+            String line = (hash >= 0 ? raw.substring(0, hash) : raw).strip();
+            if (line.isEmpty()) continue;
+            String[] f = line.split("\\s+", 4);
+            switch (f[0]) {
+                case "region" -> {
+                    expect(f.length == 2, lineNo, "expected: region <id>");
+                    expect(!regions.containsKey(f[1]), lineNo, "duplicate region '" + f[1] + "'");
+                    expect(regions.size() < GameMap.MAX_REGIONS, lineNo, "more than " + GameMap.MAX_REGIONS + " regions");
+                    regions.put(f[1], regions.size());
+                }
+                case "city" -> {
+                    expect(f.length == 4, lineNo, "expected: city <id> <region> <name>");
+                    expect(!cities.containsKey(f[1]), lineNo, "duplicate city '" + f[1] + "'");
+                    Integer region = regions.get(f[2]);
+                    expect(region != null, lineNo, "unknown region '" + f[2] + "'");
+                    cities.put(f[1], new City(f[1], f[3], region, lineNo));
+                }
+                case "link" -> {
+                    expect(f.length == 4, lineNo, "expected: link <city> <city> <cost>");
+                    links.add(f);
+                    linkLines.add(lineNo);
+                }
+                default -> expect(false, lineNo, "unknown directive '" + f[0] + "'");
+            }
+        }
+        expect(!cities.isEmpty(), lineNo, "no cities");
+        expect(cities.size() <= 0xFFFF, lineNo, "more than 65535 cities");
+        for (String region : regions.keySet()) {
+            expect(cities.values().stream().anyMatch(c -> c.region() == regions.get(region)), lineNo,
+                    "region '" + region + "' has no cities");
+        }
+
+        // Number cities region by region, keeping declaration order within a region
+        List<City> ordered = new ArrayList<>(cities.values());
+        ordered.sort(Comparator.comparingInt(City::region));
+        Map<String, Integer> index = new HashMap<>();
+        for (int c = 0; c < ordered.size(); c++) {
+            index.put(ordered.get(c).id(), c);
+        }
+
+        List<List<Link>> adjacency = new ArrayList<>();
+        for (int c = 0; c < ordered.size(); c++) {
+            adjacency.add(new ArrayList<>());
+        }
+        long[] regionNeighbours = new long[regions.size()];
+        for (int i = 0; i < links.size(); i++) {
+            String[] f = links.get(i);
+            int line = linkLines.get(i);
+            Integer a = index.get(f[1]);
+            Integer b = index.get(f[2]);
+            expect(a != null, line, "unknown city '" + f[1] + "'");
+            expect(b != null, line, "unknown city '" + f[2] + "'");
+            expect(!a.equals(b), line, "city linked to itself");
+            int cost;
+            try {
+                cost = Integer.parseInt(f[3]);
+            } catch (NumberFormatException e) {
+                cost = -1;
+            }
+            expect(cost >= 0 && cost <= 0xFFFF, line, "cost must be 0 to 65535: " + f[3]);
+            int from = a, to = b;
+            expect(adjacency.get(from).stream().noneMatch(l -> l.to() == to), line, "duplicate link " + f[1] + "-" + f[2]);
+            adjacency.get(from).add(new Link(from, to, cost));
+            adjacency.get(to).add(new Link(to, from, cost));
+            int ra = ordered.get(from).region(), rb = ordered.get(to).region();
+            if (ra != rb) {
+                regionNeighbours[ra] |= 1L << rb;
+                regionNeighbours[rb] |= 1L << ra;
+            }
+        }
+        checkConnected(ordered, adjacency);
+
+        return write(boardName, new ArrayList<>(regions.keySet()), ordered, adjacency, regionNeighbours);
+    }
+
+    // ─── Internals ───────────────────────────────────────────────────────────
+
+    private static void checkConnected(List<City> cities, List<List<Link>> adjacency) {
+        boolean[] seen = new boolean[cities.size()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+        seen[0] = true;
+        while (!queue.isEmpty()) {
+            for (Link l : adjacency.get(queue.poll())) {
+                if (!seen[l.to()]) {
+                    seen[l.to()] = true;
+                    queue.add(l.to());
+                }
+            }
+        }
+        for (int c = 0; c < seen.length; c++) {
+            City city = cities.get(c);
+            expect(seen[c], city.line(), "city '" + city.id() + "' is not connected to '" + cities.get(0).id() + "'");
+        }
+    }
+
+    private static byte[] write(String boardName, List<String> regions, List<City> cities,
+                                List<List<Link>> adjacency, long[] regionNeighbours) {
+        int linkCount = adjacency.stream().mapToInt(List::size).sum();
+        int strings = GameMap.HEADER_BYTES + regions.size() * GameMap.REGION_BYTES
+                + cities.size() * GameMap.CITY_BYTES + linkCount * GameMap.LINK_BYTES;
+        StringPool pool = new StringPool(strings);
+        int boardOffset = pool.add(boardName);
+        int[] regionNames = regions.stream().mapToInt(pool::add).toArray();
+        int[][] cityNames = new int[cities.size()][];
+        for (int c = 0; c < cities.size(); c++) {
+            cityNames[c] = new int[]{pool.add(cities.get(c).id()), pool.add(cities.get(c).name())};
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(pool.end()).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(GameMap.MAGIC).putInt(GameMap.VERSION)
+                .putInt(regions.size()).putInt(cities.size()).putInt(linkCount).putInt(boardOffset);
+        for (int r = 0; r < regions.size(); r++) {
+            int first = 0;
+            while (first < cities.size() && cities.get(first).region() < r) first++;
+            out.putInt(regionNames[r]).putInt(first).putLong(regionNeighbours[r]);
+        }
+        int link = 0;
+        for (int c = 0; c < cities.size(); c++) {
+            out.putInt(cityNames[c][0]).putInt(cityNames[c][1]).putInt(cities.get(c).region()).putInt(link);
+            link += adjacency.get(c).size();
+        }
+        for (List<Link> links : adjacency) {
+            links.sort(Comparator.comparingInt(Link::to));
+            for (Link l : links) {
+                out.putShort((short) l.to()).putShort((short) l.cost());
+            }
+        }
+        pool.writeTo(out);
+        return out.array();
+    }
+
+    private static void expect(boolean condition, int line, String problem) {
+        if (!condition) {
+            throw new IllegalArgumentException(line + ": " + problem);
+        }
+    }
+
+    /** Length-prefixed UTF-8 strings laid out from {@code start}; equal strings are stored once. */
+    private static final class StringPool {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+        private int end;
+
+        StringPool(int start) {
+            this.end = start;
+        }
+
+        int add(String s) {
+            Integer known = offsets.get(s);
+            if (known != null) return known;
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            if (utf8.length > 0xFFFF) {
+                throw new IllegalArgumentException("string too long: " + s.substring(0, 32) + "…");
+            }
+            int offset = end;
+            offsets.put(s, offset);
+            encoded.add(utf8);
+            end += 2 + utf8.length;
+            return offset;
+        }
+
+        int end() {
+            return end;
+        }
+
+        void writeTo(ByteBuffer out) {
+            for (byte[] utf8 : encoded) {
+                out.putShort((short) utf8.length).put(utf8);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.powergrid.map;
+
+import org.powergrid.util.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * The compiled boards on the classpath ({@code maps/<name>.pgmap}, built from
+ * {@code src/main/maps}), each loaded on first use and then shared by every game on it.
+ *
+ * A board that is a plain file (exploded classpath, tests) is memory-mapped read-only; one inside
+ * the jar or a native image is copied once into a direct buffer. Either way it lives off the heap
+ * and exactly one copy exists per board, however many games are running.
+ */
+public final class MapLibrary {
+
+    public static final String DEFAULT_MAP = "usa";
+    static final String EXTENSION = ".pgmap";
+
+    private static final Pattern NAME = Pattern.compile("[a-z0-9-]{1,32}");
+    private static final LongAdder BYTES = new LongAdder();
+    private static final MapLibrary INSTANCE = new MapLibrary("maps/");
+
+    static {
+        Metrics.getInstance().gauge("powergrid_map_bytes", "Bytes of board data loaded, shared by all games", BYTES::sum);
+    }
+
+    private final String prefix;
+    private final ConcurrentHashMap<String, GameMap> loaded = new ConcurrentHashMap<>();
+
+    MapLibrary(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public static MapLibrary getInstance() {
+        return INSTANCE;
+    }
+
+    /** Whether a board called {@code name} exists, without loading it. */
+    public boolean has(String name) {
+        return name != null && (loaded.containsKey(name) || resource(name) != null);
+    }
+
+    /** The shared view of board {@code name}; throws IllegalArgumentException if there is none. */
+    public GameMap get(String name) {
+        GameMap map = loaded.get(name);
+        return map != null ? map : loaded.computeIfAbsent(name, this::load);
+    }
+
+    // ─── Internals ───────────────────────────────────────────────────────────
+
+    private URL resource(String name) {
+        if (!NAME.matcher(name).matches()) return null;
+        return MapLibrary.class.getClassLoader().getResource(prefix + name + EXTENSION);
+    }
+
+    private GameMap load(String name) {
+        URL url = resource(name);
+        if (url == null) {
+            throw new IllegalArgumentException("Unknown map: " + name);
+        }
+        try {
+            ByteBuffer bytes = "file".equals(url.getProtocol()) ? mapFile(Path.of(url.toURI())) : copy(url);
+            GameMap map = new GameMap(bytes);
+            BYTES.add(map.bytes());
+            return map;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load map " + name, e);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Bad map location " + url, e);
+        }
+    }
+
+    private static ByteBuffer mapFile(Path file) throws IOException {
+        // The mapping outlives the channel
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static ByteBuffer copy(URL url) throws IOException {
+        try (InputStream in = url.openStream()) {
+            byte[] bytes = in.readAllBytes();
+            return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        }
+    }
+}
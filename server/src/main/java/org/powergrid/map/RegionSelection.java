@@ -0,0 +1,79 @@
+package org.powergrid.map;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * The regions of a shared {@link GameMap} that one game plays on — a board reference and a
+ * bitmask, which is the whole per-game cost of map data.
+ */
+public record RegionSelection(GameMap map, long regions) {
+
+    public RegionSelection {
+        long all = allRegions(map);
+        if (regions == 0 || (regions & ~all) != 0) {
+            throw new IllegalArgumentException("Invalid regions " + Long.toBinaryString(regions) + " for " + map.name());
+        }
+    }
+
+    /** Every region of the board. */
+    public static RegionSelection all(GameMap map) {
+        return new RegionSelection(map, allRegions(map));
+    }
+
+    /** Regions in play for a game of {@code players}: three for two or three players, then one per player up to five. */
+    public static int regionsFor(int players) {
+        return Math.max(3, Math.min(5, players));
+    }
+
+    /**
+     * A random connected area of {@link #regionsFor(int)} regions: starts from any region and
+     * repeatedly adds one bordering the area so far.
+     */
+    public static RegionSelection random(GameMap map, int players, RandomGenerator random) {
+        int wanted = Math.min(regionsFor(players), map.regionCount());
+        long chosen = 1L << random.nextInt(map.regionCount());
+        long frontier = map.regionNeighbours(Long.numberOfTrailingZeros(chosen));
+        for (int n = 1; n < wanted; n++) {
+            long open = frontier & ~chosen;
+            if (open == 0) break; // board smaller than it claims to be connected; play what we have
+            long pick = nthBit(open, random.nextInt(Long.bitCount(open)));
+            chosen |= pick;
+            frontier |= map.regionNeighbours(Long.numberOfTrailingZeros(pick));
+        }
+        return new RegionSelection(map, chosen);
+    }
+
+    public boolean contains(int region) {
+        return (regions >>> region & 1) != 0;
+    }
+
+    public boolean inPlay(int city) {
+        return contains(map.cityRegion(city));
+    }
+
+    public int count() {
+        return Long.bitCount(regions);
+    }
+
+    /** Names of the selected regions in board order, as announced in GAME_STARTING. */
+    public List<String> regionNames() {
+        List<String> names = new ArrayList<>(count());
+        for (long rest = regions; rest != 0; rest &= rest - 1) {
+            names.add(map.regionName(Long.numberOfTrailingZeros(rest)));
+        }
+        return names;
+    }
+
+    private static long allRegions(GameMap map) {
+        return map.regionCount() == Long.SIZE ? -1L : (1L << map.regionCount()) - 1;
+    }
+
+    private static long nthBit(long bits, int n) {
+        for (int i = 0; i < n; i++) {
+            bits &= bits - 1;
+        }
+        return Long.lowestOneBit(bits);
+    }
+}
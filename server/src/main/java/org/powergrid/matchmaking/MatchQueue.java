@@ -0,0 +1,173 @@
+package org.powergrid.matchmaking;
+
+import org.powergrid.util.LongObjectMap;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Quick-match queue: players wait in FIFO buckets keyed by desired game size (2–6) and rating band
+ * ({@link #BAND_WIDTH} points wide), and {@link #match} forms games in one batch per tick.
+ *
+ * A tick only does work proportional to the games it forms plus the number of non-empty buckets,
+ * never to the number of players waiting, and stops after {@link #MAX_MATCHES_PER_TICK} games so
+ * a burst cannot stall the caller. Once the oldest ticket in a bucket has waited
+ * {@link #WIDEN_AFTER_MILLIS}, leftovers from adjacent bands of the same size may be combined.
+ *
+ * Cancelling only flags the ticket; dead entries are skipped when they reach the head of their
+ * bucket and compacted if a bucket accumulates too many. Not thread-safe — owned by
+ * {@code MatchmakerActor}.
+ */
+public final class MatchQueue {
+
+    public static final int MIN_PLAYERS = 2;
+    public static final int MAX_PLAYERS = 6;
+    public static final int BAND_WIDTH = 200;
+    public static final long WIDEN_AFTER_MILLIS = 10_000;
+    public static final int MAX_MATCHES_PER_TICK = 5_000;
+
+    private static final class Ticket {
+        final long playerId;
+        final long enqueuedAt;
+        boolean live = true;
+
+        Ticket(long playerId, long enqueuedAt) {
+            this.playerId = playerId;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private static final class Bucket {
+        final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+        int live;
+
+        /** Oldest live ticket, discarding cancelled ones at the head. */
+        Ticket head() {
+            Ticket t;
+            while ((t = queue.peekFirst()) != null && !t.live) {
+                queue.pollFirst();
+            }
+            return t;
+        }
+    }
+
+    private final LongObjectMap<Ticket> tickets = new LongObjectMap<>();
+    private final LongObjectMap<Bucket> ticketBuckets = new LongObjectMap<>();
+    @SuppressWarnings("unchecked")
+    private final TreeMap<Integer, Bucket>[] bySize = new TreeMap[MAX_PLAYERS + 1];
+
+    public MatchQueue() {
+        for (int size = MIN_PLAYERS; size <= MAX_PLAYERS; size++) {
+            bySize[size] = new TreeMap<>();
+        }
+    }
+
+    public static boolean isValidSize(int players) {
+        return players >= MIN_PLAYERS && players <= MAX_PLAYERS;
+    }
+
+    /** Number of players currently waiting. */
+    public int size() {
+        return tickets.size();
+    }
+
+    public boolean contains(long playerId) {
+        return tickets.containsKey(playerId);
+    }
+
+    /** Queues {@code playerId}, replacing any earlier ticket it had. */
+    public void enqueue(long playerId, int players, int rating, long nowMillis) {
+        if (!isValidSize(players)) {
+            throw new IllegalArgumentException("Match size must be " + MIN_PLAYERS + "–" + MAX_PLAYERS);
+        }
+        cancel(playerId);
+        int band = Math.max(0, rating) / BAND_WIDTH;
+        Bucket bucket = bySize[players].computeIfAbsent(band, b -> new Bucket());
+        Ticket ticket = new Ticket(playerId, nowMillis);
+        bucket.queue.addLast(ticket);
+        bucket.live++;
+        tickets.put(playerId, ticket);
+        ticketBuckets.put(playerId, bucket);
+    }
+
+    /** Removes {@code playerId} from the queue; returns {@code false} if it was not queued. */
+    public boolean cancel(long playerId) {
+        Ticket ticket = tickets.remove(playerId);
+        if (ticket == null) return false;
+        Bucket bucket = ticketBuckets.remove(playerId);
+        ticket.live = false;
+        bucket.live--;
+        if (bucket.queue.size() > 2 * bucket.live + 64) {
+            bucket.queue.removeIf(t -> !t.live);
+        }
+        return true;
+    }
+
+    /**
+     * Forms as many games as possible (up to {@link #MAX_MATCHES_PER_TICK}), handing each one's
+     * player ids to {@code onMatch} in queue order. Returns the number of games formed.
+     */
+    public int match(long nowMillis, Consumer<long[]> onMatch) {
+        int made = 0;
+        for (int size = MIN_PLAYERS; size <= MAX_PLAYERS && made < MAX_MATCHES_PER_TICK; size++) {
+            TreeMap<Integer, Bucket> bands = bySize[size];
+            for (Bucket bucket : bands.values()) {
+                while (bucket.live >= size && made < MAX_MATCHES_PER_TICK) {
+                    long[] game = new long[size];
+                    take(bucket, game, 0, size);
+                    onMatch.accept(game);
+                    made++;
+                }
+            }
+            made += widen(bands, size, nowMillis, onMatch, MAX_MATCHES_PER_TICK - made);
+            bands.values().removeIf(b -> b.live == 0);
+        }
+        return made;
+    }
+
+    // ─── Internals ───────────────────────────────────────────────────────────
+
+    /** Pairs leftovers of neighbouring bands once someone in them has waited long enough. */
+    private int widen(TreeMap<Integer, Bucket> bands, int size, long nowMillis, Consumer<long[]> onMatch, int budget) {
+        int made = 0;
+        Map.Entry<Integer, Bucket> prev = null;
+        Iterator<Map.Entry<Integer, Bucket>> it = bands.entrySet().iterator();
+        while (it.hasNext() && made < budget) {
+            Map.Entry<Integer, Bucket> cur = it.next();
+            Bucket a = prev != null ? prev.getValue() : null;
+            Bucket b = cur.getValue();
+            if (a != null && cur.getKey() == prev.getKey() + 1
+                    && a.live > 0 && b.live > 0 && a.live + b.live >= size
+                    && (waited(a, nowMillis) || waited(b, nowMillis))) {
+                long[] game = new long[size];
+                int fromA = a.live;
+                take(a, game, 0, fromA);
+                take(b, game, fromA, size - fromA);
+                onMatch.accept(game);
+                made++;
+            }
+            prev = cur;
+        }
+        return made;
+    }
+
+    private static boolean waited(Bucket bucket, long nowMillis) {
+        Ticket head = bucket.head();
+        return head != null && nowMillis - head.enqueuedAt >= WIDEN_AFTER_MILLIS;
+    }
+
+    private void take(Bucket bucket, long[] into, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            Ticket t = bucket.head();
+            bucket.queue.pollFirst();
+            t.live = false;
+            bucket.live--;
+            tickets.remove(t.playerId);
+            ticketBuckets.remove(t.playerId);
+            into[offset + i] = t.playerId;
+        }
+    }
+}
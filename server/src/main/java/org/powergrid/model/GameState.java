@@ -1,27 +1,55 @@
 package org.powergrid.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.powergrid.util.IdSerializer;
+import org.powergrid.util.Ids;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Immutable snapshot of the full game state, broadcast to all players after every action.
+ *
+ * {@code turnDeadline} is the wall-clock time (epoch millis) at which the current player's turn
+ * times out, or 0 if no turn is running; clients count down locally instead of polling.
+ *
+ * With {@code hiddenMoney} set, nobody receives this object as-is: each viewer gets
+ * {@link #redactedFor(long)}, which drops the money of every other seat.
  */
 public record GameState(
-        @JsonProperty("roomId") String roomId,
+        @JsonProperty("roomId") @JsonSerialize(using = IdSerializer.class) long roomId,
         @JsonProperty("round") int round,
         @JsonProperty("phase") String phase,
-        @JsonProperty("currentPlayerId") String currentPlayerId,
-        @JsonProperty("players") List<Player> players
+        @JsonProperty("currentPlayerId") @JsonSerialize(using = IdSerializer.class) long currentPlayerId,
+        @JsonProperty("players") List<Seat> players,
+        @JsonProperty("turnDeadline") long turnDeadline,
+        @JsonProperty("hiddenMoney") boolean hiddenMoney
 ) {
 
-    public static GameState initial(String roomId, List<String> playerIds) {
-        List<Player> players = new ArrayList<>();
-        for (String id : playerIds) {
-            players.add(new Player(id, "Player-" + id.substring(0, 6)));
+    public static GameState initial(long roomId, long[] playerIds, boolean hiddenMoney) {
+        List<Seat> players = new ArrayList<>(playerIds.length);
+        for (long id : playerIds) {
+            players.add(new Seat(id, "Player-" + Ids.format(id), Seat.STARTING_MONEY));
         }
-        String first = playerIds.isEmpty() ? null : playerIds.get(0);
-        return new GameState(roomId, 1, "AUCTION", first, players);
+        long first = playerIds.length == 0 ? Ids.NONE : playerIds[0];
+        return new GameState(roomId, 1, "AUCTION", first, players, 0L, hiddenMoney);
+    }
+
+    public GameState withTurn(long currentPlayerId, long turnDeadline) {
+        return new GameState(roomId, round, phase, currentPlayerId, players, turnDeadline, hiddenMoney);
+    }
+
+    /**
+     * The state as {@code viewerId} may see it ({@link Ids#NONE} for spectators). Returns
+     * {@code this} when nothing is hidden.
+     */
+    public GameState redactedFor(long viewerId) {
+        if (!hiddenMoney) return this;
+        List<Seat> visible = new ArrayList<>(players.size());
+        for (Seat seat : players) {
+            visible.add(seat.id() == viewerId ? seat : seat.withoutMoney());
+        }
+        return new GameState(roomId, round, phase, currentPlayerId, visible, turnDeadline, hiddenMoney);
     }
 }
@@ -1,15 +1,15 @@
 package org.powergrid.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-
-import java.util.List;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.powergrid.util.IdSerializer;
 
 /**
- * Immutable lobby room. Replaced (not mutated) when state changes.
+ * Immutable snapshot of a lobby room, produced by {@link RoomState#snapshot()}.
  */
 public record LobbyRoom(
-        @JsonProperty("id") String id,
+        @JsonProperty("id") @JsonSerialize(using = IdSerializer.class) long id,
         @JsonProperty("name") String name,
-        @JsonProperty("hostId") String hostId,
-        @JsonProperty("playerIds") List<String> playerIds
+        @JsonProperty("hostId") @JsonSerialize(using = IdSerializer.class) long hostId,
+        @JsonProperty("playerIds") @JsonSerialize(using = IdSerializer.Array.class) long[] playerIds
 ) {}
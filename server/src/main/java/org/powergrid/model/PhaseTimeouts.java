@@ -0,0 +1,110 @@
+package org.powergrid.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * How long a player may take per turn in each game phase ({@code AUCTION}, {@code RESOURCES},
+ * {@code BUILDING}, …), with a fallback for phases that have no entry.
+ *
+ * Server-wide values come from {@code powergrid.timeouts} in application.conf; a host can
+ * override them per room with {@code "timeouts": {"AUCTION": 45}} (seconds) in CREATE_ROOM.
+ * Serializable with Jackson, so a room's settings can travel between cluster nodes.
+ */
+public final class PhaseTimeouts {
+
+    public static final Duration MIN = Duration.ofSeconds(10);
+    public static final Duration MAX = Duration.ofMinutes(10);
+
+    public static final PhaseTimeouts DEFAULT = new PhaseTimeouts(Duration.ofSeconds(120), Map.of(
+            "AUCTION", Duration.ofSeconds(60),
+            "RESOURCES", Duration.ofSeconds(90),
+            "BUILDING", Duration.ofSeconds(120)));
+
+    private final Duration fallback;
+    private final Map<String, Duration> byPhase;
+
+    @JsonCreator
+    private PhaseTimeouts(@JsonProperty("fallback") Duration fallback,
+                          @JsonProperty("byPhase") Map<String, Duration> byPhase) {
+        this.fallback = fallback;
+        this.byPhase = Map.copyOf(byPhase);
+    }
+
+    /**
+     * Reads {@code powergrid.timeouts}: {@code default} plus one duration per phase, keyed by the
+     * lower-case phase name. Missing keys keep the built-in {@link #DEFAULT} values.
+     */
+    public static PhaseTimeouts fromConfig(Config config) {
+        String base = "powergrid.timeouts";
+        Duration fallback = config.hasPath(base + ".default")
+                ? config.getDuration(base + ".default")
+                : DEFAULT.fallback;
+        Map<String, Duration> byPhase = new TreeMap<>(DEFAULT.byPhase);
+        for (String phase : DEFAULT.byPhase.keySet()) {
+            String path = base + "." + phase.toLowerCase(Locale.ROOT);
+            if (config.hasPath(path)) {
+                byPhase.put(phase, config.getDuration(path));
+            }
+        }
+        return new PhaseTimeouts(fallback, byPhase);
+    }
+
+    public Duration forPhase(String phase) {
+        return byPhase.getOrDefault(phase, fallback);
+    }
+
+    /** Limit for phases without an entry of their own. */
+    @JsonProperty("fallback")
+    public Duration fallback() {
+        return fallback;
+    }
+
+    /** Per-phase limits, keyed by upper-case phase name. */
+    @JsonProperty("byPhase")
+    public Map<String, Duration> byPhase() {
+        return byPhase;
+    }
+
+    /**
+     * Applies a room's {@code {"PHASE": seconds}} overrides, clamped to [{@link #MIN}, {@link #MAX}].
+     * Keys are {@code DEFAULT} or one of {@link StateChecksum#PHASES}, in any case; other keys and
+     * non-numeric entries are ignored, so a host cannot grow the map. Returns {@code this} if
+     * nothing applies.
+     */
+    public PhaseTimeouts withOverrides(JsonNode overrides) {
+        if (overrides == null || !overrides.isObject() || overrides.isEmpty()) return this;
+        Map<String, Duration> byPhase = new TreeMap<>(this.byPhase);
+        Duration newFallback = fallback;
+        boolean applied = false;
+        var fields = overrides.fields();
+        while (fields.hasNext()) {
+            var field = fields.next();
+            if (!field.getValue().isNumber()) continue;
+            Duration d = clamp(Duration.ofSeconds(field.getValue().asLong()));
+            String phase = field.getKey().toUpperCase(Locale.ROOT);
+            if (phase.equals("DEFAULT")) {
+                newFallback = d;
+            } else if (StateChecksum.PHASES.contains(phase)) {
+                byPhase.put(phase, d);
+            } else {
+                continue;
+            }
+            applied = true;
+        }
+        return applied ? new PhaseTimeouts(newFallback, byPhase) : this;
+    }
+
+    private static Duration clamp(Duration d) {
+        if (d.compareTo(MIN) < 0) return MIN;
+        if (d.compareTo(MAX) > 0) return MAX;
+        return d;
+    }
+}
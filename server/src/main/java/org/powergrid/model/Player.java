@@ -1,11 +1,13 @@
 package org.powergrid.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.powergrid.util.IdSerializer;
 
 /**
  * Immutable player domain object.
  */
 public record Player(
-        @JsonProperty("id") String id,
+        @JsonProperty("id") @JsonSerialize(using = IdSerializer.class) long id,
         @JsonProperty("name") String name
 ) {}
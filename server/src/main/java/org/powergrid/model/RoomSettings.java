@@ -0,0 +1,37 @@
+package org.powergrid.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.powergrid.map.MapLibrary;
+
+/**
+ * Per-room game options chosen by the host in CREATE_ROOM and fixed once the room exists.
+ *
+ * {@code hiddenMoney} enables the variant where players only see their own money. {@code map} names
+ * the board (see {@link MapLibrary}); the lobby rejects names it does not have.
+ * {@code timeoutOverrides} is the host's CREATE_ROOM {@code timeouts} object (or {@code null}), kept
+ * so the room's timeouts can be rebuilt on top of new server-wide ones.
+ */
+public record RoomSettings(PhaseTimeouts timeouts, boolean hiddenMoney, String map, JsonNode timeoutOverrides) {
+
+    public static final RoomSettings DEFAULT = new RoomSettings(PhaseTimeouts.DEFAULT, false);
+
+    public RoomSettings(PhaseTimeouts timeouts, boolean hiddenMoney) {
+        this(timeouts, hiddenMoney, MapLibrary.DEFAULT_MAP, null);
+    }
+
+    /** Applies the optional {@code timeouts}, {@code hiddenMoney} and {@code map} fields of a CREATE_ROOM payload. */
+    public RoomSettings withOverrides(JsonNode createRoom) {
+        if (createRoom == null || !createRoom.isObject()) return this;
+        JsonNode overrides = createRoom.get("timeouts");
+        return new RoomSettings(
+                timeouts.withOverrides(overrides),
+                createRoom.path("hiddenMoney").asBoolean(hiddenMoney),
+                createRoom.path("map").asText(map),
+                overrides != null && overrides.isObject() && !overrides.isEmpty() ? overrides : timeoutOverrides);
+    }
+
+    /** The same room on top of new server-wide timeouts; the host's overrides still win. */
+    public RoomSettings withServerTimeouts(PhaseTimeouts serverTimeouts) {
+        return new RoomSettings(serverTimeouts.withOverrides(timeoutOverrides), hiddenMoney, map, timeoutOverrides);
+    }
+}
@@ -0,0 +1,110 @@
+package org.powergrid.model;
+
+import java.util.Arrays;
+
+/**
+ * Mutable lobby room, owned and updated in place by {@code LobbyActor}.
+ *
+ * Seats are a fixed array of {@link #MAX_PLAYERS} ids kept in join order, so joins and leaves
+ * allocate nothing. Every change bumps {@link #version()}; {@link #snapshot()} builds an immutable
+ * {@link LobbyRoom} only when something reads it and reuses it until the version moves again.
+ * Not thread-safe — never hand a {@code RoomState} to another actor, pass a snapshot instead.
+ */
+public final class RoomState {
+
+    public static final int MAX_PLAYERS = 6;
+
+    private final long id;
+    private final String name;
+    private final RoomSettings settings;
+    private final long[] slots = new long[MAX_PLAYERS];
+    private int count;
+    private long hostId;
+    private int version;
+
+    private LobbyRoom snapshot;
+    private int snapshotVersion = -1;
+
+    public RoomState(long id, String name, long hostId, RoomSettings settings) {
+        this.id = id;
+        this.name = name;
+        this.settings = settings;
+        this.hostId = hostId;
+        this.slots[0] = hostId;
+        this.count = 1;
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** Options the game will use once started; fixed when the room is created. */
+    public RoomSettings settings() {
+        return settings;
+    }
+
+    public long hostId() {
+        return hostId;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public boolean isFull() {
+        return count == MAX_PLAYERS;
+    }
+
+    /** Player in seat {@code index}, for {@code 0 <= index < size()}. */
+    public long playerAt(int index) {
+        return slots[index];
+    }
+
+    public int version() {
+        return version;
+    }
+
+    /** Seats {@code playerId}; returns {@code false} if the room is full. */
+    public boolean add(long playerId) {
+        if (count == MAX_PLAYERS) return false;
+        slots[count++] = playerId;
+        version++;
+        return true;
+    }
+
+    /**
+     * Removes {@code playerId}, shifting later seats down. If the host left, the longest-seated
+     * remaining player becomes host. Returns {@code false} if the player was not seated here.
+     */
+    public boolean remove(long playerId) {
+        for (int i = 0; i < count; i++) {
+            if (slots[i] == playerId) {
+                System.arraycopy(slots, i + 1, slots, i, count - i - 1);
+                slots[--count] = 0L;
+                if (hostId == playerId && count > 0) {
+                    hostId = slots[0];
+                }
+                version++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Immutable view of the current state; the same instance until the next change. */
+    public LobbyRoom snapshot() {
+        if (snapshotVersion != version) {
+            snapshot = new LobbyRoom(id, name, hostId, Arrays.copyOf(slots, count));
+            snapshotVersion = version;
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,24 @@
+package org.powergrid.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.powergrid.util.IdSerializer;
+
+/**
+ * A player's seat in a running game. {@code money} is {@code null} (and omitted from JSON) in
+ * views where it is hidden from the viewer.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Seat(
+        @JsonProperty("id") @JsonSerialize(using = IdSerializer.class) long id,
+        @JsonProperty("name") String name,
+        @JsonProperty("money") Integer money
+) {
+
+    public static final int STARTING_MONEY = 50;
+
+    public Seat withoutMoney() {
+        return money == null ? this : new Seat(id, name, null);
+    }
+}
@@ -0,0 +1,110 @@
+package org.powergrid.model;
+
+import java.util.List;
+
+/**
+ * Zobrist-style checksum of a {@link GameState} view, kept up to date incrementally.
+ *
+ * Every primitive feature of the state — (field, slot, value), e.g. (MONEY, seat 2, 37) — maps to
+ * a pseudo-random 32-bit key, and the checksum is the XOR of the keys of all features the viewer
+ * can see. Changing one field therefore costs one XOR out and one XOR in. Keys come from a fixed
+ * mixing function instead of a random table so the client can derive them too
+ * ({@code GameState.gd} mirrors {@link #key}); the 32-bit result is exact in JSON numbers.
+ *
+ * Owned by one game session; not thread-safe.
+ */
+public final class StateChecksum {
+
+    static final int ROUND = 1;
+    static final int PHASE = 2;
+    static final int CURRENT_PLAYER = 3;
+    static final int TURN_DEADLINE = 4;
+    static final int SEAT = 5;
+    static final int MONEY = 6;
+
+    /** Phase names hashed by position (1-based); anything else hashes as 0. Shared with the client. */
+    public static final List<String> PHASES = List.of("AUCTION", "RESOURCES", "BUILDING", "BUREAUCRACY");
+
+    private int common;     // features every audience sees
+    private List<Seat> seats;
+
+    private StateChecksum() {}
+
+    public static StateChecksum of(GameState state) {
+        StateChecksum checksum = new StateChecksum();
+        checksum.common = key(ROUND, 0, state.round())
+                ^ key(PHASE, 0, phaseCode(state.phase()))
+                ^ key(CURRENT_PLAYER, 0, state.currentPlayerId())
+                ^ key(TURN_DEADLINE, 0, state.turnDeadline());
+        checksum.setSeats(state.players());
+        return checksum;
+    }
+
+    /** Moves the checksum from {@code prev} to {@code next}, touching only fields that changed. */
+    public void apply(GameState prev, GameState next) {
+        if (prev.round() != next.round()) {
+            common ^= key(ROUND, 0, prev.round()) ^ key(ROUND, 0, next.round());
+        }
+        if (!prev.phase().equals(next.phase())) {
+            common ^= key(PHASE, 0, phaseCode(prev.phase())) ^ key(PHASE, 0, phaseCode(next.phase()));
+        }
+        if (prev.currentPlayerId() != next.currentPlayerId()) {
+            common ^= key(CURRENT_PLAYER, 0, prev.currentPlayerId()) ^ key(CURRENT_PLAYER, 0, next.currentPlayerId());
+        }
+        if (prev.turnDeadline() != next.turnDeadline()) {
+            common ^= key(TURN_DEADLINE, 0, prev.turnDeadline()) ^ key(TURN_DEADLINE, 0, next.turnDeadline());
+        }
+        if (prev.players() != next.players()) {
+            common ^= seatKeys(seats);
+            setSeats(next.players());
+        }
+    }
+
+    /**
+     * Checksum of the view {@code viewerId} receives ({@link org.powergrid.util.Ids#NONE} for
+     * spectators), as an unsigned 32-bit value.
+     */
+    public long forViewer(long viewerId, boolean hiddenMoney) {
+        int h = common;
+        for (int i = 0; i < seats.size(); i++) {
+            Seat seat = seats.get(i);
+            if (seat.money() != null && (!hiddenMoney || seat.id() == viewerId)) {
+                h ^= key(MONEY, i, seat.money());
+            }
+        }
+        return h & 0xFFFFFFFFL;
+    }
+
+    private void setSeats(List<Seat> players) {
+        seats = players;
+        common ^= seatKeys(players);
+    }
+
+    private static int seatKeys(List<Seat> players) {
+        int h = 0;
+        for (int i = 0; i < players.size(); i++) {
+            h ^= key(SEAT, i, players.get(i).id());
+        }
+        return h;
+    }
+
+    static int phaseCode(String phase) {
+        return PHASES.indexOf(phase) + 1;
+    }
+
+    /** Key of one feature: murmur3 finalizer over the field/slot and both halves of the value. */
+    static int key(int field, int slot, long value) {
+        int h = fmix(field * 16 + slot);
+        h = fmix(h ^ (int) value);
+        return fmix(h ^ (int) (value >>> 32));
+    }
+
+    private static int fmix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,117 @@
+package org.powergrid.protocol;
+
+import org.powergrid.util.Metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+/**
+ * zlib compressor for outbound frames, negotiated in HELLO with {@code "compression": "deflate"}.
+ *
+ * Frames of at least {@link #MIN_BYTES} are deflated and sent as binary WebSocket frames; smaller
+ * frames (and any that would not shrink) stay as text.
+ *
+ * Every compressing connection shares the one {@link #DEFLATE} instance. A {@link Deflater} holds
+ * about 256 KB of native zlib memory, so instead of one per socket they are borrowed per frame
+ * from a pool sized to the number of cores: only frames being deflated at that moment hold one,
+ * and idle sockets hold none.
+ */
+public final class FrameCompressor {
+
+    public static final int MIN_BYTES = 512;
+
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    private static final int INITIAL_BUFFER = 4096;
+
+    private static final Metrics METRICS = Metrics.getInstance();
+    private static final LongAdder FRAMES_COMPRESSED = METRICS.counter(
+            "powergrid_ws_frames_compressed_total", "Outbound frames sent deflated");
+    private static final LongAdder FRAMES_SKIPPED = METRICS.counter(
+            "powergrid_ws_frames_uncompressed_total", "Outbound frames on compressing connections sent as text");
+    private static final LongAdder BYTES_IN = METRICS.counter(
+            "powergrid_ws_compression_input_bytes_total", "UTF-8 bytes of frames that were deflated");
+    private static final LongAdder BYTES_OUT = METRICS.counter(
+            "powergrid_ws_compression_output_bytes_total", "Bytes actually sent for deflated frames");
+    private static final LongAdder NANOS = METRICS.counter(
+            "powergrid_ws_compression_nanos_total", "CPU time spent deflating, in nanoseconds");
+    private static final LongAdder DEFLATERS_CREATED = METRICS.counter(
+            "powergrid_ws_deflaters_created_total", "Deflaters allocated because the shared pool was empty");
+
+    /** Declared after the pool size it reads. */
+    public static final FrameCompressor DEFLATE = new FrameCompressor();
+
+    private final ArrayBlockingQueue<PooledDeflater> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private FrameCompressor() {
+    }
+
+    /** Returns the compressor for the HELLO {@code compression} value, or {@code null} if unsupported/absent. */
+    public static FrameCompressor forMode(String mode) {
+        return "deflate".equals(mode) ? DEFLATE : null;
+    }
+
+    /**
+     * Returns the deflated bytes of {@code frame}, or {@code null} if it should go out as text
+     * (below {@link #MIN_BYTES}, or compression would not make it smaller). Safe to call from any
+     * thread.
+     */
+    public byte[] compress(String frame) {
+        byte[] input = frame.getBytes(StandardCharsets.UTF_8);
+        if (input.length < MIN_BYTES) {
+            FRAMES_SKIPPED.increment();
+            return null;
+        }
+
+        PooledDeflater pooled = pool.poll();
+        if (pooled == null) {
+            pooled = new PooledDeflater();
+            DEFLATERS_CREATED.increment();
+        }
+        try {
+            long start = System.nanoTime();
+            int len = pooled.deflate(input);
+            NANOS.add(System.nanoTime() - start);
+
+            if (len >= input.length) {
+                FRAMES_SKIPPED.increment();
+                return null;
+            }
+            FRAMES_COMPRESSED.increment();
+            BYTES_IN.add(input.length);
+            BYTES_OUT.add(len);
+            return Arrays.copyOf(pooled.buffer, len);
+        } finally {
+            if (!pool.offer(pooled)) {
+                pooled.deflater.end(); // pool is full: free the native memory now
+            }
+        }
+    }
+
+    /** Deflaters currently idle in the pool. */
+    int pooled() {
+        return pool.size();
+    }
+
+    /** A deflater and its output buffer, both reused across frames while pooled. */
+    private static final class PooledDeflater {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        byte[] buffer = new byte[INITIAL_BUFFER];
+
+        int deflate(byte[] input) {
+            deflater.reset();
+            deflater.setInput(input);
+            deflater.finish();
+            int len = 0;
+            while (!deflater.finished()) {
+                if (len == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                len += deflater.deflate(buffer, len, buffer.length - len);
+            }
+            return len;
+        }
+    }
+}
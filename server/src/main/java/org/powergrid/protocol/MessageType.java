@@ -10,13 +10,20 @@ public enum MessageType {
 
     // ─── Client → Server ────────────────────────────────────────────────────
 
-    /** Initial handshake. Payload: { "playerName": "..." } */
+    /**
+     * Initial handshake. Payload: { "playerName": "..." } plus optional
+     * "playerKey": "..." (a secret naming the client's rating account),
+     * "batch": bool (enables BATCH frames) and "compression": "deflate".
+     */
     HELLO,
 
     /** Request the current lobby room list. No payload. */
     LIST_ROOMS,
 
-    /** Create a new game room. Payload: { "roomName": "..." } */
+    /**
+     * Create a new game room. Payload: { "roomName": "...", "timeouts"?: { "AUCTION": seconds, ... },
+     * "hiddenMoney"?: bool, "map"?: "usa" | "germany" }
+     */
     CREATE_ROOM,
 
     /** Join an existing room. Payload: { "roomId": "..." } */
@@ -43,14 +50,44 @@ public enum MessageType {
     /** End the current player's turn. No payload. */
     END_TURN,
 
+    /**
+     * The client's checksum of a GAME_STATE_DELTA did not match (or it missed a version); the
+     * server answers with a full GAME_STATE_UPDATE. Payload: { "version": int }
+     */
+    STATE_MISMATCH,
+
+    /** Wait for a quick-match game. Payload: { "players": int } (game size, 2–6) */
+    QUICK_MATCH,
+
+    /** Leave the quick-match queue. No payload. */
+    CANCEL_MATCH,
+
+    /** Say something to everyone in the player's room or game. Payload: { "text": "..." } (at most 200 characters) */
+    CHAT_SEND,
+
+    /** Request the top of the leaderboard. No payload. */
+    GET_LEADERBOARD,
+
+    /** Request the player's own rank and the players around it. No payload. */
+    GET_RANK,
+
     /** Keep-alive ping. No payload. */
     PING,
 
     // ─── Server → Client ────────────────────────────────────────────────────
 
-    /** Assigns a player UUID after HELLO. Payload: { "playerId": "..." } */
+    /**
+     * Assigns a player id (base-36) after HELLO. Payload: { "playerId": "...", "ratingId": "...", "resumeToken": "..." },
+     * {@code ratingId} being the id the player appears under on the leaderboard.
+     */
     WELCOME,
 
+    /**
+     * A reconnecting socket was re-bound to its player. Sent before any replayed frames.
+     * Payload: { "playerId": "...", "resumeToken": "...", "lastSeq": long, "complete": bool }
+     */
+    RESUMED,
+
     /** Error response. Payload: { "code": "...", "message": "..." } */
     ERROR,
 
@@ -63,12 +100,27 @@ public enum MessageType {
     /** Room state changed (player joined/left). Payload: { "roomId": "...", "players": [ ... ] } */
     ROOM_UPDATED,
 
-    /** Game is about to begin. Payload: { "roomId": "..." } */
+    /** The player is waiting for a quick match; GAME_STARTING follows once one forms. Payload: { "players": int } */
+    MATCH_QUEUED,
+
+    /** The player left the quick-match queue. No payload. */
+    MATCH_CANCELLED,
+
+    /** Game is about to begin. Payload: { "roomId": "...", "map": "...", "regions": [ region names in play ] } */
     GAME_STARTING,
 
-    /** Full game state snapshot after every action. Payload: GameState JSON */
+    /**
+     * Full game state snapshot, as the recipient may see it. Payload: GameState JSON plus "version"
+     * and "checksum" ("turnDeadline" is epoch millis; other seats' "money" is omitted when hidden)
+     */
     GAME_STATE_UPDATE,
 
+    /**
+     * Only the top-level GameState fields that changed since "version" - 1. Payload: those fields
+     * plus "version": int and "checksum": uint32 of the resulting view (see StateChecksum).
+     */
+    GAME_STATE_DELTA,
+
     /** Indicates whose turn it is. Payload: { "playerId": "..." } */
     PLAYER_TURN,
 
@@ -84,6 +136,30 @@ public enum MessageType {
     /** Game ended. Payload: { "winnerId": "...", "reason": "..." } */
     GAME_OVER,
 
+    /**
+     * A chat line in the recipient's room or game; recent ones are also sent on joining.
+     * Payload: { "roomId": "...", "playerId": "...", "playerName": "...", "text": "...", "sentAt": epoch millis }
+     */
+    CHAT_MESSAGE,
+
+    /**
+     * Best-rated players. Payload: { "total": int, "players": [ entry, ... ] } where an entry is
+     * { "rank": int, "playerId": "...", "name": "...", "rating": int, "games": int }
+     */
+    LEADERBOARD,
+
+    /**
+     * The requester's standing. Payload: { "rank": int (0 until rated), "rating": int, "games": int,
+     * "total": int, "around": [ entry, ... ] } with entries as in LEADERBOARD, the requester included.
+     */
+    MY_RANK,
+
     /** Keep-alive response. No payload. */
-    PONG
+    PONG,
+
+    /**
+     * Several envelopes delivered in one frame (only if HELLO asked for {@code "batch": true}).
+     * Payload: [ { "seq": long, "type": "...", "payload": { ... } }, ... ] in delivery order.
+     */
+    BATCH
 }
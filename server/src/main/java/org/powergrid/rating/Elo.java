@@ -0,0 +1,42 @@
+package org.powergrid.rating;
+
+/**
+ * Multiplayer Elo: a game of n players is scored as every pair's head-to-head result, the better
+ * placed player winning, with each player's K split across its n − 1 opponents. New players move
+ * faster ({@link #PROVISIONAL_K} for their first {@link #PROVISIONAL_GAMES} games).
+ */
+final class Elo {
+
+    static final int K = 20;
+    static final int PROVISIONAL_K = 40;
+    static final int PROVISIONAL_GAMES = 20;
+
+    private Elo() {}
+
+    /**
+     * New ratings for one game. {@code ratings} and {@code games} (games played before this one)
+     * are in finishing order, winner first; the result is in the same order.
+     */
+    static int[] update(int[] ratings, int[] games) {
+        int n = ratings.length;
+        double[] delta = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double expected = expected(ratings[i], ratings[j]);
+                delta[i] += 1 - expected;
+                delta[j] -= 1 - expected;
+            }
+        }
+        int[] updated = new int[n];
+        for (int i = 0; i < n; i++) {
+            int k = games[i] < PROVISIONAL_GAMES ? PROVISIONAL_K : K;
+            updated[i] = Leaderboard.clamp(ratings[i] + (int) Math.round(k * delta[i] / Math.max(1, n - 1)));
+        }
+        return updated;
+    }
+
+    /** Probability that a player rated {@code a} beats one rated {@code b}. */
+    static double expected(int a, int b) {
+        return 1 / (1 + Math.pow(10, (b - a) / 400.0));
+    }
+}
@@ -0,0 +1,195 @@
+package org.powergrid.rating;
+
+import org.powergrid.util.LongLongMap;
+
+import java.util.Arrays;
+
+/**
+ * Players ordered by rating, with rank queries in O(log {@link #BUCKETS}) however many players
+ * are rated.
+ *
+ * Ratings are whole points clamped to [{@link #MIN_RATING}, {@link #MAX_RATING}], and each point
+ * is a bucket. A Fenwick tree over the buckets counts the players at or below a rating, so a rank
+ * is one prefix sum; moving a player is two point updates plus a swap-remove from its bucket's
+ * member array. Players on the same rating share a rank. Top-N and "around me" walk buckets
+ * outward from a starting rating, touching at most {@link #BUCKETS} of them.
+ *
+ * Not thread-safe — owned by {@link RatingService}, which locks around it.
+ */
+final class Leaderboard {
+
+    static final int MIN_RATING = 0;
+    static final int MAX_RATING = 4000;
+    static final int BUCKETS = MAX_RATING - MIN_RATING + 1;
+
+    private final int[] tree = new int[BUCKETS + 1];   // Fenwick tree, 1-based
+    private final long[][] members = new long[BUCKETS][];
+    private final int[] counts = new int[BUCKETS];
+    /** playerId → (bucket + 1) << 32 | index in the bucket; never {@code NONE}. */
+    private final LongLongMap slots;
+    private int size;
+
+    Leaderboard() {
+        this(16);
+    }
+
+    Leaderboard(int expectedPlayers) {
+        slots = new LongLongMap(expectedPlayers);
+    }
+
+    static int clamp(int rating) {
+        return Math.max(MIN_RATING, Math.min(MAX_RATING, rating));
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(long playerId) {
+        return slots.containsKey(playerId);
+    }
+
+    /** The player's rating, or -1 if unrated. */
+    int rating(long playerId) {
+        long slot = slots.get(playerId);
+        return slot == 0 ? -1 : (int) (slot >>> 32) - 1 + MIN_RATING;
+    }
+
+    /** Inserts the player or moves it to {@code rating}. */
+    void put(long playerId, int rating) {
+        int bucket = clamp(rating) - MIN_RATING;
+        long slot = slots.get(playerId);
+        if (slot != 0) {
+            if ((int) (slot >>> 32) - 1 == bucket) return;
+            unlink(playerId, slot);
+        } else {
+            size++;
+        }
+        link(playerId, bucket);
+    }
+
+    void remove(long playerId) {
+        long slot = slots.remove(playerId);
+        if (slot != 0) {
+            unlink(playerId, slot);
+            size--;
+        }
+    }
+
+    /** 1 + the number of players rated strictly higher, or 0 if unrated. */
+    int rank(long playerId) {
+        int rating = rating(playerId);
+        return rating < 0 ? 0 : 1 + countAbove(rating);
+    }
+
+    /** Number of players rated strictly above {@code rating}. */
+    int countAbove(int rating) {
+        return size - countAtOrBelow(clamp(rating) - MIN_RATING);
+    }
+
+    /** A player on the lowest rating, or 0 if nobody is rated. */
+    long lowest() {
+        if (size == 0) return 0;
+        // Fenwick descent to the longest prefix of empty buckets; the next bucket is the lowest in use
+        int pos = 0;
+        for (int step = Integer.highestOneBit(BUCKETS); step > 0; step >>= 1) {
+            if (pos + step <= BUCKETS && tree[pos + step] == 0) {
+                pos += step;
+            }
+        }
+        return members[pos][0];
+    }
+
+    /** Up to {@code n} players, best first. */
+    long[] top(int n) {
+        long[] ids = new long[Math.min(n, size)];
+        int k = 0;
+        for (int b = BUCKETS - 1; b >= 0 && k < ids.length; b--) {
+            for (int i = 0; i < counts[b] && k < ids.length; i++) {
+                ids[k++] = members[b][i];
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * The player plus up to {@code radius} players ranked just above and just below it, best
+     * first. Empty if the player is unrated.
+     */
+    long[] around(long playerId, int radius) {
+        int rating = rating(playerId);
+        if (rating < 0) return new long[0];
+        int own = rating - MIN_RATING;
+
+        long[] above = new long[radius];
+        int na = 0;
+        for (int b = own + 1; b < BUCKETS && na < radius; b++) {
+            for (int i = counts[b] - 1; i >= 0 && na < radius; i--) {
+                above[na++] = members[b][i]; // closest first
+            }
+        }
+        long[] result = new long[na + 1 + radius];
+        int k = 0;
+        for (int i = na - 1; i >= 0; i--) {
+            result[k++] = above[i];
+        }
+        result[k++] = playerId;
+        int below = 0;
+        for (int b = own; b >= 0 && below < radius; b--) {
+            for (int i = 0; i < counts[b] && below < radius; i++) {
+                if (members[b][i] != playerId) {
+                    result[k++] = members[b][i];
+                    below++;
+                }
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    // ─── Internals ───────────────────────────────────────────────────────────
+
+    private void link(long playerId, int bucket) {
+        long[] m = members[bucket];
+        if (m == null) {
+            m = members[bucket] = new long[4];
+        } else if (counts[bucket] == m.length) {
+            m = members[bucket] = Arrays.copyOf(m, m.length * 2);
+        }
+        int index = counts[bucket]++;
+        m[index] = playerId;
+        slots.put(playerId, (long) (bucket + 1) << 32 | index);
+        add(bucket, 1);
+    }
+
+    /** Removes the player from its bucket; the caller updates {@code slots} and {@code size}. */
+    private void unlink(long playerId, long slot) {
+        int bucket = (int) (slot >>> 32) - 1;
+        int index = (int) slot;
+        long[] m = members[bucket];
+        int last = --counts[bucket];
+        if (index != last) {
+            long moved = m[last];
+            m[index] = moved;
+            slots.put(moved, (long) (bucket + 1) << 32 | index);
+        }
+        m[last] = 0;
+        if (last == 0) {
+            members[bucket] = null;
+        }
+        add(bucket, -1);
+    }
+
+    private void add(int bucket, int delta) {
+        for (int i = bucket + 1; i <= BUCKETS; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private int countAtOrBelow(int bucket) {
+        int sum = 0;
+        for (int i = bucket + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,403 @@
+package org.powergrid.rating;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+import org.powergrid.model.Seat;
+import org.powergrid.protocol.MessageType;
+import org.powergrid.protocol.OutboundMessage;
+import org.powergrid.util.Ids;
+import org.powergrid.util.JsonMapper;
+import org.powergrid.util.LongLongMap;
+import org.powergrid.util.LongObjectMap;
+import org.powergrid.util.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Player ratings and the leaderboard, shared by every actor.
+ *
+ * Game sessions report each finished game's standings to {@link #recordGame}, which applies
+ * {@link Elo} and moves the players in the {@link Leaderboard}. Lobby matchmaking reads
+ * {@link #rating}; connection actors answer GET_LEADERBOARD and GET_RANK from
+ * {@link #leaderboardFrame} and {@link #rankFrame} without a message hop. The top-N frame is
+ * serialized once per change and then served as-is.
+ *
+ * Ratings belong to accounts, not to the per-socket player ids. A client that sends a persistent
+ * {@code playerKey} in HELLO is {@link #link linked} to the account {@link #accountId derived}
+ * from it for as long as its connection lives, so it keeps its rating across reconnects and
+ * server restarts. A client without a key is rated under its player id, which dies with its resume
+ * token. {@link #rating}, {@link #rank} and {@link #rankFrame} take player ids and resolve the
+ * account; {@link #recordGame} takes seats already keyed by account, which the session resolves
+ * when the game starts, so a player who leaves before it ends is still rated.
+ *
+ * All state is guarded by {@code this}; every operation is O(log n) or bounded by
+ * {@link #TOP_N}/{@link #AROUND}, and JSON is written outside the lock. With a snapshot file
+ * configured the table is loaded at start, written every {@code snapshot-interval} when it has
+ * changed, and once more on {@link #close}. Keyless players who will never play again still pile
+ * up; past {@code maxPlayers} the bottom of the table is dropped.
+ */
+public final class RatingService implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingService.class);
+
+    public static final int INITIAL_RATING = 1500;
+    /** Players in the LEADERBOARD frame. */
+    public static final int TOP_N = 20;
+    /** Players listed above and below the requester in MY_RANK. */
+    public static final int AROUND = 5;
+    public static final int DEFAULT_MAX_PLAYERS = 1_000_000;
+
+    private static final int SNAPSHOT_MAGIC = 0x50475231; // "PGR1"
+
+    private static final LongAdder GAMES_RATED = Metrics.getInstance().counter(
+            "powergrid_ratings_games_total", "Finished games applied to player ratings");
+    private static final LongAdder EVICTED = Metrics.getInstance().counter(
+            "powergrid_ratings_evicted_total", "Players dropped from the bottom of a full rating table");
+
+    private record Cached(long version, String frame) {}
+
+    private final Leaderboard board = new Leaderboard();
+    private final LongLongMap games = new LongLongMap();           // account → rated games
+    private final LongObjectMap<String> names = new LongObjectMap<>(); // one entry per rated account
+    private final LongLongMap accounts = new LongLongMap();        // connected playerId → account, if linked
+    private final Path snapshotFile;                                // null: memory only
+    private final int maxPlayers;
+    private volatile long version;                                  // written under the lock
+    private long savedVersion;                                      // guarded by this
+    private volatile Cached top;
+    private ScheduledExecutorService snapshots;
+
+    public RatingService() {
+        this(DEFAULT_MAX_PLAYERS);
+    }
+
+    /** In memory only, keeping the best {@code maxPlayers}. */
+    public RatingService(int maxPlayers) {
+        this(null, maxPlayers);
+    }
+
+    private RatingService(Path snapshotFile, int maxPlayers) {
+        if (maxPlayers < 1) {
+            throw new IllegalArgumentException("maxPlayers must be positive: " + maxPlayers);
+        }
+        this.snapshotFile = snapshotFile;
+        this.maxPlayers = maxPlayers;
+    }
+
+    /** Loads {@code snapshotFile} if it exists; {@link #save} writes back to it. */
+    public static RatingService open(Path snapshotFile) throws IOException {
+        return open(snapshotFile, DEFAULT_MAX_PLAYERS);
+    }
+
+    public static RatingService open(Path snapshotFile, int maxPlayers) throws IOException {
+        RatingService service = new RatingService(snapshotFile, maxPlayers);
+        if (Files.exists(snapshotFile)) {
+            service.load();
+        }
+        return service;
+    }
+
+    /**
+     * Reads {@code powergrid.ratings}: an empty {@code snapshot-file} keeps ratings in memory only,
+     * otherwise snapshots are written every {@code snapshot-interval}. The table holds at most
+     * {@code max-players}.
+     */
+    public static RatingService fromConfig(Config config) {
+        String base = "powergrid.ratings";
+        String file = config.hasPath(base + ".snapshot-file") ? config.getString(base + ".snapshot-file") : "";
+        int maxPlayers = config.hasPath(base + ".max-players")
+                ? config.getInt(base + ".max-players") : DEFAULT_MAX_PLAYERS;
+        if (file.isBlank()) {
+            return new RatingService(maxPlayers);
+        }
+        Duration interval = config.hasPath(base + ".snapshot-interval")
+                ? config.getDuration(base + ".snapshot-interval") : Duration.ofMinutes(1);
+        try {
+            return open(Path.of(file), maxPlayers).startSnapshots(interval);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load ratings from " + file, e);
+        }
+    }
+
+    /** Registers the rating gauges on {@code /metrics}. */
+    public RatingService registerMetrics() {
+        Metrics.getInstance().gauge("powergrid_rated_players", "Players on the leaderboard", this::size);
+        return this;
+    }
+
+    /** Saves on a daemon thread every {@code interval} if anything changed. */
+    public synchronized RatingService startSnapshots(Duration interval) {
+        if (snapshotFile != null && snapshots == null) {
+            snapshots = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "rating-snapshots");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = interval.toMillis();
+            snapshots.scheduleWithFixedDelay(this::saveQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = snapshots;
+            snapshots = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        saveQuietly();
+    }
+
+    // ─── Accounts ────────────────────────────────────────────────────────────
+
+    /**
+     * The account of a client's secret {@code playerKey}: the first 63 bits of its SHA-256, so
+     * the key itself never reaches the table, the snapshot or the leaderboard.
+     */
+    public static long accountId(String playerKey) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(playerKey.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JDK has SHA-256
+        }
+        long id = ByteBuffer.wrap(digest).getLong() >>> 1;
+        return id != Ids.NONE ? id : 1;
+    }
+
+    /** Rates {@code playerId} as {@code account} until {@link #unlink}. */
+    public synchronized void link(long playerId, long account) {
+        accounts.put(playerId, account);
+    }
+
+    public synchronized void unlink(long playerId) {
+        accounts.remove(playerId);
+    }
+
+    /** The account {@code playerId} is rated as: its linked account, or the player id itself. */
+    public synchronized long account(long playerId) {
+        long account = accounts.get(playerId);
+        return account != Ids.NONE ? account : playerId;
+    }
+
+    // ─── Ratings ─────────────────────────────────────────────────────────────
+
+    public synchronized int size() {
+        return board.size();
+    }
+
+    /** The player's rating, or {@link #INITIAL_RATING} before its first rated game. */
+    public synchronized int rating(long playerId) {
+        int rating = board.rating(account(playerId));
+        return rating < 0 ? INITIAL_RATING : rating;
+    }
+
+    /** Rank among rated players (ties share a rank), or 0 if unrated. */
+    public synchronized int rank(long playerId) {
+        return board.rank(account(playerId));
+    }
+
+    /**
+     * Applies one finished game; {@code standings} are the seats in finishing order, winner first,
+     * each with its {@link #account} as the id.
+     */
+    public void recordGame(List<Seat> standings) {
+        int n = standings.size();
+        if (n < 2) return;
+        synchronized (this) {
+            int[] ratings = new int[n];
+            int[] played = new int[n];
+            for (int i = 0; i < n; i++) {
+                long id = standings.get(i).id();
+                int rating = board.rating(id);
+                ratings[i] = rating < 0 ? INITIAL_RATING : rating;
+                played[i] = (int) games.get(id);
+            }
+            int[] updated = Elo.update(ratings, played);
+            for (int i = 0; i < n; i++) {
+                Seat seat = standings.get(i);
+                board.put(seat.id(), updated[i]);
+                games.put(seat.id(), played[i] + 1L);
+                names.put(seat.id(), seat.name() != null ? seat.name() : "");
+            }
+            trim();
+            version++;
+        }
+        GAMES_RATED.increment();
+    }
+
+    /** Drops players from the bottom of the table until it fits; called with the lock held. */
+    private void trim() {
+        while (board.size() > maxPlayers) {
+            long id = board.lowest();
+            board.remove(id);
+            games.remove(id);
+            names.remove(id);
+            EVICTED.increment();
+        }
+    }
+
+    // ─── Frames ──────────────────────────────────────────────────────────────
+
+    /** {@code LEADERBOARD {"total", "players": [top N entries]}}, re-serialized only after a change. */
+    public String leaderboardFrame() {
+        Cached cached = top;
+        if (cached != null && cached.version() == version) {
+            return cached.frame();
+        }
+        ObjectNode payload = JsonMapper.getInstance().createObjectNode();
+        long at;
+        synchronized (this) {
+            at = version;
+            payload.put("total", board.size());
+            entries(payload.putArray("players"), board.top(TOP_N));
+        }
+        String frame = frame(MessageType.LEADERBOARD, payload);
+        top = new Cached(at, frame);
+        return frame;
+    }
+
+    /**
+     * {@code MY_RANK {"rank", "rating", "games", "total", "around": [entries]}}; rank 0 and an
+     * empty {@code around} until the player has finished a game.
+     */
+    public String rankFrame(long playerId) {
+        ObjectNode payload = JsonMapper.getInstance().createObjectNode();
+        synchronized (this) {
+            long account = account(playerId);
+            int rating = board.rating(account);
+            payload.put("rank", board.rank(account))
+                    .put("rating", rating < 0 ? INITIAL_RATING : rating)
+                    .put("games", games.get(account))
+                    .put("total", board.size());
+            entries(payload.putArray("around"), board.around(account, AROUND));
+        }
+        return frame(MessageType.MY_RANK, payload);
+    }
+
+    /** Entries {@code {rank, playerId, name, rating, games}}, {@code playerId} being the account; called with the lock held. */
+    private void entries(ArrayNode array, long[] ids) {
+        for (long id : ids) {
+            int rating = board.rating(id);
+            array.addObject()
+                    .put("rank", 1 + board.countAbove(rating))
+                    .put("playerId", Ids.format(id))
+                    .put("name", names.get(id))
+                    .put("rating", rating)
+                    .put("games", games.get(id));
+        }
+    }
+
+    private static String frame(MessageType type, ObjectNode payload) {
+        try {
+            return JsonMapper.getInstance().writeValueAsString(new OutboundMessage(type, payload));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ─── Snapshots ───────────────────────────────────────────────────────────
+
+    /**
+     * Writes the table to the snapshot file if it changed since the last save. The table is copied
+     * under the lock and written outside it, to a temporary file that then replaces the old one.
+     */
+    public void save() throws IOException {
+        if (snapshotFile == null) return;
+        long at;
+        long[] ids;
+        int[] ratings;
+        int[] played;
+        String[] playerNames;
+        synchronized (this) {
+            if (version == savedVersion && Files.exists(snapshotFile)) return;
+            at = version;
+            int n = board.size();
+            ids = new long[n];
+            ratings = new int[n];
+            played = new int[n];
+            playerNames = new String[n];
+            int[] k = {0};
+            names.forEach((name, id) -> {
+                ids[k[0]] = id;
+                ratings[k[0]] = board.rating(id);
+                played[k[0]] = (int) games.get(id);
+                playerNames[k[0]] = name;
+                k[0]++;
+            });
+        }
+        Path parent = snapshotFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, "ratings", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                out.writeLong(ids[i]);
+                out.writeShort(ratings[i]);
+                out.writeInt(played[i]);
+                out.writeUTF(playerNames[i]);
+            }
+        }
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        synchronized (this) {
+            savedVersion = Math.max(savedVersion, at);
+        }
+        log.debug("Saved {} ratings to {}", ids.length, snapshotFile);
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to save ratings to {}", snapshotFile, e);
+        }
+    }
+
+    private synchronized void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a ratings snapshot: " + snapshotFile);
+            }
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                long id = in.readLong();
+                int rating = in.readShort();
+                int played = in.readInt();
+                String name = in.readUTF();
+                board.put(id, rating);
+                games.put(id, played);
+                names.put(id, name);
+            }
+        }
+        trim();
+        savedVersion = version;
+        log.info("Loaded {} ratings from {}", board.size(), snapshotFile);
+    }
+}
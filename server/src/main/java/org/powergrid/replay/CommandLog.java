@@ -0,0 +1,201 @@
+package org.powergrid.replay;
+
+import org.powergrid.protocol.MessageType;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * File format of a {@link CommandRecorder} recording, and a streaming reader for it.
+ *
+ * A recording is an 8-byte header ({@code "PGR1"}, then the version as a big-endian int) followed
+ * by entries. Integers are LEB128 varints and strings UTF-8 with a varint length, as in the game
+ * archive; each entry's time is stored relative to the previous entry's, in microseconds.
+ *
+ * <pre>
+ * kind Δmicros id [type payload]
+ * </pre>
+ *
+ * {@code id} is the player for every kind but {@code ROOM}, where it is the room id the lobby
+ * handed out. {@code type} and {@code payload} follow only {@code MESSAGE}; the type is stored by
+ * name so that reordering {@link MessageType} does not break old recordings, and a {@code null}
+ * payload is stored as length 0 (a present one as its length + 1).
+ */
+public final class CommandLog {
+
+    static final int MAGIC = 0x50475231; // "PGR1"
+    static final int VERSION = 1;
+
+    /** What a recording entry stands for at the connection boundary. */
+    public enum Kind {
+        /** A socket came up for {@code id}'s connection actor. */
+        OPEN,
+        /** That socket closed; the seat is held for the resume grace period. */
+        CLOSE,
+        /** A new socket resumed {@code id}'s connection. */
+        RESUME,
+        /** The lobby handed out room id {@code id}. */
+        ROOM,
+        /** {@code id} sent a decoded command. */
+        MESSAGE
+    }
+
+    /**
+     * One recorded event. {@code type} is {@code null} for kinds other than MESSAGE, and for
+     * message types this build no longer has.
+     */
+    public record Entry(Kind kind, long atMicros, long id, MessageType type, String payload) {}
+
+    private CommandLog() {}
+
+    /** Opens {@code file} for reading entries in recorded order. */
+    public static Reader open(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        try {
+            if (readInt(in) != MAGIC) {
+                throw new IOException(file + " is not a command recording");
+            }
+            int version = readInt(in);
+            if (version != VERSION) {
+                throw new IOException(file + " has unsupported recording version " + version);
+            }
+            return new Reader(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /** Reads entries one at a time; a recording cut short by a crash simply ends early. */
+    public static final class Reader implements AutoCloseable {
+        private static final Kind[] KINDS = Kind.values();
+
+        private final InputStream in;
+        private long atMicros;
+
+        private Reader(InputStream in) {
+            this.in = in;
+        }
+
+        /** The next entry, or {@code null} at the end of the recording. */
+        public Entry next() throws IOException {
+            int kind = in.read();
+            if (kind < 0) return null;
+            try {
+                if (kind >= KINDS.length) {
+                    throw new IOException("Unknown recording entry kind " + kind);
+                }
+                atMicros += readVarLong(in);
+                long id = readVarLong(in);
+                if (KINDS[kind] != Kind.MESSAGE) {
+                    return new Entry(KINDS[kind], atMicros, id, null, null);
+                }
+                String typeName = readString(in, false);
+                String payload = readString(in, true);
+                return new Entry(Kind.MESSAGE, atMicros, id, typeOf(typeName), payload);
+            } catch (EOFException e) {
+                return null; // torn final entry
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private static MessageType typeOf(String name) {
+            try {
+                return MessageType.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    // ─── Encoding ────────────────────────────────────────────────────────────
+
+    static void writeHeader(OutputStream out) throws IOException {
+        writeInt(out, MAGIC);
+        writeInt(out, VERSION);
+    }
+
+    static void writeEntry(OutputStream out, Kind kind, long deltaMicros, long id, MessageType type, String payload)
+            throws IOException {
+        out.write(kind.ordinal());
+        writeVarLong(out, deltaMicros);
+        writeVarLong(out, id);
+        if (kind == Kind.MESSAGE) {
+            writeString(out, type.name(), false);
+            writeString(out, payload, true);
+        }
+    }
+
+    private static void writeInt(OutputStream out, int v) throws IOException {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        int v = 0;
+        for (int i = 0; i < 4; i++) {
+            v = v << 8 | readByte(in);
+        }
+        return v;
+    }
+
+    private static void writeVarLong(OutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte(in);
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeString(OutputStream out, String s, boolean nullable) throws IOException {
+        if (s == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, nullable ? utf8.length + 1L : utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(InputStream in, boolean nullable) throws IOException {
+        long length = readVarLong(in);
+        if (nullable) {
+            if (length == 0) return null;
+            length--;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("String too long: " + length);
+        }
+        byte[] utf8 = in.readNBytes((int) length);
+        if (utf8.length < length) throw new EOFException();
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException();
+        return b;
+    }
+}
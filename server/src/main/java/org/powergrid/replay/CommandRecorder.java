@@ -0,0 +1,178 @@
+package org.powergrid.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.typesafe.config.Config;
+import org.powergrid.protocol.MessageType;
+import org.powergrid.util.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional log of everything players send, in the {@link CommandLog} format, so real traffic can
+ * be replayed against a fresh server with {@link CommandReplay}.
+ *
+ * Connection actors report each decoded command plus their socket coming up, closing and resuming;
+ * the lobby reports the room ids it hands out, so a replay can reuse them. Calls only stamp the
+ * time and queue the entry — a background thread encodes and writes it — and are safe from any
+ * thread. When the writer falls {@value #QUEUE_CAPACITY} entries behind, further entries are
+ * dropped and counted rather than stalling the actors.
+ */
+public final class CommandRecorder implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CommandRecorder.class);
+
+    static final int QUEUE_CAPACITY = 65_536;
+
+    private static final LongAdder RECORDED = Metrics.getInstance().counter(
+            "powergrid_recorder_entries_total", "Entries written to the command recording");
+    private static final LongAdder DROPPED = Metrics.getInstance().counter(
+            "powergrid_recorder_dropped_total", "Entries dropped because the command recorder fell behind");
+    private static final CommandRecorder DISABLED = new CommandRecorder(null, null);
+
+    private final Path file;                 // null: recording is disabled
+    private final OutputStream out;          // writer thread only
+    private final ThreadPoolExecutor writer;
+    private long lastMicros;                 // writer thread only
+
+    private CommandRecorder(Path file, OutputStream out) {
+        this.file = file;
+        this.out = out;
+        this.writer = file == null ? null : new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                    Thread thread = new Thread(r, "command-recorder");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /** Starts a new recording in {@code file}, replacing any file already there. */
+    public static CommandRecorder open(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+        CommandLog.writeHeader(out);
+        log.info("Recording player commands to {}", file);
+        return new CommandRecorder(file, out);
+    }
+
+    /** A recorder that records nothing; the default, and what tests and replays use. */
+    public static CommandRecorder disabled() {
+        return DISABLED;
+    }
+
+    /** Reads {@code powergrid.recording.file}; an empty or missing path disables recording. */
+    public static CommandRecorder fromConfig(Config config) {
+        String path = config.hasPath("powergrid.recording.file") ? config.getString("powergrid.recording.file") : "";
+        if (path.isBlank()) return disabled();
+        try {
+            return open(Path.of(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open command recording at " + path, e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return writer != null;
+    }
+
+    // ─── Recording ───────────────────────────────────────────────────────────
+
+    public void opened(long playerId) {
+        record(CommandLog.Kind.OPEN, playerId, null, null);
+    }
+
+    public void closed(long playerId) {
+        record(CommandLog.Kind.CLOSE, playerId, null, null);
+    }
+
+    public void resumed(long playerId) {
+        record(CommandLog.Kind.RESUME, playerId, null, null);
+    }
+
+    /** Records {@code roomId} as handed out by the lobby, and returns it. */
+    public long roomCreated(long roomId) {
+        record(CommandLog.Kind.ROOM, roomId, null, null);
+        return roomId;
+    }
+
+    public void received(long playerId, MessageType type, JsonNode payload) {
+        if (writer == null || type == null) return;
+        record(CommandLog.Kind.MESSAGE, playerId, type, payload == null || payload.isNull() ? null : payload.toString());
+    }
+
+    /** Waits until every entry queued so far is written, then flushes the file. */
+    public void flush() {
+        if (writer == null) return;
+        try {
+            writer.submit(() -> {
+                out.flush();
+                return null;
+            }).get();
+        } catch (Exception e) {
+            log.warn("Could not flush command recording {}", file, e);
+        }
+    }
+
+    /** Writes out what is queued and closes the file. */
+    @Override
+    public void close() {
+        if (writer == null) return;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Command recorder did not drain in time; the recording may be cut short");
+            }
+            out.close();
+        } catch (IOException e) {
+            log.warn("Could not close command recording {}", file, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ─── Internals ───────────────────────────────────────────────────────────
+
+    private void record(CommandLog.Kind kind, long id, MessageType type, String payload) {
+        if (writer == null) return;
+        long micros = System.nanoTime() / 1_000;
+        try {
+            writer.execute(() -> write(kind, micros, id, type, payload));
+        } catch (RejectedExecutionException e) {
+            DROPPED.increment();
+        }
+    }
+
+    private void write(CommandLog.Kind kind, long micros, long id, MessageType type, String payload) {
+        // Entries from different actors can be queued slightly out of time order; never go backwards
+        long delta = lastMicros == 0 ? 0 : Math.max(0, micros - lastMicros);
+        lastMicros = Math.max(lastMicros, micros);
+        try {
+            CommandLog.writeEntry(out, kind, delta, id, type, payload);
+            RECORDED.increment();
+        } catch (IOException e) {
+            DROPPED.increment();
+            log.error("Failed to write command recording {}", file, e);
+        }
+        if (writer.getQueue().isEmpty()) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                log.error("Failed to flush command recording {}", file, e);
+            }
+        }
+    }
+}
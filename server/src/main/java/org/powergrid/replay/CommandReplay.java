@@ -0,0 +1,315 @@
+package org.powergrid.replay;
+
+import org.apache.pekko.Done;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.Props;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.apache.pekko.http.javadsl.model.ws.Message;
+import org.apache.pekko.stream.OverflowStrategy;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.apache.pekko.stream.javadsl.SourceQueueWithComplete;
+import org.powergrid.actor.LobbyActor;
+import org.powergrid.actor.PlayerConnectionActor;
+import org.powergrid.actor.ResumeRegistry;
+import org.powergrid.admin.AdminDirectory;
+import org.powergrid.archive.GameArchive;
+import org.powergrid.chat.ChatDirectory;
+import org.powergrid.rating.RatingService;
+import org.powergrid.spectator.SpectatorDirectory;
+import org.powergrid.util.Ids;
+import org.powergrid.util.JsonMapper;
+import org.powergrid.util.LongObjectMap;
+import org.powergrid.util.TimerWheel;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plays a {@link CommandRecorder} recording into a fresh lobby, with real connection actors whose
+ * sockets are counting sinks, and reports what came out.
+ *
+ * Entries are delivered in recorded order, either on the recorded schedule ({@link Mode#REAL_TIME})
+ * or back to back ({@link Mode#FAST}). Turn deadlines run on a {@link TimerWheel} driven by a
+ * virtual clock that jumps to each entry's recorded time, so timeouts fire where they fell in the
+ * recording however fast it is played; the lobby reuses the recorded room ids, so JOIN_ROOM
+ * payloads stay valid. Pekko's own timers (batching, resume grace, HELLO timeout) still run on the
+ * wall clock.
+ *
+ * Commands from one player keep their order in both modes. In FAST mode each command is also
+ * handled before the next is delivered: the replay waits for a {@code Sync} to come back through
+ * the player's connection and on to the lobby or game session it forwarded to, so commands from
+ * different players are applied in recorded order. Quick-match pairing, which goes through the
+ * matchmaker, and turn timeouts are not awaited.
+ *
+ * Outbound frames carry fresh ids and tokens and cannot be compared byte for byte; the
+ * {@link Result} counts them instead: all frames, GAME_STARTING and GAME_OVER frames (one per
+ * player in the game), game state frames (full or delta, one per seat per change), and ERROR
+ * frames by code.
+ * Frames a client asked to have compressed are counted but not inspected.
+ *
+ * Usage: {@code CommandReplay <recording> [--real-time]}, or {@code ./gradlew replay -Precording=…}.
+ */
+public final class CommandReplay {
+
+    public enum Mode { REAL_TIME, FAST }
+
+    /** How long output must stay quiet after the last entry before the replay counts as done. */
+    static final Duration SETTLE = Duration.ofMillis(500);
+    static final Duration MAX_SETTLE = Duration.ofSeconds(30);
+    /** Longest wait for a command to be handled in FAST mode, e.g. if its game stopped meanwhile. */
+    static final Duration SYNC_TIMEOUT = Duration.ofSeconds(1);
+
+    private static final Pattern ERROR_CODE = Pattern.compile("\"type\":\"ERROR\",\"payload\":\\{\"code\":\"([A-Z_]+)\"");
+
+    /**
+     * What a replay did. {@code elapsed} runs from the first entry to the last one being delivered,
+     * so in FAST mode {@link #commandsPerSecond()} is the rate of commands handled one at a time.
+     */
+    public record Result(long entries, long commands, long frames, long gameStartingFrames, long gameOverFrames,
+                         long stateFrames, Map<String, Long> errors, Duration elapsed) {
+
+        public double commandsPerSecond() {
+            return commands / Math.max(1e-9, elapsed.toNanos() / 1e9);
+        }
+
+        public long errorCount() {
+            return errors.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public String toJson() {
+            var json = JsonMapper.getInstance().createObjectNode()
+                    .put("entries", entries)
+                    .put("commands", commands)
+                    .put("frames", frames)
+                    .put("gameStartingFrames", gameStartingFrames)
+                    .put("gameOverFrames", gameOverFrames)
+                    .put("stateFrames", stateFrames)
+                    .put("elapsedMillis", elapsed.toMillis())
+                    .put("commandsPerSecond", Math.round(commandsPerSecond()));
+            var codes = json.putObject("errors");
+            errors.forEach(codes::put);
+            return json.toString();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 2 || (args.length == 2 && !args[1].equals("--real-time"))) {
+            System.err.println("usage: CommandReplay <recording> [--real-time]");
+            System.exit(2);
+        }
+        Result result = run(Path.of(args[0]), args.length == 2 ? Mode.REAL_TIME : Mode.FAST);
+        System.out.println(result.toJson());
+        System.exit(0); // the replay's actor system is already down; don't wait on stray daemon threads
+    }
+
+    /** Replays {@code recording} into a new actor system, waits for the output to settle and shuts it down. */
+    public static Result run(Path recording, Mode mode) throws IOException, InterruptedException {
+        RecordedRoomIds roomIds = RecordedRoomIds.read(recording);
+        AtomicLong virtualNanos = new AtomicLong();
+        TimerWheel wheel = new TimerWheel(TimerWheel.DEFAULT_TICK, TimerWheel.DEFAULT_SLOTS, virtualNanos::get);
+        ChatDirectory chat = new ChatDirectory();
+        RatingService ratings = new RatingService();
+        ActorSystem<LobbyActor.Command> system = ActorSystem.create(
+                LobbyActor.create(new SpectatorDirectory(), new AdminDirectory(), chat, GameArchive.disabled(),
+                        ratings, wheel, roomIds),
+                "powergrid-replay");
+        try {
+            return new Replayer(system, new ResumeRegistry(), chat, ratings, wheel, virtualNanos).play(recording, mode);
+        } finally {
+            system.terminate();
+            system.getWhenTerminated().toCompletableFuture().join();
+        }
+    }
+
+    // ─── Internals ───────────────────────────────────────────────────────────
+
+    /** Room ids in the order the recording's lobby handed them out, then fresh ones. */
+    private static final class RecordedRoomIds implements LongSupplier {
+        private final long[] ids;
+        private int next; // lobby thread only
+
+        private RecordedRoomIds(long[] ids) {
+            this.ids = ids;
+        }
+
+        static RecordedRoomIds read(Path recording) throws IOException {
+            long[] ids = new long[16];
+            int n = 0;
+            try (CommandLog.Reader reader = CommandLog.open(recording)) {
+                for (CommandLog.Entry e = reader.next(); e != null; e = reader.next()) {
+                    if (e.kind() != CommandLog.Kind.ROOM) continue;
+                    if (n == ids.length) ids = Arrays.copyOf(ids, n * 2);
+                    ids[n++] = e.id();
+                }
+            }
+            return new RecordedRoomIds(Arrays.copyOf(ids, n));
+        }
+
+        @Override
+        public long getAsLong() {
+            return next < ids.length ? ids[next++] : Ids.next();
+        }
+    }
+
+    private record Socket(ActorRef<PlayerConnectionActor.Command> connection, SourceQueueWithComplete<Message> queue) {}
+
+    private static final class Replayer {
+        private final ActorSystem<LobbyActor.Command> system;
+        private final ResumeRegistry resumeRegistry;
+        private final ChatDirectory chat;
+        private final RatingService ratings;
+        private final TimerWheel wheel;
+        private final AtomicLong virtualNanos;
+        private final LongObjectMap<Socket> sockets = new LongObjectMap<>();
+        private final LongAdder frames = new LongAdder();
+        private final LongAdder gameStartingFrames = new LongAdder();
+        private final LongAdder gameOverFrames = new LongAdder();
+        private final LongAdder stateFrames = new LongAdder();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        Replayer(ActorSystem<LobbyActor.Command> system, ResumeRegistry resumeRegistry, ChatDirectory chat,
+                 RatingService ratings, TimerWheel wheel, AtomicLong virtualNanos) {
+            this.system = system;
+            this.resumeRegistry = resumeRegistry;
+            this.chat = chat;
+            this.ratings = ratings;
+            this.wheel = wheel;
+            this.virtualNanos = virtualNanos;
+        }
+
+        Result play(Path recording, Mode mode) throws IOException, InterruptedException {
+            long entries = 0;
+            long commands = 0;
+            long startNanos = System.nanoTime();
+            try (CommandLog.Reader reader = CommandLog.open(recording)) {
+                for (CommandLog.Entry e = reader.next(); e != null; e = reader.next()) {
+                    entries++;
+                    long at = e.atMicros() * 1_000;
+                    if (mode == Mode.REAL_TIME) {
+                        for (long wait; (wait = startNanos + at - System.nanoTime()) > 0; ) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    }
+                    virtualNanos.set(at);
+                    wheel.advance(at);
+                    if (deliver(e)) {
+                        commands++;
+                        if (mode == Mode.FAST) awaitHandled(sockets.get(e.id()).connection());
+                    }
+                }
+            }
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+            settle();
+
+            Map<String, Long> errorCounts = new TreeMap<>();
+            errors.forEach((code, count) -> errorCounts.put(code, count.sum()));
+            return new Result(entries, commands, frames.sum(), gameStartingFrames.sum(), gameOverFrames.sum(),
+                    stateFrames.sum(), errorCounts, elapsed);
+        }
+
+        /** Applies one entry; returns whether it was a player command. */
+        private boolean deliver(CommandLog.Entry e) {
+            Socket socket = sockets.get(e.id());
+            switch (e.kind()) {
+                case OPEN -> {
+                    ActorRef<PlayerConnectionActor.Command> connection = socket != null ? socket.connection()
+                            : system.systemActorOf(
+                                    PlayerConnectionActor.create(e.id(), system, resumeRegistry, chat, ratings),
+                                    "player-" + Ids.format(e.id()),
+                                    Props.empty());
+                    SourceQueueWithComplete<Message> queue = openSocket();
+                    sockets.put(e.id(), new Socket(connection, queue));
+                    connection.tell(new PlayerConnectionActor.Attach(queue));
+                }
+                case CLOSE -> {
+                    if (socket != null) {
+                        socket.connection().tell(new PlayerConnectionActor.ConnectionClosed(socket.queue()));
+                    }
+                }
+                case RESUME -> {
+                    if (socket != null) {
+                        SourceQueueWithComplete<Message> queue = openSocket();
+                        sockets.put(e.id(), new Socket(socket.connection(), queue));
+                        // The recording does not know which frames the client had seen
+                        socket.connection().tell(new PlayerConnectionActor.Reattach(queue, 0));
+                    }
+                }
+                case MESSAGE -> {
+                    if (socket == null || e.type() == null) return false;
+                    String json = e.payload() == null
+                            ? "{\"type\":\"" + e.type() + "\"}"
+                            : "{\"type\":\"" + e.type() + "\",\"payload\":" + e.payload() + "}";
+                    socket.connection().tell(new PlayerConnectionActor.IncomingText(json));
+                    return true;
+                }
+                case ROOM -> {
+                    // consumed up front by RecordedRoomIds
+                }
+            }
+            return false;
+        }
+
+        /** Waits until the command just given to {@code connection} has been handled downstream. */
+        private void awaitHandled(ActorRef<PlayerConnectionActor.Command> connection) throws InterruptedException {
+            try {
+                AskPattern.<PlayerConnectionActor.Command, Done>ask(
+                                connection, PlayerConnectionActor.Sync::new, SYNC_TIMEOUT, system.scheduler())
+                        .toCompletableFuture().get();
+            } catch (ExecutionException e) {
+                // Timed out: the session it went to has stopped; carry on
+            }
+        }
+
+        private SourceQueueWithComplete<Message> openSocket() {
+            return Source.<Message>queue(256, OverflowStrategy.dropHead())
+                    .to(Sink.foreach(this::count))
+                    .run(system);
+        }
+
+        private void count(Message message) {
+            frames.increment();
+            if (!message.isText()) return;
+            String text = message.asTextMessage().getStrictText();
+            gameStartingFrames.add(occurrences(text, "\"type\":\"GAME_STARTING\""));
+            gameOverFrames.add(occurrences(text, "\"type\":\"GAME_OVER\""));
+            stateFrames.add(occurrences(text, "\"type\":\"GAME_STATE_UPDATE\"")
+                    + occurrences(text, "\"type\":\"GAME_STATE_DELTA\""));
+            Matcher m = ERROR_CODE.matcher(text);
+            while (m.find()) {
+                errors.computeIfAbsent(m.group(1), code -> new LongAdder()).increment();
+            }
+        }
+
+        /** Waits until no frame has arrived for {@link #SETTLE}, or {@link #MAX_SETTLE} at most. */
+        private void settle() throws InterruptedException {
+            long deadline = System.nanoTime() + MAX_SETTLE.toNanos();
+            long seen = -1;
+            while (frames.sum() != seen && System.nanoTime() < deadline) {
+                seen = frames.sum();
+                Thread.sleep(SETTLE.toMillis());
+            }
+        }
+
+        private static int occurrences(String text, String needle) {
+            int count = 0;
+            for (int i = text.indexOf(needle); i >= 0; i = text.indexOf(needle, i + needle.length())) {
+                count++;
+            }
+            return count;
+        }
+    }
+}
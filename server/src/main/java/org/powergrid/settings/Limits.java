@@ -0,0 +1,58 @@
+package org.powergrid.settings;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+import org.powergrid.model.PhaseTimeouts;
+import org.powergrid.model.RoomState;
+import org.powergrid.util.JsonMapper;
+
+import java.time.Duration;
+import java.util.TreeMap;
+
+/**
+ * Server limits that can be retuned while the server runs (see {@link LiveSettings}).
+ *
+ * {@code timeouts} are the server-wide turn limits from {@code powergrid.timeouts}; the rest come
+ * from {@code powergrid.limits}. {@code maxRoomPlayers} caps the seats a room or quick match may
+ * fill (2 to {@link RoomState#MAX_PLAYERS}); {@code outQueueSize} is how many outbound frames a
+ * socket buffers before the oldest is dropped (the replay buffer still has them);
+ * {@code frameReadTimeout} is how long a streamed inbound WebSocket frame may take to arrive in full.
+ *
+ * Out-of-range values are rejected rather than clamped, so a bad reload leaves the running limits alone.
+ */
+public record Limits(PhaseTimeouts timeouts, int maxRoomPlayers, int outQueueSize, Duration frameReadTimeout) {
+
+    public static final Limits DEFAULT = new Limits(PhaseTimeouts.DEFAULT, RoomState.MAX_PLAYERS, 256, Duration.ofSeconds(5));
+
+    public Limits {
+        if (maxRoomPlayers < 2 || maxRoomPlayers > RoomState.MAX_PLAYERS) {
+            throw new IllegalArgumentException("max-room-players must be 2 to " + RoomState.MAX_PLAYERS + ": " + maxRoomPlayers);
+        }
+        if (outQueueSize < 1) {
+            throw new IllegalArgumentException("out-queue-size must be positive: " + outQueueSize);
+        }
+        if (frameReadTimeout.isNegative() || frameReadTimeout.isZero()) {
+            throw new IllegalArgumentException("frame-read-timeout must be positive: " + frameReadTimeout);
+        }
+    }
+
+    /** Reads {@code powergrid.timeouts} and {@code powergrid.limits}; missing keys keep the {@link #DEFAULT} values. */
+    public static Limits fromConfig(Config config) {
+        String base = "powergrid.limits";
+        return new Limits(
+                PhaseTimeouts.fromConfig(config),
+                config.hasPath(base + ".max-room-players") ? config.getInt(base + ".max-room-players") : DEFAULT.maxRoomPlayers,
+                config.hasPath(base + ".out-queue-size") ? config.getInt(base + ".out-queue-size") : DEFAULT.outQueueSize,
+                config.hasPath(base + ".frame-read-timeout") ? config.getDuration(base + ".frame-read-timeout") : DEFAULT.frameReadTimeout);
+    }
+
+    /** {@code {"timeouts": {"default", PHASE…} in seconds, "maxRoomPlayers", "outQueueSize", "frameReadTimeoutMillis"}} */
+    public ObjectNode toJson() {
+        ObjectNode json = JsonMapper.getInstance().createObjectNode();
+        ObjectNode phases = json.putObject("timeouts").put("default", timeouts.fallback().toSeconds());
+        new TreeMap<>(timeouts.byPhase()).forEach((phase, limit) -> phases.put(phase, limit.toSeconds()));
+        return json.put("maxRoomPlayers", maxRoomPlayers)
+                .put("outQueueSize", outQueueSize)
+                .put("frameReadTimeoutMillis", frameReadTimeout.toMillis());
+    }
+}
@@ -0,0 +1,79 @@
+package org.powergrid.settings;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.powergrid.util.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The running {@link Limits}, replaceable without a restart.
+ *
+ * Hot paths (ServerApp's socket setup and frame reads) call {@link #get} for each use, which is one
+ * volatile read. Actors keep their own copy and are told about changes: subscribers run on the
+ * reloading thread and should only send a message, e.g. {@code LobbyActor.SettingsChanged}.
+ *
+ * {@link #reload} re-reads the configuration (application.conf plus any {@code -Dconfig.file}
+ * override, which is where an operator edits limits); it is triggered from
+ * {@code POST /admin/settings/reload}. A reload that fails validation changes nothing.
+ */
+public final class LiveSettings {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveSettings.class);
+
+    private static final LongAdder RELOADS = Metrics.getInstance().counter(
+            "powergrid_settings_reloads_total", "Runtime limits reloaded from configuration");
+
+    private final Supplier<Config> source;
+    private final List<Consumer<Limits>> subscribers = new CopyOnWriteArrayList<>();
+    private volatile Limits current;
+
+    public LiveSettings(Limits initial, Supplier<Config> source) {
+        this.current = initial;
+        this.source = source;
+    }
+
+    /** Starts from {@code config}; reloads read the configuration files afresh. */
+    public static LiveSettings fromConfig(Config config) {
+        return new LiveSettings(Limits.fromConfig(config), () -> {
+            ConfigFactory.invalidateCaches();
+            return ConfigFactory.load();
+        });
+    }
+
+    public Limits get() {
+        return current;
+    }
+
+    /** Calls {@code subscriber} with every new {@link Limits} from now on. */
+    public LiveSettings subscribe(Consumer<Limits> subscriber) {
+        subscribers.add(subscriber);
+        return this;
+    }
+
+    /**
+     * Re-reads the configuration and, if it is valid, makes it current and notifies subscribers.
+     * Throws (leaving the current limits in place) if it is not.
+     */
+    public synchronized Limits reload() {
+        Limits next = Limits.fromConfig(source.get());
+        set(next);
+        RELOADS.increment();
+        log.info("Reloaded limits: {}", next.toJson());
+        return next;
+    }
+
+    /** Makes {@code next} current and notifies subscribers. */
+    public synchronized void set(Limits next) {
+        current = next;
+        for (Consumer<Limits> subscriber : subscribers) {
+            subscriber.accept(next);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.powergrid.spectator;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live games that can be spectated, keyed by room id.
+ *
+ * Sessions register their feed on start and remove it when they end; ServerApp looks feeds up
+ * when a spectator socket upgrades. Lookups never touch an actor mailbox.
+ */
+public final class SpectatorDirectory {
+
+    private final ConcurrentHashMap<Long, SpectatorFeed> feeds = new ConcurrentHashMap<>();
+
+    public void register(long roomId, SpectatorFeed feed) {
+        feeds.put(roomId, feed);
+    }
+
+    public void remove(long roomId, SpectatorFeed feed) {
+        feeds.remove(roomId, feed);
+    }
+
+    public int size() {
+        return feeds.size();
+    }
+
+    /** Returns the feed for {@code roomId}, or {@code null} if no such game is running. */
+    public SpectatorFeed find(long roomId) {
+        return feeds.get(roomId);
+    }
+}
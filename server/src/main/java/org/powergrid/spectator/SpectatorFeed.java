@@ -0,0 +1,105 @@
+package org.powergrid.spectator;
+
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.http.javadsl.model.ws.Message;
+import org.apache.pekko.http.javadsl.model.ws.TextMessage;
+import org.apache.pekko.japi.Pair;
+import org.apache.pekko.stream.Attributes;
+import org.apache.pekko.stream.DelayOverflowStrategy;
+import org.apache.pekko.stream.Materializer;
+import org.apache.pekko.stream.OverflowStrategy;
+import org.apache.pekko.stream.javadsl.BroadcastHub;
+import org.apache.pekko.stream.javadsl.Keep;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.apache.pekko.stream.javadsl.SourceQueueWithComplete;
+
+import java.time.Duration;
+
+/**
+ * Fan-out of one game's frames to any number of spectator sockets.
+ *
+ * The session serializes each frame once and offers it to a single queue feeding a
+ * {@link BroadcastHub}; spectator sockets attach to the hub directly, so publishing costs the
+ * same whether nobody or hundreds are watching. Every spectator gets its own drop-oldest buffer,
+ * so a slow socket loses frames instead of back-pressuring the hub. The hub itself is always
+ * drained, so frames published while nobody watches are discarded rather than buffered and
+ * replayed, older than the catch-up snapshot, to the first spectator who joins.
+ *
+ * Optionally a second hub replays the live feed after a fixed delay (anti-ghosting for
+ * featured games). It is drained the same way, so the first delayed spectator starts at the
+ * delayed present rather than at a burst of everything that passed before they joined.
+ */
+public final class SpectatorFeed {
+
+    /** BroadcastHub buffer sizes must be a power of two. */
+    static final int HUB_BUFFER = 256;
+    static final int SPECTATOR_BUFFER = 32;
+    static final int DELAY_BUFFER = 1024;
+
+    private final SourceQueueWithComplete<Message> queue;
+    private final Source<Message, NotUsed> live;
+    private final Source<Message, NotUsed> delayed; // null when no delayed feed is configured
+    private volatile Message latestSnapshot;
+
+    public SpectatorFeed(Materializer materializer, Duration delay) {
+        Pair<SourceQueueWithComplete<Message>, Source<Message, NotUsed>> hub =
+                Source.<Message>queue(HUB_BUFFER, OverflowStrategy.dropHead())
+                        .toMat(BroadcastHub.of(Message.class, HUB_BUFFER), Keep.both())
+                        .run(materializer);
+        this.queue = hub.first();
+        this.live = hub.second();
+        live.runWith(Sink.ignore(), materializer);
+
+        if (delay.isZero() || delay.isNegative()) {
+            this.delayed = null;
+        } else {
+            this.delayed = live
+                    .buffer(DELAY_BUFFER, OverflowStrategy.dropHead())
+                    .delay(delay, DelayOverflowStrategy.dropHead())
+                    .addAttributes(Attributes.inputBuffer(16, DELAY_BUFFER))
+                    .toMat(BroadcastHub.of(Message.class, HUB_BUFFER), Keep.right())
+                    .run(materializer);
+            delayed.runWith(Sink.ignore(), materializer);
+        }
+    }
+
+    /**
+     * Publishes a pre-serialized frame to every attached spectator.
+     * A {@code snapshot} frame is also remembered and sent first to live spectators who join later.
+     * Must only be called from the owning session actor.
+     */
+    public void publish(String json, boolean snapshot) {
+        Message frame = TextMessage.create(json);
+        if (snapshot) {
+            latestSnapshot = frame;
+        }
+        queue.offer(frame);
+    }
+
+    public boolean hasDelayedFeed() {
+        return delayed != null;
+    }
+
+    /**
+     * Returns the outbound source for one new spectator socket, or {@code null} if a delayed
+     * feed was requested but this game does not have one.
+     */
+    public Source<Message, NotUsed> subscribe(boolean delayedFeed) {
+        Source<Message, NotUsed> source;
+        if (delayedFeed) {
+            if (delayed == null) return null;
+            // No catch-up snapshot: it would leak the state the delay is meant to hide.
+            source = delayed;
+        } else {
+            Message snapshot = latestSnapshot;
+            source = snapshot != null ? Source.single(snapshot).concat(live) : live;
+        }
+        return source.buffer(SPECTATOR_BUFFER, OverflowStrategy.dropHead());
+    }
+
+    /** Completes the feed; attached spectators see the stream end after the final frame. */
+    public void complete() {
+        queue.complete();
+    }
+}
@@ -0,0 +1,43 @@
+package org.powergrid.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.powergrid.util.Ids;
+
+/** Connection actor: optional compression and the offer of one frame to the socket's outbound queue. */
+@Name("org.powergrid.FrameOffered")
+@Label("Frame Offered")
+@Category({"PowerGrid", "Messages"})
+@Description("Outbound frame offered to a player's WebSocket queue")
+public final class FrameOfferedEvent extends jdk.jfr.Event {
+
+    @Label("Correlation Id")
+    long correlationId;
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Player Id")
+    String playerId;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Compressed")
+    boolean compressed;
+
+    public void finish(MessageTrace trace, long player, int size, boolean deflated) {
+        end();
+        if (!trace.traced() || !shouldCommit()) return;
+        correlationId = trace.id();
+        messageType = trace.typeName();
+        playerId = Ids.format(player);
+        bytes = size;
+        compressed = deflated;
+        commit();
+    }
+}
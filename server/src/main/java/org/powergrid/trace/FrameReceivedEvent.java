@@ -0,0 +1,32 @@
+package org.powergrid.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** WebSocket stage: from the first chunk of a text frame until it is strict, i.e. {@code toStrict}. */
+@Name("org.powergrid.FrameReceived")
+@Label("Frame Received")
+@Category({"PowerGrid", "Messages"})
+@Description("Inbound text frame collected by the WebSocket stream")
+public final class FrameReceivedEvent extends jdk.jfr.Event {
+
+    @Label("Correlation Id")
+    long correlationId;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    /** Ends the event and returns the frame's correlation id, or {@link MessageTrace#NONE_ID} if not recording. */
+    public long finish(int chars) {
+        end();
+        if (!shouldCommit()) return MessageTrace.NONE_ID;
+        correlationId = MessageTrace.nextId();
+        bytes = chars;
+        commit();
+        return correlationId;
+    }
+}
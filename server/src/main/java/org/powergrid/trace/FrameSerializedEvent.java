@@ -0,0 +1,42 @@
+package org.powergrid.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Lobby or game: serializing an outbound frame and handing it to the recipients' connection actors. */
+@Name("org.powergrid.FrameSerialized")
+@Label("Frame Serialized")
+@Category({"PowerGrid", "Messages"})
+@Description("Outbound frame serialized and sent to connection actors")
+public final class FrameSerializedEvent extends jdk.jfr.Event {
+
+    @Label("Correlation Id")
+    long correlationId;
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Outbound Type")
+    String outboundType;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Recipients")
+    int recipients;
+
+    public void finish(MessageTrace trace, String outbound, int chars, int recipientCount) {
+        end();
+        if (!trace.traced() || !shouldCommit()) return;
+        correlationId = trace.id();
+        messageType = trace.typeName();
+        outboundType = outbound;
+        bytes = chars;
+        recipients = recipientCount;
+        commit();
+    }
+}
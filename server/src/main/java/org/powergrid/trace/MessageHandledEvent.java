@@ -0,0 +1,44 @@
+package org.powergrid.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** Lobby or game handler for a traced message, plus how long it sat in that actor's mailbox. */
+@Name("org.powergrid.MessageHandled")
+@Label("Message Handled")
+@Category({"PowerGrid", "Messages"})
+@Description("Lobby or game session handler run for an inbound message")
+public final class MessageHandledEvent extends jdk.jfr.Event {
+
+    @Label("Correlation Id")
+    long correlationId;
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Actor")
+    String actor;
+
+    @Label("Mailbox Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long queued;
+
+    public void start(MessageTrace trace) {
+        if (trace.traced() && isEnabled()) {
+            queued = Math.max(0, System.nanoTime() - trace.dispatchedAt());
+        }
+        begin();
+    }
+
+    public void finish(MessageTrace trace, String handler) {
+        end();
+        if (!trace.traced() || !shouldCommit()) return;
+        correlationId = trace.id();
+        messageType = trace.typeName();
+        actor = handler;
+        commit();
+    }
+}
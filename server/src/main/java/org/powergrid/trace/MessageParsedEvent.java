@@ -0,0 +1,33 @@
+package org.powergrid.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.powergrid.util.Ids;
+
+/** Connection actor: JSON parse of an inbound frame and its dispatch to the lobby or game. */
+@Name("org.powergrid.MessageParsed")
+@Label("Message Parsed")
+@Category({"PowerGrid", "Messages"})
+@Description("Inbound frame parsed and forwarded by PlayerConnectionActor")
+public final class MessageParsedEvent extends jdk.jfr.Event {
+
+    @Label("Correlation Id")
+    long correlationId;
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Player Id")
+    String playerId;
+
+    public void finish(MessageTrace trace, long player) {
+        end();
+        if (!trace.traced() || !shouldCommit()) return;
+        correlationId = trace.id();
+        messageType = trace.typeName();
+        playerId = Ids.format(player);
+        commit();
+    }
+}
@@ -0,0 +1,44 @@
+package org.powergrid.trace;
+
+import org.powergrid.protocol.MessageType;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Correlation context that follows one inbound player message through the server, so the JFR
+ * events it produces ({@link FrameReceivedEvent} → {@link MessageParsedEvent} →
+ * {@link MessageHandledEvent} → {@link FrameSerializedEvent} → {@link FrameOfferedEvent}) can be
+ * grouped by {@code correlationId} in one recording.
+ *
+ * Only created while {@code org.powergrid.FrameReceived} is being recorded; otherwise every frame
+ * carries {@link #NONE_ID}, every message {@link #NONE}, and no commands are wrapped, so tracing
+ * costs a few disabled-event checks per message.
+ *
+ * @param id           correlation id assigned when the frame arrived
+ * @param type         inbound message type
+ * @param dispatchedAt {@link System#nanoTime()} when the connection actor forwarded the message
+ */
+public record MessageTrace(long id, MessageType type, long dispatchedAt) {
+
+    public static final long NONE_ID = 0;
+    public static final MessageTrace NONE = new MessageTrace(NONE_ID, null, 0);
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    /** Context for a parsed message whose frame got {@code id}; {@link #NONE} if it was not traced. */
+    public static MessageTrace of(long id, MessageType type) {
+        return id == NONE_ID ? NONE : new MessageTrace(id, type, System.nanoTime());
+    }
+
+    public boolean traced() {
+        return id != NONE_ID;
+    }
+
+    public String typeName() {
+        return type != null ? type.name() : null;
+    }
+
+    static long nextId() {
+        return NEXT_ID.incrementAndGet();
+    }
+}
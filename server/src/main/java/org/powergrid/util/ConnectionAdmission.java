@@ -0,0 +1,154 @@
+package org.powergrid.util;
+
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Gatekeeper for {@code /ws} upgrades, consulted before any connection actor or outbound queue is
+ * created. Caps the number of open player sockets and the rate of new handshakes (a token bucket
+ * refilling at {@code handshakesPerSecond} up to {@code burst}), so a reconnect storm after a
+ * deploy is turned away cheaply with 503 instead of exhausting memory and flooding the lobby.
+ *
+ * Admission is two steps. {@link #tryAdmit()} screens the upgrade request, so a rejection can still
+ * be answered with 503; {@link #acquire()} takes the slot once the socket's stream actually starts,
+ * and is paired with exactly one {@link #release()} when it terminates. An upgrade that is admitted
+ * but never starts therefore holds nothing. Thread-safe; called from HTTP dispatcher threads and
+ * stream materialization.
+ */
+public final class ConnectionAdmission {
+
+    public enum Decision { ADMITTED, AT_CAPACITY, RATE_LIMITED }
+
+    private static final LongAdder ADMITTED = Metrics.getInstance().counter(
+            "powergrid_connections_admitted_total", "WebSocket upgrades admitted");
+    private static final LongAdder REJECTED_CAPACITY = Metrics.getInstance().counter(
+            "powergrid_connections_rejected_capacity_total", "WebSocket upgrades rejected at the connection limit");
+    private static final LongAdder REJECTED_RATE = Metrics.getInstance().counter(
+            "powergrid_connections_rejected_rate_total", "WebSocket upgrades rejected by the handshake rate limit");
+
+    private final int maxConnections;
+    private final double tokensPerNano;
+    private final int burst;
+    private final Duration retryAfter;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger open = new AtomicInteger();
+    private double tokens;       // guarded by this
+    private long refilledAt;     // guarded by this
+
+    public ConnectionAdmission(int maxConnections, double handshakesPerSecond, int burst,
+                               Duration retryAfter, LongSupplier nanoClock) {
+        if (maxConnections < 1 || handshakesPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Admission limits must be positive");
+        }
+        this.maxConnections = maxConnections;
+        this.tokensPerNano = handshakesPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.retryAfter = retryAfter;
+        this.nanoClock = nanoClock;
+        this.tokens = burst;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /** Reads {@code powergrid.admission}; missing keys fall back to the defaults in application.conf. */
+    public static ConnectionAdmission fromConfig(Config config) {
+        String base = "powergrid.admission";
+        int max = config.hasPath(base + ".max-connections") ? config.getInt(base + ".max-connections") : 10_000;
+        double rate = config.hasPath(base + ".handshakes-per-second") ? config.getDouble(base + ".handshakes-per-second") : 200;
+        int burst = config.hasPath(base + ".handshake-burst") ? config.getInt(base + ".handshake-burst") : 400;
+        Duration retry = config.hasPath(base + ".retry-after") ? config.getDuration(base + ".retry-after") : Duration.ofSeconds(5);
+        return new ConnectionAdmission(max, rate, burst, retry, System::nanoTime);
+    }
+
+    /** Registers the admission gauges on {@code /metrics}. */
+    public ConnectionAdmission registerMetrics() {
+        Metrics metrics = Metrics.getInstance();
+        metrics.gauge("powergrid_connections_open", "Player WebSockets currently admitted", this::openConnections);
+        metrics.gauge("powergrid_connections_max", "Configured limit on player WebSockets", () -> maxConnections);
+        metrics.gauge("powergrid_handshake_tokens", "Handshakes that may start right now", this::availableTokens);
+        return this;
+    }
+
+    /**
+     * Screens an upgrade request: rejects it if every slot is taken, otherwise takes a handshake
+     * token. Claims no slot; see {@link #acquire()}.
+     */
+    public Decision tryAdmit() {
+        if (open.get() >= maxConnections) {
+            REJECTED_CAPACITY.increment();
+            return Decision.AT_CAPACITY;
+        }
+        if (!takeToken()) {
+            REJECTED_RATE.increment();
+            return Decision.RATE_LIMITED;
+        }
+        ADMITTED.increment();
+        return Decision.ADMITTED;
+    }
+
+    /**
+     * Claims a connection slot for a socket whose stream has started, or returns {@code false} if
+     * others took the last ones since it was screened.
+     */
+    public boolean acquire() {
+        int n;
+        do {
+            n = open.get();
+            if (n >= maxConnections) {
+                REJECTED_CAPACITY.increment();
+                return false;
+            }
+        } while (!open.compareAndSet(n, n + 1));
+        return true;
+    }
+
+    /** Frees the slot of an acquired connection that has closed. */
+    public void release() {
+        open.decrementAndGet();
+    }
+
+    /**
+     * Seconds a rejected client should wait before retrying. Capacity rejections are spread over
+     * [{@code retryAfter}, 2 × {@code retryAfter}) so turned-away clients do not return in lockstep.
+     */
+    public long retryAfterSeconds(Decision decision) {
+        if (decision == Decision.RATE_LIMITED) {
+            double deficit;
+            synchronized (this) {
+                refill();
+                deficit = 1 - tokens;
+            }
+            return Math.max(1, (long) Math.ceil(deficit / tokensPerNano / TimeUnit.SECONDS.toNanos(1)));
+        }
+        long base = Math.max(1, retryAfter.toSeconds());
+        return base + ThreadLocalRandom.current().nextLong(base);
+    }
+
+    public long openConnections() {
+        return open.get();
+    }
+
+    public synchronized long availableTokens() {
+        refill();
+        return (long) tokens;
+    }
+
+    private synchronized boolean takeToken() {
+        refill();
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,44 @@
+package org.powergrid.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a numeric id in its wire form ({@link Ids#format}); {@link Ids#NONE} becomes {@code null}.
+ * Usage: {@code @JsonSerialize(using = IdSerializer.class) long playerId}
+ */
+public final class IdSerializer extends StdSerializer<Long> {
+
+    public IdSerializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public void serialize(Long id, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (id == null || id == Ids.NONE) {
+            gen.writeNull();
+        } else {
+            gen.writeString(Ids.format(id));
+        }
+    }
+
+    /** Same as {@link IdSerializer} for {@code long[]} fields. */
+    public static final class Array extends StdSerializer<long[]> {
+
+        public Array() {
+            super(long[].class);
+        }
+
+        @Override
+        public void serialize(long[] ids, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(ids, ids.length);
+            for (long id : ids) {
+                gen.writeString(Ids.format(id));
+            }
+            gen.writeEndArray();
+        }
+    }
+}
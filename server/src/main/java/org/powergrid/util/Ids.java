@@ -0,0 +1,71 @@
+package org.powergrid.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compact numeric identifiers for players and rooms.
+ *
+ * Internally every id is a positive {@code long}; the base-36 string form exists only at the
+ * protocol edge ({@link #format} when serializing, {@link #parse} when reading client input).
+ * Ids come from one process-wide counter seeded from the clock, so they are unique across
+ * restarts without touching {@code SecureRandom}. They are not secret — the resume token is.
+ *
+ * In a cluster room ids key sharded sessions and player ids travel between nodes, so the low
+ * {@link #NODE_BITS} of every id name the node that made it ({@link #useNode}): its configured
+ * {@code powergrid.cluster.node-id}, or else the low bits of its cluster incarnation. Either way
+ * NodeIdGuardActor stops a node that finds a member with the same node id. The counter above
+ * them counts milliseconds since 2024 in steps of {@code 2^}{@link #SEQUENCE_BITS}, which stays
+ * positive until 2058.
+ */
+public final class Ids {
+
+    /** Never a valid id; also the empty-slot marker of the primitive maps. */
+    public static final long NONE = 0L;
+
+    static final int NODE_BITS = 16;
+    static final int SEQUENCE_BITS = 7;
+    /** The largest node id; node ids run from 0 to this. */
+    public static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long EPOCH_MILLIS = 1_704_067_200_000L; // 2024-01-01T00:00:00Z
+
+    private static final AtomicLong NEXT =
+            new AtomicLong((System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS);
+    private static volatile long node; // 0 outside a cluster
+
+    private Ids() {}
+
+    /**
+     * Stamps ids made from now on with {@code nodeId}, 0 to {@link #MAX_NODE}. Called as soon as the
+     * actor system is up, before it hands out ids.
+     */
+    public static void useNode(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE) {
+            throw new IllegalArgumentException("Node id " + nodeId + " is not in 0.." + MAX_NODE);
+        }
+        node = nodeId;
+    }
+
+    public static long next() {
+        return NEXT.incrementAndGet() << NODE_BITS | node;
+    }
+
+    /** The node bits of {@code id}. */
+    static long nodeOf(long id) {
+        return id & MAX_NODE;
+    }
+
+    public static String format(long id) {
+        return Long.toString(id, 36);
+    }
+
+    /** Parses the wire form of an id, returning {@link #NONE} if {@code s} is not a valid id. */
+    public static long parse(String s) {
+        if (s == null || s.isEmpty() || s.length() > 13) return NONE;
+        try {
+            long id = Long.parseLong(s, 36);
+            return id > 0 ? id : NONE;
+        } catch (NumberFormatException e) {
+            return NONE;
+        }
+    }
+}
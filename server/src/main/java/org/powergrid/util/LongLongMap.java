@@ -0,0 +1,133 @@
+package org.powergrid.util;
+
+import java.util.Arrays;
+
+/**
+ * {@link LongObjectMap} counterpart with primitive {@code long} values, e.g. player → room.
+ * Absent keys read as {@link Ids#NONE}, so {@code NONE} cannot be stored as a value either.
+ *
+ * Not thread-safe: meant to be owned by a single actor.
+ */
+public final class LongLongMap {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongLongMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongLongMap(int expectedSize) {
+        allocate(LongObjectMap.capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return key != Ids.NONE && keys[indexOf(key)] == key;
+    }
+
+    /** Returns the value for {@code key}, or {@link Ids#NONE} if absent. */
+    public long get(long key) {
+        if (key == Ids.NONE) return Ids.NONE;
+        int i = indexOf(key);
+        return keys[i] == key ? values[i] : Ids.NONE;
+    }
+
+    /** Associates {@code value} with {@code key}, returning the previous value or {@link Ids#NONE}. */
+    public long put(long key, long value) {
+        if (key == Ids.NONE || value == Ids.NONE) {
+            throw new IllegalArgumentException("Key and value 0 are reserved");
+        }
+        int i = indexOf(key);
+        if (keys[i] == key) {
+            long old = values[i];
+            values[i] = value;
+            return old;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return Ids.NONE;
+    }
+
+    /** Removes {@code key}, returning its value or {@link Ids#NONE} if absent. */
+    public long remove(long key) {
+        if (key == Ids.NONE) return Ids.NONE;
+        int i = indexOf(key);
+        if (keys[i] != key) return Ids.NONE;
+        long old = values[i];
+        // Backward-shift: pull later entries of the probe run into the hole.
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            long k = keys[j];
+            if (k == Ids.NONE) break;
+            int home = slot(k);
+            boolean stays = (j > i) ? (home > i && home <= j) : (home > i || home <= j);
+            if (!stays) {
+                keys[i] = k;
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = Ids.NONE;
+        values[i] = Ids.NONE;
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, Ids.NONE);
+        Arrays.fill(values, Ids.NONE);
+        size = 0;
+    }
+
+    // ─── Internals ───────────────────────────────────────────────────────────
+
+    /** Slot holding {@code key}, or the empty slot where it would be inserted. */
+    private int indexOf(long key) {
+        int i = slot(key);
+        while (keys[i] != Ids.NONE && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private int slot(long key) {
+        return LongObjectMap.mix(key) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity / 2; // load factor 0.5 keeps probe runs short
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != Ids.NONE) {
+                int j = indexOf(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.powergrid.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Open-addressing hash map from {@code long} keys to objects, with linear probing and
+ * backward-shift deletion (no tombstones). Avoids boxing keys and per-entry nodes.
+ *
+ * Key {@link Ids#NONE} (0) is reserved as the empty-slot marker and cannot be stored.
+ * Not thread-safe: meant to be owned by a single actor.
+ */
+public final class LongObjectMap<V> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return key != Ids.NONE && keys[indexOf(key)] == key;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == Ids.NONE) return null;
+        int i = indexOf(key);
+        return keys[i] == key ? (V) values[i] : null;
+    }
+
+    /** Associates {@code value} with {@code key}, returning the previous value or {@code null}. */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == Ids.NONE) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int i = indexOf(key);
+        if (keys[i] == key) {
+            V old = (V) values[i];
+            values[i] = value;
+            return old;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    /** Removes {@code key}, returning its value or {@code null} if absent. */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == Ids.NONE) return null;
+        int i = indexOf(key);
+        if (keys[i] != key) return null;
+        V old = (V) values[i];
+        // Backward-shift: pull later entries of the probe run into the hole.
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            long k = keys[j];
+            if (k == Ids.NONE) break;
+            int home = slot(k);
+            boolean stays = (j > i) ? (home > i && home <= j) : (home > i || home <= j);
+            if (!stays) {
+                keys[i] = k;
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = Ids.NONE;
+        values[i] = null;
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, Ids.NONE);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjLongConsumer<? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != Ids.NONE) {
+                action.accept((V) values[i], keys[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != Ids.NONE) {
+                action.accept((V) values[i]);
+            }
+        }
+    }
+
+    // ─── Internals ───────────────────────────────────────────────────────────
+
+    /** Slot holding {@code key}, or the empty slot where it would be inserted. */
+    private int indexOf(long key) {
+        int i = slot(key);
+        while (keys[i] != Ids.NONE && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private int slot(long key) {
+        return mix(key) & mask;
+    }
+
+    /** Spreads sequential ids across the table (Stafford variant 13 finalizer). */
+    static int mix(long key) {
+        long h = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return (int) (h ^ (h >>> 31));
+    }
+
+    static int capacityFor(int expectedSize) {
+        int needed = Math.max(MIN_CAPACITY, (int) Math.min(1 << 30, expectedSize * 2L));
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity / 2; // load factor 0.5 keeps probe runs short
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != Ids.NONE) {
+                int j = indexOf(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.powergrid.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Singleton registry of server counters and gauges, rendered in the Prometheus text format
+ * at {@code GET /metrics}.
+ *
+ * Usage: {@code Metrics.getInstance().counter("name", "help").increment()} — look the
+ * {@link LongAdder} up once and keep it in a static field on hot paths.
+ */
+public final class Metrics {
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    private record Counter(String help, LongAdder value) {}
+    private record Gauge(String help, LongSupplier value) {}
+
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentSkipListMap<>();
+
+    private Metrics() {}
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    /** Returns the counter called {@code name}, creating it on first use. */
+    public LongAdder counter(String name, String help) {
+        return counters.computeIfAbsent(name, n -> new Counter(help, new LongAdder())).value();
+    }
+
+    /** Registers (or replaces) a gauge sampled each time metrics are rendered. */
+    public void gauge(String name, String help, LongSupplier value) {
+        gauges.put(name, new Gauge(help, value));
+    }
+
+    /** Current value of a counter or gauge, or 0 if none is registered under {@code name}. */
+    public long value(String name) {
+        Counter c = counters.get(name);
+        if (c != null) return c.value().sum();
+        Gauge g = gauges.get(name);
+        return g != null ? g.value().getAsLong() : 0L;
+    }
+
+    public String render() {
+        StringBuilder sb = new StringBuilder(1024);
+        counters.forEach((name, c) -> append(sb, name, c.help(), "counter", c.value().sum()));
+        gauges.forEach((name, g) -> append(sb, name, g.help(), "gauge", g.value().getAsLong()));
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String name, String help, String type, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+}
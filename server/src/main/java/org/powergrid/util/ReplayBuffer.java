@@ -0,0 +1,81 @@
+package org.powergrid.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bounded ring buffer of sequence-numbered outbound frames for one player.
+ *
+ * Sequence numbers start at 1 and increase by one per {@link #append}. Once the buffer is full
+ * the oldest frame is overwritten, so a reconnecting client can only be replayed the last
+ * {@code capacity} frames — anything older requires a resync.
+ *
+ * Storage starts at {@link #INITIAL_SLOTS} and doubles up to {@code capacity} as frames arrive,
+ * so a connection that has received little holds little.
+ *
+ * Not thread-safe: owned by a single {@code PlayerConnectionActor}.
+ */
+public final class ReplayBuffer {
+
+    static final int INITIAL_SLOTS = 8;
+
+    private final int capacity;
+    private String[] frames;
+    private long lastSeq = 0;
+
+    public ReplayBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.frames = new String[Math.min(capacity, INITIAL_SLOTS)];
+    }
+
+    /** Slots currently allocated (at most the capacity). */
+    int allocated() {
+        return frames.length;
+    }
+
+    /** Sequence number of the most recently appended frame, or 0 if none. */
+    public long lastSeq() {
+        return lastSeq;
+    }
+
+    /** Stores {@code frame} under the next sequence number and returns that number. */
+    public long append(String frame) {
+        if (lastSeq == frames.length && frames.length < capacity) {
+            grow();
+        }
+        lastSeq++;
+        frames[(int) (lastSeq % frames.length)] = frame;
+        return lastSeq;
+    }
+
+    /**
+     * Returns every frame with a sequence number greater than {@code seq}, oldest first.
+     * Returns {@code null} if some of those frames have already been overwritten, or if
+     * {@code seq} is ahead of anything this buffer has produced.
+     */
+    public List<String> since(long seq) {
+        if (seq < 0 || seq > lastSeq) return null;
+        long missed = lastSeq - seq;
+        if (missed == 0) return Collections.emptyList();
+        if (missed > frames.length) return null;
+
+        List<String> result = new ArrayList<>((int) missed);
+        for (long s = seq + 1; s <= lastSeq; s++) {
+            result.add(frames[(int) (s % frames.length)]);
+        }
+        return result;
+    }
+
+    /** Only called while nothing has been overwritten yet, i.e. frames 1..lastSeq are all held. */
+    private void grow() {
+        String[] larger = new String[Math.min(capacity, frames.length * 2)];
+        for (long s = 1; s <= lastSeq; s++) {
+            larger[(int) (s % larger.length)] = frames[(int) (s % frames.length)];
+        }
+        frames = larger;
+    }
+}
@@ -0,0 +1,58 @@
+package org.powergrid.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Startup milestones, in milliseconds since the JVM process started, exported at {@code /metrics}
+ * so the effect of the CDS archive (see README) on restarts can be tracked.
+ *
+ * Time before {@code main} is taken from the OS process start time (10ms resolution on Linux) once
+ * a milestone is reached; if the OS does not report it, times are measured from {@code main}.
+ */
+public final class StartupClock {
+
+    private static final long MAIN_NANOS = System.nanoTime();
+
+    private static final AtomicBoolean firstWebSocket = new AtomicBoolean();
+    private static volatile long boundMillis;
+    private static volatile long firstWebSocketMillis;
+    private static long preMainMillis = -1;
+
+    private StartupClock() {}
+
+    /** Call first thing in {@code main}; fixes the reference point. */
+    public static void mainStarted() {
+        Metrics metrics = Metrics.getInstance();
+        metrics.gauge("powergrid_startup_bind_millis", "Process start to HTTP port bound", () -> boundMillis);
+        metrics.gauge("powergrid_startup_first_websocket_millis", "Process start to first accepted WebSocket", () -> firstWebSocketMillis);
+    }
+
+    /** Records that the HTTP port is bound; returns the elapsed milliseconds. */
+    public static long bound() {
+        boundMillis = sinceProcessStart();
+        return boundMillis;
+    }
+
+    /**
+     * Records the first accepted WebSocket. Returns the elapsed milliseconds the first time,
+     * {@code -1} on every later call (a single volatile read).
+     */
+    public static long webSocketAccepted() {
+        if (firstWebSocket.get() || !firstWebSocket.compareAndSet(false, true)) return -1;
+        firstWebSocketMillis = sinceProcessStart();
+        return firstWebSocketMillis;
+    }
+
+    private static synchronized long sinceProcessStart() {
+        long sinceMain = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - MAIN_NANOS);
+        if (preMainMillis < 0) {
+            preMainMillis = ProcessHandle.current().info().startInstant()
+                    .map(start -> Math.max(0, Duration.between(start, Instant.now()).toMillis() - sinceMain))
+                    .orElse(0L);
+        }
+        return preMainMillis + sinceMain;
+    }
+}
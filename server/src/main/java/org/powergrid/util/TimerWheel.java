@@ -0,0 +1,234 @@
+package org.powergrid.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timing wheel shared by all game sessions for turn and phase deadlines.
+ *
+ * Scheduling and cancelling are O(1) and lock-free from any thread: new timeouts go through a
+ * queue that the wheel thread drains into its buckets, and {@link Timeout#cancel()} only flips a
+ * flag (the entry is unlinked the next time its bucket is swept). Once per tick the wheel thread
+ * sweeps one bucket and runs every task that came due as one batch. Precision is one tick, which
+ * is plenty for deadlines measured in seconds.
+ *
+ * Tasks run on the wheel thread and must be cheap and non-blocking — in practice they are a
+ * single {@code ActorRef.tell}.
+ */
+public final class TimerWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(TimerWheel.class);
+
+    public static final Duration DEFAULT_TICK = Duration.ofMillis(100);
+    public static final int DEFAULT_SLOTS = 512;
+
+    private static final LongAdder EXPIRED = Metrics.getInstance().counter(
+            "powergrid_timer_expired_total", "Timeouts that fired on the shared timer wheel");
+
+    private static volatile TimerWheel instance;
+
+    private final long tickNanos;
+    private final int mask;
+    private final Timeout[] buckets;
+    private final LongSupplier clock;
+    private final long startNanos;
+    private final ConcurrentLinkedQueue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private long tick; // owned by the thread calling advance()
+    private volatile Thread worker;
+
+    /**
+     * Creates a wheel that is only driven by explicit {@link #advance} calls until {@link #start()}.
+     * {@code slots} is rounded up to a power of two; {@code clock} returns monotonic nanoseconds.
+     */
+    public TimerWheel(Duration tick, int slots, LongSupplier clock) {
+        if (tick.toNanos() <= 0 || slots <= 0) {
+            throw new IllegalArgumentException("tick and slots must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.tickNanos = tick.toNanos();
+        this.mask = size - 1;
+        this.buckets = new Timeout[size];
+        this.clock = clock;
+        this.startNanos = clock.getAsLong();
+    }
+
+    /** Process-wide wheel with a daemon worker thread, started on first use. */
+    public static TimerWheel getInstance() {
+        TimerWheel wheel = instance;
+        if (wheel == null) {
+            synchronized (TimerWheel.class) {
+                wheel = instance;
+                if (wheel == null) {
+                    wheel = new TimerWheel(DEFAULT_TICK, DEFAULT_SLOTS, System::nanoTime);
+                    wheel.start();
+                    TimerWheel registered = wheel;
+                    Metrics.getInstance().gauge("powergrid_timer_pending",
+                            "Timeouts scheduled on the shared timer wheel", registered::pending);
+                    instance = wheel;
+                }
+            }
+        }
+        return wheel;
+    }
+
+    /** Runs {@code task} on the wheel thread once {@code delay} has elapsed, unless cancelled first. */
+    public Timeout schedule(Duration delay, Runnable task) {
+        Timeout timeout = new Timeout(this, clock.getAsLong() + Math.max(0L, delay.toNanos()), task);
+        pending.incrementAndGet();
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    /** Number of timeouts scheduled but neither fired nor cancelled. */
+    public int pending() {
+        return pending.get();
+    }
+
+    public synchronized void start() {
+        if (worker != null) return;
+        Thread t = new Thread(this::run, "powergrid-timer-wheel");
+        t.setDaemon(true);
+        worker = t;
+        t.start();
+    }
+
+    public synchronized void stop() {
+        Thread t = worker;
+        worker = null;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    /**
+     * Sweeps every tick that has fully elapsed by {@code nowNanos} and runs the tasks that came due.
+     * Called by the worker thread; tests and {@code CommandReplay}, which drives a wheel on a
+     * virtual clock, call it directly on a wheel that was never started. Returns the number of
+     * tasks run.
+     */
+    public int advance(long nowNanos) {
+        List<Timeout> due = null;
+        while (startNanos + (tick + 1) * tickNanos <= nowNanos) {
+            transferIncoming();
+            due = sweep((int) (tick & mask), due);
+            tick++;
+        }
+        if (due == null) return 0;
+        for (Timeout t : due) {
+            try {
+                t.task.run();
+            } catch (RuntimeException e) {
+                log.error("Timer task failed", e);
+            }
+        }
+        EXPIRED.add(due.size());
+        return due.size();
+    }
+
+    // ─── Internals ───────────────────────────────────────────────────────────
+
+    private void run() {
+        while (worker == Thread.currentThread()) {
+            long nextTick = startNanos + (tick + 1) * tickNanos;
+            long wait = nextTick - clock.getAsLong();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                if (Thread.interrupted()) continue;
+            }
+            advance(clock.getAsLong());
+        }
+    }
+
+    private void transferIncoming() {
+        Timeout t;
+        while ((t = incoming.poll()) != null) {
+            if (t.state.get() != Timeout.PENDING) continue;
+            // A deadline inside an already-swept tick goes into the current bucket and fires now.
+            long dueTick = Math.max(tick, (t.deadlineNanos - startNanos) / tickNanos);
+            t.rounds = (dueTick - tick) / buckets.length;
+            int slot = (int) (dueTick & mask);
+            t.next = buckets[slot];
+            buckets[slot] = t;
+        }
+    }
+
+    private List<Timeout> sweep(int slot, List<Timeout> due) {
+        Timeout prev = null;
+        Timeout t = buckets[slot];
+        while (t != null) {
+            Timeout next = t.next;
+            boolean unlink;
+            if (t.state.get() != Timeout.PENDING) {
+                unlink = true;
+            } else if (t.rounds > 0) {
+                t.rounds--;
+                unlink = false;
+            } else {
+                unlink = true;
+                if (t.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                    pending.decrementAndGet();
+                    if (due == null) due = new ArrayList<>();
+                    due.add(t);
+                }
+            }
+            if (unlink) {
+                if (prev == null) buckets[slot] = next; else prev.next = next;
+                t.next = null;
+            } else {
+                prev = t;
+            }
+            t = next;
+        }
+        return due;
+    }
+
+    // ─── Handle ──────────────────────────────────────────────────────────────
+
+    /** Handle to a scheduled task. */
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final TimerWheel wheel;
+        private final long deadlineNanos;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long rounds;  // wheel thread only
+        private Timeout next; // wheel thread only
+
+        private Timeout(TimerWheel wheel, long deadlineNanos, Runnable task) {
+            this.wheel = wheel;
+            this.deadlineNanos = deadlineNanos;
+            this.task = task;
+        }
+
+        /** Returns {@code true} if this call prevented the task from running. */
+        public boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                wheel.pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+}
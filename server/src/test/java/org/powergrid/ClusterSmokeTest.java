@@ -0,0 +1,224 @@
+package org.powergrid;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.powergrid.util.JsonMapper;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Starts server JVMs as a cluster on loopback and plays across them over {@code /ws}: a room held
+ * by one node's lobby is listed, joined and chatted in from another, its game runs wherever
+ * sharding puts it, and a game whose node is killed carries on elsewhere.
+ * Excluded from {@code test}; run with {@code ./gradlew clusterTest}.
+ */
+@Tag("cluster")
+class ClusterSmokeTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    /** Covers cluster formation, room-directory gossip and, after a kill, downing plus the game's restart. */
+    private static final long CLUSTER_TIMEOUT_SECONDS = 60;
+    private static final Duration TIMEOUT = Duration.ofSeconds(TIMEOUT_SECONDS);
+    private static final Duration CLUSTER_TIMEOUT = Duration.ofSeconds(CLUSTER_TIMEOUT_SECONDS);
+    private static final int MAX_PLACEMENT_ATTEMPTS = 20;
+
+    private record Node(Process process, int httpPort, int clusterPort) {}
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @AfterEach
+    void stopNodes() throws Exception {
+        for (Node node : nodes) {
+            node.process().destroy();
+        }
+        for (Node node : nodes) {
+            node.process().waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void roomsChatAndGamesSpanNodes() throws Exception {
+        Node a = startNode();
+        Node b = startNode();
+        Client host = Client.connect(a, "host");
+        Client guest = Client.connect(b, "guest");
+
+        host.send("CREATE_ROOM", "{\"roomName\":\"Across\"}");
+        String roomId = payload(host.await("ROOM_JOINED")).path("roomId").asText();
+        awaitListed(guest, roomId);
+
+        guest.send("JOIN_ROOM", "{\"roomId\":\"" + roomId + "\"}");
+        guest.await("ROOM_JOINED");
+        assertTrue(host.await("ROOM_UPDATED").contains(guest.playerId), "the host sees the guest from the other node");
+
+        guest.send("CHAT_SEND", "{\"text\":\"hello from B\"}");
+        assertTrue(host.await("CHAT_MESSAGE").contains("hello from B"));
+
+        host.send("START_GAME", "{}");
+        guest.await("GAME_STARTING");
+        JsonNode state = payload(host.await("GAME_STATE_UPDATE"));
+        guest.await("GAME_STATE_UPDATE");
+
+        host.send("CHAT_SEND", "{\"text\":\"good luck\"}");
+        assertTrue(guest.await("CHAT_MESSAGE").contains("good luck"), "game chat reaches both nodes");
+
+        endTurn(state, host, guest);
+    }
+
+    @Test
+    void gamesMoveOffAFailedNode() throws Exception {
+        Node a = startNode();
+        Node b = startNode();
+        Node c = startNode();
+
+        // Players stay on A and B; start games until sharding puts one on C
+        Client host = null;
+        Client guest = null;
+        for (int attempt = 0; attempt < MAX_PLACEMENT_ATTEMPTS && sessions(c) == 0; attempt++) {
+            host = Client.connect(a, "host-" + attempt);
+            guest = Client.connect(b, "guest-" + attempt);
+            host.send("CREATE_ROOM", "{\"roomName\":\"Failover " + attempt + "\"}");
+            String roomId = payload(host.await("ROOM_JOINED")).path("roomId").asText();
+            awaitListed(guest, roomId);
+            guest.send("JOIN_ROOM", "{\"roomId\":\"" + roomId + "\"}");
+            guest.await("ROOM_JOINED");
+            host.send("START_GAME", "{}");
+            host.await("GAME_STATE_UPDATE");
+            guest.await("GAME_STATE_UPDATE");
+        }
+        assertTrue(sessions(c) > 0, "no game landed on node C in " + MAX_PLACEMENT_ATTEMPTS + " tries");
+
+        long survivors = sessions(a) + sessions(b);
+        host.frames.clear();
+        guest.frames.clear();
+        c.process().destroyForcibly();
+        c.process().waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        // The resumed session starts a fresh turn with a full snapshot for every seat
+        JsonNode state = payload(host.await("GAME_STATE_UPDATE", CLUSTER_TIMEOUT_SECONDS));
+        guest.await("GAME_STATE_UPDATE", TIMEOUT_SECONDS);
+        assertTrue(sessions(a) + sessions(b) > survivors, "the game runs on a surviving node");
+
+        endTurn(state, host, guest);
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    /** The player on the clock ends its turn; the other one must see the next state. */
+    private static void endTurn(JsonNode state, Client host, Client guest) throws Exception {
+        Client current = state.path("currentPlayerId").asText().equals(host.playerId) ? host : guest;
+        Client other = current == host ? guest : host;
+        current.send("END_TURN", "{}");
+        other.awaitState();
+    }
+
+    /** Lists rooms from {@code client}'s node until {@code roomId}, held by another node, shows up. */
+    private static void awaitListed(Client client, String roomId) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CLUSTER_TIMEOUT_SECONDS);
+        while (true) {
+            client.send("LIST_ROOMS", "{}");
+            if (client.await("ROOM_LIST").contains("\"roomId\":\"" + roomId + "\"")) return;
+            assertTrue(System.nanoTime() < deadline, "room " + roomId + " was never listed on the other node");
+            Thread.sleep(250);
+        }
+    }
+
+    /** {@code powergrid_game_sessions} on {@code node}: game sessions running there. */
+    private long sessions(Node node) throws Exception {
+        String metrics = http.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + node.httpPort() + "/metrics")).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        for (String line : metrics.split("\n")) {
+            if (line.startsWith("powergrid_game_sessions ")) {
+                return Long.parseLong(line.substring(line.indexOf(' ') + 1).trim());
+            }
+        }
+        return 0; // no session has run there yet
+    }
+
+    private Node startNode() throws Exception {
+        int httpPort = freePort();
+        int clusterPort = freePort();
+        int seedPort = nodes.isEmpty() ? clusterPort : nodes.get(0).clusterPort();
+        String classpath = System.getProperty("powergrid.cluster.classpath", System.getProperty("java.class.path"));
+        ProcessBuilder pb = new ProcessBuilder(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-Xmx256m",
+                "-Dpowergrid.cluster.enabled=true",
+                "-Dpowergrid.cluster.node-id=" + nodes.size(),
+                "-Dpekko.remote.artery.canonical.hostname=127.0.0.1",
+                "-Dpekko.remote.artery.canonical.port=" + clusterPort,
+                "-Dpekko.cluster.seed-nodes.0=pekko://powergrid@127.0.0.1:" + seedPort,
+                "-Dpekko.cluster.split-brain-resolver.stable-after=3s",
+                "-Dpekko.cluster.failure-detector.acceptable-heartbeat-pause=2s",
+                "-cp", classpath,
+                "org.powergrid.Main")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT);
+        pb.environment().put("PORT", String.valueOf(httpPort));
+        Node node = new Node(pb.start(), httpPort, clusterPort);
+        nodes.add(node);
+        return node;
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            return probe.getLocalPort();
+        }
+    }
+
+    private static JsonNode payload(String frame) throws Exception {
+        return JsonMapper.getInstance().readTree(frame).path("payload");
+    }
+
+    /** A player's WebSocket, after HELLO and WELCOME. */
+    private static final class Client {
+        final WsClient ws;
+        final LinkedBlockingQueue<String> frames;
+        final String playerId;
+
+        private Client(WsClient ws, String playerId) {
+            this.ws = ws;
+            this.frames = ws.frames;
+            this.playerId = playerId;
+        }
+
+        /** Retries until the node has bound its port. */
+        static Client connect(Node node, String name) throws Exception {
+            WsClient ws = WsClient.connect(node.httpPort(), TIMEOUT, CLUSTER_TIMEOUT, node.process()::isAlive);
+            ws.send("HELLO", "{\"playerName\":\"" + name + "\"}");
+            return new Client(ws, payload(ws.await("WELCOME")).path("playerId").asText());
+        }
+
+        void send(String type, String payload) throws Exception {
+            ws.send(type, payload);
+        }
+
+        String await(String type) throws InterruptedException {
+            return ws.await(type);
+        }
+
+        String await(String type, long seconds) throws InterruptedException {
+            return ws.await(type, Duration.ofSeconds(seconds));
+        }
+
+        /** A full state or a delta. */
+        String awaitState() throws InterruptedException {
+            return ws.awaitAny(TIMEOUT, "\"type\":\"GAME_STATE_UPDATE\"", "\"type\":\"GAME_STATE_DELTA\"");
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.powergrid;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Starts the native executable, plays a lobby session over {@code /ws} and reads it back through
+ * the admin routes, whose snapshot records Jackson serializes by reflection.
+ * Excluded from {@code test}; run with {@code ./gradlew nativeSmokeTest}, which builds the binary
+ * and passes its path in {@code powergrid.native.binary}.
+ */
+@Tag("native")
+class NativeSmokeTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final Duration TIMEOUT = Duration.ofSeconds(TIMEOUT_SECONDS);
+    private static final String ADMIN_TOKEN = "native-smoke";
+
+    private Process server;
+
+    @AfterEach
+    void stopServer() throws Exception {
+        if (server != null) {
+            server.destroy();
+            server.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void lobbySessionOverWebSocket() throws Exception {
+        String binary = System.getProperty("powergrid.native.binary");
+        assertNotNull(binary, "powergrid.native.binary not set");
+        assertTrue(new File(binary).canExecute(), "Not executable: " + binary);
+
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        ProcessBuilder pb = new ProcessBuilder(binary).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.INHERIT);
+        pb.environment().put("PORT", String.valueOf(port));
+        pb.environment().put("POWERGRID_ADMIN_TOKEN", ADMIN_TOKEN);
+        long started = System.nanoTime();
+        server = pb.start();
+
+        // Retries until the binary has bound its port
+        WsClient client = WsClient.connect(port, TIMEOUT, TIMEOUT, server::isAlive);
+        System.out.printf("native server accepted a WebSocket %d ms after exec%n",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        client.send("HELLO", "{\"playerName\":\"Smoke\"}");
+        assertTrue(client.await("WELCOME").contains("\"resumeToken\""));
+
+        client.send("CREATE_ROOM", "{\"roomName\":\"Native\"}");
+        assertTrue(client.await("ROOM_JOINED").contains("\"roomName\":\"Native\""));
+
+        client.send("LIST_ROOMS", "{}");
+        assertTrue(client.await("ROOM_LIST").contains("Native"));
+
+        client.send("PING", "{}");
+        client.await("PONG");
+
+        assertTrue(awaitAdmin(port, "/admin/rooms", "\"roomName\":\"Native\"").contains("\"publishedAt\""));
+        assertTrue(awaitAdmin(port, "/admin/players", "\"name\":\"Smoke\"").contains("\"queued\":false"));
+
+        client.close();
+    }
+
+    /** Polls an admin route until the lobby snapshot it serves contains {@code expected}. */
+    private static String awaitAdmin(int port, String path, String expected) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                .header("Authorization", "Bearer " + ADMIN_TOKEN)
+                .build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (true) {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode(), path + ": " + response.body());
+            if (response.body().contains(expected)) return response.body();
+            assertTrue(System.nanoTime() < deadline, path + " never showed " + expected + ": " + response.body());
+            Thread.sleep(200); // snapshots are published about once a second
+        }
+    }
+}
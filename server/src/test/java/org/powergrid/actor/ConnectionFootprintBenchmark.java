@@ -0,0 +1,149 @@
+package org.powergrid.actor;
+
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.Props;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.apache.pekko.http.javadsl.model.ws.Message;
+import org.apache.pekko.stream.ActorAttributes;
+import org.apache.pekko.stream.OverflowStrategy;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.apache.pekko.stream.javadsl.SourceQueueWithComplete;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.powergrid.chat.ChatDirectory;
+import org.powergrid.rating.RatingService;
+import org.powergrid.util.Ids;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Memory per idle connection: a connection actor attached to an outbound queue built the way
+ * ServerApp builds it, after the HELLO the Godot client sends ({@code batch} and {@code deflate}),
+ * so each one is registered with the lobby and has negotiated batching and compression.
+ *
+ * Reports post-GC heap, process RSS (which is where zlib's native buffers show up) and, when the
+ * JVM runs with {@code -XX:NativeMemoryTracking=summary} as the {@code benchmark} task sets it,
+ * NMT's committed total. Excluded from {@code test}; run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class ConnectionFootprintBenchmark {
+
+    private static final int CONNECTIONS = 20_000;
+    private static final String HELLO =
+            "{\"type\":\"HELLO\",\"payload\":{\"playerName\":\"idle\",\"batch\":true,\"compression\":\"deflate\"}}";
+    private static final Duration SETTLE_TIMEOUT = Duration.ofSeconds(60);
+    private static final Pattern NMT_TOTAL = Pattern.compile("Total: reserved=\\d+KB, committed=(\\d+)KB");
+
+    @Test
+    void bytesPerIdleConnection() throws Exception {
+        ActorSystem<LobbyActor.Command> system = ActorSystem.create(LobbyActor.create(), "footprint");
+        try {
+            ResumeRegistry resumeRegistry = new ResumeRegistry();
+            ChatDirectory chat = new ChatDirectory();
+            RatingService ratings = new RatingService();
+            List<SourceQueueWithComplete<Message>> queues = new ArrayList<>(CONNECTIONS);
+            long heapBefore = usedHeap();
+            long rssBefore = residentBytes();
+            long nativeBefore = nativeCommittedBytes();
+
+            for (int i = 0; i < CONNECTIONS; i++) {
+                long playerId = Ids.next();
+                ActorRef<PlayerConnectionActor.Command> conn = system.systemActorOf(
+                        PlayerConnectionActor.create(playerId, system, resumeRegistry, chat, ratings),
+                        "player-" + Ids.format(playerId),
+                        Props.empty());
+                SourceQueueWithComplete<Message> queue = Source.<Message>queue(256, OverflowStrategy.dropHead())
+                        .addAttributes(ActorAttributes.maxFixedBufferSize(16))
+                        .to(Sink.ignore())
+                        .run(system);
+                conn.tell(new PlayerConnectionActor.Attach(queue));
+                conn.tell(new PlayerConnectionActor.IncomingText(HELLO));
+                queues.add(queue);
+            }
+            awaitRegistered(system);
+
+            long heap = (usedHeap() - heapBefore) / CONNECTIONS;
+            long rss = perConnection(rssBefore, residentBytes());
+            long nativeMemory = perConnection(nativeBefore, nativeCommittedBytes());
+            System.out.printf("%d idle connections after HELLO: heap %d bytes each (≈%d MB for 200k), "
+                            + "RSS %s each (≈%s for 200k), NMT committed %s each%n",
+                    CONNECTIONS, heap, heap * 200_000 / (1024 * 1024),
+                    bytes(rss), megabytesFor200k(rss), bytes(nativeMemory));
+            assertTrue(heap < 16 * 1024, "idle connection retains " + heap + " bytes of heap");
+            if (rss >= 0) {
+                assertTrue(rss < 64 * 1024, "idle connection grows the process by " + rss + " bytes");
+            }
+            assertEquals(CONNECTIONS, queues.size());
+        } finally {
+            system.terminate();
+        }
+    }
+
+    /** Waits until the lobby has registered every connection, i.e. every HELLO was handled. */
+    private static void awaitRegistered(ActorSystem<LobbyActor.Command> system) throws Exception {
+        long deadline = System.nanoTime() + SETTLE_TIMEOUT.toNanos();
+        while (true) {
+            LobbyActor.Footprint lobby = AskPattern.<LobbyActor.Command, LobbyActor.Footprint>ask(
+                    system, LobbyActor.GetFootprint::new, Duration.ofSeconds(10), system.scheduler())
+                    .toCompletableFuture().get(10, TimeUnit.SECONDS);
+            if (lobby.players() >= CONNECTIONS) return;
+            assertTrue(System.nanoTime() < deadline, "only " + lobby.players() + " connections registered");
+            Thread.sleep(250);
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /** VmRSS from {@code /proc/self/status}, or -1 off Linux. */
+    private static long residentBytes() throws Exception {
+        Path status = Path.of("/proc/self/status");
+        if (!Files.isReadable(status)) return -1;
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+            }
+        }
+        return -1;
+    }
+
+    /** NMT's committed total, or -1 if native memory tracking is off. */
+    private static long nativeCommittedBytes() throws Exception {
+        Object summary = ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"), "vmNativeMemory",
+                new Object[]{new String[]{"summary"}}, new String[]{String[].class.getName()});
+        Matcher total = NMT_TOTAL.matcher(String.valueOf(summary));
+        return total.find() ? Long.parseLong(total.group(1)) * 1024 : -1;
+    }
+
+    private static long perConnection(long before, long after) {
+        return before < 0 || after < 0 ? -1 : (after - before) / CONNECTIONS;
+    }
+
+    private static String bytes(long value) {
+        return value < 0 ? "n/a" : value + " bytes";
+    }
+
+    private static String megabytesFor200k(long value) {
+        return value < 0 ? "n/a" : (value * 200_000 / (1024 * 1024)) + " MB";
+    }
+}
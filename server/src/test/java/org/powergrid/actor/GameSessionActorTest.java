@@ -6,8 +6,23 @@ import org.apache.pekko.actor.typed.ActorRef;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
-
-import java.util.List;
+import org.junit.jupiter.api.io.TempDir;
+import org.powergrid.admin.AdminDirectory;
+import org.powergrid.archive.ArchivedGame;
+import org.powergrid.archive.GameArchive;
+import org.powergrid.chat.ChatDirectory;
+import org.powergrid.map.MapLibrary;
+import org.powergrid.map.RegionSelection;
+import org.powergrid.model.RoomSettings;
+import org.powergrid.protocol.MessageType;
+import org.powergrid.rating.RatingService;
+import org.powergrid.spectator.SpectatorDirectory;
+import org.powergrid.util.JsonMapper;
+import org.powergrid.util.LongObjectMap;
+import org.powergrid.util.TimerWheel;
+
+import java.io.IOException;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -29,8 +44,8 @@ class GameSessionActorTest {
     void gameSessionCanBeCreated() {
         TestProbe<LobbyActor.Command> lobbyProbe = testKit.createTestProbe();
 
-        String roomId = "room-test-001";
-        List<String> players = List.of("p1", "p2", "p3");
+        long roomId = 3001L;
+        long[] players = {1L, 2L, 3L};
 
         // Should spawn without error
         ActorRef<GameSessionActor.Command> session = testKit.spawn(
@@ -45,8 +60,8 @@ class GameSessionActorTest {
     void playerLeftWithOnlyOnePlayerEndsGame() {
         TestProbe<LobbyActor.Command> lobbyProbe = testKit.createTestProbe();
 
-        String roomId = "room-test-002";
-        List<String> players = List.of("p1", "p2");
+        long roomId = 3002L;
+        long[] players = {1L, 2L};
 
         ActorRef<GameSessionActor.Command> session = testKit.spawn(
                 GameSessionActor.create(roomId, players, lobbyProbe.getRef()),
@@ -54,18 +69,18 @@ class GameSessionActorTest {
         );
 
         // First player leaves — session should end game (only 1 player left)
-        session.tell(new GameSessionActor.PlayerLeft("p1"));
+        session.tell(new GameSessionActor.PlayerLeft(1L));
 
-        // Session stops gracefully — no exceptions should propagate
-        // (Detailed broadcast verification requires wiring connections, tested in integration tests)
+        // The session stops once the game is over; the lobby watches for this
+        lobbyProbe.expectTerminated(session);
     }
 
     @Test
     void actionIgnoredBeforeGameStart() {
         TestProbe<LobbyActor.Command> lobbyProbe = testKit.createTestProbe();
 
-        String roomId = "room-test-003";
-        List<String> players = List.of("p1", "p2");
+        long roomId = 3003L;
+        long[] players = {1L, 2L};
 
         ActorRef<GameSessionActor.Command> session = testKit.spawn(
                 GameSessionActor.create(roomId, players, lobbyProbe.getRef()),
@@ -75,7 +90,7 @@ class GameSessionActorTest {
         // Sending an action to an IN_PROGRESS game should not throw
         var payload = org.powergrid.util.JsonMapper.getInstance().createObjectNode();
         session.tell(new GameSessionActor.PlayerAction(
-                "p1",
+                1L,
                 org.powergrid.protocol.MessageType.END_TURN,
                 payload
         ));
@@ -83,4 +98,66 @@ class GameSessionActorTest {
         // No exceptions = test passes
         lobbyProbe.expectNoMessage();
     }
+
+    @Test
+    void endedGameIsArchivedWithItsActions(@TempDir Path dir) throws IOException {
+        TestProbe<LobbyActor.Command> lobbyProbe = testKit.createTestProbe();
+        long roomId = 3004L;
+        long[] players = {1L, 2L};
+
+        try (GameArchive archive = GameArchive.open(dir)) {
+            ActorRef<GameSessionActor.Command> session = testKit.spawn(
+                    GameSessionActor.create(roomId, players, new LongObjectMap<>(), lobbyProbe.getRef(),
+                            new SpectatorDirectory(), new AdminDirectory(), new ChatDirectory().open(roomId),
+                            archive, new RatingService(), RoomSettings.DEFAULT, usa(), TimerWheel.getInstance()),
+                    "session-test-004"
+            );
+            var bid = JsonMapper.getInstance().createObjectNode().put("plantId", 13).put("amount", 20);
+            session.tell(new GameSessionActor.PlayerAction(1L, MessageType.BID_PLANT, bid));
+            session.tell(new GameSessionActor.PlayerAction(2L, MessageType.END_TURN, null)); // out of turn: rejected
+            session.tell(new GameSessionActor.PlayerAction(2L, MessageType.PASS_BID, null));
+            session.tell(new GameSessionActor.PlayerLeft(2L));
+
+            ArchivedGame game = lobbyProbe.awaitAssert(() -> {
+                archive.flush();
+                ArchivedGame archived = archive.find(roomId);
+                assertNotNull(archived, "game not archived yet");
+                return archived;
+            });
+            assertEquals(2, game.finalState().players().size(), "seats of players who left are kept");
+            assertEquals(MessageType.BID_PLANT, game.actions().get(0).type());
+            assertEquals("{\"plantId\":13,\"amount\":20}", game.actions().get(0).payload());
+            assertEquals(MessageType.PASS_BID, game.actions().get(1).type(), "rejected actions are not archived");
+            assertNull(game.actions().get(1).payload());
+            assertEquals(2, game.actions().size());
+        }
+    }
+
+    @Test
+    void playerWhoStaysOutranksPlayerWhoLeft() {
+        TestProbe<LobbyActor.Command> lobbyProbe = testKit.createTestProbe();
+        long roomId = 3005L;
+        long[] players = {1L, 2L};
+        RatingService ratings = new RatingService();
+
+        ActorRef<GameSessionActor.Command> session = testKit.spawn(
+                GameSessionActor.create(roomId, players, new LongObjectMap<>(), lobbyProbe.getRef(),
+                        new SpectatorDirectory(), new AdminDirectory(), new ChatDirectory().open(roomId),
+                        GameArchive.disabled(), ratings, RoomSettings.DEFAULT, usa(), TimerWheel.getInstance()),
+                "session-test-005"
+        );
+        session.tell(new GameSessionActor.PlayerLeft(1L));
+
+        lobbyProbe.awaitAssert(() -> {
+            assertEquals(2, ratings.size());
+            return null;
+        });
+        assertTrue(ratings.rating(2L) > RatingService.INITIAL_RATING);
+        assertTrue(ratings.rating(1L) < RatingService.INITIAL_RATING);
+        assertEquals(1, ratings.rank(2L));
+    }
+
+    private static RegionSelection usa() {
+        return RegionSelection.all(MapLibrary.getInstance().get("usa"));
+    }
 }
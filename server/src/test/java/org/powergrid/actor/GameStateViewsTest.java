@@ -0,0 +1,88 @@
+package org.powergrid.actor;
+
+import org.junit.jupiter.api.Test;
+import org.powergrid.model.GameState;
+import org.powergrid.util.Ids;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStateViewsTest {
+
+    private static final long[] SEATS = {11L, 12L, 13L};
+
+    @Test
+    void openMoneySharesOneFrameAcrossAudiences() {
+        GameStateViews views = new GameStateViews();
+        views.update(GameState.initial(5L, SEATS, false), 1);
+
+        String spectator = views.forSpectators();
+        for (long seat : SEATS) {
+            assertSame(spectator, views.forSeat(seat));
+        }
+        assertEquals(1, views.serializations());
+        assertTrue(spectator.contains("\"money\":50"), spectator);
+    }
+
+    @Test
+    void hiddenMoneyRedactsOtherSeats() {
+        GameStateViews views = new GameStateViews();
+        views.update(GameState.initial(5L, SEATS, true), 1);
+
+        String mine = views.forSeat(11L);
+        String spectator = views.forSpectators();
+
+        assertTrue(mine.contains("{\"id\":\"" + Ids.format(11L) + "\",\"name\":\"Player-b\",\"money\":50}"), mine);
+        assertTrue(mine.contains("{\"id\":\"" + Ids.format(12L) + "\",\"name\":\"Player-c\"}"), mine);
+        assertFalse(spectator.contains("money\":"), spectator);
+        assertNotSame(mine, views.forSeat(12L));
+    }
+
+    @Test
+    void framesAreReusedUntilTheVersionMoves() {
+        GameStateViews views = new GameStateViews();
+        GameState state = GameState.initial(5L, SEATS, true);
+        views.update(state, 1);
+        String before = views.forSeat(11L);
+        views.forSpectators();
+
+        views.update(state, 1);
+        assertSame(before, views.forSeat(11L));
+        assertEquals(2, views.serializations());
+
+        views.update(state.withTurn(12L, 1234L), 2);
+        String after = views.forSeat(11L);
+        assertNotSame(before, after);
+        assertTrue(after.contains("\"turnDeadline\":1234"), after);
+        assertEquals(3, views.serializations());
+    }
+
+    @Test
+    void deltasCarryOnlyChangedFieldsAndAChecksum() {
+        GameStateViews views = new GameStateViews();
+        GameState state = GameState.initial(5L, SEATS, false);
+        views.update(state, 1);
+        assertNull(views.deltaForSeat(11L), "First version has nothing to diff against");
+
+        views.update(state.withTurn(12L, 1234L), 2);
+        String delta = views.deltaForSeat(11L);
+
+        assertTrue(delta.startsWith("{\"type\":\"GAME_STATE_DELTA\""), delta);
+        assertTrue(delta.contains("\"currentPlayerId\":\"" + Ids.format(12L) + "\""), delta);
+        assertTrue(delta.contains("\"turnDeadline\":1234"), delta);
+        assertTrue(delta.contains("\"version\":2"), delta);
+        assertTrue(delta.contains("\"checksum\":"), delta);
+        assertFalse(delta.contains("\"players\""), delta);
+        assertSame(delta, views.deltaForSeat(13L));
+    }
+
+    @Test
+    void skippedVersionsFallBackToSnapshots() {
+        GameStateViews views = new GameStateViews();
+        GameState state = GameState.initial(5L, SEATS, false);
+        views.update(state, 1);
+        views.update(state.withTurn(12L, 1234L), 3);
+
+        assertNull(views.deltaForSeat(11L));
+        assertTrue(views.forSeat(11L).contains("\"version\":3"));
+    }
+}
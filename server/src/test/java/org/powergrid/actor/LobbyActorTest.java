@@ -3,9 +3,19 @@ package org.powergrid.actor;
 import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
 import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
 import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.powergrid.admin.AdminDirectory;
+import org.powergrid.chat.ChatDirectory;
+import org.powergrid.model.PhaseTimeouts;
+import org.powergrid.settings.Limits;
+import org.powergrid.spectator.SpectatorDirectory;
+import org.powergrid.util.Ids;
+import org.powergrid.util.JsonMapper;
+
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,13 +38,24 @@ class LobbyActorTest {
         ActorRef<LobbyActor.Command> lobby = testKit.spawn(LobbyActor.create(), "lobby-welcome-test");
         TestProbe<PlayerConnectionActor.Command> probe = testKit.createTestProbe();
 
-        String playerId = "player-001";
+        long playerId = 1001L;
         lobby.tell(new LobbyActor.PlayerConnected(playerId, "Alice", probe.getRef()));
 
         // Expect a SendText command with a WELCOME message
         PlayerConnectionActor.SendText sent = probe.expectMessageClass(PlayerConnectionActor.SendText.class);
         assertTrue(sent.json().contains("\"type\":\"WELCOME\""), "Expected WELCOME in: " + sent.json());
-        assertTrue(sent.json().contains(playerId), "Expected playerId in: " + sent.json());
+        assertTrue(sent.json().contains("\"playerId\":\"" + Ids.format(playerId) + "\""), "Expected playerId in: " + sent.json());
+    }
+
+    @Test
+    void welcomeCarriesResumeToken() {
+        ActorRef<LobbyActor.Command> lobby = testKit.spawn(LobbyActor.create(), "lobby-resume-token-test");
+        TestProbe<PlayerConnectionActor.Command> probe = testKit.createTestProbe();
+
+        lobby.tell(new LobbyActor.PlayerConnected(1004L, "Dave", probe.getRef(), "token-abc"));
+
+        PlayerConnectionActor.SendText sent = probe.expectMessageClass(PlayerConnectionActor.SendText.class);
+        assertTrue(sent.json().contains("\"resumeToken\":\"token-abc\""), "Expected resumeToken in: " + sent.json());
     }
 
     @Test
@@ -42,7 +63,7 @@ class LobbyActorTest {
         ActorRef<LobbyActor.Command> lobby = testKit.spawn(LobbyActor.create(), "lobby-list-test");
         TestProbe<PlayerConnectionActor.Command> probe = testKit.createTestProbe();
 
-        String playerId = "player-002";
+        long playerId = 1002L;
         lobby.tell(new LobbyActor.PlayerConnected(playerId, "Bob", probe.getRef()));
         probe.expectMessageClass(PlayerConnectionActor.SendText.class); // WELCOME
 
@@ -59,8 +80,8 @@ class LobbyActorTest {
         TestProbe<PlayerConnectionActor.Command> hostProbe = testKit.createTestProbe();
         TestProbe<PlayerConnectionActor.Command> guestProbe = testKit.createTestProbe();
 
-        String hostId = "host-001";
-        String guestId = "guest-001";
+        long hostId = 2001L;
+        long guestId = 2002L;
 
         // Register host
         lobby.tell(new LobbyActor.PlayerConnected(hostId, "Host", hostProbe.getRef()));
@@ -73,7 +94,7 @@ class LobbyActorTest {
 
         // Extract roomId from response
         int idx = roomJoined.json().indexOf("\"roomId\":\"") + 10;
-        String roomId = roomJoined.json().substring(idx, roomJoined.json().indexOf("\"", idx));
+        long roomId = Ids.parse(roomJoined.json().substring(idx, roomJoined.json().indexOf("\"", idx)));
 
         // Register guest
         lobby.tell(new LobbyActor.PlayerConnected(guestId, "Guest", guestProbe.getRef()));
@@ -94,7 +115,7 @@ class LobbyActorTest {
         ActorRef<LobbyActor.Command> lobby = testKit.spawn(LobbyActor.create(), "lobby-disconnect-test");
         TestProbe<PlayerConnectionActor.Command> probe = testKit.createTestProbe();
 
-        String playerId = "player-003";
+        long playerId = 1003L;
         lobby.tell(new LobbyActor.PlayerConnected(playerId, "Carol", probe.getRef()));
         probe.expectMessageClass(PlayerConnectionActor.SendText.class); // WELCOME
 
@@ -105,4 +126,196 @@ class LobbyActorTest {
         lobby.tell(new LobbyActor.PlayerDisconnected(playerId));
         probe.expectNoMessage();
     }
+
+    @Test
+    void joinUnknownRoomIsRejected() {
+        ActorRef<LobbyActor.Command> lobby = testKit.spawn(LobbyActor.create(), "lobby-unknown-room-test");
+        TestProbe<PlayerConnectionActor.Command> probe = testKit.createTestProbe();
+
+        long playerId = 1005L;
+        lobby.tell(new LobbyActor.PlayerConnected(playerId, "Erin", probe.getRef()));
+        probe.expectMessageClass(PlayerConnectionActor.SendText.class); // WELCOME
+
+        lobby.tell(new LobbyActor.JoinRoom(playerId, Ids.parse("not a room")));
+
+        PlayerConnectionActor.SendText sent = probe.expectMessageClass(PlayerConnectionActor.SendText.class);
+        assertTrue(sent.json().contains("ROOM_NOT_FOUND"), "Expected ROOM_NOT_FOUND in: " + sent.json());
+    }
+
+    @Test
+    void quickMatchStartsGameOncePlayersAreQueued() {
+        ActorRef<LobbyActor.Command> lobby = testKit.spawn(LobbyActor.create(), "lobby-quick-match-test");
+        TestProbe<PlayerConnectionActor.Command> aliceProbe = testKit.createTestProbe();
+        TestProbe<PlayerConnectionActor.Command> bobProbe = testKit.createTestProbe();
+
+        lobby.tell(new LobbyActor.PlayerConnected(5001L, "Alice", aliceProbe.getRef()));
+        lobby.tell(new LobbyActor.PlayerConnected(5002L, "Bob", bobProbe.getRef()));
+        aliceProbe.expectMessageClass(PlayerConnectionActor.SendText.class); // WELCOME
+        bobProbe.expectMessageClass(PlayerConnectionActor.SendText.class); // WELCOME
+
+        lobby.tell(new LobbyActor.QuickMatch(5001L, 2));
+        lobby.tell(new LobbyActor.QuickMatch(5002L, 2));
+
+        for (TestProbe<PlayerConnectionActor.Command> probe : List.of(aliceProbe, bobProbe)) {
+            PlayerConnectionActor.SendText queued = probe.expectMessageClass(PlayerConnectionActor.SendText.class);
+            assertTrue(queued.json().contains("\"type\":\"MATCH_QUEUED\""), "Expected MATCH_QUEUED in: " + queued.json());
+            PlayerConnectionActor.SendText starting = probe.expectMessageClass(PlayerConnectionActor.SendText.class);
+            assertTrue(starting.json().contains("\"type\":\"GAME_STARTING\""), "Expected GAME_STARTING in: " + starting.json());
+            assertTrue(starting.json().contains("\"map\":\"usa\""), "Expected the default map in: " + starting.json());
+        }
+    }
+
+    @Test
+    void unknownMapIsRejected() {
+        ActorRef<LobbyActor.Command> lobby = testKit.spawn(LobbyActor.create(), "lobby-unknown-map-test");
+        TestProbe<PlayerConnectionActor.Command> probe = testKit.createTestProbe();
+
+        lobby.tell(new LobbyActor.PlayerConnected(5004L, "Dana", probe.getRef()));
+        probe.expectMessageClass(PlayerConnectionActor.SendText.class); // WELCOME
+
+        var options = JsonMapper.getInstance().createObjectNode().put("map", "atlantis");
+        lobby.tell(new LobbyActor.CreateRoom(5004L, "Lost", options));
+
+        PlayerConnectionActor.SendText sent = probe.expectMessageClass(PlayerConnectionActor.SendText.class);
+        assertTrue(sent.json().contains("UNKNOWN_MAP"), "Expected UNKNOWN_MAP in: " + sent.json());
+    }
+
+    @Test
+    void invalidQuickMatchSizeIsRejected() {
+        ActorRef<LobbyActor.Command> lobby = testKit.spawn(LobbyActor.create(), "lobby-quick-match-size-test");
+        TestProbe<PlayerConnectionActor.Command> probe = testKit.createTestProbe();
+
+        lobby.tell(new LobbyActor.PlayerConnected(5003L, "Carol", probe.getRef()));
+        probe.expectMessageClass(PlayerConnectionActor.SendText.class); // WELCOME
+
+        lobby.tell(new LobbyActor.QuickMatch(5003L, 9));
+
+        PlayerConnectionActor.SendText sent = probe.expectMessageClass(PlayerConnectionActor.SendText.class);
+        assertTrue(sent.json().contains("INVALID_MATCH_SIZE"), "Expected INVALID_MATCH_SIZE in: " + sent.json());
+    }
+
+    @Test
+    void roomChatReachesMembersAndLateJoinersGetHistory() {
+        ChatDirectory chat = new ChatDirectory();
+        ActorRef<LobbyActor.Command> lobby = testKit.spawn(
+                LobbyActor.create(new SpectatorDirectory(), new AdminDirectory(), chat), "lobby-chat-test");
+        TestProbe<PlayerConnectionActor.Command> hostProbe = testKit.createTestProbe();
+        TestProbe<PlayerConnectionActor.Command> lateProbe = testKit.createTestProbe();
+
+        lobby.tell(new LobbyActor.PlayerConnected(6001L, "Host", hostProbe.getRef()));
+        hostProbe.expectMessageClass(PlayerConnectionActor.SendText.class); // WELCOME
+        lobby.tell(new LobbyActor.CreateRoom(6001L, "Chatty"));
+        PlayerConnectionActor.SendText joined = hostProbe.expectMessageClass(PlayerConnectionActor.SendText.class);
+        String roomId = joined.json().replaceAll(".*\"roomId\":\"([^\"]+)\".*", "$1");
+
+        assertTrue(chat.find(6001L).post(6001L, "hello"));
+        PlayerConnectionActor.SendText line = hostProbe.expectMessageClass(PlayerConnectionActor.SendText.class);
+        assertTrue(line.json().contains("\"type\":\"CHAT_MESSAGE\""), "Expected CHAT_MESSAGE in: " + line.json());
+        assertTrue(line.json().contains("\"text\":\"hello\""), "Expected text in: " + line.json());
+
+        lobby.tell(new LobbyActor.PlayerConnected(6002L, "Late", lateProbe.getRef()));
+        lateProbe.expectMessageClass(PlayerConnectionActor.SendText.class); // WELCOME
+        lobby.tell(new LobbyActor.JoinRoom(6002L, Ids.parse(roomId)));
+        lateProbe.expectMessageClass(PlayerConnectionActor.SendText.class); // ROOM_JOINED
+        PlayerConnectionActor.SendText history = lateProbe.expectMessageClass(PlayerConnectionActor.SendText.class);
+        assertEquals(line.json(), history.json());
+        lateProbe.expectMessageClass(PlayerConnectionActor.SendText.class); // ROOM_UPDATED
+
+        lobby.tell(new LobbyActor.LeaveRoom(6002L));
+        lobby.tell(new LobbyActor.ListRooms(6002L));
+        lateProbe.expectMessageClass(PlayerConnectionActor.SendText.class); // ROOM_LIST, so the leave is done
+        assertNull(chat.find(6002L));
+    }
+
+    @Test
+    void finishedGameIsForgottenAndItsSeatsAreReleased() {
+        ActorRef<LobbyActor.Command> lobby = testKit.spawn(LobbyActor.create(), "lobby-game-ended-test");
+        TestProbe<PlayerConnectionActor.Command> aliceProbe = testKit.createTestProbe();
+        TestProbe<PlayerConnectionActor.Command> bobProbe = testKit.createTestProbe();
+        TestProbe<LobbyActor.Footprint> footprint = testKit.createTestProbe();
+
+        lobby.tell(new LobbyActor.PlayerConnected(5011L, "Alice", aliceProbe.getRef()));
+        lobby.tell(new LobbyActor.PlayerConnected(5012L, "Bob", bobProbe.getRef()));
+        lobby.tell(new LobbyActor.QuickMatch(5011L, 2));
+        lobby.tell(new LobbyActor.QuickMatch(5012L, 2));
+        ActorRef<GameSessionActor.Command> session =
+                receiveUntil(aliceProbe, PlayerConnectionActor.GameAssigned.class).session();
+
+        lobby.tell(new LobbyActor.GetFootprint(footprint.getRef()));
+        assertEquals(1, footprint.receiveMessage().games());
+
+        session.tell(new GameSessionActor.PlayerLeft(5011L));
+        aliceProbe.expectTerminated(session);
+        assertEquals(session, receiveUntil(bobProbe, PlayerConnectionActor.GameFinished.class).session());
+
+        lobby.tell(new LobbyActor.GetFootprint(footprint.getRef()));
+        LobbyActor.Footprint after = footprint.receiveMessage();
+        assertEquals(0, after.games());
+        assertEquals(2, after.players(), "both players are back in the lobby");
+        assertEquals(1, after.children(), "only the matchmaker is left");
+    }
+
+    @Test
+    void stoppedConnectionDropsThePlayer() {
+        ActorRef<LobbyActor.Command> lobby = testKit.spawn(LobbyActor.create(), "lobby-watch-test");
+        ActorRef<PlayerConnectionActor.Command> connection = testKit.spawn(Behaviors.ignore(), "lobby-watch-connection");
+        TestProbe<LobbyActor.Footprint> footprint = testKit.createTestProbe();
+
+        lobby.tell(new LobbyActor.PlayerConnected(7001L, "Gone", connection));
+        lobby.tell(new LobbyActor.CreateRoom(7001L, "Abandoned"));
+        testKit.stop(connection);
+
+        footprint.awaitAssert(() -> {
+            lobby.tell(new LobbyActor.GetFootprint(footprint.getRef()));
+            LobbyActor.Footprint f = footprint.receiveMessage();
+            assertEquals(0, f.players());
+            assertEquals(0, f.connections());
+            assertEquals(0, f.rooms());
+            assertEquals(0, f.roomChats());
+            return f;
+        });
+    }
+
+    @Test
+    void roomCapFollowsChangedSettings() {
+        ActorRef<LobbyActor.Command> lobby = testKit.spawn(LobbyActor.create(), "lobby-settings-test");
+        TestProbe<PlayerConnectionActor.Command> hostProbe = testKit.createTestProbe();
+        TestProbe<PlayerConnectionActor.Command> guestProbe = testKit.createTestProbe();
+        TestProbe<PlayerConnectionActor.Command> lateProbe = testKit.createTestProbe();
+
+        lobby.tell(new LobbyActor.SettingsChanged(
+                new Limits(PhaseTimeouts.DEFAULT, 2, Limits.DEFAULT.outQueueSize(), Limits.DEFAULT.frameReadTimeout())));
+        lobby.tell(new LobbyActor.PlayerConnected(8001L, "Host", hostProbe.getRef()));
+        lobby.tell(new LobbyActor.PlayerConnected(8002L, "Guest", guestProbe.getRef()));
+        lobby.tell(new LobbyActor.PlayerConnected(8003L, "Late", lateProbe.getRef()));
+        hostProbe.expectMessageClass(PlayerConnectionActor.SendText.class); // WELCOME
+        guestProbe.expectMessageClass(PlayerConnectionActor.SendText.class); // WELCOME
+        lateProbe.expectMessageClass(PlayerConnectionActor.SendText.class); // WELCOME
+
+        lobby.tell(new LobbyActor.CreateRoom(8001L, "Duel"));
+        PlayerConnectionActor.SendText joined = hostProbe.expectMessageClass(PlayerConnectionActor.SendText.class);
+        long roomId = Ids.parse(joined.json().replaceAll(".*\"roomId\":\"([^\"]+)\".*", "$1"));
+        lobby.tell(new LobbyActor.JoinRoom(8002L, roomId));
+        guestProbe.expectMessageClass(PlayerConnectionActor.SendText.class); // ROOM_JOINED
+
+        lobby.tell(new LobbyActor.JoinRoom(8003L, roomId));
+        PlayerConnectionActor.SendText full = lateProbe.expectMessageClass(PlayerConnectionActor.SendText.class);
+        assertTrue(full.json().contains("ROOM_FULL"), "Expected ROOM_FULL in: " + full.json());
+
+        lobby.tell(new LobbyActor.QuickMatch(8003L, 3));
+        PlayerConnectionActor.SendText tooBig = lateProbe.expectMessageClass(PlayerConnectionActor.SendText.class);
+        assertTrue(tooBig.json().contains("INVALID_MATCH_SIZE"), "Expected INVALID_MATCH_SIZE in: " + tooBig.json());
+    }
+
+    /** Skips the frames a probe receives until a command of {@code type} arrives. */
+    private static <T extends PlayerConnectionActor.Command> T receiveUntil(
+            TestProbe<PlayerConnectionActor.Command> probe, Class<T> type) {
+        for (int i = 0; i < 20; i++) {
+            PlayerConnectionActor.Command msg = probe.receiveMessage();
+            if (type.isInstance(msg)) {
+                return type.cast(msg);
+            }
+        }
+        throw new AssertionError("No " + type.getSimpleName() + " received");
+    }
 }
@@ -0,0 +1,419 @@
+package org.powergrid.actor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.powergrid.admin.AdminDirectory;
+import org.powergrid.archive.GameArchive;
+import org.powergrid.chat.ChatDirectory;
+import org.powergrid.protocol.MessageType;
+import org.powergrid.rating.RatingService;
+import org.powergrid.spectator.SpectatorDirectory;
+import org.powergrid.util.Ids;
+import org.powergrid.util.JsonMapper;
+import org.powergrid.util.Metrics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hours of lobby churn against real connection actors, watching for anything that only grows.
+ *
+ * Scripted clients connect, create and join rooms, quick-match, start games, play a few turns,
+ * resume and drop off, and some never send HELLO at all. A sampler records live connection actors,
+ * live game sessions, every {@link LobbyActor} map, the shared directories and post-GC heap. The
+ * run fails if a series is still climbing in the second half of the run, or if anything is left
+ * once the clients are gone and every grace period has run out.
+ *
+ * Excluded from {@code test}; run with {@code ./gradlew soak}, e.g.
+ * {@code ./gradlew soak -Dpowergrid.soak.duration=PT4H -Dpowergrid.soak.clients=64}.
+ */
+@Tag("soak")
+class LobbySoakTest {
+
+    private static final Duration DURATION = duration("powergrid.soak.duration", Duration.ofMinutes(10));
+    private static final Duration SAMPLE_INTERVAL = duration("powergrid.soak.sample-interval", Duration.ofSeconds(15));
+    private static final int SCRIPTS = Integer.getInteger("powergrid.soak.clients", 32);
+    private static final Duration REPLY_TIMEOUT = Duration.ofSeconds(10);
+    /** Longest anything may outlive its client: a held seat, then the game it was keeping alive. */
+    private static final Duration SETTLE = PlayerConnectionActor.RESUME_GRACE
+            .plus(PlayerConnectionActor.HELLO_TIMEOUT).plusSeconds(15);
+    private static final int MAX_RATED = 5_000;
+    private static final int COUNT_SLACK = 64;
+    private static final long HEAP_SLACK = 32L << 20;
+
+    /** One sampler reading; {@code atMillis} is time since the churn started. */
+    record Sample(
+            long atMillis,
+            long connectionActors,
+            long sessions,
+            LobbyActor.Footprint lobby,
+            int adminSessions,
+            int spectatorFeeds,
+            int chatMembers,
+            int resumeTokens,
+            int ratedPlayers,
+            long heapBytes
+    ) {
+        long lobbyEntries() {
+            return (long) lobby.players() + lobby.connections() + lobby.rooms() + lobby.playerRooms()
+                    + lobby.matchQueued() + lobby.roomChats() + lobby.games() + lobby.playerGames();
+        }
+    }
+
+    private final ResumeRegistry resumeRegistry = new ResumeRegistry();
+    private final ChatDirectory chat = new ChatDirectory();
+    private final AdminDirectory admin = new AdminDirectory();
+    private final SpectatorDirectory spectators = new SpectatorDirectory();
+    private final RatingService ratings = new RatingService(MAX_RATED);
+    private final LongAdder scriptsRun = new LongAdder();
+    private final LongAdder gamesStarted = new LongAdder();
+    private final LongAdder unmatched = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+    private ActorSystem<LobbyActor.Command> system;
+    private long startNanos;
+
+    @Test
+    void churnLeavesNothingBehind() throws Exception {
+        system = ActorSystem.create(
+                LobbyActor.create(spectators, admin, chat, GameArchive.disabled(), ratings), "soak");
+        ExecutorService clients = Executors.newFixedThreadPool(SCRIPTS);
+        try {
+            System.out.printf("Soak: %s with %d scripted clients, sampling every %s%n", DURATION, SCRIPTS, SAMPLE_INTERVAL);
+            System.out.printf("%8s %7s %8s %7s %6s %6s %6s %6s %7s %6s %7s%n",
+                    "t(s)", "actors", "sessions", "players", "rooms", "queued", "games", "chat", "tokens", "rated", "heapMB");
+            startNanos = System.nanoTime();
+            Sample baseline = sample();
+            print(baseline);
+
+            long end = startNanos + DURATION.toNanos();
+            for (int i = 0; i < SCRIPTS; i++) {
+                Random random = new Random(i);
+                clients.submit(() -> runScripts(random, end));
+            }
+            List<Sample> samples = new ArrayList<>();
+            for (long next = startNanos + SAMPLE_INTERVAL.toNanos(); next <= end; next += SAMPLE_INTERVAL.toNanos()) {
+                TimeUnit.NANOSECONDS.sleep(Math.max(0, next - System.nanoTime()));
+                Sample sample = sample();
+                samples.add(sample);
+                print(sample);
+            }
+            clients.shutdown();
+            assertTrue(clients.awaitTermination(SETTLE.toSeconds(), TimeUnit.SECONDS), "scripts did not finish");
+            System.out.printf("%d scripts, %d games started, %d quick matches unmatched, %d failed%n",
+                    scriptsRun.sum(), gamesStarted.sum(), unmatched.sum(), failures.sum());
+
+            assertEquals(0L, failures.sum(), "first failure: " + firstFailure.get());
+            assertBounded(samples);
+
+            Sample settled = settle(baseline);
+            print(settled);
+            assertEquals(baseline.connectionActors(), settled.connectionActors(), "connection actors left behind");
+            assertEquals(baseline.sessions(), settled.sessions(), "game sessions left behind");
+            assertEquals(baseline.lobby(), settled.lobby(), "lobby state left behind");
+            assertEquals(0, settled.adminSessions(), "admin session snapshots left behind");
+            assertEquals(0, settled.spectatorFeeds(), "spectator feeds left behind");
+            assertEquals(0, settled.chatMembers(), "chat memberships left behind");
+            assertEquals(0, settled.resumeTokens(), "resume tokens left behind");
+            assertTrue(settled.ratedPlayers() <= MAX_RATED, "rating table exceeded its cap");
+            assertTrue(settled.heapBytes() <= baseline.heapBytes() + 2 * HEAP_SLACK,
+                    "heap grew from " + mb(baseline.heapBytes()) + " MB to " + mb(settled.heapBytes()) + " MB");
+        } finally {
+            clients.shutdownNow();
+            system.terminate();
+        }
+    }
+
+    // ─── Scripts ─────────────────────────────────────────────────────────────
+
+    private void runScripts(Random random, long endNanos) {
+        while (System.nanoTime() < endNanos && !Thread.currentThread().isInterrupted()) {
+            try {
+                int pick = random.nextInt(100);
+                if (pick < 35) {
+                    roomGame(random);
+                } else if (pick < 60) {
+                    quickMatch(random);
+                } else if (pick < 75) {
+                    roomHopper();
+                } else if (pick < 90) {
+                    lurker(random);
+                } else {
+                    reconnect();
+                }
+                scriptsRun.increment();
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception | AssertionError e) {
+                failures.increment();
+                firstFailure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    /** A host opens a room, 1–3 guests join, they play a few turns and the players drop off. */
+    private void roomGame(Random random) throws Exception {
+        List<Client> players = connect(2 + random.nextInt(3));
+        Client host = players.get(0);
+        host.send(MessageType.CREATE_ROOM, "{\"roomName\":\"soak\"}");
+        String roomId = host.await(MessageType.ROOM_JOINED).path("payload").path("roomId").asText();
+        for (Client guest : players.subList(1, players.size())) {
+            guest.send(MessageType.JOIN_ROOM, "{\"roomId\":\"" + roomId + "\"}");
+            guest.await(MessageType.ROOM_JOINED);
+        }
+        host.send(MessageType.CHAT_SEND, "{\"text\":\"glhf\"}");
+        if (random.nextInt(10) == 0) {
+            drop(players); // abandoned before it started
+            return;
+        }
+
+        host.send(MessageType.START_GAME, "{}");
+        for (Client player : players) {
+            player.await(MessageType.GAME_STARTING);
+        }
+        gamesStarted.increment();
+        for (int turn = 0; turn < 3; turn++) {
+            players.get(random.nextInt(players.size())).send(MessageType.END_TURN, "{}");
+        }
+
+        if (random.nextInt(4) == 0) {
+            // The others drop; the last player sees the game end and carries on in the lobby
+            drop(players.subList(1, players.size()));
+            host.await(MessageType.GAME_OVER, PlayerConnectionActor.RESUME_GRACE.plus(REPLY_TIMEOUT));
+            host.send(MessageType.LIST_ROOMS, "{}");
+            host.await(MessageType.ROOM_LIST);
+            host.send(MessageType.GET_RANK, "{}");
+            host.await(MessageType.MY_RANK);
+            host.drop();
+        } else {
+            drop(players);
+        }
+    }
+
+    /** Two players queue for a 2-seat game; sometimes one changes its mind first. */
+    private void quickMatch(Random random) throws Exception {
+        List<Client> players = connect(2);
+        if (random.nextInt(5) == 0) {
+            Client fickle = players.get(0);
+            fickle.send(MessageType.QUICK_MATCH, "{\"players\":2}");
+            fickle.await(MessageType.MATCH_QUEUED);
+            fickle.send(MessageType.CANCEL_MATCH, "{}");
+            drop(players);
+            return;
+        }
+        for (Client player : players) {
+            player.send(MessageType.QUICK_MATCH, "{\"players\":2}");
+        }
+        for (Client player : players) {
+            // Other scripts queue too, so partners can come from anywhere; a straggler gives up
+            if (player.poll(MessageType.GAME_STARTING, REPLY_TIMEOUT) == null) {
+                unmatched.increment();
+                player.send(MessageType.CANCEL_MATCH, "{}");
+            }
+        }
+        drop(players);
+    }
+
+    /** Lobby-only traffic: create, list, leave, leaderboard. */
+    private void roomHopper() throws Exception {
+        Client client = connect(1).get(0);
+        client.send(MessageType.CREATE_ROOM, "{\"roomName\":\"hop\"}");
+        client.await(MessageType.ROOM_JOINED);
+        client.send(MessageType.LIST_ROOMS, "{}");
+        client.await(MessageType.ROOM_LIST);
+        client.send(MessageType.LEAVE_ROOM, "{}");
+        client.send(MessageType.GET_LEADERBOARD, "{}");
+        client.await(MessageType.LEADERBOARD);
+        client.drop();
+    }
+
+    /** A socket that never says HELLO; half hang up, the rest are left for the server to close. */
+    private void lurker(Random random) {
+        Client client = new Client();
+        if (random.nextBoolean()) {
+            client.drop();
+        }
+    }
+
+    /** Drops the socket while in a room and comes back with the resume token. */
+    private void reconnect() throws Exception {
+        Client client = connect(1).get(0);
+        client.send(MessageType.CREATE_ROOM, "{\"roomName\":\"flaky\"}");
+        client.await(MessageType.ROOM_JOINED);
+        client.drop();
+        assertTrue(client.resume(), "resume token expired early");
+        client.await(MessageType.RESUMED);
+        client.drop();
+    }
+
+    private List<Client> connect(int n) throws Exception {
+        List<Client> clients = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Client client = new Client();
+            client.send(MessageType.HELLO, "{\"playerName\":\"soak-" + i + "\"}");
+            client.resumeToken = client.await(MessageType.WELCOME).path("payload").path("resumeToken").asText();
+            clients.add(client);
+        }
+        return clients;
+    }
+
+    private static void drop(List<Client> clients) {
+        for (Client client : clients) {
+            client.drop();
+        }
+    }
+
+    /** One scripted socket, with the resume token its WELCOME carried. */
+    private final class Client {
+
+        final TestConnection conn;
+        String resumeToken;
+
+        Client() {
+            long playerId = Ids.next();
+            conn = new TestConnection(system, playerId,
+                    PlayerConnectionActor.create(playerId, system, resumeRegistry, chat, ratings));
+        }
+
+        void send(MessageType type, String payload) {
+            conn.send(type, payload);
+        }
+
+        void drop() {
+            conn.drop();
+        }
+
+        /** A new socket claiming the resume token, the way ServerApp handles {@code ?resume=}. */
+        boolean resume() {
+            ActorRef<PlayerConnectionActor.Command> claimed = resumeRegistry.claim(resumeToken);
+            if (claimed == null) return false;
+            claimed.tell(new PlayerConnectionActor.Reattach(conn.openSocket(), 0));
+            return true;
+        }
+
+        JsonNode await(MessageType type) throws Exception {
+            return await(type, REPLY_TIMEOUT);
+        }
+
+        JsonNode await(MessageType type, Duration timeout) throws Exception {
+            return JsonMapper.getInstance().readTree(conn.await(type, timeout));
+        }
+
+        /** Skips frames until one of {@code type} arrives; {@code null} on timeout. */
+        JsonNode poll(MessageType type, Duration timeout) throws Exception {
+            String frame = conn.poll(type, timeout);
+            return frame == null ? null : JsonMapper.getInstance().readTree(frame);
+        }
+    }
+
+    // ─── Sampling ────────────────────────────────────────────────────────────
+
+    private Sample sample() throws Exception {
+        LobbyActor.Footprint lobby = AskPattern.<LobbyActor.Command, LobbyActor.Footprint>ask(
+                system, LobbyActor.GetFootprint::new, REPLY_TIMEOUT, system.scheduler())
+                .toCompletableFuture().get();
+        Metrics metrics = Metrics.getInstance();
+        return new Sample(
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                metrics.value("powergrid_connection_actors"),
+                metrics.value("powergrid_game_sessions"),
+                lobby,
+                admin.sessionCount(),
+                spectators.size(),
+                chat.size(),
+                resumeRegistry.size(),
+                ratings.size(),
+                heapAfterGc());
+    }
+
+    /** Samples until everything is back to {@code baseline}, or {@link #SETTLE} has passed. */
+    private Sample settle(Sample baseline) throws Exception {
+        long deadline = System.nanoTime() + SETTLE.toNanos();
+        Sample sample = sample();
+        while (!drained(sample, baseline) && System.nanoTime() < deadline) {
+            Thread.sleep(1000);
+            sample = sample();
+        }
+        return sample;
+    }
+
+    private static boolean drained(Sample sample, Sample baseline) {
+        return sample.connectionActors() == baseline.connectionActors()
+                && sample.sessions() == baseline.sessions()
+                && sample.lobby().equals(baseline.lobby())
+                && sample.adminSessions() == 0
+                && sample.spectatorFeeds() == 0
+                && sample.chatMembers() == 0
+                && sample.resumeTokens() == 0;
+    }
+
+    /**
+     * Once warmed up (grace periods take {@link #SETTLE} to fill), no series may peak much higher in
+     * the second half of the run than in the first.
+     */
+    private static void assertBounded(List<Sample> samples) {
+        List<Sample> steady = samples.stream().filter(s -> s.atMillis() >= SETTLE.toMillis()).toList();
+        if (steady.size() < 4) {
+            System.out.println("Too few steady-state samples to check growth; run longer");
+            return;
+        }
+        List<Sample> first = steady.subList(0, steady.size() / 2);
+        List<Sample> second = steady.subList(steady.size() / 2, steady.size());
+        assertNotGrowing("connection actors", first, second, Sample::connectionActors, COUNT_SLACK);
+        assertNotGrowing("game sessions", first, second, Sample::sessions, COUNT_SLACK);
+        assertNotGrowing("lobby map entries", first, second, Sample::lobbyEntries, COUNT_SLACK);
+        assertNotGrowing("lobby children", first, second, s -> s.lobby().children(), COUNT_SLACK);
+        assertNotGrowing("admin sessions", first, second, Sample::adminSessions, COUNT_SLACK);
+        assertNotGrowing("chat members", first, second, Sample::chatMembers, COUNT_SLACK);
+        assertNotGrowing("resume tokens", first, second, Sample::resumeTokens, COUNT_SLACK);
+        assertNotGrowing("post-GC heap", first, second, Sample::heapBytes, HEAP_SLACK);
+        steady.forEach(s -> assertTrue(s.ratedPlayers() <= MAX_RATED, "rating table exceeded its cap"));
+    }
+
+    private static void assertNotGrowing(String name, List<Sample> first, List<Sample> second,
+                                         ToLongFunction<Sample> series, long slack) {
+        long before = first.stream().mapToLong(series).max().orElse(0);
+        long after = second.stream().mapToLong(series).max().orElse(0);
+        assertTrue(after <= before + before / 4 + slack,
+                name + " kept growing: peaked at " + before + " in the first half of the run, " + after + " in the second");
+    }
+
+    private static void print(Sample s) {
+        System.out.printf("%8d %7d %8d %7d %6d %6d %6d %6d %7d %6d %7d%n",
+                s.atMillis() / 1000, s.connectionActors(), s.sessions(), s.lobby().players(), s.lobby().rooms(),
+                s.lobby().matchQueued(), s.lobby().games(), s.chatMembers(), s.resumeTokens(), s.ratedPlayers(),
+                mb(s.heapBytes()));
+    }
+
+    private static long heapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long mb(long bytes) {
+        return bytes >> 20;
+    }
+
+    private static Duration duration(String property, Duration fallback) {
+        String value = System.getProperty(property);
+        return value != null ? Duration.parse(value) : fallback;
+    }
+}
@@ -0,0 +1,22 @@
+package org.powergrid.actor;
+
+import org.junit.jupiter.api.Test;
+import org.powergrid.util.Ids;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeIdGuardActorTest {
+
+    @Test
+    void configuredNodeIdRoleWins() {
+        assertEquals(7, NodeIdGuardActor.nodeId(Set.of("dc-east", "ids-7"), 0x5EED_ABCDL));
+    }
+
+    @Test
+    void withoutRoleTheUidPicksTheNodeId() {
+        assertEquals(0xABCD, NodeIdGuardActor.nodeId(Set.of("dc-east"), 0x5EED_0000_0000_ABCDL));
+        assertTrue(NodeIdGuardActor.nodeId(Set.of(), -1L) <= Ids.MAX_NODE);
+    }
+}
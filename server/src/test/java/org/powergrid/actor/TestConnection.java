@@ -0,0 +1,85 @@
+package org.powergrid.actor;
+
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.Props;
+import org.apache.pekko.http.javadsl.model.ws.Message;
+import org.apache.pekko.stream.OverflowStrategy;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.apache.pekko.stream.javadsl.SourceQueueWithComplete;
+import org.powergrid.protocol.MessageType;
+import org.powergrid.util.Ids;
+
+import java.time.Duration;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A real connection actor driven the way ServerApp drives one for a socket, minus the socket:
+ * commands go in as {@code IncomingText} and its outbound frames land in {@link #frames}.
+ * Shared by the in-process tests that script players against a lobby.
+ */
+public final class TestConnection {
+
+    public final long playerId;
+    public final ActorRef<PlayerConnectionActor.Command> connection;
+    public final LinkedBlockingQueue<String> frames = new LinkedBlockingQueue<>();
+    private final ActorSystem<?> system;
+    private SourceQueueWithComplete<Message> socket;
+
+    /** Spawns {@code behavior} for {@code playerId} and attaches a socket to it. */
+    public TestConnection(ActorSystem<?> system, long playerId, Behavior<PlayerConnectionActor.Command> behavior) {
+        this.system = system;
+        this.playerId = playerId;
+        this.connection = system.systemActorOf(behavior, "player-" + Ids.format(playerId), Props.empty());
+        connection.tell(new PlayerConnectionActor.Attach(openSocket()));
+    }
+
+    /** A new outbound queue feeding {@link #frames}, as for a new socket; it becomes the current one. */
+    public SourceQueueWithComplete<Message> openSocket() {
+        socket = Source.<Message>queue(256, OverflowStrategy.dropHead())
+                .to(Sink.foreach(m -> frames.add(m.asTextMessage().getStrictText())))
+                .run(system);
+        return socket;
+    }
+
+    public void send(MessageType type, String payload) {
+        connection.tell(new PlayerConnectionActor.IncomingText(
+                "{\"type\":\"" + type + "\",\"payload\":" + payload + "}"));
+    }
+
+    /** What ServerApp sends when the current socket's stream terminates. */
+    public void drop() {
+        connection.tell(new PlayerConnectionActor.ConnectionClosed(socket));
+    }
+
+    /** Skips frames until one of {@code types} arrives; {@code null} on timeout. */
+    public String poll(Duration timeout, MessageType... types) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            String frame = frames.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (frame == null) return null;
+            for (MessageType type : types) {
+                if (frame.contains("\"type\":\"" + type + "\"")) return frame;
+            }
+        }
+    }
+
+    public String poll(MessageType type, Duration timeout) throws InterruptedException {
+        return poll(timeout, type);
+    }
+
+    public String await(MessageType type, Duration timeout) throws InterruptedException {
+        return awaitAny(timeout, type);
+    }
+
+    public String awaitAny(Duration timeout, MessageType... types) throws InterruptedException {
+        String frame = poll(timeout, types);
+        if (frame == null) {
+            throw new AssertionError("No " + java.util.Arrays.toString(types) + " within " + timeout);
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,60 @@
+package org.powergrid.admin;
+
+import org.junit.jupiter.api.Test;
+import org.powergrid.model.GameState;
+import org.powergrid.model.LobbyRoom;
+import org.powergrid.util.Ids;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdminDirectoryTest {
+
+    private final AdminDirectory admin = new AdminDirectory();
+
+    @Test
+    void roomsListWaitingRoomsAndRunningGames() {
+        admin.publishLobby(new LobbySnapshot(1000L,
+                List.of(new LobbyRoom(7L, "Waiting", 1L, new long[]{1L})),
+                List.of(new LobbySnapshot.PlayerEntry(1L, "Alice", 7L, false))));
+        admin.publishSession(new SessionSnapshot(9L, 500L, 1, GameState.initial(9L, new long[]{2L, 3L}, false)));
+
+        String json = admin.roomsJson();
+        assertTrue(json.contains("\"name\":\"Waiting\""), json);
+        assertTrue(json.contains("\"roomId\":\"" + Ids.format(9L) + "\""), json);
+        assertTrue(json.contains("\"players\":2"), json);
+    }
+
+    @Test
+    void playersShowTheGameTheyAreIn() {
+        admin.publishLobby(new LobbySnapshot(1000L, List.of(),
+                List.of(new LobbySnapshot.PlayerEntry(2L, "Bob", Ids.NONE, false),
+                        new LobbySnapshot.PlayerEntry(4L, "Dana", Ids.NONE, true))));
+        admin.publishSession(new SessionSnapshot(9L, 500L, 1, GameState.initial(9L, new long[]{2L, 3L}, false)));
+
+        String json = admin.playersJson();
+        assertTrue(json.contains("\"gameId\":\"" + Ids.format(9L) + "\""), json);
+        assertTrue(json.contains("\"queued\":true"), json);
+    }
+
+    @Test
+    void renderedJsonIsReusedUntilSomethingIsPublished() {
+        admin.publishLobby(new LobbySnapshot(1000L, List.of(), List.of()));
+        String first = admin.roomsJson();
+        assertSame(first, admin.roomsJson());
+
+        admin.publishSession(new SessionSnapshot(9L, 500L, 1, GameState.initial(9L, new long[]{2L, 3L}, false)));
+        assertNotSame(first, admin.roomsJson());
+    }
+
+    @Test
+    void finishedSessionsDisappear() {
+        admin.publishSession(new SessionSnapshot(9L, 500L, 1, GameState.initial(9L, new long[]{2L, 3L}, false)));
+        assertNotNull(admin.sessionJson(9L));
+
+        admin.removeSession(9L);
+        assertNull(admin.sessionJson(9L));
+        assertNull(admin.session(9L));
+    }
+}
@@ -0,0 +1,98 @@
+package org.powergrid.archive;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.powergrid.model.GameState;
+import org.powergrid.protocol.MessageType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Write and read throughput of an archive holding a million games. Excluded from {@code test};
+ * run with {@code ./gradlew benchmark}. Needs roughly 250 MB of free disk in the temp directory.
+ */
+@Tag("benchmark")
+class GameArchiveBenchmark {
+
+    private static final int GAMES = 1_000_000;
+    private static final int ACTIONS_PER_GAME = 24;
+    private static final MessageType[] TYPES = {
+            MessageType.BID_PLANT, MessageType.PASS_BID, MessageType.BUY_RESOURCE,
+            MessageType.BUILD_CITY, MessageType.END_TURN};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writeAndScanOneMillionGames() throws IOException {
+        Random random = new Random(42);
+        long epoch = 1_700_000_000_000L;
+
+        try (GameArchive archive = GameArchive.open(dir)) {
+            long start = System.nanoTime();
+            for (int g = 1; g <= GAMES; g++) {
+                archive.append(game(random, g, epoch + g * 1_000L));
+            }
+            archive.flush();
+            long writeNanos = System.nanoTime() - start;
+            System.out.printf("write: %d games in %.2f s (%.0f games/s), %d segments%n",
+                    GAMES, writeNanos / 1e9, GAMES / (writeNanos / 1e9), archive.segmentCount());
+
+            start = System.nanoTime();
+            int lookups = 1_000;
+            for (int i = 0; i < lookups; i++) {
+                long room = 1 + random.nextInt(GAMES);
+                assertEquals(room, archive.find(room).roomId());
+            }
+            long findNanos = System.nanoTime() - start;
+            System.out.printf("find by room: %.2f ms per lookup%n", findNanos / 1e6 / lookups);
+
+            start = System.nanoTime();
+            List<GameArchive.Entry> recent = archive.byPlayer(1_000_000 + random.nextInt(10_000), 50);
+            System.out.printf("by player: %d games in %.2f ms%n", recent.size(), (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            GameArchive.Stats stats = archive.stats(0, Long.MAX_VALUE);
+            System.out.printf("index stats: %d games, %d actions in %.2f ms%n",
+                    stats.games(), stats.actions(), (System.nanoTime() - start) / 1e6);
+            assertEquals(GAMES, stats.games());
+
+            start = System.nanoTime();
+            long[] actions = new long[1];
+            long scanned = archive.scan(0, Long.MAX_VALUE, game -> actions[0] += game.actions().size());
+            long scanNanos = System.nanoTime() - start;
+            System.out.printf("decode scan: %d games in %.2f s (%.0f games/s)%n",
+                    scanned, scanNanos / 1e9, scanned / (scanNanos / 1e9));
+            assertEquals(stats.actions(), actions[0]);
+
+            assertTrue(writeNanos < 120_000_000_000L, "writing a million games should take well under two minutes");
+        }
+    }
+
+    private static ArchivedGame game(Random random, long roomId, long endedAt) {
+        int size = 2 + random.nextInt(5);
+        long[] players = new long[size];
+        for (int i = 0; i < size; i++) {
+            players[i] = 1_000_000 + random.nextInt(10_000);
+        }
+        List<ArchivedGame.Action> actions = new ArrayList<>(ACTIONS_PER_GAME);
+        int at = 0;
+        for (int i = 0; i < ACTIONS_PER_GAME; i++) {
+            at += random.nextInt(20_000);
+            MessageType type = TYPES[random.nextInt(TYPES.length)];
+            String payload = type == MessageType.BID_PLANT
+                    ? "{\"plantId\":" + random.nextInt(50) + ",\"amount\":" + random.nextInt(100) + "}"
+                    : null;
+            actions.add(new ArchivedGame.Action(at, players[i % size], type, payload));
+        }
+        GameState state = GameState.initial(roomId, players, false);
+        return new ArchivedGame(roomId, endedAt - at, endedAt, "Game over", state, actions);
+    }
+}
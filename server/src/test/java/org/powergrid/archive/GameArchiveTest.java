@@ -0,0 +1,166 @@
+package org.powergrid.archive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.powergrid.model.GameState;
+import org.powergrid.model.Seat;
+import org.powergrid.protocol.MessageType;
+import org.powergrid.util.JsonMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    private static ArchivedGame game(long roomId, long endedAt, long... players) {
+        GameState state = GameState.initial(roomId, players, true);
+        List<Seat> seats = new ArrayList<>(state.players());
+        seats.set(0, new Seat(players[0], "Ada", -3)); // negative money survives the round trip
+        seats.set(1, new Seat(players[1], "Ünïcode", null));
+        state = new GameState(roomId, 4, "BUILDING", players[1], seats, endedAt + 60_000, true);
+        List<ArchivedGame.Action> actions = List.of(
+                new ArchivedGame.Action(1_200, players[0], MessageType.BID_PLANT, "{\"plantId\":13,\"amount\":20}"),
+                new ArchivedGame.Action(1_200, players[1], MessageType.PASS_BID, null),
+                new ArchivedGame.Action(9_000, 999, MessageType.END_TURN, null)); // no longer seated
+        return new ArchivedGame(roomId, endedAt - 30_000, endedAt, "Player disconnected", state, actions);
+    }
+
+    @Test
+    void gamesRoundTripThroughTheMappedFiles() throws IOException {
+        ArchivedGame original = game(42, 1_000_000, 7, 8, 9);
+        try (GameArchive archive = GameArchive.open(dir)) {
+            archive.append(original);
+            ArchivedGame read = archive.find(42);
+            assertEquals(original.finalState(), read.finalState());
+            assertEquals(original.actions(), read.actions());
+            assertEquals(original.startedAt(), read.startedAt());
+            assertEquals(original.endedAt(), read.endedAt());
+            assertEquals(original.endReason(), read.endReason());
+            assertNull(archive.find(43));
+        }
+    }
+
+    @Test
+    void gamesRoundTripThroughBytes() {
+        ArchivedGame original = game(42, 1_000_000, 7, 8, 9);
+        ArchivedGame read = ArchivedGame.fromBytes(original.toBytes());
+        assertEquals(original.finalState(), read.finalState());
+        assertEquals(original.actions(), read.actions());
+        assertEquals(original.startedAt(), read.startedAt());
+        assertEquals(original.endReason(), read.endReason());
+    }
+
+    @Test
+    void findsGamesByPlayerNewestFirst() throws IOException {
+        try (GameArchive archive = GameArchive.open(dir)) {
+            archive.append(game(1, 1_000, 7, 8));
+            archive.append(game(2, 2_000, 8, 9));
+            archive.append(game(3, 3_000, 7, 9));
+
+            List<GameArchive.Entry> games = archive.byPlayer(7, 10);
+            assertEquals(List.of(3L, 1L), games.stream().map(GameArchive.Entry::roomId).toList());
+            assertArrayEquals(new long[] {7, 9}, games.get(0).playerIds());
+            assertEquals(1, archive.byPlayer(9, 1).size(), "limit applies");
+        }
+    }
+
+    @Test
+    void dateRangesAreHalfOpenAndSurviveOutOfOrderEndTimes() throws IOException {
+        try (GameArchive archive = GameArchive.open(dir)) {
+            archive.append(game(1, 1_000, 7, 8));
+            archive.append(game(2, 2_000, 7, 8));
+            archive.append(game(3, 1_500, 7, 8)); // indexed at 2_000 so the index stays sorted
+            archive.append(game(4, 3_000, 7, 8));
+
+            assertEquals(List.of(2L, 3L), archive.between(2_000, 3_000, 10).stream().map(GameArchive.Entry::roomId).toList());
+            GameArchive.Stats stats = archive.stats(0, Long.MAX_VALUE);
+            assertEquals(4, stats.games());
+            assertEquals(12, stats.actions());
+            assertEquals(8, stats.seats());
+            assertEquals(1_500, archive.find(3).endedAt(), "the record keeps the exact end time");
+
+            List<Long> scanned = new ArrayList<>();
+            assertEquals(3, archive.scan(1_000, 3_000, g -> scanned.add(g.roomId())));
+            assertEquals(List.of(1L, 2L, 3L), scanned);
+        }
+    }
+
+    @Test
+    void rollsSegmentsAndReopensThem() throws IOException {
+        try (GameArchive archive = GameArchive.open(dir, 4, 1 << 20)) {
+            for (long room = 1; room <= 10; room++) {
+                archive.append(game(room, room * 1_000, 7, 8));
+            }
+        }
+        try (GameArchive archive = GameArchive.open(dir, 4, 1 << 20)) {
+            assertEquals(10, archive.size());
+            assertEquals(3, archive.between(0, Long.MAX_VALUE, 100).stream().mapToLong(GameArchive.Entry::roomId)
+                    .filter(r -> r <= 3).count());
+            archive.append(game(11, 11_000, 7, 8));
+            assertEquals(11, archive.find(11).roomId());
+            assertEquals(5, archive.find(5).roomId());
+            assertEquals(11, archive.stats(0, Long.MAX_VALUE).games());
+        }
+    }
+
+    @Test
+    void aTornIndexEntryIsDroppedOnRecovery() throws IOException {
+        try (GameArchive archive = GameArchive.open(dir)) {
+            archive.append(game(1, 1_000, 7, 8));
+            archive.append(game(2, 2_000, 7, 8));
+        }
+        // Simulate a crash after the second entry's fields but before its room id was written.
+        try (FileChannel index = FileChannel.open(ArchiveSegment.indexFile(dir, 1), StandardOpenOption.WRITE)) {
+            index.write(ByteBuffer.allocate(8), ArchiveSegment.ENTRY_BYTES);
+        }
+        try (GameArchive archive = GameArchive.open(dir)) {
+            assertEquals(1, archive.size());
+            archive.append(game(3, 3_000, 7, 8));
+            assertEquals(3, archive.find(3).roomId());
+            assertEquals(1, archive.find(1).roomId());
+        }
+    }
+
+    @Test
+    void submittedGamesAreVisibleAfterFlush() throws IOException {
+        try (GameArchive archive = GameArchive.open(dir)) {
+            archive.submit(game(1, 1_000, 7, 8));
+            archive.flush();
+            assertEquals(1, archive.size());
+        }
+    }
+
+    @Test
+    void gameJsonEmbedsPayloadsAndFormatsIds() throws IOException {
+        try (GameArchive archive = GameArchive.open(dir)) {
+            archive.append(game(42, 1_000_000, 7, 8));
+            JsonNode json = JsonMapper.getInstance().readTree(archive.gameJson(42));
+            assertEquals("16", json.get("roomId").asText());
+            assertEquals(20, json.get("actions").get(0).get("payload").get("amount").asInt());
+            assertFalse(json.get("actions").get(1).has("payload"));
+            assertNull(archive.gameJson(43));
+        }
+    }
+
+    @Test
+    void disabledArchiveDropsEverything() throws IOException {
+        GameArchive archive = GameArchive.disabled();
+        archive.submit(game(1, 1_000, 7, 8));
+        archive.append(game(2, 2_000, 7, 8));
+        archive.flush();
+        assertEquals(0, archive.size());
+        assertNull(archive.find(2));
+        archive.close();
+    }
+}
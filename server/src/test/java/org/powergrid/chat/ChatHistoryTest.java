@@ -0,0 +1,57 @@
+package org.powergrid.chat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatHistoryTest {
+
+    @Test
+    void emptyHistoryAllocatesNothing() {
+        ChatHistory history = new ChatHistory();
+        assertEquals(0, history.allocated());
+        assertTrue(history.recent().isEmpty());
+    }
+
+    @Test
+    void keepsFramesInOrderUntilFull() {
+        ChatHistory history = new ChatHistory(4, 64);
+        history.append("a");
+        history.append("b");
+        history.append("ünïcödé");
+
+        assertEquals(List.of("a", "b", "ünïcödé"), history.recent());
+    }
+
+    @Test
+    void overwritesOldestOnceFull() {
+        ChatHistory history = new ChatHistory(3, 64);
+        for (int i = 1; i <= 10; i++) {
+            history.append("m" + i);
+        }
+
+        assertEquals(List.of("m8", "m9", "m10"), history.recent());
+        assertEquals(3 * 64, history.allocated());
+    }
+
+    @Test
+    void oversizedFramesAreNotKept() {
+        ChatHistory history = new ChatHistory(3, 8);
+        assertTrue(history.append("short"));
+        assertFalse(history.append("far too long for a slot"));
+
+        assertEquals(List.of("short"), history.recent());
+    }
+
+    @Test
+    void clearReleasesStorage() {
+        ChatHistory history = new ChatHistory(3, 8);
+        history.append("x");
+        history.clear();
+
+        assertEquals(0, history.size());
+        assertEquals(0, history.allocated());
+    }
+}
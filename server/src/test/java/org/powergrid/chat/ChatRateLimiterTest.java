@@ -0,0 +1,41 @@
+package org.powergrid.chat;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatRateLimiterTest {
+
+    private static final long T0 = 1_000_000_000L;
+
+    @Test
+    void allowsABurstThenRefusesUntilRefilled() {
+        ChatRateLimiter limiter = new ChatRateLimiter();
+        for (int i = 0; i < ChatRateLimiter.BURST; i++) {
+            assertTrue(limiter.tryAcquire(T0), "message " + i);
+        }
+        assertFalse(limiter.tryAcquire(T0));
+
+        assertTrue(limiter.tryAcquire(T0 + ChatRateLimiter.INTERVAL_NANOS));
+        assertFalse(limiter.tryAcquire(T0 + ChatRateLimiter.INTERVAL_NANOS));
+    }
+
+    @Test
+    void steadyRateIsNeverRefused() {
+        ChatRateLimiter limiter = new ChatRateLimiter();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire(T0 + i * ChatRateLimiter.INTERVAL_NANOS));
+        }
+    }
+
+    @Test
+    void idleTimeDoesNotBankMoreThanABurst() {
+        ChatRateLimiter limiter = new ChatRateLimiter();
+        limiter.tryAcquire(T0);
+        long later = T0 + 1_000 * ChatRateLimiter.INTERVAL_NANOS;
+        for (int i = 0; i < ChatRateLimiter.BURST; i++) {
+            assertTrue(limiter.tryAcquire(later));
+        }
+        assertFalse(limiter.tryAcquire(later));
+    }
+}
@@ -0,0 +1,129 @@
+package org.powergrid.map;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameMapTest {
+
+    // a - b - c in three regions, with a costly shortcut a - c
+    private static final String LINE = """
+            # test board
+            region west
+            region middle
+            region east
+            city c east    Cee
+            city a west    Ay
+            city b middle  Bee
+            link a b 5
+            link b c 7
+            link a c 20
+            """;
+
+    private static GameMap compile(String source) throws IOException {
+        return new GameMap(ByteBuffer.wrap(MapCompiler.compile("line", new StringReader(source))));
+    }
+
+    private static BitSet network(int... cities) {
+        BitSet set = new BitSet();
+        for (int c : cities) set.set(c);
+        return set;
+    }
+
+    @Test
+    void compiledBoardReadsBack() throws IOException {
+        GameMap map = compile(LINE);
+
+        assertEquals("line", map.name());
+        assertEquals(3, map.regionCount());
+        assertEquals(3, map.cityCount());
+        assertEquals(List.of("west", "middle", "east"), List.of(map.regionName(0), map.regionName(1), map.regionName(2)));
+        // numbered region by region, whatever the declaration order
+        assertEquals(0, map.city("a"));
+        assertEquals("Bee", map.cityName(map.city("b")));
+        assertEquals(2, map.cityRegion(map.city("c")));
+        assertEquals(-1, map.city("d"));
+        assertEquals(0b110, map.regionNeighbours(0));
+        assertEquals(0b101, map.regionNeighbours(1));
+
+        int a = map.city("a");
+        assertEquals(2, map.firstLink(a + 1) - map.firstLink(a));
+        assertEquals(map.city("b"), map.linkTarget(map.firstLink(a)));
+        assertEquals(5, map.linkCost(map.firstLink(a)));
+    }
+
+    @Test
+    void connectionCostStaysInsideTheSelectedRegions() throws IOException {
+        GameMap map = compile(LINE);
+        int a = map.city("a"), b = map.city("b"), c = map.city("c");
+
+        RegionSelection all = RegionSelection.all(map);
+        assertEquals(12, map.connectionCost(all, network(a), c));
+        assertEquals(7, map.connectionCost(all, network(a, b), c));
+        assertEquals(0, map.connectionCost(all, network(), c), "first city only pays for the slot");
+
+        RegionSelection noMiddle = new RegionSelection(map, 0b101);
+        assertFalse(noMiddle.inPlay(b));
+        assertEquals(20, map.connectionCost(noMiddle, network(a), c));
+        assertEquals(-1, map.connectionCost(noMiddle, network(a), b));
+    }
+
+    @Test
+    void malformedBoardsAreRejectedWithTheLine() {
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class, () ->
+                compile("region r\ncity a r A\nlink a b 3\n"));
+        assertEquals("3: unknown city 'b'", unknown.getMessage());
+
+        IllegalArgumentException island = assertThrows(IllegalArgumentException.class, () ->
+                compile("region r\ncity a r A\ncity b r B\ncity c r C\nlink a b 3\n"));
+        assertEquals("4: city 'c' is not connected to 'a'", island.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> compile("region r\ncity a r A\ncity b r B\nlink a b 3\nlink b a 4\n"));
+        assertThrows(IllegalArgumentException.class, () -> compile("region r\ncity a r A\ncity b r B\nlink a b -1\n"));
+        assertThrows(IllegalArgumentException.class, () -> new GameMap(ByteBuffer.wrap(new byte[64])));
+    }
+
+    @Test
+    void randomSelectionIsConnectedAndSizedForThePlayers() {
+        GameMap usa = MapLibrary.getInstance().get("usa");
+        SplittableRandom random = new SplittableRandom(48);
+        for (int players = 2; players <= 6; players++) {
+            for (int i = 0; i < 50; i++) {
+                RegionSelection area = RegionSelection.random(usa, players, random);
+                assertEquals(RegionSelection.regionsFor(players), area.count());
+                // grow from the lowest region through borders; everything selected must be reached
+                long reached = Long.lowestOneBit(area.regions());
+                for (int step = 0; step < area.count(); step++) {
+                    for (long rest = reached; rest != 0; rest &= rest - 1) {
+                        reached |= usa.regionNeighbours(Long.numberOfTrailingZeros(rest)) & area.regions();
+                    }
+                }
+                assertEquals(area.regions(), reached, "regions " + area.regionNames() + " are not contiguous");
+            }
+        }
+    }
+
+    @Test
+    void boardsAreLoadedOnceAndShared() {
+        MapLibrary library = MapLibrary.getInstance();
+        GameMap usa = library.get("usa");
+
+        assertSame(usa, library.get("usa"));
+        assertEquals(42, usa.cityCount());
+        assertEquals(6, usa.regionCount());
+        assertEquals("St. Louis", usa.cityName(usa.city("st-louis")));
+        assertEquals("München", library.get("germany").cityName(library.get("germany").city("muenchen")));
+
+        assertTrue(library.has("germany"));
+        assertFalse(library.has("atlantis"));
+        assertFalse(library.has("../application.conf"));
+        assertThrows(IllegalArgumentException.class, () -> library.get("atlantis"));
+    }
+}
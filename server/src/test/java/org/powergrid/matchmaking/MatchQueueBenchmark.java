@@ -0,0 +1,47 @@
+package org.powergrid.matchmaking;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tick latency with a large backlog. Excluded from {@code test}; run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class MatchQueueBenchmark {
+
+    private static final int PLAYERS = 100_000;
+
+    @Test
+    void tickLatencyWithOneHundredThousandQueued() {
+        Random random = new Random(42);
+        MatchQueue queue = new MatchQueue();
+        for (long id = 1; id <= PLAYERS; id++) {
+            int size = MatchQueue.MIN_PLAYERS + random.nextInt(MatchQueue.MAX_PLAYERS - MatchQueue.MIN_PLAYERS + 1);
+            queue.enqueue(id, size, 800 + random.nextInt(1600), 0);
+        }
+
+        int ticks = 0;
+        long worstNanos = 0;
+        long totalNanos = 0;
+        int games = 0;
+        while (true) {
+            long start = System.nanoTime();
+            int made = queue.match(ticks * 250L, g -> {});
+            long elapsed = System.nanoTime() - start;
+            if (made == 0) break;
+            games += made;
+            worstNanos = Math.max(worstNanos, elapsed);
+            totalNanos += elapsed;
+            ticks++;
+        }
+
+        System.out.printf("%d players → %d games in %d ticks; mean %.2f ms, worst %.2f ms per tick, %d left%n",
+                PLAYERS, games, ticks, totalNanos / 1e6 / Math.max(1, ticks), worstNanos / 1e6, queue.size());
+        assertTrue(games > PLAYERS / MatchQueue.MAX_PLAYERS, "most players should be matched");
+        assertTrue(worstNanos < 250_000_000L, "a tick must finish well inside the tick interval");
+    }
+}
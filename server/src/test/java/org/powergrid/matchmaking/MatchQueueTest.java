@@ -0,0 +1,93 @@
+package org.powergrid.matchmaking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchQueueTest {
+
+    private final MatchQueue queue = new MatchQueue();
+    private final List<long[]> games = new ArrayList<>();
+
+    private int tick(long nowMillis) {
+        return queue.match(nowMillis, games::add);
+    }
+
+    @Test
+    void formsGamesOfTheRequestedSizeInQueueOrder() {
+        for (long id = 1; id <= 5; id++) {
+            queue.enqueue(id, 2, 1500, 0);
+        }
+        queue.enqueue(10, 3, 1500, 0);
+
+        assertEquals(2, tick(0));
+        assertArrayEquals(new long[]{1, 2}, games.get(0), "first game");
+        assertArrayEquals(new long[]{3, 4}, games.get(1), "second game");
+        assertEquals(2, queue.size());
+        assertTrue(queue.contains(5));
+        assertTrue(queue.contains(10));
+    }
+
+    @Test
+    void distantRatingsAreNotMatchedBeforeTheWait() {
+        queue.enqueue(1, 2, 1000, 0);
+        queue.enqueue(2, 2, 1900, 0);
+
+        assertEquals(0, tick(MatchQueue.WIDEN_AFTER_MILLIS * 10));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void adjacentBandsCombineOnceSomeoneHasWaited() {
+        queue.enqueue(1, 2, 1590, 0);
+        queue.enqueue(2, 2, 1610, 0);
+
+        assertEquals(0, tick(MatchQueue.WIDEN_AFTER_MILLIS - 1));
+        assertEquals(1, tick(MatchQueue.WIDEN_AFTER_MILLIS));
+        assertArrayEquals(new long[]{1, 2}, games.get(0), "widened game");
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void cancelledPlayersAreSkipped() {
+        queue.enqueue(1, 2, 1500, 0);
+        queue.enqueue(2, 2, 1500, 0);
+        queue.enqueue(3, 2, 1500, 0);
+
+        assertTrue(queue.cancel(1));
+        assertFalse(queue.cancel(1));
+        assertEquals(1, tick(0));
+        assertArrayEquals(new long[]{2, 3}, games.get(0), "game without the cancelled player");
+    }
+
+    @Test
+    void reEnqueueReplacesTheEarlierTicket() {
+        queue.enqueue(1, 2, 1500, 0);
+        queue.enqueue(1, 3, 1500, 0);
+        queue.enqueue(2, 2, 1500, 0);
+
+        assertEquals(0, tick(0));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void rejectsInvalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> queue.enqueue(1, 1, 1500, 0));
+        assertThrows(IllegalArgumentException.class, () -> queue.enqueue(1, 7, 1500, 0));
+    }
+
+    @Test
+    void oneTickFormsAtMostTheCap() {
+        int players = (MatchQueue.MAX_MATCHES_PER_TICK + 10) * 2;
+        for (long id = 1; id <= players; id++) {
+            queue.enqueue(id, 2, 1500, 0);
+        }
+
+        assertEquals(MatchQueue.MAX_MATCHES_PER_TICK, tick(0));
+        assertEquals(10, tick(0));
+        assertEquals(0, queue.size());
+    }
+}
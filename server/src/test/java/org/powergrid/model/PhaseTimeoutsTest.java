@@ -0,0 +1,75 @@
+package org.powergrid.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.powergrid.util.JsonMapper;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhaseTimeoutsTest {
+
+    private static JsonNode json(String s) throws Exception {
+        return JsonMapper.getInstance().readTree(s);
+    }
+
+    @Test
+    void unknownPhasesUseTheFallback() {
+        assertEquals(Duration.ofSeconds(60), PhaseTimeouts.DEFAULT.forPhase("AUCTION"));
+        assertEquals(Duration.ofSeconds(120), PhaseTimeouts.DEFAULT.forPhase("BUREAUCRACY"));
+    }
+
+    @Test
+    void roomOverridesAreClamped() throws Exception {
+        PhaseTimeouts room = PhaseTimeouts.DEFAULT.withOverrides(
+                json("{\"auction\": 45, \"BUILDING\": 1, \"RESOURCES\": 99999, \"default\": 30, \"bad\": \"x\"}"));
+
+        assertEquals(Duration.ofSeconds(45), room.forPhase("AUCTION"));
+        assertEquals(PhaseTimeouts.MIN, room.forPhase("BUILDING"));
+        assertEquals(PhaseTimeouts.MAX, room.forPhase("RESOURCES"));
+        assertEquals(Duration.ofSeconds(30), room.forPhase("BUREAUCRACY"));
+        assertEquals(Duration.ofSeconds(60), PhaseTimeouts.DEFAULT.forPhase("AUCTION"), "Defaults must not change");
+    }
+
+    @Test
+    void missingOverridesKeepTheSameInstance() throws Exception {
+        assertSame(PhaseTimeouts.DEFAULT, PhaseTimeouts.DEFAULT.withOverrides(null));
+        assertSame(PhaseTimeouts.DEFAULT, PhaseTimeouts.DEFAULT.withOverrides(json("{}")));
+        assertSame(PhaseTimeouts.DEFAULT, PhaseTimeouts.DEFAULT.withOverrides(json("[1, 2]")));
+    }
+
+    @Test
+    void unknownPhaseNamesAreIgnored() throws Exception {
+        assertSame(PhaseTimeouts.DEFAULT, PhaseTimeouts.DEFAULT.withOverrides(json("{\"LUNCH\": 45, \"x1\": 30}")));
+
+        PhaseTimeouts room = PhaseTimeouts.DEFAULT.withOverrides(json("{\"bureaucracy\": 45, \"LUNCH\": 45}"));
+        assertEquals(Duration.ofSeconds(45), room.forPhase("BUREAUCRACY"));
+        assertFalse(room.byPhase().containsKey("LUNCH"));
+    }
+
+    @Test
+    void roomOverridesSurviveNewServerTimeouts() throws Exception {
+        RoomSettings room = RoomSettings.DEFAULT.withOverrides(json("{\"timeouts\": {\"AUCTION\": 45}}"));
+        PhaseTimeouts server = PhaseTimeouts.DEFAULT.withOverrides(json("{\"AUCTION\": 20, \"BUILDING\": 200}"));
+
+        PhaseTimeouts rebased = room.withServerTimeouts(server).timeouts();
+        assertEquals(Duration.ofSeconds(45), rebased.forPhase("AUCTION"), "the host's override wins");
+        assertEquals(Duration.ofSeconds(200), rebased.forPhase("BUILDING"));
+        assertSame(server, RoomSettings.DEFAULT.withServerTimeouts(server).timeouts());
+    }
+
+    @Test
+    void roomSettingsSurviveAJsonRoundTrip() throws Exception {
+        // What a sharded game's Start and checkpoint carry between cluster nodes
+        RoomSettings room = RoomSettings.DEFAULT.withOverrides(json("{\"timeouts\": {\"AUCTION\": 45}, \"hiddenMoney\": true}"));
+        var mapper = JsonMapper.getInstance();
+        RoomSettings read = mapper.readValue(mapper.writeValueAsString(room), RoomSettings.class);
+
+        assertEquals(Duration.ofSeconds(45), read.timeouts().forPhase("AUCTION"));
+        assertEquals(room.timeouts().byPhase(), read.timeouts().byPhase());
+        assertEquals(room.timeouts().fallback(), read.timeouts().fallback());
+        assertTrue(read.hiddenMoney());
+        assertEquals(room.timeoutOverrides(), read.timeoutOverrides());
+    }
+}
@@ -0,0 +1,52 @@
+package org.powergrid.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomStateTest {
+
+    @Test
+    void snapshotIsReusedUntilTheRoomChanges() {
+        RoomState room = new RoomState(10L, "Room", 1L, RoomSettings.DEFAULT);
+
+        LobbyRoom first = room.snapshot();
+        assertSame(first, room.snapshot());
+
+        room.add(2L);
+        LobbyRoom second = room.snapshot();
+        assertNotSame(first, second);
+        assertArrayEquals(new long[] {1L}, first.playerIds(), "Old snapshots must not see later changes");
+        assertArrayEquals(new long[] {1L, 2L}, second.playerIds());
+    }
+
+    @Test
+    void seatsAreCappedAtMaxPlayers() {
+        RoomState room = new RoomState(10L, "Room", 1L, RoomSettings.DEFAULT);
+        for (long id = 2; id <= RoomState.MAX_PLAYERS; id++) {
+            assertTrue(room.add(id));
+        }
+        assertTrue(room.isFull());
+        int version = room.version();
+
+        assertFalse(room.add(99L));
+        assertEquals(version, room.version());
+        assertEquals(RoomState.MAX_PLAYERS, room.snapshot().playerIds().length);
+    }
+
+    @Test
+    void hostLeavingPromotesLongestSeatedPlayer() {
+        RoomState room = new RoomState(10L, "Room", 1L, RoomSettings.DEFAULT);
+        room.add(2L);
+        room.add(3L);
+
+        assertTrue(room.remove(1L));
+        assertEquals(2L, room.hostId());
+        assertArrayEquals(new long[] {2L, 3L}, room.snapshot().playerIds());
+
+        assertFalse(room.remove(1L));
+        assertTrue(room.remove(3L));
+        assertTrue(room.remove(2L));
+        assertTrue(room.isEmpty());
+    }
+}
@@ -0,0 +1,72 @@
+package org.powergrid.model;
+
+import org.junit.jupiter.api.Test;
+import org.powergrid.util.Ids;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateChecksumTest {
+
+    private static final long[] SEATS = {0x1234_5678_9abcL, 7L, 8L};
+
+    @Test
+    void incrementalUpdatesMatchARecomputation() {
+        GameState state = GameState.initial(1L, SEATS, false);
+        StateChecksum checksum = StateChecksum.of(state);
+
+        for (int turn = 0; turn < 50; turn++) {
+            GameState next = state.withTurn(SEATS[turn % SEATS.length], 1_700_000_000_000L + turn * 1000L);
+            checksum.apply(state, next);
+            state = next;
+            assertEquals(StateChecksum.of(state).forViewer(Ids.NONE, false), checksum.forViewer(Ids.NONE, false));
+        }
+    }
+
+    @Test
+    void seatChangesAreTracked() {
+        GameState state = GameState.initial(1L, SEATS, false);
+        StateChecksum checksum = StateChecksum.of(state);
+        GameState fewer = new GameState(1L, 1, "AUCTION", SEATS[0], state.players().subList(0, 2), 0L, false);
+
+        checksum.apply(state, fewer);
+
+        assertEquals(StateChecksum.of(fewer).forViewer(Ids.NONE, false), checksum.forViewer(Ids.NONE, false));
+        assertNotEquals(StateChecksum.of(state).forViewer(Ids.NONE, false), checksum.forViewer(Ids.NONE, false));
+    }
+
+    @Test
+    void hiddenMoneyGivesEachViewerItsOwnChecksum() {
+        GameState state = GameState.initial(1L, SEATS, true);
+        StateChecksum checksum = StateChecksum.of(state);
+
+        long spectator = checksum.forViewer(Ids.NONE, true);
+        long seat0 = checksum.forViewer(SEATS[0], true);
+        long seat1 = checksum.forViewer(SEATS[1], true);
+
+        assertNotEquals(spectator, seat0);
+        assertNotEquals(seat0, seat1);
+        assertNotEquals(spectator, checksum.forViewer(Ids.NONE, false));
+    }
+
+    @Test
+    void checksumsAreUnsigned32Bit() {
+        long value = StateChecksum.of(GameState.initial(1L, SEATS, false)).forViewer(Ids.NONE, false);
+        assertTrue(value >= 0 && value <= 0xFFFFFFFFL);
+    }
+
+    @Test
+    void keyFunctionIsStable() {
+        // The Godot client (GameState.gd) derives the same keys; these values pin the algorithm.
+        assertEquals(List.of(1, 2, 3, 4), List.of(
+                StateChecksum.phaseCode("AUCTION"), StateChecksum.phaseCode("RESOURCES"),
+                StateChecksum.phaseCode("BUILDING"), StateChecksum.phaseCode("BUREAUCRACY")));
+        assertEquals(0, StateChecksum.phaseCode("SOMETHING_ELSE"));
+        assertEquals(KEY_ROUND_1, StateChecksum.key(StateChecksum.ROUND, 0, 1));
+        assertEquals(KEY_SEAT_2_BIG, StateChecksum.key(StateChecksum.SEAT, 2, 0x1234_5678_9abcL));
+    }
+
+    private static final int KEY_ROUND_1 = 1589013709;
+    private static final int KEY_SEAT_2_BIG = 644924956;
+}
@@ -0,0 +1,104 @@
+package org.powergrid.protocol;
+
+import org.junit.jupiter.api.Test;
+import org.powergrid.util.Metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameCompressorTest {
+
+    private static String roomList(int rooms) {
+        StringBuilder sb = new StringBuilder("{\"seq\":7,\"type\":\"ROOM_LIST\",\"payload\":{\"rooms\":[");
+        for (int i = 0; i < rooms; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"roomId\":\"0f8fad5b-d9cb-469f-a165-70867728950").append(i % 10)
+                    .append("\",\"roomName\":\"Room ").append(i)
+                    .append("\",\"playerCount\":3,\"hostId\":\"7c9e6679-7425-40de-944b-e07fc1f90ae7\"}");
+        }
+        return sb.append("]}}").toString();
+    }
+
+    private static String inflate(byte[] data) throws Exception {
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024];
+        while (!inflater.finished()) {
+            int n = inflater.inflate(buf);
+            out.write(buf, 0, n);
+        }
+        inflater.end();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void smallFramesStayUncompressed() {
+        FrameCompressor compressor = FrameCompressor.forMode("deflate");
+        assertNull(compressor.compress("{\"type\":\"PONG\",\"payload\":{}}"));
+    }
+
+    @Test
+    void largeFramesRoundTripThroughZlib() throws Exception {
+        FrameCompressor compressor = FrameCompressor.forMode("deflate");
+        String frame = roomList(40);
+
+        byte[] first = compressor.compress(frame);
+        byte[] second = compressor.compress(frame); // the pooled deflater is reused between frames
+
+        assertNotNull(first);
+        assertTrue(first.length < frame.length() / 3, "Expected repetitive JSON to shrink a lot, got " + first.length);
+        assertEquals(frame, inflate(first));
+        assertEquals(frame, inflate(second));
+    }
+
+    @Test
+    void connectionsShareOneCompressorAndItsPool() throws Exception {
+        FrameCompressor compressor = FrameCompressor.forMode("deflate");
+        assertSame(compressor, FrameCompressor.forMode("deflate"));
+
+        String frame = roomList(40);
+        List<Callable<String>> tasks = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            tasks.add(() -> inflate(compressor.compress(frame)));
+        }
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            for (Future<String> result : threads.invokeAll(tasks)) {
+                assertEquals(frame, result.get());
+            }
+        } finally {
+            threads.shutdown();
+        }
+        assertTrue(compressor.pooled() <= Runtime.getRuntime().availableProcessors(),
+                "Deflaters beyond the pool size are freed, not kept");
+    }
+
+    @Test
+    void unknownModeDisablesCompression() {
+        assertNull(FrameCompressor.forMode(null));
+        assertNull(FrameCompressor.forMode("brotli"));
+        assertNull(FrameCompressor.forMode("deflate-dict"));
+    }
+
+    @Test
+    void savingsAreReportedThroughMetrics() {
+        Metrics metrics = Metrics.getInstance();
+        long before = metrics.value("powergrid_ws_compression_input_bytes_total");
+
+        FrameCompressor compressor = FrameCompressor.forMode("deflate");
+        compressor.compress(roomList(40));
+
+        assertTrue(metrics.value("powergrid_ws_compression_input_bytes_total") > before);
+        assertTrue(metrics.render().contains("# TYPE powergrid_ws_compression_output_bytes_total counter"));
+    }
+}
@@ -0,0 +1,54 @@
+package org.powergrid.rating;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rating updates and rank queries with a million rated players. Excluded from {@code test}; run
+ * with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class LeaderboardBenchmark {
+
+    private static final int PLAYERS = 1_000_000;
+    private static final int OPERATIONS = 1_000_000;
+
+    @Test
+    void updatesAndRanksWithOneMillionPlayers() {
+        Random random = new Random(42);
+        Leaderboard board = new Leaderboard(PLAYERS);
+        for (long id = 1; id <= PLAYERS; id++) {
+            board.put(id, 800 + random.nextInt(1600));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            long id = 1 + random.nextInt(PLAYERS);
+            board.put(id, board.rating(id) + random.nextInt(41) - 20);
+        }
+        long updateNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            sum += board.rank(1 + random.nextInt(PLAYERS));
+        }
+        long rankNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            board.around(1 + random.nextInt(PLAYERS), RatingService.AROUND);
+        }
+        long aroundNanos = System.nanoTime() - start;
+
+        System.out.printf("%d players: update %.0f ns, rank %.0f ns, around %.0f ns (checksum %d)%n",
+                PLAYERS, (double) updateNanos / OPERATIONS, (double) rankNanos / OPERATIONS,
+                aroundNanos / 10_000.0, sum);
+        assertEquals(PLAYERS, board.size());
+        assertTrue(rankNanos / OPERATIONS < 10_000, "a rank query should take microseconds, not a scan");
+    }
+}
@@ -0,0 +1,97 @@
+package org.powergrid.rating;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+    @Test
+    void ranksCountPlayersRatedStrictlyHigher() {
+        Leaderboard board = new Leaderboard();
+        board.put(1, 1600);
+        board.put(2, 1500);
+        board.put(3, 1600);
+        board.put(4, 1400);
+
+        assertEquals(1, board.rank(1));
+        assertEquals(1, board.rank(3), "ties share a rank");
+        assertEquals(3, board.rank(2));
+        assertEquals(4, board.rank(4));
+        assertEquals(0, board.rank(99), "unrated");
+    }
+
+    @Test
+    void movingAndRemovingKeepRanksConsistent() {
+        Leaderboard board = new Leaderboard();
+        board.put(1, 1500);
+        board.put(2, 1500);
+        board.put(3, 1500);
+        board.put(1, 1700);
+        board.remove(2);
+
+        assertEquals(2, board.size());
+        assertEquals(1700, board.rating(1));
+        assertEquals(-1, board.rating(2));
+        assertEquals(2, board.rank(3));
+        board.put(3, 1500); // unchanged rating is a no-op
+        assertEquals(2, board.size());
+    }
+
+    @Test
+    void lowestFindsTheBottomBucket() {
+        Leaderboard board = new Leaderboard();
+        assertEquals(0, board.lowest());
+        board.put(1, 1500);
+        board.put(2, 0);
+        board.put(3, 4000);
+        assertEquals(2, board.lowest());
+        board.remove(2);
+        assertEquals(1, board.lowest());
+        board.put(1, 4000);
+        assertTrue(board.lowest() == 1 || board.lowest() == 3);
+    }
+
+    @Test
+    void ratingsAreClamped() {
+        Leaderboard board = new Leaderboard();
+        board.put(1, -50);
+        board.put(2, 99_999);
+        assertEquals(Leaderboard.MIN_RATING, board.rating(1));
+        assertEquals(Leaderboard.MAX_RATING, board.rating(2));
+    }
+
+    @Test
+    void topAndAroundListPlayersBestFirst() {
+        Leaderboard board = new Leaderboard();
+        for (long id = 1; id <= 10; id++) {
+            board.put(id, 1000 + (int) id * 10);
+        }
+        assertArrayEquals(new long[] {10, 9, 8}, board.top(3));
+        assertArrayEquals(new long[] {7, 6, 5, 4, 3}, board.around(5, 2));
+        assertArrayEquals(new long[] {10, 9, 8}, board.around(10, 2));
+        assertEquals(0, board.around(99, 2).length);
+    }
+
+    @Test
+    void ranksMatchABruteForceCount() {
+        Random random = new Random(7);
+        Leaderboard board = new Leaderboard();
+        int[] ratings = new int[2_000];
+        for (int round = 0; round < 5; round++) {
+            for (int id = 1; id < ratings.length; id++) {
+                ratings[id] = 1000 + random.nextInt(1000);
+                board.put(id, ratings[id]);
+            }
+        }
+        for (int id = 1; id < ratings.length; id += 37) {
+            int above = 0;
+            for (int other = 1; other < ratings.length; other++) {
+                if (ratings[other] > ratings[id]) above++;
+            }
+            assertEquals(above + 1, board.rank(id));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.powergrid.rating;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.powergrid.model.Seat;
+import org.powergrid.util.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingServiceTest {
+
+    private static List<Seat> standings(long... ids) {
+        return java.util.Arrays.stream(ids).mapToObj(id -> new Seat(id, "P" + id, 50)).toList();
+    }
+
+    @Test
+    void winnersGainWhatLosersLose() {
+        RatingService ratings = new RatingService();
+        ratings.recordGame(standings(1, 2, 3));
+
+        assertTrue(ratings.rating(1) > RatingService.INITIAL_RATING);
+        assertEquals(RatingService.INITIAL_RATING, ratings.rating(2), "the middle of an even field stays put");
+        assertTrue(ratings.rating(3) < RatingService.INITIAL_RATING);
+        assertEquals(3 * RatingService.INITIAL_RATING, ratings.rating(1) + ratings.rating(2) + ratings.rating(3));
+        assertEquals(RatingService.INITIAL_RATING, ratings.rating(42), "unrated players start at the initial rating");
+    }
+
+    @Test
+    void upsetsMoveRatingsFurther() {
+        int favourite = Elo.update(new int[] {1800, 1400}, new int[] {30, 30})[0] - 1800;
+        int underdog = Elo.update(new int[] {1400, 1800}, new int[] {30, 30})[0] - 1400;
+        assertTrue(underdog > favourite);
+    }
+
+    @Test
+    void leaderboardFrameIsCachedUntilRatingsChange() throws IOException {
+        RatingService ratings = new RatingService();
+        ratings.recordGame(standings(1, 2));
+        String first = ratings.leaderboardFrame();
+        assertSame(first, ratings.leaderboardFrame());
+
+        ratings.recordGame(standings(3, 1));
+        String second = ratings.leaderboardFrame();
+        assertNotSame(first, second);
+        JsonNode json = JsonMapper.getInstance().readTree(second);
+        assertEquals("LEADERBOARD", json.get("type").asText());
+        assertEquals(3, json.get("payload").get("total").asInt());
+        assertEquals("3", json.get("payload").get("players").get(0).get("playerId").asText(), "the upset winner leads");
+        assertEquals(1, json.get("payload").get("players").get(0).get("rank").asInt());
+    }
+
+    @Test
+    void rankFrameListsNeighbours() throws IOException {
+        RatingService ratings = new RatingService();
+        ratings.recordGame(standings(1, 2, 3, 4));
+        JsonNode payload = JsonMapper.getInstance().readTree(ratings.rankFrame(3)).get("payload");
+        assertEquals(3, payload.get("rank").asInt());
+        assertEquals(1, payload.get("games").asInt());
+        assertEquals(4, payload.get("around").size());
+
+        JsonNode unrated = JsonMapper.getInstance().readTree(ratings.rankFrame(9)).get("payload");
+        assertEquals(0, unrated.get("rank").asInt());
+        assertEquals(0, unrated.get("around").size());
+    }
+
+    @Test
+    void snapshotsRoundTrip(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("ratings.bin");
+        RatingService ratings = RatingService.open(file);
+        ratings.recordGame(standings(1, 2));
+        ratings.recordGame(standings(2, 3));
+        ratings.save();
+
+        RatingService reloaded = RatingService.open(file);
+        assertEquals(3, reloaded.size());
+        for (long id = 1; id <= 3; id++) {
+            assertEquals(ratings.rating(id), reloaded.rating(id));
+            assertEquals(ratings.rank(id), reloaded.rank(id));
+        }
+        assertEquals(ratings.rankFrame(2), reloaded.rankFrame(2));
+    }
+
+    @Test
+    void accountsOutliveTheirConnections(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("ratings.bin");
+        long account = RatingService.accountId("secret-key");
+        assertEquals(account, RatingService.accountId("secret-key"));
+        assertTrue(account > 0);
+
+        RatingService ratings = RatingService.open(file);
+        ratings.link(100, account);
+        assertEquals(account, ratings.account(100));
+        assertEquals(7, ratings.account(7), "an unlinked player is rated as itself");
+        ratings.recordGame(standings(ratings.account(100), 7));
+        ratings.unlink(100);
+        ratings.save();
+
+        RatingService reloaded = RatingService.open(file);
+        reloaded.link(200, account); // same key, new socket, new process
+        assertTrue(reloaded.rating(200) > RatingService.INITIAL_RATING);
+        assertEquals(1, reloaded.rank(200));
+        assertEquals(RatingService.INITIAL_RATING, reloaded.rating(100), "the old connection keeps nothing");
+    }
+
+    @Test
+    void fullTableDropsTheBottomPlayer() {
+        RatingService ratings = new RatingService(3);
+        ratings.recordGame(standings(1, 2));
+        ratings.recordGame(standings(3, 4));
+
+        assertEquals(3, ratings.size());
+        assertTrue(ratings.rank(1) > 0 && ratings.rank(3) > 0, "winners are kept");
+        assertTrue(ratings.rank(2) == 0 ^ ratings.rank(4) == 0, "one of the tied losers is dropped");
+    }
+}
@@ -0,0 +1,87 @@
+package org.powergrid.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.powergrid.protocol.MessageType;
+import org.powergrid.util.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandLogTest {
+
+    private static List<CommandLog.Entry> readAll(Path file) throws IOException {
+        List<CommandLog.Entry> entries = new ArrayList<>();
+        try (CommandLog.Reader reader = CommandLog.open(file)) {
+            for (CommandLog.Entry e = reader.next(); e != null; e = reader.next()) {
+                entries.add(e);
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    void recordedEntriesReadBackInOrder(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("session.pgr");
+        try (CommandRecorder recorder = CommandRecorder.open(file)) {
+            assertTrue(recorder.isEnabled());
+            recorder.opened(7);
+            recorder.received(7, MessageType.HELLO, JsonMapper.getInstance().readTree("{\"playerName\":\"Zoë\"}"));
+            assertEquals(42, recorder.roomCreated(42));
+            recorder.received(7, MessageType.LIST_ROOMS, null);
+            recorder.closed(7);
+            recorder.resumed(7);
+        }
+
+        List<CommandLog.Entry> entries = readAll(file);
+        assertEquals(List.of(CommandLog.Kind.OPEN, CommandLog.Kind.MESSAGE, CommandLog.Kind.ROOM,
+                        CommandLog.Kind.MESSAGE, CommandLog.Kind.CLOSE, CommandLog.Kind.RESUME),
+                entries.stream().map(CommandLog.Entry::kind).toList());
+
+        CommandLog.Entry hello = entries.get(1);
+        assertEquals(7, hello.id());
+        assertEquals(MessageType.HELLO, hello.type());
+        assertEquals("{\"playerName\":\"Zoë\"}", hello.payload());
+        assertEquals(42, entries.get(2).id());
+        assertNull(entries.get(3).payload());
+        assertEquals(0, entries.get(0).atMicros());
+        for (int i = 1; i < entries.size(); i++) {
+            assertTrue(entries.get(i).atMicros() >= entries.get(i - 1).atMicros(), "time went backwards at " + i);
+        }
+    }
+
+    @Test
+    void recordingCutShortEndsAtTheLastWholeEntry(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("crash.pgr");
+        try (CommandRecorder recorder = CommandRecorder.open(file)) {
+            recorder.opened(1);
+            recorder.received(1, MessageType.CHAT_SEND, JsonMapper.getInstance().readTree("{\"text\":\"hello there\"}"));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        List<CommandLog.Entry> entries = readAll(file);
+        assertEquals(1, entries.size());
+        assertEquals(CommandLog.Kind.OPEN, entries.get(0).kind());
+    }
+
+    @Test
+    void disabledRecorderWritesNothingAndOtherFilesAreRejected(@TempDir Path dir) throws Exception {
+        CommandRecorder disabled = CommandRecorder.disabled();
+        assertFalse(disabled.isEnabled());
+        disabled.opened(1);
+        disabled.flush();
+        disabled.close();
+        assertEquals(5, disabled.roomCreated(5));
+
+        Path notARecording = dir.resolve("archive.bin");
+        Files.write(notARecording, new byte[]{'P', 'G', 'A', '1', 0, 0, 0, 1});
+        assertThrows(IOException.class, () -> CommandLog.open(notARecording));
+    }
+}
@@ -0,0 +1,114 @@
+package org.powergrid.replay;
+
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.powergrid.actor.LobbyActor;
+import org.powergrid.actor.PlayerConnectionActor;
+import org.powergrid.actor.ResumeRegistry;
+import org.powergrid.actor.TestConnection;
+import org.powergrid.admin.AdminDirectory;
+import org.powergrid.archive.GameArchive;
+import org.powergrid.chat.ChatDirectory;
+import org.powergrid.protocol.MessageType;
+import org.powergrid.rating.RatingService;
+import org.powergrid.spectator.SpectatorDirectory;
+import org.powergrid.util.Ids;
+import org.powergrid.util.JsonMapper;
+import org.powergrid.util.TimerWheel;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandReplayTest {
+
+    private static final Duration REPLY_TIMEOUT = Duration.ofSeconds(5);
+
+    /** A real connection actor recording into {@code recorder}, after HELLO and WELCOME. */
+    private static TestConnection connect(ActorSystem<LobbyActor.Command> system, CommandRecorder recorder, String name)
+            throws Exception {
+        long playerId = Ids.next();
+        TestConnection player = new TestConnection(system, playerId, PlayerConnectionActor.create(
+                playerId, system, new ResumeRegistry(), new ChatDirectory(), new RatingService(), recorder));
+        player.send(MessageType.HELLO, "{\"playerName\":\"" + name + "\"}");
+        player.await(MessageType.WELCOME, REPLY_TIMEOUT);
+        return player;
+    }
+
+    @Test
+    void recordedRoomGameReplaysToTheSameOutcome(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("room-game.pgr");
+        CommandRecorder recorder = CommandRecorder.open(file);
+        ActorSystem<LobbyActor.Command> system = ActorSystem.create(
+                LobbyActor.create(new SpectatorDirectory(), new AdminDirectory(), new ChatDirectory(),
+                        GameArchive.disabled(), new RatingService(), TimerWheel.getInstance(),
+                        () -> recorder.roomCreated(Ids.next())),
+                "powergrid-recording");
+        try {
+            TestConnection host = connect(system, recorder, "host");
+            TestConnection guest = connect(system, recorder, "guest");
+            host.send(MessageType.CREATE_ROOM, "{\"roomName\":\"replayed\"}");
+            String roomId = JsonMapper.getInstance().readTree(host.await(MessageType.ROOM_JOINED, REPLY_TIMEOUT))
+                    .path("payload").path("roomId").asText();
+            guest.send(MessageType.JOIN_ROOM, "{\"roomId\":\"" + roomId + "\"}");
+            guest.await(MessageType.ROOM_JOINED, REPLY_TIMEOUT);
+            host.send(MessageType.START_GAME, "{}");
+            host.await(MessageType.GAME_STARTING, REPLY_TIMEOUT);
+            guest.await(MessageType.GAME_STARTING, REPLY_TIMEOUT);
+        } finally {
+            recorder.close();
+            system.terminate();
+            system.getWhenTerminated().toCompletableFuture().join();
+        }
+
+        CommandReplay.Result result = CommandReplay.run(file, CommandReplay.Mode.FAST);
+
+        // HELLO ×2, CREATE_ROOM, JOIN_ROOM (with the recorded room id), START_GAME
+        assertEquals(5, result.commands());
+        assertEquals(2, result.gameStartingFrames());
+        assertEquals(Map.of(), result.errors(), "the replayed lobby must accept the recorded room id");
+        assertTrue(result.frames() >= 7, "WELCOME ×2, ROOM_JOINED ×2, GAME_STARTING ×2, ... but got " + result.frames());
+    }
+
+    @Test
+    void inGameCommandRightAfterStartGameIsApplied(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("start-and-move.pgr");
+        CommandRecorder recorder = CommandRecorder.open(file);
+        ActorSystem<LobbyActor.Command> system = ActorSystem.create(
+                LobbyActor.create(new SpectatorDirectory(), new AdminDirectory(), new ChatDirectory(),
+                        GameArchive.disabled(), new RatingService(), TimerWheel.getInstance(),
+                        () -> recorder.roomCreated(Ids.next())),
+                "powergrid-recording");
+        try {
+            TestConnection host = connect(system, recorder, "host");
+            TestConnection guest = connect(system, recorder, "guest");
+            host.send(MessageType.CREATE_ROOM, "{\"roomName\":\"quick\"}");
+            String roomId = JsonMapper.getInstance().readTree(host.await(MessageType.ROOM_JOINED, REPLY_TIMEOUT))
+                    .path("payload").path("roomId").asText();
+            guest.send(MessageType.JOIN_ROOM, "{\"roomId\":\"" + roomId + "\"}");
+            guest.await(MessageType.ROOM_JOINED, REPLY_TIMEOUT);
+            host.send(MessageType.START_GAME, "{}");
+            String state = host.await(MessageType.GAME_STATE_UPDATE, REPLY_TIMEOUT);
+            guest.await(MessageType.GAME_STATE_UPDATE, REPLY_TIMEOUT);
+            TestConnection current = state.contains("\"currentPlayerId\":\"" + Ids.format(host.playerId) + "\"")
+                    ? host : guest;
+            TestConnection other = current == host ? guest : host;
+            current.send(MessageType.END_TURN, "{}");
+            other.awaitAny(REPLY_TIMEOUT, MessageType.GAME_STATE_UPDATE, MessageType.GAME_STATE_DELTA);
+        } finally {
+            recorder.close();
+            system.terminate();
+            system.getWhenTerminated().toCompletableFuture().join();
+        }
+
+        // In FAST mode END_TURN follows START_GAME at once; it must wait for the game, not be dropped
+        CommandReplay.Result result = CommandReplay.run(file, CommandReplay.Mode.FAST);
+
+        assertEquals(6, result.commands());
+        assertEquals(Map.of(), result.errors());
+        assertEquals(4, result.stateFrames(), "a state per seat at the start and again after END_TURN");
+    }
+}
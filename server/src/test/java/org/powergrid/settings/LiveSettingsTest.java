@@ -0,0 +1,54 @@
+package org.powergrid.settings;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.Test;
+import org.powergrid.model.RoomState;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveSettingsTest {
+
+    @Test
+    void missingKeysKeepTheDefaults() {
+        Limits limits = Limits.fromConfig(ConfigFactory.parseString("powergrid.limits.out-queue-size = 64"));
+
+        assertEquals(64, limits.outQueueSize());
+        assertEquals(RoomState.MAX_PLAYERS, limits.maxRoomPlayers());
+        assertEquals(Limits.DEFAULT.frameReadTimeout(), limits.frameReadTimeout());
+        assertEquals(Duration.ofSeconds(60), limits.timeouts().forPhase("AUCTION"));
+    }
+
+    @Test
+    void outOfRangeLimitsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () ->
+                Limits.fromConfig(ConfigFactory.parseString("powergrid.limits.max-room-players = 7")));
+        assertThrows(IllegalArgumentException.class, () ->
+                Limits.fromConfig(ConfigFactory.parseString("powergrid.limits.frame-read-timeout = 0s")));
+    }
+
+    @Test
+    void reloadNotifiesSubscribersAndSurvivesBadConfig() {
+        AtomicReference<Config> file = new AtomicReference<>(ConfigFactory.parseString(
+                "powergrid { limits.max-room-players = 4, timeouts.auction = 30s }"));
+        LiveSettings settings = new LiveSettings(Limits.DEFAULT, file::get);
+        List<Limits> seen = new ArrayList<>();
+        settings.subscribe(seen::add);
+
+        Limits reloaded = settings.reload();
+        assertSame(reloaded, settings.get());
+        assertEquals(List.of(reloaded), seen);
+        assertEquals(4, settings.get().maxRoomPlayers());
+        assertEquals(Duration.ofSeconds(30), settings.get().timeouts().forPhase("AUCTION"));
+
+        file.set(ConfigFactory.parseString("powergrid.limits.out-queue-size = -1"));
+        assertThrows(IllegalArgumentException.class, settings::reload);
+        assertSame(reloaded, settings.get()); // a rejected reload changes nothing
+        assertEquals(1, seen.size());
+    }
+}
@@ -0,0 +1,122 @@
+package org.powergrid.spectator;
+
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.http.javadsl.model.ws.Message;
+import org.apache.pekko.stream.Materializer;
+import org.apache.pekko.stream.SystemMaterializer;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpectatorFeedTest {
+
+    static ActorTestKit testKit;
+    static Materializer mat;
+
+    @BeforeAll
+    static void setup() {
+        testKit = ActorTestKit.create();
+        mat = SystemMaterializer.get(testKit.system()).materializer();
+    }
+
+    @AfterAll
+    static void teardown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void lateSpectatorReceivesLatestSnapshotFirst() throws Exception {
+        SpectatorFeed feed = new SpectatorFeed(mat, Duration.ZERO);
+        feed.publish("{\"type\":\"GAME_STATE_UPDATE\",\"payload\":{\"round\":1}}", true);
+        feed.publish("{\"type\":\"GAME_STATE_UPDATE\",\"payload\":{\"round\":2}}", true);
+
+        List<Message> received = feed.subscribe(false)
+                .take(1)
+                .runWith(Sink.seq(), mat)
+                .toCompletableFuture()
+                .get(3, TimeUnit.SECONDS);
+
+        assertEquals(1, received.size());
+        assertTrue(received.get(0).asTextMessage().getStrictText().contains("\"round\":2"));
+    }
+
+    @Test
+    void framesPublishedBeforeAnyoneWatchesAreNotReplayed() throws Exception {
+        SpectatorFeed feed = new SpectatorFeed(mat, Duration.ZERO);
+        feed.publish("{\"type\":\"GAME_STATE_UPDATE\",\"payload\":{\"round\":1}}", true);
+        feed.publish("{\"type\":\"GAME_STATE_DELTA\",\"payload\":{\"round\":1}}", false);
+        feed.publish("{\"type\":\"GAME_STATE_UPDATE\",\"payload\":{\"round\":2}}", true);
+
+        var received = feed.subscribe(false)
+                .take(2)
+                .runWith(Sink.seq(), mat)
+                .toCompletableFuture();
+        // The hub registers the spectator asynchronously; keep publishing until a live frame arrives
+        for (int i = 0; i < 150 && !received.isDone(); i++) {
+            feed.publish("{\"type\":\"GAME_STATE_DELTA\",\"payload\":{\"round\":3}}", false);
+            Thread.sleep(20);
+        }
+
+        List<Message> frames = received.get(3, TimeUnit.SECONDS);
+        assertTrue(frames.get(0).asTextMessage().getStrictText().contains("\"round\":2"));
+        assertTrue(frames.get(1).asTextMessage().getStrictText().contains("\"round\":3"),
+                "the frame after the snapshot is live, not an older one");
+    }
+
+    @Test
+    void firstDelayedSpectatorGetsNoBacklog() throws Exception {
+        SpectatorFeed feed = new SpectatorFeed(mat, Duration.ofMillis(100));
+        for (int i = 0; i < 10; i++) {
+            feed.publish("{\"type\":\"GAME_STATE_DELTA\",\"payload\":{\"round\":1}}", false);
+        }
+        Thread.sleep(500); // well past the delay: nobody watched those frames, so they are gone
+
+        var received = feed.subscribe(true)
+                .take(1)
+                .runWith(Sink.seq(), mat)
+                .toCompletableFuture();
+        for (int i = 0; i < 150 && !received.isDone(); i++) {
+            feed.publish("{\"type\":\"GAME_STATE_DELTA\",\"payload\":{\"round\":2}}", false);
+            Thread.sleep(20);
+        }
+
+        List<Message> frames = received.get(3, TimeUnit.SECONDS);
+        assertTrue(frames.get(0).asTextMessage().getStrictText().contains("\"round\":2"),
+                "the first delayed frame was published after the spectator joined");
+    }
+
+    @Test
+    void completingFeedEndsSpectatorStreams() throws Exception {
+        SpectatorFeed feed = new SpectatorFeed(mat, Duration.ZERO);
+        var done = feed.subscribe(false).runWith(Sink.ignore(), mat);
+
+        feed.complete();
+
+        done.toCompletableFuture().get(3, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void delayedFeedIsOptional() {
+        assertNull(new SpectatorFeed(mat, Duration.ZERO).subscribe(true));
+        assertNotNull(new SpectatorFeed(mat, Duration.ofSeconds(30)).subscribe(true));
+    }
+
+    @Test
+    void directoryLookupByRoomId() {
+        SpectatorDirectory directory = new SpectatorDirectory();
+        SpectatorFeed feed = new SpectatorFeed(mat, Duration.ZERO);
+
+        directory.register(42L, feed);
+        assertSame(feed, directory.find(42L));
+
+        directory.remove(42L, feed);
+        assertNull(directory.find(42L));
+    }
+}
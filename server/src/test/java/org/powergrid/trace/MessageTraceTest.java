@@ -0,0 +1,84 @@
+package org.powergrid.trace;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.powergrid.protocol.MessageType;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageTraceTest {
+
+    @Test
+    void nothingIsTracedWhileNotRecording() {
+        FrameReceivedEvent received = new FrameReceivedEvent();
+        received.begin();
+        long id = received.finish(42);
+
+        assertEquals(MessageTrace.NONE_ID, id);
+        assertSame(MessageTrace.NONE, MessageTrace.of(id, MessageType.LIST_ROOMS));
+    }
+
+    @Test
+    void stagesOfOneMessageShareItsCorrelationId(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("trace.jfr");
+        long id;
+        try (Recording recording = new Recording()) {
+            recording.enable(FrameReceivedEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(MessageHandledEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+
+            FrameReceivedEvent received = new FrameReceivedEvent();
+            received.begin();
+            id = received.finish(17);
+            MessageTrace trace = MessageTrace.of(id, MessageType.JOIN_ROOM);
+
+            MessageHandledEvent handled = new MessageHandledEvent();
+            handled.start(trace);
+            handled.finish(trace, "lobby");
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        assertNotEquals(MessageTrace.NONE_ID, id);
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent frame = events.stream()
+                .filter(e -> e.getEventType().getName().equals("org.powergrid.FrameReceived"))
+                .findFirst().orElseThrow();
+        RecordedEvent handled = events.stream()
+                .filter(e -> e.getEventType().getName().equals("org.powergrid.MessageHandled"))
+                .findFirst().orElseThrow();
+
+        assertEquals(id, frame.getLong("correlationId"));
+        assertEquals(17, frame.getLong("bytes"));
+        assertEquals(id, handled.getLong("correlationId"));
+        assertEquals("JOIN_ROOM", handled.getString("messageType"));
+        assertEquals("lobby", handled.getString("actor"));
+    }
+
+    @Test
+    void untracedMessagesAreNotRecorded(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("untraced.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(MessageHandledEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+
+            MessageHandledEvent handled = new MessageHandledEvent();
+            handled.start(MessageTrace.NONE);
+            handled.finish(MessageTrace.NONE, "game");
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        assertTrue(RecordingFile.readAllEvents(file).stream()
+                .noneMatch(e -> e.getEventType().getName().equals("org.powergrid.MessageHandled")));
+    }
+}
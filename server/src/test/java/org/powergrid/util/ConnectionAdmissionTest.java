@@ -0,0 +1,81 @@
+package org.powergrid.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.powergrid.util.ConnectionAdmission.Decision.*;
+
+class ConnectionAdmissionTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    private ConnectionAdmission admission(int max, double rate, int burst) {
+        return new ConnectionAdmission(max, rate, burst, Duration.ofSeconds(5), now::get);
+    }
+
+    @Test
+    void rejectsAtCapacityUntilASlotIsReleased() {
+        ConnectionAdmission admission = admission(2, 1000, 1000);
+
+        assertEquals(ADMITTED, admission.tryAdmit());
+        assertTrue(admission.acquire());
+        assertEquals(ADMITTED, admission.tryAdmit());
+        assertTrue(admission.acquire());
+        assertEquals(AT_CAPACITY, admission.tryAdmit());
+        assertEquals(2, admission.openConnections());
+
+        admission.release();
+        assertEquals(ADMITTED, admission.tryAdmit());
+    }
+
+    @Test
+    void screeningHoldsNoSlotUntilTheSocketStarts() {
+        ConnectionAdmission admission = admission(1, 1000, 1000);
+
+        assertEquals(ADMITTED, admission.tryAdmit());
+        assertEquals(ADMITTED, admission.tryAdmit());
+        assertEquals(0, admission.openConnections(), "an upgrade that never starts must not leak a slot");
+
+        assertTrue(admission.acquire());
+        assertFalse(admission.acquire(), "the second screened socket lost the race for the last slot");
+        assertEquals(1, admission.openConnections());
+    }
+
+    @Test
+    void burstIsFollowedByTheSteadyRate() {
+        ConnectionAdmission admission = admission(100, 10, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ADMITTED, admission.tryAdmit());
+            assertTrue(admission.acquire());
+        }
+        assertEquals(RATE_LIMITED, admission.tryAdmit());
+        assertEquals(3, admission.openConnections(), "rate-limited attempts must not hold a slot");
+
+        now.addAndGet(Duration.ofMillis(100).toNanos());
+        assertEquals(ADMITTED, admission.tryAdmit());
+        assertEquals(RATE_LIMITED, admission.tryAdmit());
+    }
+
+    @Test
+    void tokensNeverExceedTheBurst() {
+        ConnectionAdmission admission = admission(100, 10, 3);
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        assertEquals(3, admission.availableTokens());
+    }
+
+    @Test
+    void retryAfterReflectsTheReason() {
+        ConnectionAdmission admission = admission(1, 0.25, 1);
+        assertEquals(ADMITTED, admission.tryAdmit());
+        assertEquals(RATE_LIMITED, admission.tryAdmit());
+
+        assertEquals(4, admission.retryAfterSeconds(RATE_LIMITED));
+        long full = admission.retryAfterSeconds(AT_CAPACITY);
+        assertTrue(full >= 5 && full < 10, "jittered retry: " + full);
+    }
+}
@@ -0,0 +1,40 @@
+package org.powergrid.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdsTest {
+
+    @Test
+    void idsArePositiveIncreasingAndRoundTrip() {
+        long a = Ids.next();
+        long b = Ids.next();
+        assertTrue(a > 0);
+        assertTrue(b > a);
+        assertEquals(b, Ids.parse(Ids.format(b)));
+        assertEquals(Ids.NONE, Ids.parse("-1"));
+        assertEquals(Ids.NONE, Ids.parse("not an id!"));
+    }
+
+    @Test
+    void nodesStampTheirIds() {
+        try {
+            Ids.useNode(Ids.MAX_NODE);
+            long id = Ids.next();
+            assertEquals(Ids.MAX_NODE, Ids.nodeOf(id));
+
+            Ids.useNode(0x1234);
+            long other = Ids.next();
+            assertEquals(0x1234, Ids.nodeOf(other));
+        } finally {
+            Ids.useNode(0);
+        }
+    }
+
+    @Test
+    void nodeIdsOutOfRangeAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Ids.useNode(-1));
+        assertThrows(IllegalArgumentException.class, () -> Ids.useNode(Ids.MAX_NODE + 1));
+    }
+}
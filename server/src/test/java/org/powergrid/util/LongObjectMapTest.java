@@ -0,0 +1,89 @@
+package org.powergrid.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongObjectMapTest {
+
+    @Test
+    void putGetRemove() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertNull(map.put(7L, "a"));
+        assertEquals("a", map.put(7L, "b"));
+        assertEquals("b", map.get(7L));
+        assertTrue(map.containsKey(7L));
+        assertEquals("b", map.remove(7L));
+        assertNull(map.get(7L));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void reservedKeyIsRejected() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertThrows(IllegalArgumentException.class, () -> map.put(Ids.NONE, "x"));
+        assertNull(map.get(Ids.NONE));
+        assertFalse(map.containsKey(Ids.NONE));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomChurn() {
+        Random random = new Random(42);
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        Map<Long, Long> reference = new HashMap<>();
+
+        // A narrow key range forces collisions, long probe runs and backward-shift deletes.
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(4096);
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(key), map.remove(key));
+            } else {
+                long value = random.nextLong();
+                assertEquals(reference.put(key, value), map.put(key, value));
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        for (long key = 1; key <= 4096; key++) {
+            assertEquals(reference.get(key), map.get(key), "key " + key);
+        }
+        int[] visited = {0};
+        map.forEach((value, key) -> {
+            assertEquals(reference.get(key), value);
+            visited[0]++;
+        });
+        assertEquals(reference.size(), visited[0]);
+    }
+
+    @Test
+    void longLongMapReportsMissingAsNone() {
+        LongLongMap map = new LongLongMap();
+        for (long id = 1; id <= 1000; id++) {
+            map.put(id, id * 10);
+        }
+        for (long id = 1; id <= 1000; id += 2) {
+            map.remove(id);
+        }
+        assertEquals(500, map.size());
+        assertEquals(Ids.NONE, map.get(1));
+        assertEquals(20L, map.get(2));
+        assertEquals(10_000L, map.get(1000));
+    }
+
+    @Test
+    void idsRoundTripThroughWireForm() {
+        long id = Ids.next();
+        assertTrue(id > 0);
+        assertNotEquals(id, Ids.next());
+        assertEquals(id, Ids.parse(Ids.format(id)));
+        assertEquals(Ids.NONE, Ids.parse(null));
+        assertEquals(Ids.NONE, Ids.parse(""));
+        assertEquals(Ids.NONE, Ids.parse("not-an-id"));
+        assertEquals(Ids.NONE, Ids.parse("-5"));
+        assertEquals(Ids.NONE, Ids.parse("zzzzzzzzzzzzzzzz"));
+    }
+}
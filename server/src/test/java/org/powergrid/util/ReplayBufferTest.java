@@ -0,0 +1,71 @@
+package org.powergrid.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayBufferTest {
+
+    @Test
+    void sequenceNumbersStartAtOne() {
+        ReplayBuffer buffer = new ReplayBuffer(4);
+        assertEquals(0, buffer.lastSeq());
+        assertEquals(1, buffer.append("a"));
+        assertEquals(2, buffer.append("b"));
+        assertEquals(2, buffer.lastSeq());
+    }
+
+    @Test
+    void sinceReturnsOnlyMissedFrames() {
+        ReplayBuffer buffer = new ReplayBuffer(4);
+        buffer.append("a");
+        buffer.append("b");
+        buffer.append("c");
+
+        assertEquals(List.of("b", "c"), buffer.since(1));
+        assertEquals(List.of("a", "b", "c"), buffer.since(0));
+        assertTrue(buffer.since(3).isEmpty(), "Client is up to date");
+    }
+
+    @Test
+    void sinceReturnsNullOnceFramesAreOverwritten() {
+        ReplayBuffer buffer = new ReplayBuffer(3);
+        for (String f : List.of("a", "b", "c", "d", "e")) {
+            buffer.append(f);
+        }
+
+        assertEquals(List.of("c", "d", "e"), buffer.since(2));
+        assertNull(buffer.since(1), "Frame 2 was overwritten");
+    }
+
+    @Test
+    void sinceRejectsSequenceFromTheFuture() {
+        ReplayBuffer buffer = new ReplayBuffer(3);
+        buffer.append("a");
+
+        assertNull(buffer.since(5));
+        assertNull(buffer.since(-1));
+    }
+
+    @Test
+    void storageGrowsOnlyAsFramesArrive() {
+        ReplayBuffer buffer = new ReplayBuffer(20);
+        assertEquals(ReplayBuffer.INITIAL_SLOTS, buffer.allocated());
+
+        for (int i = 1; i <= 12; i++) {
+            buffer.append("f" + i);
+        }
+        assertEquals(16, buffer.allocated());
+        assertEquals(List.of("f1", "f2", "f3"), buffer.since(0).subList(0, 3));
+
+        for (int i = 13; i <= 25; i++) {
+            buffer.append("f" + i);
+        }
+        assertEquals(20, buffer.allocated());
+        assertEquals(List.of("f24", "f25"), buffer.since(23));
+        assertNull(buffer.since(4), "Frame 5 was overwritten");
+        assertEquals(20, buffer.since(5).size());
+    }
+}
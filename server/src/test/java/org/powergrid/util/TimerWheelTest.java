@@ -0,0 +1,94 @@
+package org.powergrid.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    private static final long TICK = Duration.ofMillis(100).toNanos();
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final TimerWheel wheel = new TimerWheel(Duration.ofMillis(100), 8, now::get);
+
+    private int advanceBy(Duration d) {
+        return wheel.advance(now.addAndGet(d.toNanos()));
+    }
+
+    @Test
+    void firesOnlyOnceDeadlineHasPassed() {
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(Duration.ofMillis(350), () -> fired.add("a"));
+
+        advanceBy(Duration.ofMillis(300));
+        assertTrue(fired.isEmpty());
+
+        advanceBy(Duration.ofMillis(100));
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void deadlinesBeyondOneRotationWaitForTheirRound() {
+        // 8 slots × 100ms = 800ms per rotation; 2.05s needs two extra rounds.
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(Duration.ofMillis(2050), () -> fired.add("late"));
+        wheel.schedule(Duration.ofMillis(50), () -> fired.add("early"));
+
+        advanceBy(Duration.ofMillis(1000));
+        assertEquals(List.of("early"), fired);
+
+        advanceBy(Duration.ofMillis(1000));
+        assertEquals(List.of("early"), fired);
+
+        advanceBy(Duration.ofMillis(100));
+        assertEquals(List.of("early", "late"), fired);
+    }
+
+    @Test
+    void cancelledTimeoutsNeverRun() {
+        List<String> fired = new ArrayList<>();
+        TimerWheel.Timeout t = wheel.schedule(Duration.ofMillis(200), () -> fired.add("x"));
+        assertEquals(1, wheel.pending());
+
+        assertTrue(t.cancel());
+        assertFalse(t.cancel());
+        assertEquals(0, wheel.pending());
+
+        advanceBy(Duration.ofSeconds(2));
+        assertTrue(fired.isEmpty());
+        assertTrue(t.isCancelled());
+    }
+
+    @Test
+    void expirationsInTheSameTickAreDeliveredTogether() {
+        List<Integer> fired = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int n = i;
+            wheel.schedule(Duration.ofNanos(TICK * 3 + i), () -> fired.add(n));
+        }
+        assertEquals(0, advanceBy(Duration.ofMillis(300)));
+        assertEquals(1000, advanceBy(Duration.ofMillis(100)));
+        assertEquals(1000, fired.size());
+    }
+
+    @Test
+    void rescheduleChurnLeavesNothingBehind() {
+        int[] fired = {0};
+        TimerWheel.Timeout current = null;
+        for (int turn = 0; turn < 10_000; turn++) {
+            if (current != null) current.cancel();
+            current = wheel.schedule(Duration.ofSeconds(120), () -> fired[0]++);
+            if (turn % 100 == 0) advanceBy(Duration.ofMillis(100));
+        }
+        assertEquals(1, wheel.pending());
+        advanceBy(Duration.ofSeconds(121));
+        assertEquals(1, fired[0]);
+        assertEquals(0, wheel.pending());
+    }
+}